@@ -1,13 +1,39 @@
 package com.joel.recipes;
 
+import com.joel.recipes.cli.RecipeExportRunner;
+import org.springframework.boot.Banner;
 import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
 
 @SpringBootApplication
 public class RecipesApplication {
+    /*
+        An export runs as a one-off command, then exits: without the web server, the index builds or the scheduled
+        jobs. When the export is written to standard output, nothing else may be, so the banner and console
+        logging are turned off too
+     */
     public static void main(String[] args) {
-        SpringApplication.run(RecipesApplication.class, args);
-
+        SpringApplication application = new SpringApplication(RecipesApplication.class);
+        boolean export = RecipeExportRunner.isExport(args);
+        if (export) {
+            application.setWebApplicationType(WebApplicationType.NONE);
+            // Command-line arguments take precedence over application.properties
+            List<String> exportArgs = new ArrayList<>(List.of(args));
+            exportArgs.add("--indexes.build-on-startup=false");
+            exportArgs.add("--scheduling.enabled=false");
+            if (RecipeExportRunner.writesToStandardOutput(args)) {
+                application.setBannerMode(Banner.Mode.OFF);
+                exportArgs.add("--logging.threshold.console=OFF");
+            }
+            args = exportArgs.toArray(String[]::new);
+        }
+        ConfigurableApplicationContext context = application.run(args);
+        if (export) System.exit(SpringApplication.exit(context));
     }
 
 }
@@ -0,0 +1,101 @@
+package com.joel.recipes.cli;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.joel.recipes.exception.UnsupportedExportFormatException;
+import com.joel.recipes.service.RecipeExportService;
+import com.joel.recipes.util.export.ExportFormat;
+import com.joel.recipes.util.export.RecipeExportWriter;
+import lombok.extern.java.Log;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+
+/*
+    Command-line export, for running the export next to the database instead of through the API:
+        java -jar recipes.jar --export=recipes.csv --export-format=csv --export-from=2024-01-01T00:00:00Z
+    --export is the output file, or - for standard output; --export-format defaults to ndjson and
+    --export-from/--export-to are optional ISO-8601 instants. The web server is not started, and nothing but the
+    export is written to standard output, see RecipesApplication
+ */
+@Component
+@Log
+public class RecipeExportRunner implements ApplicationRunner {
+    public static final String EXPORT_OPTION = "export";
+
+    private final RecipeExportService recipeExportService;
+    private final ObjectMapper objectMapper;
+
+    public RecipeExportRunner(RecipeExportService recipeExportService, ObjectMapper objectMapper) {
+        this.recipeExportService = recipeExportService;
+        this.objectMapper = objectMapper;
+    }
+
+    public static boolean isExport(String[] args) {
+        for (String arg : args) {
+            if (arg.equals("--" + EXPORT_OPTION) || arg.startsWith("--" + EXPORT_OPTION + "=")) return true;
+        }
+        return false;
+    }
+
+    public static boolean writesToStandardOutput(String[] args) {
+        for (String arg : args) {
+            if (arg.equals("--" + EXPORT_OPTION) || arg.equals("--" + EXPORT_OPTION + "=-")) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException, UnsupportedExportFormatException {
+        if (!args.containsOption(EXPORT_OPTION)) return;
+
+        String output = option(args, EXPORT_OPTION, "-");
+        ExportFormat format = ExportFormat.of(option(args, "export-format", "ndjson"));
+        Instant from = instant(option(args, "export-from", null));
+        Instant to = instant(option(args, "export-to", null));
+
+        long start = System.nanoTime();
+        long exported;
+        try (OutputStream out = output.equals("-") ? nonClosing(System.out) : new BufferedOutputStream(Files.newOutputStream(Path.of(output)));
+             RecipeExportWriter writer = format.open(this.objectMapper, out)) {
+            exported = this.recipeExportService.exportRecipes(from, to, recipe -> {
+                try {
+                    writer.write(recipe);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        log.info(String.format("Exported %d recipes in %d ms", exported, (System.nanoTime() - start) / 1_000_000));
+    }
+
+    private static String option(ApplicationArguments args, String name, String defaultValue) {
+        List<String> values = args.getOptionValues(name);
+        return Objects.isNull(values) || values.isEmpty() ? defaultValue : values.get(0);
+    }
+
+    private static Instant instant(String value) {
+        return Objects.isNull(value) ? null : Instant.parse(value);
+    }
+
+    // Standard output must stay open for the rest of the application's logging
+    private static OutputStream nonClosing(PrintStream stdout) {
+        return new FilterOutputStream(stdout) {
+            @Override
+            public void write(byte[] b, int off, int len) {
+                stdout.write(b, off, len);
+            }
+
+            @Override
+            public void close() {
+                stdout.flush();
+            }
+        };
+    }
+}
@@ -0,0 +1,85 @@
+package com.joel.recipes.config.security;
+
+import com.joel.recipes.exception.PasswordHashingUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.*;
+
+/*
+    Runs a slow password encoder on its own fixed number of threads, fed by a bounded queue. Hashing is meant to
+    be expensive, so a burst of logins on request threads would take every core and starve cheap requests; here
+    at most one hash per worker runs at once, and once the queue is full callers are turned away at once with
+    PasswordHashingUnavailableException instead of waiting behind it. Request threads still wait for their own
+    hash, but they wait without taking a core
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+
+    private final Timer queueWait;
+    private final Timer hashingTime;
+    private final Counter rejected;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int workers, int queueCapacity, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("password-hashing-"), new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("security.password.hashing.queue.depth", this.executor, executor -> executor.getQueue().size()).register(meterRegistry);
+        Gauge.builder("security.password.hashing.active", this.executor, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+        this.queueWait = Timer.builder("security.password.hashing.queue.wait").publishPercentiles(0.5, 0.99).register(meterRegistry);
+        this.hashingTime = Timer.builder("security.password.hashing.duration").publishPercentiles(0.5, 0.99).register(meterRegistry);
+        this.rejected = meterRegistry.counter("security.password.hashing.rejected");
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return this.run(() -> this.delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return this.run(() -> this.delegate.matches(rawPassword, encodedPassword));
+    }
+
+    // Only reads the stored hash, so it stays on the caller's thread
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return this.delegate.upgradeEncoding(encodedPassword);
+    }
+
+    // Called by Spring when the context closes
+    public void shutdown() {
+        this.executor.shutdownNow();
+    }
+
+    private <T> T run(Callable<T> hashing) {
+        long enqueuedAt = System.nanoTime();
+        Future<T> result;
+        try {
+            result = this.executor.submit(() -> {
+                this.queueWait.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+                return this.hashingTime.recordCallable(hashing);
+            });
+        } catch (RejectedExecutionException e) {
+            this.rejected.increment();
+            throw new PasswordHashingUnavailableException();
+        }
+
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingUnavailableException();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.joel.recipes.config.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimNames;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.Objects;
+
+/*
+    Clients send the same access token with every request until it expires, so verifying it once is enough.
+    Verified tokens are cached by the SHA-256 of their value until their exp, together with the authorities
+    they grant, within a bounded number of entries. A token that fails verification is never cached.
+    This is also the authentication converter, so that a cached token is not converted again either; the
+    authentication itself is built per request, because the provider attaches request details to it
+ */
+public class CachingJwtDecoder implements JwtDecoder, Converter<Jwt, AbstractAuthenticationToken> {
+    private final JwtDecoder delegate;
+    private final Converter<Jwt, Collection<GrantedAuthority>> authoritiesConverter;
+    private final Cache<String, VerifiedJwt> verifiedJwts;
+
+    private record VerifiedJwt(Jwt jwt, Collection<GrantedAuthority> authorities) {
+    }
+
+    public CachingJwtDecoder(JwtDecoder delegate,
+                             Converter<Jwt, Collection<GrantedAuthority>> authoritiesConverter,
+                             long maximumSize,
+                             MeterRegistry meterRegistry) {
+        this(delegate, authoritiesConverter, maximumSize, Clock.systemUTC(), Ticker.systemTicker());
+        // Exposes cache.gets (hit/miss), cache.evictions and cache.size tagged cache=jwts
+        CaffeineCacheMetrics.monitor(meterRegistry, this.verifiedJwts, "jwts");
+    }
+
+    CachingJwtDecoder(JwtDecoder delegate,
+                      Converter<Jwt, Collection<GrantedAuthority>> authoritiesConverter,
+                      long maximumSize,
+                      Clock clock,
+                      Ticker ticker) {
+        this.delegate = delegate;
+        this.authoritiesConverter = authoritiesConverter;
+        this.verifiedJwts = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new UntilExpiry(clock))
+                .ticker(ticker)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        // A failed verification throws out of the loader, which leaves nothing in the cache
+        return this.verifiedJwts.get(digestOf(token), key -> this.verify(token)).jwt();
+    }
+
+    @Override
+    public AbstractAuthenticationToken convert(Jwt jwt) {
+        VerifiedJwt verified = this.verifiedJwts.getIfPresent(digestOf(jwt.getTokenValue()));
+        Collection<GrantedAuthority> authorities = Objects.nonNull(verified) && verified.jwt() == jwt
+                ? verified.authorities()
+                : this.authoritiesConverter.convert(jwt);
+        return new JwtAuthenticationToken(jwt, authorities, jwt.getClaimAsString(JwtClaimNames.SUB));
+    }
+
+    private VerifiedJwt verify(String token) {
+        Jwt jwt = this.delegate.decode(token);
+        return new VerifiedJwt(jwt, this.authoritiesConverter.convert(jwt));
+    }
+
+    private static String digestOf(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Tokens without an expiry are not kept at all
+    private record UntilExpiry(Clock clock) implements Expiry<String, VerifiedJwt> {
+        @Override
+        public long expireAfterCreate(String key, VerifiedJwt value, long currentTime) {
+            Instant expiresAt = value.jwt().getExpiresAt();
+            if (Objects.isNull(expiresAt)) return 0;
+            return Math.max(Duration.between(this.clock.instant(), expiresAt).toNanos(), 0);
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedJwt value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedJwt value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
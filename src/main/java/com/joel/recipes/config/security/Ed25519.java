@@ -0,0 +1,123 @@
+package com.joel.recipes.config.security;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.impl.BaseJWSProvider;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.OctetKeyPair;
+import com.nimbusds.jose.util.Base64URL;
+
+import java.math.BigInteger;
+import java.security.*;
+import java.security.interfaces.EdECPrivateKey;
+import java.security.interfaces.EdECPublicKey;
+import java.security.spec.EdECPoint;
+import java.security.spec.EdECPrivateKeySpec;
+import java.security.spec.EdECPublicKeySpec;
+import java.security.spec.NamedParameterSpec;
+import java.util.Set;
+
+/*
+    Ed25519 JWKs (RFC 8037) and JWS signing with the JDK's implementation. A JWK holds the keys in their
+    RFC 8032 encoding, which the JDK only exposes for the private key, so the public point is encoded here
+ */
+final class Ed25519 {
+    static final String ALGORITHM = "Ed25519";
+    private static final int KEY_SIZE = 32;
+
+    private Ed25519() {
+    }
+
+    static OctetKeyPair toJwk(String kid, KeyPair keyPair) {
+        byte[] x = encode(((EdECPublicKey) keyPair.getPublic()).getPoint());
+        byte[] d = ((EdECPrivateKey) keyPair.getPrivate()).getBytes().orElseThrow();
+        return new OctetKeyPair.Builder(Curve.Ed25519, Base64URL.encode(x))
+                .d(Base64URL.encode(d))
+                .keyID(kid)
+                .algorithm(JWSAlgorithm.EdDSA)
+                .keyUse(KeyUse.SIGNATURE)
+                .build();
+    }
+
+    static KeyPair toKeyPair(OctetKeyPair jwk) throws JOSEException {
+        try {
+            KeyFactory keyFactory = KeyFactory.getInstance(ALGORITHM);
+            PublicKey publicKey = keyFactory.generatePublic(new EdECPublicKeySpec(NamedParameterSpec.ED25519, decode(jwk.getDecodedX())));
+            PrivateKey privateKey = keyFactory.generatePrivate(new EdECPrivateKeySpec(NamedParameterSpec.ED25519, jwk.getDecodedD()));
+            return new KeyPair(publicKey, privateKey);
+        } catch (GeneralSecurityException e) {
+            throw new JOSEException("Invalid Ed25519 key " + jwk.getKeyID(), e);
+        }
+    }
+
+    // y in little-endian order, with the lowest bit of x in the top bit of the last byte
+    static byte[] encode(EdECPoint point) {
+        byte[] y = point.getY().toByteArray();
+        byte[] encoded = new byte[KEY_SIZE];
+        for (int i = 0; i < Math.min(y.length, KEY_SIZE); i++) {
+            encoded[i] = y[y.length - 1 - i];
+        }
+        if (point.isXOdd()) encoded[KEY_SIZE - 1] |= (byte) 0x80;
+        return encoded;
+    }
+
+    static EdECPoint decode(byte[] encoded) {
+        byte[] y = new byte[KEY_SIZE];
+        for (int i = 0; i < KEY_SIZE; i++) {
+            y[i] = encoded[KEY_SIZE - 1 - i];
+        }
+        boolean xOdd = (y[0] & 0x80) != 0;
+        y[0] &= 0x7f;
+        return new EdECPoint(xOdd, new BigInteger(1, y));
+    }
+
+    static class Signer extends BaseJWSProvider implements JWSSigner {
+        private final PrivateKey privateKey;
+
+        Signer(PrivateKey privateKey) {
+            super(Set.of(JWSAlgorithm.EdDSA));
+            this.privateKey = privateKey;
+        }
+
+        @Override
+        public Base64URL sign(JWSHeader header, byte[] signingInput) throws JOSEException {
+            try {
+                Signature signature = Signature.getInstance(ALGORITHM);
+                signature.initSign(this.privateKey);
+                signature.update(signingInput);
+                return Base64URL.encode(signature.sign());
+            } catch (GeneralSecurityException e) {
+                throw new JOSEException(e.getMessage(), e);
+            }
+        }
+    }
+
+    static class Verifier extends BaseJWSProvider implements JWSVerifier {
+        private final PublicKey publicKey;
+
+        Verifier(PublicKey publicKey) {
+            super(Set.of(JWSAlgorithm.EdDSA));
+            this.publicKey = publicKey;
+        }
+
+        @Override
+        public boolean verify(JWSHeader header, byte[] signingInput, Base64URL signature) throws JOSEException {
+            if (!JWSAlgorithm.EdDSA.equals(header.getAlgorithm())) throw new JOSEException("Unexpected algorithm " + header.getAlgorithm());
+            try {
+                Signature verifier = Signature.getInstance(ALGORITHM);
+                verifier.initVerify(this.publicKey);
+                verifier.update(signingInput);
+                return verifier.verify(signature.decode());
+            } catch (SignatureException e) {
+                // A malformed signature is just an invalid one
+                return false;
+            } catch (GeneralSecurityException e) {
+                throw new JOSEException(e.getMessage(), e);
+            }
+        }
+    }
+}
@@ -1,21 +1,24 @@
 package com.joel.recipes.config.security;
 
 import com.joel.recipes.model.RoleType;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
 import org.springframework.security.web.SecurityFilterChain;
 
 @Configuration
+// Not needed when the application runs as a command, such as an export, without a web server
+@ConditionalOnWebApplication
 public class FilterChainConfig {
 
-    private final JwtAuthenticationConverter authenticationConverter;
+    private final CachingJwtDecoder jwtDecoder;
 
-    public FilterChainConfig(JwtAuthenticationConverter authenticationConverter) {
-        this.authenticationConverter = authenticationConverter;
+    public FilterChainConfig(CachingJwtDecoder jwtDecoder) {
+        this.jwtDecoder = jwtDecoder;
     }
 
     @Bean
@@ -27,10 +30,18 @@ public class FilterChainConfig {
 
                     auth
                             .requestMatchers("/restricted-url").hasRole(RoleType.USER.name())
+                            .requestMatchers(HttpMethod.POST, "/api/v1/recipe/import").hasRole(RoleType.ADMIN.name())
+                            .requestMatchers(HttpMethod.GET, "/api/v1/recipe/export").hasRole(RoleType.ADMIN.name())
+                            .requestMatchers("/api/v1/favourite/**").authenticated()
+                            .requestMatchers("/api/v1/feed/**").authenticated()
+                            .requestMatchers(HttpMethod.POST, "/api/v1/recipe/*/comment").authenticated()
+                            .requestMatchers(HttpMethod.DELETE, "/api/v1/recipe/*/comment/*").authenticated()
+                            .requestMatchers(HttpMethod.PUT, "/api/v1/recipe/*/image").authenticated()
+                            .requestMatchers(HttpMethod.POST, "/api/v1/recipe/*/image/uploads/**").authenticated()
                             .requestMatchers("/**").permitAll();
 
                 })
-                .oauth2ResourceServer(oauth -> oauth.jwt(jwtCustomizer -> jwtCustomizer.jwtAuthenticationConverter(authenticationConverter)))
+                .oauth2ResourceServer(oauth -> oauth.jwt(jwtCustomizer -> jwtCustomizer.decoder(jwtDecoder).jwtAuthenticationConverter(jwtDecoder)))
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS));
         return http.build();
     }
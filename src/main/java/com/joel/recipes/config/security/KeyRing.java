@@ -0,0 +1,200 @@
+package com.joel.recipes.config.security;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.proc.JWSKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import lombok.extern.java.Log;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.security.*;
+import java.sql.Timestamp;
+import java.text.ParseException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.*;
+
+/*
+    The keys access tokens are signed with, kept in the database so that every instance signs with the same key
+    and accepts tokens signed by the others, and so that tokens outlive restarts.
+    Time is divided into rotation periods, each with its own key: a token is signed with the current period's key
+    and accepted with the key of the period before, the current one or the next. The next period's key is created
+    a whole period ahead, so every instance has loaded it long before anyone signs with it, and keys from before
+    the previous period are deleted. Instances that create the same period's key at once are settled by the unique
+    period; the losers load the winner's key. Private keys are encrypted at rest when a secret is configured
+ */
+@Component
+@Log
+public class KeyRing implements JWSKeySelector<SecurityContext> {
+    private static final String SEALED_PREFIX = "aes-gcm:";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_LENGTH_IN_BITS = 128;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SigningAlgorithm algorithm;
+    private final Duration rotationInterval;
+    private final SecretKey encryptionKey;
+    private final Clock clock;
+    private final SecureRandom random = new SecureRandom();
+
+    private volatile Map<String, LoadedKey> keys = Map.of();
+
+    // A usable key; the public JWK is what the JWKS endpoint publishes
+    public record LoadedKey(String kid, long period, SigningAlgorithm algorithm, PublicKey publicKey, JWK publicJwk, JWSSigner signer) {
+    }
+
+    @Autowired
+    public KeyRing(DataSource dataSource,
+                   @Value("${security.jwt.algorithm}") SigningAlgorithm algorithm,
+                   @Value("${security.jwt.keys.rotation-interval-in-hours}") long rotationIntervalInHours,
+                   @Value("${security.jwt.keys.encryption-secret}") String encryptionSecret) {
+        this(dataSource, algorithm, Duration.ofHours(rotationIntervalInHours), encryptionSecret, Clock.systemUTC());
+    }
+
+    KeyRing(DataSource dataSource, SigningAlgorithm algorithm, Duration rotationInterval, String encryptionSecret, Clock clock) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.algorithm = algorithm;
+        this.rotationInterval = rotationInterval;
+        this.encryptionKey = encryptionSecret.isBlank() ? null : new SecretKeySpec(sha256(encryptionSecret), "AES");
+        this.clock = clock;
+        if (Objects.isNull(this.encryptionKey)) log.warning("security.jwt.keys.encryption-secret is not set, so signing keys are stored unencrypted");
+    }
+
+    public LoadedKey signingKey() {
+        long period = this.currentPeriod();
+        Optional<LoadedKey> key = this.keyFor(period);
+        if (key.isPresent()) return key.get();
+        // Only before the first refresh, or if refreshes have been failing for a whole period
+        this.refresh();
+        return this.keyFor(period).orElseThrow(() -> new IllegalStateException("No signing key for period " + period));
+    }
+
+    // The key a token names in its kid header, if it is one of ours and the token claims the right algorithm
+    @Override
+    public List<PublicKey> selectJWSKeys(JWSHeader header, SecurityContext context) {
+        if (this.keys.isEmpty()) this.refresh();
+        LoadedKey key = this.keys.get(header.getKeyID());
+        if (Objects.isNull(key) || !key.algorithm().jwsAlgorithm().equals(header.getAlgorithm())) return List.of();
+        return List.of(key.publicKey());
+    }
+
+    // Verifies tokens signed with any of the keys in the ring, whatever their algorithm
+    public JwtDecoder jwtDecoder() {
+        DefaultJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
+        jwtProcessor.setJWSKeySelector(this);
+        jwtProcessor.setJWSVerifierFactory(new SigningAlgorithm.VerifierFactory());
+        // Expiry is checked by the decoder's own validators, which allow for clock skew
+        jwtProcessor.setJWTClaimsSetVerifier((claims, context) -> {
+        });
+        return new NimbusJwtDecoder(jwtProcessor);
+    }
+
+    public JWKSet publicJwks() {
+        return new JWKSet(this.keys.values().stream()
+                .sorted(Comparator.comparingLong(LoadedKey::period))
+                .map(LoadedKey::publicJwk)
+                .toList());
+    }
+
+    @Scheduled(fixedDelayString = "${security.jwt.keys.refresh-interval-in-ms}")
+    public synchronized void refresh() {
+        long current = this.currentPeriod();
+        this.jdbcTemplate.update("delete from signing_key where period < ?", current - 1);
+        Map<String, LoadedKey> loaded = this.load(current - 1);
+        Set<Long> periods = new HashSet<>();
+        loaded.values().forEach(key -> periods.add(key.period()));
+        if (periods.contains(current) && periods.contains(current + 1)) {
+            this.keys = loaded;
+            return;
+        }
+        for (long period = current; period <= current + 1; period++) {
+            if (!periods.contains(period)) this.create(period);
+        }
+        this.keys = this.load(current - 1);
+    }
+
+    private Optional<LoadedKey> keyFor(long period) {
+        return this.keys.values().stream().filter(key -> key.period() == period).findFirst();
+    }
+
+    private long currentPeriod() {
+        return Math.floorDiv(this.clock.millis(), this.rotationInterval.toMillis());
+    }
+
+    private Map<String, LoadedKey> load(long fromPeriod) {
+        Map<String, LoadedKey> loaded = new HashMap<>();
+        this.jdbcTemplate.query("select kid, period, algorithm, private_jwk from signing_key where period >= ?", resultSet -> {
+            String kid = resultSet.getString(1);
+            SigningAlgorithm keyAlgorithm = SigningAlgorithm.valueOf(resultSet.getString(3));
+            try {
+                JWK jwk = JWK.parse(this.unseal(resultSet.getString(4)));
+                KeyPair keyPair = keyAlgorithm.toKeyPair(jwk);
+                loaded.put(kid, new LoadedKey(kid, resultSet.getLong(2), keyAlgorithm, keyPair.getPublic(), jwk.toPublicJWK(), keyAlgorithm.signer(keyPair.getPrivate())));
+            } catch (ParseException | JOSEException | GeneralSecurityException e) {
+                throw new IllegalStateException("Could not load signing key " + kid, e);
+            }
+        }, fromPeriod);
+        return Map.copyOf(loaded);
+    }
+
+    private void create(long period) {
+        String kid = UUID.randomUUID().toString();
+        try {
+            JWK jwk = this.algorithm.toJwk(kid, this.algorithm.generate());
+            this.jdbcTemplate.update("insert into signing_key (kid, period, algorithm, created_at, private_jwk) values (?, ?, ?, ?, ?)",
+                    kid, period, this.algorithm.name(), Timestamp.from(this.clock.instant()), this.seal(jwk.toJSONString()));
+            log.info("Created " + this.algorithm + " signing key " + kid + " for period " + period);
+        } catch (DuplicateKeyException e) {
+            // Created by another instance in the meantime, which is just as good
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not create signing key", e);
+        }
+    }
+
+    private String seal(String privateJwk) throws GeneralSecurityException {
+        if (Objects.isNull(this.encryptionKey)) return privateJwk;
+        byte[] iv = new byte[IV_LENGTH];
+        this.random.nextBytes(iv);
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, this.encryptionKey, new GCMParameterSpec(TAG_LENGTH_IN_BITS, iv));
+        byte[] ciphertext = cipher.doFinal(privateJwk.getBytes(StandardCharsets.UTF_8));
+        byte[] sealed = Arrays.copyOf(iv, IV_LENGTH + ciphertext.length);
+        System.arraycopy(ciphertext, 0, sealed, IV_LENGTH, ciphertext.length);
+        return SEALED_PREFIX + Base64.getEncoder().encodeToString(sealed);
+    }
+
+    private String unseal(String stored) throws GeneralSecurityException {
+        if (!stored.startsWith(SEALED_PREFIX)) return stored;
+        if (Objects.isNull(this.encryptionKey)) throw new GeneralSecurityException("Signing key is encrypted but security.jwt.keys.encryption-secret is not set");
+        byte[] sealed = Base64.getDecoder().decode(stored.substring(SEALED_PREFIX.length()));
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, this.encryptionKey, new GCMParameterSpec(TAG_LENGTH_IN_BITS, sealed, 0, IV_LENGTH));
+        return new String(cipher.doFinal(sealed, IV_LENGTH, sealed.length - IV_LENGTH), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] sha256(String secret) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(secret.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
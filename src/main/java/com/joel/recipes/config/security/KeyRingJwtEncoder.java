@@ -0,0 +1,48 @@
+package com.joel.recipes.config.security;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.JwtEncodingException;
+
+import java.time.Instant;
+import java.util.Date;
+
+/*
+    Signs tokens with the KeyRing's current key, with whichever algorithm that key is for, and names the key in
+    the kid header so that verifiers know which one to check it with. Headers in the parameters are not used
+ */
+public class KeyRingJwtEncoder implements JwtEncoder {
+    private final KeyRing keyRing;
+
+    public KeyRingJwtEncoder(KeyRing keyRing) {
+        this.keyRing = keyRing;
+    }
+
+    @Override
+    public Jwt encode(JwtEncoderParameters parameters) throws JwtEncodingException {
+        KeyRing.LoadedKey key = this.keyRing.signingKey();
+        JwtClaimsSet claims = parameters.getClaims();
+        JWSHeader header = new JWSHeader.Builder(key.algorithm().jwsAlgorithm())
+                .keyID(key.kid())
+                .type(JOSEObjectType.JWT)
+                .build();
+        // Nimbus expects the registered time claims as Dates
+        JWTClaimsSet.Builder claimsSet = new JWTClaimsSet.Builder();
+        claims.getClaims().forEach((name, value) -> claimsSet.claim(name, value instanceof Instant instant ? Date.from(instant) : value));
+
+        SignedJWT jwt = new SignedJWT(header, claimsSet.build());
+        try {
+            jwt.sign(key.signer());
+        } catch (JOSEException e) {
+            throw new JwtEncodingException("Could not sign token with key " + key.kid(), e);
+        }
+        return new Jwt(jwt.serialize(), claims.getIssuedAt(), claims.getExpiresAt(), header.toJSONObject(), claims.getClaims());
+    }
+}
@@ -1,24 +0,0 @@
-package com.joel.recipes.config.security;
-
-import lombok.Getter;
-import lombok.Setter;
-import org.springframework.stereotype.Component;
-
-import java.security.KeyPair;
-import java.security.interfaces.RSAPrivateKey;
-import java.security.interfaces.RSAPublicKey;
-
-@Component
-@Getter
-@Setter
-public class RSAKeyProperties {
-
-    private RSAPublicKey publicKey;
-    private RSAPrivateKey privateKey;
-
-    public RSAKeyProperties() {
-        KeyPair keyPair = KeyGeneratorUtility.generateRsaKey();
-        this.publicKey = (RSAPublicKey) keyPair.getPublic();
-        this.privateKey = (RSAPrivateKey) keyPair.getPrivate();
-    }
-}
\ No newline at end of file
@@ -0,0 +1,60 @@
+package com.joel.recipes.config.security;
+
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.AbstractUserDetailsAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Objects;
+
+/*
+    DaoAuthenticationProvider, except that a user the caller has already loaded is authenticated as they are,
+    when the token's principal is the user rather than their name, instead of being loaded again.
+    The account checks are AbstractUserDetailsAuthenticationProvider's and the password is checked, and hashed
+    again when its hash is outdated, the same way DaoAuthenticationProvider does
+ */
+public class ResolvedUserAuthenticationProvider extends AbstractUserDetailsAuthenticationProvider {
+    private final UserDetailsService userDetailsService;
+    private final UserDetailsPasswordService userDetailsPasswordService;
+    private final PasswordEncoder passwordEncoder;
+
+    public ResolvedUserAuthenticationProvider(UserDetailsService userDetailsService, UserDetailsPasswordService userDetailsPasswordService, PasswordEncoder passwordEncoder) {
+        this.userDetailsService = userDetailsService;
+        this.userDetailsPasswordService = userDetailsPasswordService;
+        this.passwordEncoder = passwordEncoder;
+    }
+
+    @Override
+    protected UserDetails retrieveUser(String username, UsernamePasswordAuthenticationToken authentication) {
+        if (authentication.getPrincipal() instanceof UserDetails userDetails) return userDetails;
+        try {
+            return this.userDetailsService.loadUserByUsername(username);
+        } catch (UsernameNotFoundException | InternalAuthenticationServiceException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new InternalAuthenticationServiceException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    protected void additionalAuthenticationChecks(UserDetails userDetails, UsernamePasswordAuthenticationToken authentication) {
+        if (Objects.isNull(authentication.getCredentials())
+                || !this.passwordEncoder.matches(authentication.getCredentials().toString(), userDetails.getPassword())) {
+            throw new BadCredentialsException(this.messages.getMessage("AbstractUserDetailsAuthenticationProvider.badCredentials", "Bad credentials"));
+        }
+    }
+
+    @Override
+    protected Authentication createSuccessAuthentication(Object principal, Authentication authentication, UserDetails user) {
+        if (this.passwordEncoder.upgradeEncoding(user.getPassword())) {
+            user = this.userDetailsPasswordService.updatePassword(user, this.passwordEncoder.encode(authentication.getCredentials().toString()));
+        }
+        return super.createSuccessAuthentication(principal, authentication, user);
+    }
+}
@@ -1,74 +1,68 @@
 package com.joel.recipes.config.security;
 
-import com.nimbusds.jose.jwk.JWK;
-import com.nimbusds.jose.jwk.JWKSet;
-import com.nimbusds.jose.jwk.RSAKey;
-import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
-import com.nimbusds.jose.jwk.source.JWKSource;
-import com.nimbusds.jose.proc.SecurityContext;
+import com.joel.recipes.service.UserEntityService;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.ProviderManager;
-import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
-import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.JwtEncoder;
-import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
-import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
-import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
 import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
 
+import java.util.Map;
+
 
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity
 public class SecurityConfig {
-    private final RSAKeyProperties keys;
+    private final KeyRing keyRing;
 
     @Autowired
-    public SecurityConfig(RSAKeyProperties keys) {
-        this.keys = keys;
+    public SecurityConfig(KeyRing keyRing) {
+        this.keyRing = keyRing;
     }
 
+    /*
+        Hashes are prefixed with the id of the encoder that made them, so the algorithm can change later; hashes from
+        before the prefix are bcrypt. Whenever a password is checked against a hash made with another algorithm or a
+        lower strength, it is hashed again with the current one, see UserEntityServiceImpl.updatePassword
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public BoundedPasswordEncoder passwordEncoder(MeterRegistry meterRegistry,
+                                                  @Value("${security.password.bcrypt-strength}") int strength,
+                                                  @Value("${security.password.hashing.workers}") int workers,
+                                                  @Value("${security.password.hashing.queue-capacity}") int queueCapacity) {
+        DelegatingPasswordEncoder delegatingPasswordEncoder = new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", new BCryptPasswordEncoder(strength)));
+        delegatingPasswordEncoder.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder(strength));
+        if (workers <= 0) workers = Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(delegatingPasswordEncoder, workers, queueCapacity, meterRegistry);
     }
 
     @Bean
     public JwtEncoder jwtEncoder() {
-        JWK jwk = new RSAKey.Builder(keys.getPublicKey()).privateKey(keys.getPrivateKey()).build();
-        JWKSource<SecurityContext> jwks = new ImmutableJWKSet<>(new JWKSet(jwk));
-        return new NimbusJwtEncoder(jwks);
-    }
-
-    @Bean
-    JwtDecoder jwtDecoder() {
-        return NimbusJwtDecoder.withPublicKey(keys.getPublicKey()).build();
-    }
-
-    @Bean
-    public AuthenticationManager restApiAuthenticationManager(@Lazy UserDetailsService detailsService) {
-        DaoAuthenticationProvider daoAuthenticationProvider = new DaoAuthenticationProvider();
-        daoAuthenticationProvider.setUserDetailsService(detailsService);
-        daoAuthenticationProvider.setPasswordEncoder(passwordEncoder());
-        return new ProviderManager(daoAuthenticationProvider);
+        return new KeyRingJwtEncoder(keyRing);
     }
 
+    // Also converts decoded tokens to authentications, see FilterChainConfig
     @Bean
-    public JwtAuthenticationConverter jwtAuthenticationConverter() {
+    CachingJwtDecoder jwtDecoder(MeterRegistry meterRegistry, @Value("${security.jwt.cache.maximum-size}") long maximumSize) {
         JwtGrantedAuthoritiesConverter jwtGrantedAuthoritiesConverter = new JwtGrantedAuthoritiesConverter();
         jwtGrantedAuthoritiesConverter.setAuthoritiesClaimName("roles");
         jwtGrantedAuthoritiesConverter.setAuthorityPrefix("ROLE_");
-        JwtAuthenticationConverter jwtConverter = new JwtAuthenticationConverter();
-        jwtConverter.setJwtGrantedAuthoritiesConverter(jwtGrantedAuthoritiesConverter);
-        return jwtConverter;
+        return new CachingJwtDecoder(keyRing.jwtDecoder(), jwtGrantedAuthoritiesConverter, maximumSize, meterRegistry);
+    }
+
+    @Bean
+    public AuthenticationManager restApiAuthenticationManager(@Lazy UserEntityService userEntityService, PasswordEncoder passwordEncoder) {
+        return new ProviderManager(new ResolvedUserAuthenticationProvider(userEntityService, userEntityService, passwordEncoder));
     }
 }
\ No newline at end of file
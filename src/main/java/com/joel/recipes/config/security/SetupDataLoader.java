@@ -22,10 +22,12 @@ public class SetupDataLoader implements ApplicationListener<ContextRefreshedEven
     @Transactional
     public void onApplicationEvent(ContextRefreshedEvent event) {
         if (alreadySetup) return;
-        if (this.roleRepository.findByAuthority(RoleType.USER.name()).isEmpty()) {
-            Role userRole = new Role();
-            userRole.setAuthority(RoleType.USER.name());
-            this.roleRepository.save(userRole);
+        for (RoleType roleType : RoleType.values()) {
+            if (this.roleRepository.findByAuthority(roleType.name()).isEmpty()) {
+                Role role = new Role();
+                role.setAuthority(roleType.name());
+                this.roleRepository.save(role);
+            }
         }
 
         this.alreadySetup = true;
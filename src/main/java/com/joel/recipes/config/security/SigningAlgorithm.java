@@ -0,0 +1,171 @@
+package com.joel.recipes.config.security;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.crypto.impl.BaseJWSProvider;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.proc.JWSVerifierFactory;
+
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/*
+    The algorithms access tokens can be signed with, chosen with security.jwt.algorithm. Tokens signed with any of
+    them are accepted, so the algorithm can be changed without invalidating tokens already issued; new keys use it
+    from the next rotation on, see KeyRing.
+    RS256 has the cheapest verification, ES256 and EdDSA much cheaper signing and far smaller keys and signatures
+ */
+public enum SigningAlgorithm {
+    RS256(JWSAlgorithm.RS256) {
+        @Override
+        KeyPair generate() {
+            return KeyGeneratorUtility.generateRsaKey();
+        }
+
+        @Override
+        JWK toJwk(String kid, KeyPair keyPair) {
+            return new RSAKey.Builder((RSAPublicKey) keyPair.getPublic())
+                    .privateKey((RSAPrivateKey) keyPair.getPrivate())
+                    .keyID(kid)
+                    .algorithm(this.jwsAlgorithm())
+                    .keyUse(KeyUse.SIGNATURE)
+                    .build();
+        }
+
+        @Override
+        KeyPair toKeyPair(JWK jwk) throws JOSEException {
+            return jwk.toRSAKey().toKeyPair();
+        }
+
+        @Override
+        JWSSigner signer(PrivateKey privateKey) {
+            return new RSASSASigner(privateKey);
+        }
+
+        @Override
+        JWSVerifier verifier(PublicKey publicKey) {
+            return new RSASSAVerifier((RSAPublicKey) publicKey);
+        }
+    },
+    ES256(JWSAlgorithm.ES256) {
+        @Override
+        KeyPair generate() throws GeneralSecurityException {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+            generator.initialize(new ECGenParameterSpec("secp256r1"));
+            return generator.generateKeyPair();
+        }
+
+        @Override
+        JWK toJwk(String kid, KeyPair keyPair) {
+            return new ECKey.Builder(Curve.P_256, (ECPublicKey) keyPair.getPublic())
+                    .privateKey((ECPrivateKey) keyPair.getPrivate())
+                    .keyID(kid)
+                    .algorithm(this.jwsAlgorithm())
+                    .keyUse(KeyUse.SIGNATURE)
+                    .build();
+        }
+
+        @Override
+        KeyPair toKeyPair(JWK jwk) throws JOSEException {
+            return jwk.toECKey().toKeyPair();
+        }
+
+        @Override
+        JWSSigner signer(PrivateKey privateKey) throws JOSEException {
+            return new ECDSASigner((ECPrivateKey) privateKey);
+        }
+
+        @Override
+        JWSVerifier verifier(PublicKey publicKey) throws JOSEException {
+            return new ECDSAVerifier((ECPublicKey) publicKey);
+        }
+    },
+    // Ed25519 through the JDK, since Nimbus needs Tink for it
+    EdDSA(JWSAlgorithm.EdDSA) {
+        @Override
+        KeyPair generate() throws GeneralSecurityException {
+            return KeyPairGenerator.getInstance(Ed25519.ALGORITHM).generateKeyPair();
+        }
+
+        @Override
+        JWK toJwk(String kid, KeyPair keyPair) {
+            return Ed25519.toJwk(kid, keyPair);
+        }
+
+        @Override
+        KeyPair toKeyPair(JWK jwk) throws JOSEException {
+            return Ed25519.toKeyPair(jwk.toOctetKeyPair());
+        }
+
+        @Override
+        JWSSigner signer(PrivateKey privateKey) {
+            return new Ed25519.Signer(privateKey);
+        }
+
+        @Override
+        JWSVerifier verifier(PublicKey publicKey) {
+            return new Ed25519.Verifier(publicKey);
+        }
+    };
+
+    private final JWSAlgorithm jwsAlgorithm;
+
+    SigningAlgorithm(JWSAlgorithm jwsAlgorithm) {
+        this.jwsAlgorithm = jwsAlgorithm;
+    }
+
+    public JWSAlgorithm jwsAlgorithm() {
+        return this.jwsAlgorithm;
+    }
+
+    public static Optional<SigningAlgorithm> of(JWSAlgorithm jwsAlgorithm) {
+        return Arrays.stream(values()).filter(algorithm -> algorithm.jwsAlgorithm.equals(jwsAlgorithm)).findFirst();
+    }
+
+    abstract KeyPair generate() throws GeneralSecurityException;
+
+    // The private JWK; its public part is what is published
+    abstract JWK toJwk(String kid, KeyPair keyPair);
+
+    abstract KeyPair toKeyPair(JWK jwk) throws JOSEException;
+
+    abstract JWSSigner signer(PrivateKey privateKey) throws JOSEException;
+
+    abstract JWSVerifier verifier(PublicKey publicKey) throws JOSEException;
+
+    // Verifies a token with the algorithm its header names and the key KeyRing selected for it
+    static final class VerifierFactory extends BaseJWSProvider implements JWSVerifierFactory {
+        VerifierFactory() {
+            super(Arrays.stream(values()).map(SigningAlgorithm::jwsAlgorithm).collect(Collectors.toSet()));
+        }
+
+        @Override
+        public JWSVerifier createJWSVerifier(JWSHeader header, Key key) throws JOSEException {
+            SigningAlgorithm algorithm = of(header.getAlgorithm()).orElseThrow(() -> new JOSEException("Unsupported algorithm " + header.getAlgorithm()));
+            return algorithm.verifier((PublicKey) key);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.joel.recipes.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.joel.recipes.dto.ApiMessage;
+import com.joel.recipes.dto.CommentPageDto;
+import com.joel.recipes.dto.CommentRequestDto;
+import com.joel.recipes.dto.RecipeCommentDto;
+import com.joel.recipes.exception.*;
+import com.joel.recipes.service.CommentService;
+import com.joel.recipes.util.AuthenticatedUser;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.UUID;
+
+@RestController
+@RequestMapping(value = "${api}" + "recipe/{recipeId}/comment", produces = MediaType.APPLICATION_JSON_VALUE)
+public class CommentController {
+    private static final String NDJSON = "application/x-ndjson";
+
+    private final CommentService commentService;
+    private final ObjectMapper objectMapper;
+
+    public CommentController(CommentService commentService, ObjectMapper objectMapper) {
+        this.commentService = commentService;
+        this.objectMapper = objectMapper;
+    }
+
+    @GetMapping
+    public ResponseEntity<CommentPageDto> findComments(@PathVariable UUID recipeId, @RequestParam(required = false) String cursor, @RequestParam(defaultValue = "20") int size) throws RecipeDoesNotExistException, InvalidCursorException {
+        return new ResponseEntity<>(this.commentService.findComments(recipeId, cursor, size), HttpStatus.OK);
+    }
+
+    /*
+        Every comment of the recipe as newline-delimited JSON, newest first. Comments are written as they are read
+        from the database, so memory use does not depend on how many there are
+     */
+    @GetMapping(value = "/stream", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamComments(@PathVariable UUID recipeId) throws RecipeDoesNotExistException {
+        long totalComments = this.commentService.countComments(recipeId);
+        StreamingResponseBody body = out -> {
+            try (SequenceWriter writer = this.objectMapper.writer().withRootValueSeparator("\n").writeValues(out)) {
+                this.commentService.streamComments(recipeId, comment -> write(writer, comment));
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .header("X-Total-Count", String.valueOf(totalComments))
+                .body(body);
+    }
+
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<RecipeCommentDto> addComment(@PathVariable UUID recipeId, @Valid @RequestBody CommentRequestDto request, @AuthenticationPrincipal Jwt jwt) throws RecipeDoesNotExistException, UserEntityDoesNotExistException {
+        return new ResponseEntity<>(this.commentService.addComment(AuthenticatedUser.idOf(jwt).orElseThrow(), recipeId, request.comment()), HttpStatus.CREATED);
+    }
+
+    @DeleteMapping("/{commentId}")
+    public ResponseEntity<ApiMessage> deleteComment(@PathVariable UUID recipeId, @PathVariable UUID commentId, @AuthenticationPrincipal Jwt jwt) throws CommentDoesNotExistException {
+        this.commentService.deleteComment(AuthenticatedUser.idOf(jwt).orElseThrow(), recipeId, commentId);
+        return new ResponseEntity<>(new ApiMessage("Comment successfully deleted"), HttpStatus.OK);
+    }
+
+    private static void write(SequenceWriter writer, RecipeCommentDto comment) {
+        try {
+            writer.write(comment);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.joel.recipes.controller;
+
+import com.joel.recipes.dto.ApiMessage;
+import com.joel.recipes.dto.FavouritePageDto;
+import com.joel.recipes.exception.InvalidCursorException;
+import com.joel.recipes.exception.RecipeDoesNotExistException;
+import com.joel.recipes.service.FavouriteService;
+import com.joel.recipes.util.AuthenticatedUser;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@RequestMapping(value = "${api}" + "favourite", produces = MediaType.APPLICATION_JSON_VALUE)
+public class FavouriteController {
+    private static final int MAX_MEMBERSHIP_CHECK = 100;
+
+    private final FavouriteService favouriteService;
+
+    public FavouriteController(FavouriteService favouriteService) {
+        this.favouriteService = favouriteService;
+    }
+
+    // PUT and DELETE are idempotent, so retrying them or double-clicking is harmless
+    @PutMapping("/{recipeId}")
+    public ResponseEntity<ApiMessage> addFavourite(@PathVariable UUID recipeId, @AuthenticationPrincipal Jwt jwt) throws RecipeDoesNotExistException {
+        this.favouriteService.addFavourite(AuthenticatedUser.idOf(jwt).orElseThrow(), recipeId);
+        return new ResponseEntity<>(new ApiMessage("Recipe added to favourites"), HttpStatus.OK);
+    }
+
+    @DeleteMapping("/{recipeId}")
+    public ResponseEntity<ApiMessage> removeFavourite(@PathVariable UUID recipeId, @AuthenticationPrincipal Jwt jwt) {
+        this.favouriteService.removeFavourite(AuthenticatedUser.idOf(jwt).orElseThrow(), recipeId);
+        return new ResponseEntity<>(new ApiMessage("Recipe removed from favourites"), HttpStatus.OK);
+    }
+
+    @GetMapping
+    public ResponseEntity<FavouritePageDto> findFavourites(@AuthenticationPrincipal Jwt jwt, @RequestParam(required = false) String cursor, @RequestParam(defaultValue = "20") int size) throws InvalidCursorException {
+        return new ResponseEntity<>(this.favouriteService.findFavourites(AuthenticatedUser.idOf(jwt).orElseThrow(), cursor, size), HttpStatus.OK);
+    }
+
+    // For list pages: which of the recipes on the page has the user favourited
+    @GetMapping("/contains")
+    public ResponseEntity<List<UUID>> findFavourited(@AuthenticationPrincipal Jwt jwt, @RequestParam("recipeId") List<UUID> recipeIds) {
+        List<UUID> page = recipeIds.stream().limit(MAX_MEMBERSHIP_CHECK).toList();
+        return new ResponseEntity<>(this.favouriteService.findFavourited(AuthenticatedUser.idOf(jwt).orElseThrow(), page), HttpStatus.OK);
+    }
+}
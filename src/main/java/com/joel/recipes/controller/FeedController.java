@@ -0,0 +1,44 @@
+package com.joel.recipes.controller;
+
+import com.joel.recipes.dto.ApiMessage;
+import com.joel.recipes.dto.RecipePageDto;
+import com.joel.recipes.exception.InvalidCursorException;
+import com.joel.recipes.exception.UserEntityDoesNotExistException;
+import com.joel.recipes.service.FeedService;
+import com.joel.recipes.util.AuthenticatedUser;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping(value = "${api}" + "feed", produces = MediaType.APPLICATION_JSON_VALUE)
+public class FeedController {
+    private final FeedService feedService;
+
+    public FeedController(FeedService feedService) {
+        this.feedService = feedService;
+    }
+
+    @GetMapping
+    public ResponseEntity<RecipePageDto> findFeed(@AuthenticationPrincipal Jwt jwt, @RequestParam(required = false) String cursor, @RequestParam(defaultValue = "20") int size) throws InvalidCursorException {
+        return new ResponseEntity<>(this.feedService.findFeed(AuthenticatedUser.idOf(jwt).orElseThrow(), cursor, size), HttpStatus.OK);
+    }
+
+    // PUT and DELETE are idempotent, like favourites
+    @PutMapping("/subscription/{creatorId}")
+    public ResponseEntity<ApiMessage> subscribe(@PathVariable UUID creatorId, @AuthenticationPrincipal Jwt jwt) throws UserEntityDoesNotExistException {
+        this.feedService.subscribe(AuthenticatedUser.idOf(jwt).orElseThrow(), creatorId);
+        return new ResponseEntity<>(new ApiMessage("Subscribed to creator"), HttpStatus.OK);
+    }
+
+    @DeleteMapping("/subscription/{creatorId}")
+    public ResponseEntity<ApiMessage> unsubscribe(@PathVariable UUID creatorId, @AuthenticationPrincipal Jwt jwt) {
+        this.feedService.unsubscribe(AuthenticatedUser.idOf(jwt).orElseThrow(), creatorId);
+        return new ResponseEntity<>(new ApiMessage("Unsubscribed from creator"), HttpStatus.OK);
+    }
+}
@@ -0,0 +1,58 @@
+package com.joel.recipes.controller;
+
+import com.joel.recipes.dto.ImageUploadSessionDto;
+import com.joel.recipes.dto.RecipeImageDto;
+import com.joel.recipes.exception.ImageNotUploadedException;
+import com.joel.recipes.exception.ImageTooLargeException;
+import com.joel.recipes.exception.ImageUploadDoesNotExistException;
+import com.joel.recipes.exception.NotRecipeCreatorException;
+import com.joel.recipes.exception.RecipeDoesNotExistException;
+import com.joel.recipes.exception.UnsupportedImageTypeException;
+import com.joel.recipes.service.ImageService;
+import com.joel.recipes.util.AuthenticatedUser;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.UUID;
+
+@RestController
+@RequestMapping(value = "${api}" + "recipe/{recipeId}/image", produces = MediaType.APPLICATION_JSON_VALUE)
+public class ImageController {
+    private final ImageService imageService;
+
+    public ImageController(ImageService imageService) {
+        this.imageService = imageService;
+    }
+
+    /*
+        The body is the image itself rather than a multipart form, so it goes to storage as it arrives instead of
+        being spooled by the multipart resolver first. The declared type is not trusted, see ImageType
+     */
+    @PutMapping(consumes = {MediaType.IMAGE_JPEG_VALUE, MediaType.IMAGE_PNG_VALUE, MediaType.IMAGE_GIF_VALUE, "image/webp", MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<RecipeImageDto> uploadImage(@PathVariable UUID recipeId,
+                                                      InputStream body,
+                                                      @RequestHeader(value = HttpHeaders.CONTENT_LENGTH, defaultValue = "-1") long contentLength,
+                                                      @AuthenticationPrincipal Jwt jwt) throws RecipeDoesNotExistException, NotRecipeCreatorException, UnsupportedImageTypeException, ImageTooLargeException, IOException {
+        return new ResponseEntity<>(this.imageService.uploadImage(AuthenticatedUser.idOf(jwt).orElseThrow(), recipeId, body, contentLength), HttpStatus.OK);
+    }
+
+    // For large images and slow connections: the client uploads straight to storage, then completes the upload
+    @PostMapping("/uploads")
+    public ResponseEntity<ImageUploadSessionDto> startUpload(@PathVariable UUID recipeId, @AuthenticationPrincipal Jwt jwt) throws RecipeDoesNotExistException, NotRecipeCreatorException {
+        return new ResponseEntity<>(this.imageService.startUpload(AuthenticatedUser.idOf(jwt).orElseThrow(), recipeId), HttpStatus.CREATED);
+    }
+
+    @PostMapping("/uploads/{uploadId}/complete")
+    public ResponseEntity<RecipeImageDto> completeUpload(@PathVariable UUID recipeId,
+                                                         @PathVariable UUID uploadId,
+                                                         @AuthenticationPrincipal Jwt jwt) throws ImageUploadDoesNotExistException, ImageNotUploadedException, RecipeDoesNotExistException, UnsupportedImageTypeException, ImageTooLargeException, IOException {
+        return new ResponseEntity<>(this.imageService.completeUpload(AuthenticatedUser.idOf(jwt).orElseThrow(), recipeId, uploadId), HttpStatus.OK);
+    }
+}
@@ -0,0 +1,136 @@
+package com.joel.recipes.controller;
+
+import com.joel.recipes.exception.ImageDoesNotExistException;
+import com.joel.recipes.exception.ImageTooLargeException;
+import com.joel.recipes.exception.InvalidUploadUrlException;
+import com.joel.recipes.util.image.ImageType;
+import com.joel.recipes.util.storage.FileSystemImageStorage;
+import com.joel.recipes.util.storage.FileTransfer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+/*
+    Serves images from the filesystem storage backend. Keys are content-addressed, so the content behind a URL
+    never changes: responses may be cached forever, and the hash in the key is a strong ETag without reading the
+    file. Single byte ranges are supported so that interrupted downloads can resume.
+    Also receives direct uploads, which need no authentication beyond the signature in their URL
+ */
+@RestController
+@RequestMapping("${api}" + "image")
+@ConditionalOnProperty(name = "images.storage.backend", havingValue = "filesystem", matchIfMissing = true)
+public class ImageFileController {
+    private static final String CACHE_FOREVER = "public, max-age=31536000, immutable";
+
+    private final FileSystemImageStorage imageStorage;
+    private final long maxSizeInBytes;
+
+    public ImageFileController(FileSystemImageStorage imageStorage, @Value("${images.upload.max-size-in-bytes}") long maxSizeInBytes) {
+        this.imageStorage = imageStorage;
+        this.maxSizeInBytes = maxSizeInBytes;
+    }
+
+    @PutMapping("/upload/{uploadId}")
+    public ResponseEntity<Void> receiveUpload(@PathVariable UUID uploadId,
+                                              @RequestParam long expires,
+                                              @RequestParam String signature,
+                                              InputStream body,
+                                              @RequestHeader(value = HttpHeaders.CONTENT_LENGTH, defaultValue = "-1") long contentLength) throws InvalidUploadUrlException, ImageTooLargeException, IOException {
+        if (contentLength > this.maxSizeInBytes) throw new ImageTooLargeException();
+        this.imageStorage.receiveUpload(uploadId, expires, signature, body, this.maxSizeInBytes);
+        return new ResponseEntity<>(HttpStatus.CREATED);
+    }
+
+    @RequestMapping(value = "/{*key}", method = {RequestMethod.GET, RequestMethod.HEAD})
+    public void serveImage(@PathVariable String key, HttpServletRequest request, HttpServletResponse response) throws ImageDoesNotExistException, IOException {
+        // {*key} captures the rest of the path including its leading slash
+        String imageKey = key.substring(1);
+        int extensionStart = imageKey.lastIndexOf('.');
+        int nameStart = imageKey.lastIndexOf('/') + 1;
+        if (extensionStart <= nameStart) throw new ImageDoesNotExistException();
+        ImageType type = ImageType.forExtension(imageKey.substring(extensionStart + 1)).orElseThrow(ImageDoesNotExistException::new);
+
+        Path path;
+        try {
+            path = this.imageStorage.pathOf(imageKey);
+        } catch (IllegalArgumentException e) {
+            throw new ImageDoesNotExistException();
+        }
+        if (!Files.isRegularFile(path)) throw new ImageDoesNotExistException();
+
+        // The file name is the content hash, with a width suffix for variants
+        String etag = "\"" + imageKey.substring(nameStart, extensionStart) + "\"";
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_FOREVER);
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long length = Files.size(path);
+        long start = 0;
+        long end = length - 1;
+        HttpRange range = this.requestedRange(request, etag);
+        if (Objects.nonNull(range)) {
+            start = range.getRangeStart(length);
+            end = range.getRangeEnd(length);
+            if (start >= length || start > end) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+
+        long count = end - start + 1;
+        response.setContentType(type.contentType());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setContentLengthLong(count);
+        if (RequestMethod.HEAD.name().equals(request.getMethod())) return;
+        FileTransfer.send(path, start, count, request, response);
+    }
+
+    /*
+        The one range asked for, or null to send the whole file: when there is no Range header, when it cannot be
+        parsed or asks for several ranges, which may be answered with the whole file, or when If-Range names
+        another version
+     */
+    private HttpRange requestedRange(HttpServletRequest request, String etag) {
+        String header = request.getHeader(HttpHeaders.RANGE);
+        if (Objects.isNull(header)) return null;
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (Objects.nonNull(ifRange) && !ifRange.equals(etag)) return null;
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(header);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // If-None-Match uses weak comparison, so a W/ prefix is ignored
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (Objects.isNull(ifNoneMatch)) return false;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) tag = tag.substring(2);
+            if (tag.equals("*") || tag.equals(etag)) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,32 @@
+package com.joel.recipes.controller;
+
+import com.joel.recipes.config.security.KeyRing;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@RestController
+@RequestMapping("${api}" + ".well-known")
+public class JwksController {
+    private final KeyRing keyRing;
+
+    public JwksController(KeyRing keyRing) {
+        this.keyRing = keyRing;
+    }
+
+    // The public keys tokens may be signed with. Keys are published a rotation period before they are used, so this can be cached for a while
+    @GetMapping(value = "/jwks.json", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Object>> getJwks() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setCacheControl(CacheControl.maxAge(5, TimeUnit.MINUTES).cachePublic());
+        return new ResponseEntity<>(this.keyRing.publicJwks().toJSONObject(), headers, HttpStatus.OK);
+    }
+}
@@ -0,0 +1,125 @@
+package com.joel.recipes.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.joel.recipes.dto.ApiMessage;
+import com.joel.recipes.dto.ImportReportDto;
+import com.joel.recipes.dto.RecipeDetailsDto;
+import com.joel.recipes.dto.RecipeExportDto;
+import com.joel.recipes.dto.RecipePageDto;
+import com.joel.recipes.dto.RecipeViewsDto;
+import com.joel.recipes.dto.SimilarRecipeDto;
+import com.joel.recipes.exception.InvalidCursorException;
+import com.joel.recipes.exception.RecipeDoesNotExistException;
+import com.joel.recipes.exception.UnsupportedExportFormatException;
+import com.joel.recipes.exception.UserEntityDoesNotExistException;
+import com.joel.recipes.service.RecipeExportService;
+import com.joel.recipes.service.RecipeImportService;
+import com.joel.recipes.service.RecipeService;
+import com.joel.recipes.service.SimilarRecipeService;
+import com.joel.recipes.service.ViewService;
+import com.joel.recipes.util.AuthenticatedUser;
+import com.joel.recipes.util.export.ExportFormat;
+import com.joel.recipes.util.export.RecipeExportWriter;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@RequestMapping(value = "${api}" + "recipe", produces = MediaType.APPLICATION_JSON_VALUE)
+public class RecipeController {
+    private final RecipeService recipeService;
+    private final ViewService viewService;
+    private final RecipeImportService recipeImportService;
+    private final RecipeExportService recipeExportService;
+    private final SimilarRecipeService similarRecipeService;
+    private final ObjectMapper objectMapper;
+
+    public RecipeController(RecipeService recipeService, ViewService viewService, RecipeImportService recipeImportService, RecipeExportService recipeExportService, SimilarRecipeService similarRecipeService, ObjectMapper objectMapper) {
+        this.recipeService = recipeService;
+        this.viewService = viewService;
+        this.recipeImportService = recipeImportService;
+        this.recipeExportService = recipeExportService;
+        this.similarRecipeService = similarRecipeService;
+        this.objectMapper = objectMapper;
+    }
+
+    @GetMapping
+    public ResponseEntity<RecipePageDto> findRecipes(@RequestParam(required = false) String cursor, @RequestParam(defaultValue = "20") int size) throws InvalidCursorException {
+        return new ResponseEntity<>(this.recipeService.findRecipes(cursor, size), HttpStatus.OK);
+    }
+
+    @GetMapping("/{recipeId}")
+    public ResponseEntity<RecipeDetailsDto> getRecipe(@PathVariable UUID recipeId) throws RecipeDoesNotExistException {
+        return new ResponseEntity<>(this.recipeService.getRecipeById(recipeId), HttpStatus.OK);
+    }
+
+    // Counts a view of the recipe; views by signed-in users also count towards unique viewers
+    @PostMapping("/{recipeId}/views")
+    public ResponseEntity<ApiMessage> recordView(@PathVariable UUID recipeId, @AuthenticationPrincipal Jwt jwt) {
+        this.viewService.recordView(recipeId, AuthenticatedUser.idOf(jwt).orElse(null));
+        return new ResponseEntity<>(new ApiMessage("View recorded"), HttpStatus.ACCEPTED);
+    }
+
+    @GetMapping("/{recipeId}/views")
+    public ResponseEntity<RecipeViewsDto> getViews(@PathVariable UUID recipeId) {
+        return new ResponseEntity<>(this.viewService.getViews(recipeId), HttpStatus.OK);
+    }
+
+    @GetMapping("/{recipeId}/similar")
+    public ResponseEntity<List<SimilarRecipeDto>> findSimilar(@PathVariable UUID recipeId, @RequestParam(defaultValue = "10") int size) throws RecipeDoesNotExistException {
+        return new ResponseEntity<>(this.similarRecipeService.findSimilar(recipeId, size), HttpStatus.OK);
+    }
+
+    @GetMapping("/creator/{creatorId}")
+    public ResponseEntity<RecipePageDto> findRecipesByCreator(@PathVariable UUID creatorId, @RequestParam(required = false) String cursor, @RequestParam(defaultValue = "20") int size) throws InvalidCursorException {
+        return new ResponseEntity<>(this.recipeService.findRecipesByCreator(creatorId, cursor, size), HttpStatus.OK);
+    }
+
+    // Admin only; the body is streamed rather than buffered, so imports can be arbitrarily large
+    @PostMapping(value = "/import", consumes = {"application/x-ndjson", "application/ld+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<ImportReportDto> importRecipes(InputStream body, @AuthenticationPrincipal Jwt jwt) throws UserEntityDoesNotExistException {
+        UUID creatorId = AuthenticatedUser.idOf(jwt).orElseThrow(UserEntityDoesNotExistException::new);
+        return new ResponseEntity<>(this.recipeImportService.importRecipes(body, creatorId), HttpStatus.OK);
+    }
+
+    /*
+        Admin only. Every recipe added in [from, to) as NDJSON or CSV, oldest first, written to the response as it is
+        read from the database. Nightly exports pass the previous run's `to` as `from` to only fetch new recipes
+     */
+    @GetMapping(value = "/export", produces = {"application/x-ndjson", "text/csv"})
+    public ResponseEntity<StreamingResponseBody> exportRecipes(@RequestParam(name = "format", defaultValue = "ndjson") String formatName,
+                                                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to) throws UnsupportedExportFormatException {
+        ExportFormat format = ExportFormat.of(formatName);
+        StreamingResponseBody body = out -> {
+            try (RecipeExportWriter writer = format.open(this.objectMapper, out)) {
+                this.recipeExportService.exportRecipes(from, to, recipe -> write(writer, recipe));
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.contentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"recipes." + format.extension() + "\"")
+                .body(body);
+    }
+
+    private static void write(RecipeExportWriter writer, RecipeExportDto recipe) {
+        try {
+            writer.write(recipe);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
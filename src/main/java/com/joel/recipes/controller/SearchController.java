@@ -0,0 +1,70 @@
+package com.joel.recipes.controller;
+
+import com.joel.recipes.dto.FacetCountDto;
+import com.joel.recipes.dto.PantryMatchDto;
+import com.joel.recipes.dto.PantryRequestDto;
+import com.joel.recipes.dto.SearchResultDto;
+import com.joel.recipes.dto.SpellingSuggestionDto;
+import com.joel.recipes.dto.SuggestionDto;
+import com.joel.recipes.service.SearchService;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Objects;
+
+@RestController
+@RequestMapping(value = "${api}" + "search", produces = MediaType.APPLICATION_JSON_VALUE)
+public class SearchController {
+    private final SearchService searchService;
+
+    public SearchController(SearchService searchService) {
+        this.searchService = searchService;
+    }
+
+    @GetMapping
+    public ResponseEntity<List<SearchResultDto>> search(@RequestParam("q") String query, @RequestParam(defaultValue = "20") int limit) {
+        return new ResponseEntity<>(this.searchService.search(query, limit), HttpStatus.OK);
+    }
+
+    @GetMapping("/did-you-mean")
+    public ResponseEntity<SpellingSuggestionDto> didYouMean(@RequestParam("q") String query) {
+        return new ResponseEntity<>(new SpellingSuggestionDto(query, this.searchService.suggestSpelling(query).orElse(null)), HttpStatus.OK);
+    }
+
+    // Autocomplete as the user types; answered entirely from memory
+    @GetMapping("/suggest")
+    public ResponseEntity<List<SuggestionDto>> suggest(@RequestParam("prefix") String prefix, @RequestParam(defaultValue = "5") int limit) {
+        return new ResponseEntity<>(this.searchService.suggest(prefix, limit), HttpStatus.OK);
+    }
+
+    /*
+        Tag counts for the browse page, e.g. "vegan (1,204)", under the current query and selected tags/ingredients
+     */
+    @GetMapping("/facets/tags")
+    public ResponseEntity<List<FacetCountDto>> tagFacets(@RequestParam(value = "q", required = false) String query,
+                                                         @RequestParam(value = "tag", defaultValue = "") List<String> tags,
+                                                         @RequestParam(value = "ingredient", defaultValue = "") List<String> ingredients,
+                                                         @RequestParam(defaultValue = "50") int limit) {
+        return new ResponseEntity<>(this.searchService.findTagFacets(query, withoutBlanks(tags), withoutBlanks(ingredients), limit), HttpStatus.OK);
+    }
+
+    /*
+        "What can I cook" - finds recipes that can be made, fully or mostly,
+        from the ingredients the user already has
+     */
+    @PostMapping(value = "/pantry", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<PantryMatchDto>> searchByPantry(@Valid @RequestBody PantryRequestDto request) {
+        int minMatched = Objects.requireNonNullElse(request.minMatched(), 1);
+        int maxMissing = Objects.requireNonNullElse(request.maxMissing(), Integer.MAX_VALUE);
+        int limit = Objects.requireNonNullElse(request.limit(), 20);
+        return new ResponseEntity<>(this.searchService.findRecipesByPantry(request.ingredients(), minMatched, maxMissing, limit), HttpStatus.OK);
+    }
+
+    private static List<String> withoutBlanks(List<String> values) {
+        return values.stream().filter(value -> !value.isBlank()).toList();
+    }
+}
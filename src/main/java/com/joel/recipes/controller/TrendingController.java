@@ -0,0 +1,28 @@
+package com.joel.recipes.controller;
+
+import com.joel.recipes.dto.TrendingRecipeDto;
+import com.joel.recipes.service.TrendingService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping(value = "${api}" + "trending", produces = MediaType.APPLICATION_JSON_VALUE)
+public class TrendingController {
+    private final TrendingService trendingService;
+
+    public TrendingController(TrendingService trendingService) {
+        this.trendingService = trendingService;
+    }
+
+    @GetMapping
+    public ResponseEntity<List<TrendingRecipeDto>> findTrending(@RequestParam(required = false) String tag, @RequestParam(defaultValue = "20") int size) {
+        return new ResponseEntity<>(this.trendingService.findTrending(tag, size), HttpStatus.OK);
+    }
+}
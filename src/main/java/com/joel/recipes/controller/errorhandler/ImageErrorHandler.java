@@ -0,0 +1,47 @@
+package com.joel.recipes.controller.errorhandler;
+
+import com.joel.recipes.exception.ImageDoesNotExistException;
+import com.joel.recipes.exception.ImageNotUploadedException;
+import com.joel.recipes.exception.ImageTooLargeException;
+import com.joel.recipes.exception.ImageUploadDoesNotExistException;
+import com.joel.recipes.exception.InvalidUploadUrlException;
+import com.joel.recipes.exception.UnsupportedImageTypeException;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+@RestControllerAdvice
+@Order(5)
+public class ImageErrorHandler {
+    @ExceptionHandler(ImageDoesNotExistException.class)
+    public ProblemDetail imageDoesNotExistHandler(ImageDoesNotExistException e) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.NOT_FOUND, e.getMessage());
+    }
+
+    @ExceptionHandler(UnsupportedImageTypeException.class)
+    public ProblemDetail unsupportedImageTypeHandler(UnsupportedImageTypeException e) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.UNSUPPORTED_MEDIA_TYPE, e.getMessage());
+    }
+
+    @ExceptionHandler(ImageTooLargeException.class)
+    public ProblemDetail imageTooLargeHandler(ImageTooLargeException e) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.PAYLOAD_TOO_LARGE, e.getMessage());
+    }
+
+    @ExceptionHandler(ImageUploadDoesNotExistException.class)
+    public ProblemDetail imageUploadDoesNotExistHandler(ImageUploadDoesNotExistException e) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.NOT_FOUND, e.getMessage());
+    }
+
+    @ExceptionHandler(ImageNotUploadedException.class)
+    public ProblemDetail imageNotUploadedHandler(ImageNotUploadedException e) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, e.getMessage());
+    }
+
+    @ExceptionHandler(InvalidUploadUrlException.class)
+    public ProblemDetail invalidUploadUrlHandler(InvalidUploadUrlException e) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.FORBIDDEN, e.getMessage());
+    }
+}
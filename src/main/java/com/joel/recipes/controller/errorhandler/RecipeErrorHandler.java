@@ -0,0 +1,41 @@
+package com.joel.recipes.controller.errorhandler;
+
+import com.joel.recipes.exception.CommentDoesNotExistException;
+import com.joel.recipes.exception.InvalidCursorException;
+import com.joel.recipes.exception.NotRecipeCreatorException;
+import com.joel.recipes.exception.RecipeDoesNotExistException;
+import com.joel.recipes.exception.UnsupportedExportFormatException;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+@RestControllerAdvice
+@Order(4)
+public class RecipeErrorHandler {
+    @ExceptionHandler(RecipeDoesNotExistException.class)
+    public ProblemDetail recipeDoesNotExistHandler(RecipeDoesNotExistException e) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.NOT_FOUND, e.getMessage());
+    }
+
+    @ExceptionHandler(CommentDoesNotExistException.class)
+    public ProblemDetail commentDoesNotExistHandler(CommentDoesNotExistException e) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.NOT_FOUND, e.getMessage());
+    }
+
+    @ExceptionHandler(NotRecipeCreatorException.class)
+    public ProblemDetail notRecipeCreatorHandler(NotRecipeCreatorException e) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.FORBIDDEN, e.getMessage());
+    }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    public ProblemDetail invalidCursorHandler(InvalidCursorException e) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage());
+    }
+
+    @ExceptionHandler(UnsupportedExportFormatException.class)
+    public ProblemDetail unsupportedExportFormatHandler(UnsupportedExportFormatException e) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage());
+    }
+}
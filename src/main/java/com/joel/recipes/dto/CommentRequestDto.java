@@ -0,0 +1,10 @@
+package com.joel.recipes.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+public record CommentRequestDto(
+        @NotBlank(message = "Comment cannot be blank")
+        @Size(max = 5000, message = "Comment cannot be longer than 5000 characters")
+        String comment) {
+}
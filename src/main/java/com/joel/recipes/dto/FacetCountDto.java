@@ -0,0 +1,4 @@
+package com.joel.recipes.dto;
+
+public record FacetCountDto(String value, int count) {
+}
@@ -0,0 +1,7 @@
+package com.joel.recipes.dto;
+
+import java.sql.Timestamp;
+import java.util.UUID;
+
+public record FavouriteSummaryDto(UUID id, String title, String timeRequired, Timestamp timeAdded, UUID creatorId, String creatorUsername, long favouriteCount, Timestamp favouritedAt) {
+}
@@ -0,0 +1,9 @@
+package com.joel.recipes.dto;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+
+// The image is sent as the body of a PUT to uploadUrl with the given headers, and the upload then completed with its id
+public record ImageUploadSessionDto(UUID id, String uploadUrl, Map<String, String> uploadHeaders, Instant expirationDate, long maxSizeInBytes) {
+}
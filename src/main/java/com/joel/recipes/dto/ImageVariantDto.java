@@ -0,0 +1,4 @@
+package com.joel.recipes.dto;
+
+public record ImageVariantDto(int width, int height, String url) {
+}
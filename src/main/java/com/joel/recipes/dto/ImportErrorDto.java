@@ -0,0 +1,5 @@
+package com.joel.recipes.dto;
+
+// record is the 1-based position of the recipe in the imported stream
+public record ImportErrorDto(long record, String message) {
+}
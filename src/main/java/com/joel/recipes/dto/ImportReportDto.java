@@ -0,0 +1,7 @@
+package com.joel.recipes.dto;
+
+import java.util.List;
+
+// completed is false when the import stopped early because the stream could not be parsed
+public record ImportReportDto(long imported, long rejected, List<ImportErrorDto> errors, boolean completed, long durationInMs, double recipesPerSecond) {
+}
@@ -0,0 +1,7 @@
+package com.joel.recipes.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+public record PantryMatchDto(UUID id, String title, int matchedIngredients, int missingIngredients, List<String> missing) {
+}
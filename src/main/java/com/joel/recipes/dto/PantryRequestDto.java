@@ -0,0 +1,24 @@
+package com.joel.recipes.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
+
+import java.util.Set;
+
+public record PantryRequestDto(
+        @NotEmpty(message = "At least one ingredient is required")
+        @Size(max = 100, message = "No more than 100 ingredients can be provided")
+        Set<String> ingredients,
+        // Defaults to 1 - any recipe that uses at least one of the ingredients
+        @Min(value = 1, message = "Minimum matched ingredients must be at least 1")
+        Integer minMatched,
+        // Defaults to no limit; 0 means only recipes that can be made entirely from the pantry
+        @PositiveOrZero(message = "Maximum missing ingredients cannot be negative")
+        Integer maxMissing,
+        @Min(value = 1, message = "Limit must be at least 1")
+        @Max(value = 100, message = "Limit cannot be greater than 100")
+        Integer limit) {
+}
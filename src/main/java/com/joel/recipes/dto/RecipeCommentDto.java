@@ -0,0 +1,7 @@
+package com.joel.recipes.dto;
+
+import java.sql.Timestamp;
+import java.util.UUID;
+
+public record RecipeCommentDto(UUID id, String comment, Timestamp timeAdded, UUID userId, String username) {
+}
@@ -0,0 +1,66 @@
+package com.joel.recipes.dto;
+
+import com.joel.recipes.model.Recipe;
+import com.joel.recipes.model.RecipeImage;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+/*
+    Immutable copy of a recipe for the recipe page. Safe to cache and share between threads,
+    unlike the entity, which is mutable and has lazy collections
+ */
+public record RecipeDetailsDto(UUID id,
+                               String title,
+                               String description,
+                               Set<String> ingredients,
+                               String directions,
+                               Timestamp timeAdded,
+                               String timeRequired,
+                               Set<String> tags,
+                               UUID creatorId,
+                               String creatorUsername,
+                               String imageUrl,
+                               String imagePlaceholder,
+                               List<ImageVariantDto> imageVariants) {
+
+    // Must be called while the entity's collections can still be loaded, or after they were fetched
+    public static RecipeDetailsDto from(Recipe recipe) {
+        return new RecipeDetailsDto(
+                recipe.getId(),
+                recipe.getTitle(),
+                recipe.getDescription(),
+                Objects.isNull(recipe.getIngredients()) ? Set.of() : Set.copyOf(recipe.getIngredients()),
+                recipe.getDirections(),
+                Objects.isNull(recipe.getTimeAdded()) ? null : new Timestamp(recipe.getTimeAdded().getTime()),
+                recipe.getTimeRequired(),
+                Objects.isNull(recipe.getTags()) ? Set.of() : Set.copyOf(recipe.getTags()),
+                Objects.isNull(recipe.getCreator()) ? null : recipe.getCreator().getId(),
+                Objects.isNull(recipe.getCreator()) ? null : recipe.getCreator().getUsername(),
+                Objects.isNull(recipe.getImage()) ? null : recipe.getImage().getUrl(),
+                Objects.isNull(recipe.getImage()) ? null : recipe.getImage().getPlaceholder(),
+                variantsOf(recipe.getImage()));
+    }
+
+    // Rough number of bytes the record holds on the heap, used to bound the recipe cache by memory rather than count
+    public int estimatedSize() {
+        int size = 256;
+        for (String value : new String[]{title, description, directions, timeRequired, creatorUsername, imageUrl, imagePlaceholder}) {
+            if (Objects.nonNull(value)) size += 40 + value.length() * 2;
+        }
+        for (String value : ingredients) size += 72 + value.length() * 2;
+        for (String value : tags) size += 72 + value.length() * 2;
+        for (ImageVariantDto variant : imageVariants) size += 96 + variant.url().length() * 2;
+        return size;
+    }
+
+    private static List<ImageVariantDto> variantsOf(RecipeImage image) {
+        if (Objects.isNull(image) || Objects.isNull(image.getVariants())) return List.of();
+        return image.getVariants().stream()
+                .map(variant -> new ImageVariantDto(variant.getWidth(), variant.getHeight(), variant.getUrl()))
+                .toList();
+    }
+}
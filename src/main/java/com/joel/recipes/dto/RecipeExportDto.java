@@ -0,0 +1,30 @@
+package com.joel.recipes.dto;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.UUID;
+
+/*
+    A recipe as exported for analytics. The query selects the scalar columns through the second constructor,
+    and the ingredients and tags are filled in per chunk of rows, see RecipeExportServiceImpl
+ */
+public record RecipeExportDto(UUID id,
+                              String title,
+                              String description,
+                              List<String> ingredients,
+                              String directions,
+                              List<String> tags,
+                              String timeRequired,
+                              Timestamp timeAdded,
+                              UUID creatorId,
+                              String creatorUsername,
+                              String imageUrl) {
+
+    public RecipeExportDto(UUID id, String title, String description, String directions, String timeRequired, Timestamp timeAdded, UUID creatorId, String creatorUsername, String imageUrl) {
+        this(id, title, description, List.of(), directions, List.of(), timeRequired, timeAdded, creatorId, creatorUsername, imageUrl);
+    }
+
+    public RecipeExportDto withCollections(List<String> ingredients, List<String> tags) {
+        return new RecipeExportDto(id, title, description, ingredients, directions, tags, timeRequired, timeAdded, creatorId, creatorUsername, imageUrl);
+    }
+}
@@ -0,0 +1,11 @@
+package com.joel.recipes.dto;
+
+import com.joel.recipes.model.RecipeImage;
+
+import java.util.UUID;
+
+public record RecipeImageDto(UUID id, String url, String contentType, long sizeInBytes, String contentHash) {
+    public static RecipeImageDto from(RecipeImage image) {
+        return new RecipeImageDto(image.getId(), image.getUrl(), image.getContentType(), image.getSizeInBytes(), image.getContentHash());
+    }
+}
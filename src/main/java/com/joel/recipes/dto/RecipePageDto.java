@@ -0,0 +1,7 @@
+package com.joel.recipes.dto;
+
+import java.util.List;
+
+// nextCursor is null on the last page
+public record RecipePageDto(List<RecipeSummaryDto> recipes, String nextCursor) {
+}
@@ -0,0 +1,8 @@
+package com.joel.recipes.dto;
+
+import java.sql.Timestamp;
+import java.util.UUID;
+
+// What a listing needs to show a recipe card, selected directly by the query instead of loading the entity
+public record RecipeSummaryDto(UUID id, String title, String timeRequired, Timestamp timeAdded, UUID creatorId, String creatorUsername, long favouriteCount) {
+}
@@ -0,0 +1,7 @@
+package com.joel.recipes.dto;
+
+import java.util.UUID;
+
+// One element of a recipe's ingredients or tags
+public record RecipeTermDto(UUID recipeId, String term) {
+}
@@ -0,0 +1,7 @@
+package com.joel.recipes.dto;
+
+import java.util.UUID;
+
+// uniqueViewers is an estimate, within a few percent, of how many signed-in users viewed the recipe
+public record RecipeViewsDto(UUID recipeId, long totalViews, long uniqueViewers) {
+}
@@ -0,0 +1,6 @@
+package com.joel.recipes.dto;
+
+import java.util.UUID;
+
+public record SearchResultDto(UUID id, String title, float score) {
+}
@@ -0,0 +1,5 @@
+package com.joel.recipes.dto;
+
+// similarity is the Jaccard similarity of the two recipes' ingredients and tags, from 0 to 1
+public record SimilarRecipeDto(RecipeSummaryDto recipe, double similarity) {
+}
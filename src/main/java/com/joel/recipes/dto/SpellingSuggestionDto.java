@@ -0,0 +1,5 @@
+package com.joel.recipes.dto;
+
+// suggestion is null when every term of the query is already known
+public record SpellingSuggestionDto(String query, String suggestion) {
+}
@@ -0,0 +1,7 @@
+package com.joel.recipes.dto;
+
+import java.util.UUID;
+
+// type is one of "title", "ingredient" or "tag"; recipeId is only set for titles
+public record SuggestionDto(String text, String type, UUID recipeId) {
+}
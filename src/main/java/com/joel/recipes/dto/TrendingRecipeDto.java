@@ -0,0 +1,5 @@
+package com.joel.recipes.dto;
+
+// score is the recipe's decayed, weighted interaction count over the trending window
+public record TrendingRecipeDto(RecipeSummaryDto recipe, double score) {
+}
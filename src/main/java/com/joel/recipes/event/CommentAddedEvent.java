@@ -0,0 +1,7 @@
+package com.joel.recipes.event;
+
+import java.util.UUID;
+
+// Published when a user comments on a recipe
+public record CommentAddedEvent(UUID recipeId, UUID userId) {
+}
@@ -0,0 +1,7 @@
+package com.joel.recipes.event;
+
+import java.util.UUID;
+
+// Published when a user adds (favourite = true) or removes a favourite recipe
+public record FavouriteChangedEvent(UUID userId, UUID recipeId, boolean favourite) {
+}
@@ -0,0 +1,8 @@
+package com.joel.recipes.event;
+
+import java.sql.Timestamp;
+import java.util.UUID;
+
+// Published when a new recipe is added, alongside RecipeSavedEvent; creatorId may be null
+public record RecipeCreatedEvent(UUID recipeId, UUID creatorId, Timestamp timeAdded) {
+}
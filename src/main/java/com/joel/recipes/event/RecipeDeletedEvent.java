@@ -0,0 +1,7 @@
+package com.joel.recipes.event;
+
+import java.util.UUID;
+
+// Published by RecipeService whenever a recipe is deleted
+public record RecipeDeletedEvent(UUID recipeId) {
+}
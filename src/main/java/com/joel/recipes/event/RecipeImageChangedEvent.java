@@ -0,0 +1,11 @@
+package com.joel.recipes.event;
+
+import java.util.UUID;
+
+/*
+    Published when a recipe's image or its variants change, so cached copies of the recipe can be invalidated.
+    The image is not part of the search or similar recipe indexes, so unlike RecipeSavedEvent this does not
+    re-index the recipe
+ */
+public record RecipeImageChangedEvent(UUID recipeId) {
+}
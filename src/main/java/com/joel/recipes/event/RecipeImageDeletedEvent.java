@@ -0,0 +1,17 @@
+package com.joel.recipes.event;
+
+import com.joel.recipes.model.ImageVariant;
+import com.joel.recipes.model.RecipeImage;
+
+import java.util.List;
+import java.util.Objects;
+
+// Published when a RecipeImage row is deleted, so its stored objects can be deleted once nothing else uses them
+public record RecipeImageDeletedEvent(String storageKey, List<String> variantStorageKeys) {
+    public static RecipeImageDeletedEvent from(RecipeImage image) {
+        List<String> variantStorageKeys = Objects.isNull(image.getVariants()) ? List.of() : image.getVariants().stream()
+                .map(ImageVariant::getStorageKey)
+                .toList();
+        return new RecipeImageDeletedEvent(image.getStorageKey(), variantStorageKeys);
+    }
+}
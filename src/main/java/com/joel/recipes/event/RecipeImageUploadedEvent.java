@@ -0,0 +1,7 @@
+package com.joel.recipes.event;
+
+import java.util.UUID;
+
+// Published when a new RecipeImage has been stored, so its variants can be generated
+public record RecipeImageUploadedEvent(UUID imageId) {
+}
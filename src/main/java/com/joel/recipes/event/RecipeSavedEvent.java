@@ -0,0 +1,7 @@
+package com.joel.recipes.event;
+
+import com.joel.recipes.model.RecipeDocument;
+
+// Published by RecipeService whenever a recipe is created or updated
+public record RecipeSavedEvent(RecipeDocument document) {
+}
@@ -0,0 +1,7 @@
+package com.joel.recipes.event;
+
+import java.util.UUID;
+
+// Published by ViewService for every recorded view; not transactional
+public record RecipeViewedEvent(UUID recipeId) {
+}
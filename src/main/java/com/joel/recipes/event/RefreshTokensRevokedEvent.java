@@ -0,0 +1,7 @@
+package com.joel.recipes.event;
+
+import java.util.List;
+
+// Published by RefreshTokenService when refresh tokens are revoked, identified by the hashes they are stored under
+public record RefreshTokensRevokedEvent(List<String> tokenHashes) {
+}
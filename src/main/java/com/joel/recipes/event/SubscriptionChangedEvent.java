@@ -0,0 +1,7 @@
+package com.joel.recipes.event;
+
+import java.util.UUID;
+
+// Published when a user subscribes (subscribed = true) to or unsubscribes from a creator
+public record SubscriptionChangedEvent(UUID creatorId, UUID subscriberId, boolean subscribed) {
+}
@@ -0,0 +1,7 @@
+package com.joel.recipes.exception;
+
+public class CommentDoesNotExistException extends Exception {
+    public CommentDoesNotExistException() {
+        super("Comment does not exist");
+    }
+}
@@ -0,0 +1,7 @@
+package com.joel.recipes.exception;
+
+public class ImageDoesNotExistException extends Exception {
+    public ImageDoesNotExistException() {
+        super("Image does not exist");
+    }
+}
@@ -0,0 +1,7 @@
+package com.joel.recipes.exception;
+
+public class ImageNotUploadedException extends Exception {
+    public ImageNotUploadedException() {
+        super("Image has not been uploaded yet");
+    }
+}
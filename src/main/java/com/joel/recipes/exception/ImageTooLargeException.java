@@ -0,0 +1,7 @@
+package com.joel.recipes.exception;
+
+public class ImageTooLargeException extends Exception {
+    public ImageTooLargeException() {
+        super("Image is too large");
+    }
+}
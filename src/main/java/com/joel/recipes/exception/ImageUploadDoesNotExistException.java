@@ -0,0 +1,7 @@
+package com.joel.recipes.exception;
+
+public class ImageUploadDoesNotExistException extends Exception {
+    public ImageUploadDoesNotExistException() {
+        super("Image upload does not exist");
+    }
+}
@@ -0,0 +1,7 @@
+package com.joel.recipes.exception;
+
+public class InvalidCursorException extends Exception {
+    public InvalidCursorException() {
+        super("Invalid page cursor");
+    }
+}
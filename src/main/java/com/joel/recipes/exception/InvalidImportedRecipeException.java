@@ -0,0 +1,7 @@
+package com.joel.recipes.exception;
+
+public class InvalidImportedRecipeException extends Exception {
+    public InvalidImportedRecipeException(String message) {
+        super(message);
+    }
+}
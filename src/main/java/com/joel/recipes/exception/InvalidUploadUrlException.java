@@ -0,0 +1,7 @@
+package com.joel.recipes.exception;
+
+public class InvalidUploadUrlException extends Exception {
+    public InvalidUploadUrlException() {
+        super("Upload URL is invalid or has expired");
+    }
+}
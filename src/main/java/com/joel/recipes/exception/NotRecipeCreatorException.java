@@ -0,0 +1,7 @@
+package com.joel.recipes.exception;
+
+public class NotRecipeCreatorException extends Exception {
+    public NotRecipeCreatorException() {
+        super("Only the recipe's creator can change it");
+    }
+}
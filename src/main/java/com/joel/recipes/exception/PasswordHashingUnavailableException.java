@@ -0,0 +1,8 @@
+package com.joel.recipes.exception;
+
+// Unchecked, because it has to pass through PasswordEncoder and Spring Security's authentication
+public class PasswordHashingUnavailableException extends RuntimeException {
+    public PasswordHashingUnavailableException() {
+        super("Too many requests at once, please try again shortly");
+    }
+}
@@ -0,0 +1,7 @@
+package com.joel.recipes.exception;
+
+public class RecipeDoesNotExistException extends Exception {
+    public RecipeDoesNotExistException() {
+        super("Recipe does not exist");
+    }
+}
@@ -0,0 +1,7 @@
+package com.joel.recipes.exception;
+
+public class UnsupportedExportFormatException extends Exception {
+    public UnsupportedExportFormatException() {
+        super("Unsupported export format, use ndjson or csv");
+    }
+}
@@ -0,0 +1,7 @@
+package com.joel.recipes.exception;
+
+public class UnsupportedImageTypeException extends Exception {
+    public UnsupportedImageTypeException() {
+        super("Image must be a JPEG, PNG, GIF or WebP");
+    }
+}
@@ -0,0 +1,44 @@
+package com.joel.recipes.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.sql.Timestamp;
+import java.util.UUID;
+
+/*
+    A user's favourite recipe, one row per pair, so that favouriting never loads either side's collection
+ */
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@IdClass(Favourite.Key.class)
+@Table(indexes = {
+        // "My favourites", newest first, see FavouriteRepository
+        @Index(name = "favourite_user_time_added_idx", columnList = "user_id, time_added, recipe_id"),
+        @Index(name = "favourite_recipe_idx", columnList = "recipe_id")
+})
+public class Favourite {
+    @Id
+    private UUID userId;
+    @Id
+    private UUID recipeId;
+    private Timestamp timeAdded;
+    // Also tells Spring Data whether a row is new, since the id is assigned rather than generated
+    @Version
+    private Long version;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Key implements Serializable {
+        private UUID userId;
+        private UUID recipeId;
+    }
+}
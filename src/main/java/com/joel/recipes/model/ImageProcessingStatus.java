@@ -0,0 +1,15 @@
+package com.joel.recipes.model;
+
+public enum ImageProcessingStatus {
+    // Uploaded, variants not generated yet
+    PENDING,
+
+    // Variants and placeholder have been generated
+    READY,
+
+    // The image could not be decoded or resized
+    FAILED,
+
+    // The format cannot be decoded by the server, so the original is the only version
+    UNSUPPORTED
+}
@@ -0,0 +1,29 @@
+package com.joel.recipes.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import lombok.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/*
+    A slot a client was given to upload a recipe's image straight to storage. Its id names the uploaded object
+    until the upload is completed, see ImageServiceImpl.completeUpload
+ */
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ImageUploadSession {
+    @Id
+    @GeneratedValue
+    private UUID id;
+    private UUID recipeId;
+    private UUID userId;
+    // When the upload URL stops working
+    private Instant expirationDate;
+}
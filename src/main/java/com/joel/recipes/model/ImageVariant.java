@@ -0,0 +1,21 @@
+package com.joel.recipes.model;
+
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// A downscaled copy of a RecipeImage, for clients that do not need the original
+@Embeddable
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ImageVariant {
+    private int width;
+    private int height;
+    private String storageKey;
+    private String url;
+    private String contentType;
+}
@@ -1,20 +1,32 @@
 package com.joel.recipes.model;
 
 import jakarta.persistence.*;
+import com.joel.recipes.util.dictionary.TermConverter;
+import com.joel.recipes.util.dictionary.TermDictionary;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.sql.Timestamp;
+import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Entity
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
+@Table(indexes = {
+        // Keyset pagination of listings, see RecipeRepository
+        @Index(name = "recipe_time_added_id_idx", columnList = "time_added, id"),
+        @Index(name = "recipe_creator_time_added_id_idx", columnList = "creator_id, time_added, id"),
+        // The latest change, which tells whether a search index snapshot is current, see SearchServiceImpl
+        @Index(name = "recipe_time_updated_idx", columnList = "time_updated")
+})
 public class Recipe {
     @Id
     @GeneratedValue
@@ -22,22 +34,47 @@ public class Recipe {
     private String title;
     @Lob
     private String description;
+    // Ingredients and tags are stored as ids into the shared Term dictionary, see TermDictionary
     @ElementCollection
+    @Convert(converter = TermConverter.class)
+    @Column(name = "term_id")
     private Set<String> ingredients;
     @Lob
     private String directions;
     private Timestamp timeAdded;
+    // Set by RecipeService whenever the recipe is saved, including changes to its ingredients or tags only
+    private Timestamp timeUpdated;
     @ManyToOne
     private UserEntity creator;
     private String timeRequired;
     @ElementCollection
+    @Convert(converter = TermConverter.class)
+    @Column(name = "term_id")
     private Set<String> tags;
     @OneToOne
     private RecipeImage image;
-    @ManyToMany
-    private Set<UserEntity> viewers;
-    @ManyToMany
-    private Set<UserEntity> favourites;
-    @OneToMany
-    private Set<RecipeComment> comments;
+    // Denormalized from Favourite, see RecipeRepository.addToFavouriteCount
+    @ColumnDefault("0")
+    @Column(insertable = false, updatable = false)
+    private long favouriteCount;
+    // Denormalized from RecipeComment, see RecipeRepository.addToCommentCount
+    @ColumnDefault("0")
+    @Column(insertable = false, updatable = false)
+    private long commentCount;
+
+    /*
+        Two spellings of one term have the same id, and would otherwise be stored twice in one collection.
+        Runs when a new recipe is persisted; changes to existing recipes are canonicalized by RecipeService
+     */
+    @PrePersist
+    public void canonicalizeTerms() {
+        this.ingredients = TermDictionary.canonicalize(this.ingredients);
+        this.tags = TermDictionary.canonicalize(this.tags);
+    }
+
+    // Every ingredient and tag, for registering with TermDictionary before the recipe is saved
+    public Stream<String> terms() {
+        return Stream.concat(Objects.isNull(this.ingredients) ? Stream.empty() : this.ingredients.stream(),
+                Objects.isNull(this.tags) ? Stream.empty() : this.tags.stream());
+    }
 }
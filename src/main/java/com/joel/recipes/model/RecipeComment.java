@@ -14,6 +14,10 @@ import java.util.UUID;
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
+@Table(indexes = {
+        // Keyset pagination of a recipe's comments, see RecipeCommentRepository
+        @Index(name = "recipe_comment_recipe_time_added_id_idx", columnList = "recipe_id, time_added, id")
+})
 public class RecipeComment {
     @Id
     @GeneratedValue
@@ -0,0 +1,52 @@
+package com.joel.recipes.model;
+
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/*
+    Immutable snapshot of the searchable parts of a Recipe.
+    It is taken inside the transaction that wrote the recipe so that listeners
+    running after commit never touch lazy collections on a detached entity
+ */
+public record RecipeDocument(UUID id,
+                             String title,
+                             String description,
+                             String directions,
+                             Set<String> ingredients,
+                             Set<String> tags,
+                             UUID creatorId,
+                             Timestamp timeAdded,
+                             Timestamp timeUpdated) {
+
+    // Without terms, for queries that load the terms of many recipes at once, see withTerms
+    public RecipeDocument(UUID id, String title, String description, String directions, UUID creatorId, Timestamp timeAdded, Timestamp timeUpdated) {
+        this(id, title, description, directions, Set.of(), Set.of(), creatorId, timeAdded, timeUpdated);
+    }
+
+    public RecipeDocument withTerms(Collection<String> ingredients, Collection<String> tags) {
+        return new RecipeDocument(id, title, description, directions, copyOf(ingredients), copyOf(tags), creatorId, timeAdded, timeUpdated);
+    }
+
+    public static RecipeDocument from(Recipe recipe) {
+        return new RecipeDocument(
+                recipe.getId(),
+                recipe.getTitle(),
+                recipe.getDescription(),
+                recipe.getDirections(),
+                copyOf(recipe.getIngredients()),
+                copyOf(recipe.getTags()),
+                Objects.nonNull(recipe.getCreator()) ? recipe.getCreator().getId() : null,
+                recipe.getTimeAdded(),
+                recipe.getTimeUpdated()
+        );
+    }
+
+    private static Set<String> copyOf(Collection<String> values) {
+        if (Objects.isNull(values)) return Set.of();
+        return values.stream().filter(Objects::nonNull).collect(Collectors.toUnmodifiableSet());
+    }
+}
@@ -8,6 +8,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.sql.Timestamp;
+import java.util.List;
 import java.util.UUID;
 
 @Entity
@@ -25,5 +26,23 @@ public class RecipeImage {
     private UserEntity user;
     @Lob
     private String url;
+    // Where the content is in ImageStorage; images with the same content share one stored object
+    private String storageKey;
+    // SHA-256 of the content, hex encoded
+    private String contentHash;
+    private String contentType;
+    private long sizeInBytes;
+    // Variants and the placeholder are filled in in the background after upload, see ImageProcessingServiceImpl
+    private ImageProcessingStatus processingStatus;
+    /*
+        Narrowest first, as ImageProcessingServiceImpl stores them. The order column makes this an indexed list
+        rather than a bag, so fetching it together with a recipe's ingredients and tags does not repeat variants
+     */
+    @ElementCollection
+    @OrderColumn
+    private List<ImageVariant> variants;
+    // A tiny blurred version of the image as a data: URL, for clients to show while the real one loads
+    @Lob
+    private String placeholder;
     private Timestamp timeAdded;
 }
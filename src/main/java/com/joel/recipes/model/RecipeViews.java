@@ -0,0 +1,33 @@
+package com.joel.recipes.model;
+
+import com.joel.recipes.util.sketch.HyperLogLog;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Version;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/*
+    View statistics of a recipe, kept apart from the recipe row so that flushing views never contends with edits.
+    uniqueViewers is a serialized HyperLogLog sketch of the ids of signed-in viewers
+ */
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class RecipeViews {
+    @Id
+    private UUID recipeId;
+    private long totalViews;
+    @Column(length = HyperLogLog.SERIALIZED_LENGTH)
+    private byte[] uniqueViewers;
+    // Also tells Spring Data whether a row is new, since the id is assigned rather than generated
+    @Version
+    private Long version;
+}
@@ -1,26 +1,34 @@
 package com.joel.recipes.model;
 
-import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.Id;
-import jakarta.persistence.ManyToOne;
+import jakarta.persistence.*;
 import lombok.*;
 
 import java.time.Instant;
 import java.util.UUID;
 
+/*
+    Only the SHA-256 of the token is stored, so the table cannot be used to sign in on its own. Revoked tokens are
+    kept, detached from their user, until they expire, so that every instance can learn of the revocation, see
+    RefreshTokenServiceImpl
+ */
 @Entity
 @Getter
 @Setter
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
+@Table(indexes = {
+        @Index(name = "refresh_token_expiration_date_idx", columnList = "expirationDate"),
+        @Index(name = "refresh_token_revoked_at_idx", columnList = "revokedAt")
+})
 public class RefreshToken {
     @Id
     @GeneratedValue
     private UUID id;
-    private UUID tokenValue;
+    @Column(unique = true, nullable = false, length = 64)
+    private String tokenHash;
     private Instant expirationDate;
+    private Instant revokedAt;
     @ManyToOne
     private UserEntity userEntity;
 }
@@ -0,0 +1,11 @@
+package com.joel.recipes.model;
+
+import org.springframework.security.core.GrantedAuthority;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.UUID;
+
+// What refreshing an access token needs to know about the user a refresh token was issued to
+public record RefreshTokenOwner(UUID userId, String username, Collection<GrantedAuthority> authorities, Instant expirationDate) {
+}
@@ -1,5 +1,6 @@
 package com.joel.recipes.model;
 
 public enum RoleType {
-    USER
+    USER,
+    ADMIN
 }
@@ -0,0 +1,37 @@
+package com.joel.recipes.model;
+
+import com.joel.recipes.config.security.SigningAlgorithm;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/*
+    A key access tokens are signed with, shared by every instance. Rows are written and read by KeyRing, one per
+    rotation period; the unique period settles which key wins when several instances create one at the same time
+ */
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class SigningKey {
+    @Id
+    private String kid;
+    @Column(nullable = false, unique = true)
+    private long period;
+    // By name, so that adding or reordering algorithms cannot change what stored keys mean
+    @Enumerated(EnumType.STRING)
+    private SigningAlgorithm algorithm;
+    private Instant createdAt;
+    // The private JWK, encrypted if security.jwt.keys.encryption-secret is set
+    @Column(length = 8192)
+    private String privateJwk;
+}
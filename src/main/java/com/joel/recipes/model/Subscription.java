@@ -0,0 +1,41 @@
+package com.joel.recipes.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.sql.Timestamp;
+import java.util.UUID;
+
+/*
+    A user subscribed to a creator's recipes, one row per pair, so that neither side's subscriptions are ever loaded
+    as a collection. The primary key serves "who subscribes to this creator", the index "whom does this user follow"
+ */
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@IdClass(Subscription.Key.class)
+@Table(indexes = @Index(name = "subscription_subscriber_idx", columnList = "subscriber_id, creator_id"))
+public class Subscription {
+    @Id
+    private UUID creatorId;
+    @Id
+    private UUID subscriberId;
+    private Timestamp timeAdded;
+    // Also tells Spring Data whether a row is new, since the id is assigned rather than generated
+    @Version
+    private Long version;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Key implements Serializable {
+        private UUID creatorId;
+        private UUID subscriberId;
+    }
+}
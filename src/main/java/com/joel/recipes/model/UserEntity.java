@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
@@ -37,15 +38,16 @@ public class UserEntity implements UserDetails {
     private VerificationToken passwordResetToken;
     @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true)
     private Set<Recipe> recipes;
-    @ManyToMany
-    private Set<UserEntity> subscribers;
-    @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true)
+    // Denormalized from Subscription, see UserEntityRepository.addToSubscriberCount
+    @ColumnDefault("0")
+    @Column(insertable = false, updatable = false)
+    private long subscriberCount;
+    @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true)
     private Set<RecipeComment> comments;
-    @OneToMany
-    private Set<Recipe> favourites;
     @ManyToMany
     private Set<Role> authorities;
-    @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true)
+    // Mapped by the token's user, so issuing a token is a single insert that leaves the user untouched
+    @OneToMany(mappedBy = "userEntity", cascade = CascadeType.ALL, orphanRemoval = true)
     private Set<RefreshToken> refreshTokens;
     private AccountStatus accountStatus;
 
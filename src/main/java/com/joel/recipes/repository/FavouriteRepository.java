@@ -0,0 +1,39 @@
+package com.joel.recipes.repository;
+
+import com.joel.recipes.dto.FavouriteSummaryDto;
+import com.joel.recipes.model.Favourite;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface FavouriteRepository extends JpaRepository<Favourite, Favourite.Key>, CrudRepository<Favourite, Favourite.Key> {
+    // Keyset pagination by (timeAdded, recipeId) of the favourite, newest first, like RecipeRepository
+    String SUMMARY = "select new com.joel.recipes.dto.FavouriteSummaryDto(r.id, r.title, r.timeRequired, r.timeAdded, c.id, c.username, r.favouriteCount, f.timeAdded) " +
+            "from Favourite f join Recipe r on r.id = f.recipeId left join r.creator c where f.userId = :userId ";
+    String NEWEST_FIRST = "order by f.timeAdded desc, f.recipeId desc";
+
+    @Query(SUMMARY + NEWEST_FIRST)
+    List<FavouriteSummaryDto> findFavouriteSummaries(UUID userId, Limit limit);
+
+    @Query(SUMMARY + "and (f.timeAdded < :timeAdded or (f.timeAdded = :timeAdded and f.recipeId < :recipeId)) " + NEWEST_FIRST)
+    List<FavouriteSummaryDto> findFavouriteSummariesAfter(UUID userId, Timestamp timeAdded, UUID recipeId, Limit limit);
+
+    @Query("select f.recipeId from Favourite f where f.userId = :userId")
+    List<UUID> findRecipeIdsByUserId(UUID userId);
+
+    @Modifying
+    @Query("delete from Favourite f where f.userId = :userId and f.recipeId = :recipeId")
+    int deleteFavourite(UUID userId, UUID recipeId);
+
+    @Modifying
+    @Query("delete from Favourite f where f.recipeId = :recipeId")
+    int deleteByRecipeId(UUID recipeId);
+}
@@ -0,0 +1,18 @@
+package com.joel.recipes.repository;
+
+import com.joel.recipes.model.ImageUploadSession;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface ImageUploadSessionRepository extends CrudRepository<ImageUploadSession, UUID> {
+    Optional<ImageUploadSession> findByIdAndRecipeIdAndUserId(UUID id, UUID recipeId, UUID userId);
+
+    List<ImageUploadSession> findByExpirationDateBefore(Instant expirationDate, Limit limit);
+}
@@ -1,11 +1,51 @@
 package com.joel.recipes.repository;
 
+import com.joel.recipes.dto.RecipeCommentDto;
 import com.joel.recipes.model.RecipeComment;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.sql.Timestamp;
+import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 public interface RecipeCommentRepository extends JpaRepository<RecipeComment, UUID> {
+    // Keyset pagination by (timeAdded, id), newest first, like RecipeRepository
+    String COMMENT = "select new com.joel.recipes.dto.RecipeCommentDto(c.id, c.comment, c.timeAdded, u.id, u.username) " +
+            "from RecipeComment c left join c.user u where c.recipe.id = :recipeId ";
+    String NEWEST_FIRST = "order by c.timeAdded desc, c.id desc";
+
+    @Query(COMMENT + NEWEST_FIRST)
+    List<RecipeCommentDto> findComments(UUID recipeId, Limit limit);
+
+    @Query(COMMENT + "and (c.timeAdded < :timeAdded or (c.timeAdded = :timeAdded and c.id < :id)) " + NEWEST_FIRST)
+    List<RecipeCommentDto> findCommentsAfter(UUID recipeId, Timestamp timeAdded, UUID id, Limit limit);
+
+    /*
+        Every comment of the recipe through a forward-only cursor that fetches rows in chunks.
+        Rows are projected to DTOs, so nothing accumulates in the persistence context while the stream is consumed.
+        Must be consumed and closed inside a transaction
+     */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query(COMMENT + NEWEST_FIRST)
+    Stream<RecipeCommentDto> streamComments(UUID recipeId);
+
+    // Only the user's own comment, and only under the recipe it was posted to
+    @Modifying
+    @Query("delete from RecipeComment c where c.id = :id and c.user.id = :userId and c.recipe.id = :recipeId")
+    int deleteComment(UUID id, UUID userId, UUID recipeId);
+
+    @Modifying
+    @Query("delete from RecipeComment c where c.recipe.id = :recipeId")
+    int deleteByRecipeId(UUID recipeId);
 }
@@ -1,11 +1,27 @@
 package com.joel.recipes.repository;
 
+import com.joel.recipes.model.ImageProcessingStatus;
 import com.joel.recipes.model.RecipeImage;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface RecipeImageRepository extends JpaRepository<RecipeImage, UUID> {
+    List<RecipeImage> findByRecipeId(UUID recipeId);
+
+    boolean existsByStorageKey(String storageKey);
+
+    // Oldest first, so images that have waited longest are processed first
+    @Query("select i.id from RecipeImage i where i.processingStatus = :status order by i.timeAdded")
+    List<UUID> findIdsByProcessingStatus(ImageProcessingStatus status, Limit limit);
+
+    @Modifying
+    @Query("update RecipeImage i set i.processingStatus = :status where i.id = :id")
+    int updateProcessingStatus(UUID id, ImageProcessingStatus status);
 }
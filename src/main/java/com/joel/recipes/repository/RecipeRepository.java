@@ -1,12 +1,124 @@
 package com.joel.recipes.repository;
 
+import com.joel.recipes.dto.RecipeExportDto;
+import com.joel.recipes.dto.RecipeSummaryDto;
+import com.joel.recipes.dto.RecipeTermDto;
 import com.joel.recipes.model.Recipe;
+import com.joel.recipes.model.RecipeDocument;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 public interface RecipeRepository extends JpaRepository<Recipe, UUID>, CrudRepository<Recipe, UUID> {
+    /*
+        Keyset pagination, newest first. Each page continues strictly after the (timeAdded, id) of the last row of
+        the previous page, so the database seeks straight to it through the (time_added, id) indexes instead of
+        skipping an OFFSET of rows
+     */
+    String SUMMARY = "select new com.joel.recipes.dto.RecipeSummaryDto(r.id, r.title, r.timeRequired, r.timeAdded, c.id, c.username, r.favouriteCount) " +
+            "from Recipe r left join r.creator c ";
+    String AFTER_CURSOR = "(r.timeAdded < :timeAdded or (r.timeAdded = :timeAdded and r.id < :id)) ";
+    String NEWEST_FIRST = "order by r.timeAdded desc, r.id desc";
+    // Recipes by the creators a user subscribes to, limited to creators within a range of subscriber counts, see FeedServiceImpl
+    String BY_SUBSCRIBED_CREATORS = "where c.id in (select s.creatorId from Subscription s join UserEntity u on u.id = s.creatorId " +
+            "where s.subscriberId = :subscriberId and u.subscriberCount between :minSubscribers and :maxSubscribers) ";
+
+    @Query("select max(r.timeUpdated) from Recipe r")
+    Optional<Timestamp> findLatestTimeUpdated();
+
+    // The recipe with everything the recipe page shows, in one query
+    @EntityGraph(attributePaths = {"ingredients", "tags", "creator", "image", "image.variants"})
+    @Query("select r from Recipe r where r.id = :id")
+    Optional<Recipe> findRecipeDetailsById(UUID id);
+
+    @Query("select r.id from Recipe r where r.id in :ids")
+    List<UUID> findExistingIds(Collection<UUID> ids);
+
+    boolean existsByIdAndCreatorId(UUID id, UUID creatorId);
+
+    // The favourite count is only ever changed by this statement, so concurrent favourites cannot lose updates
+    @Modifying
+    @Query("update Recipe r set r.favouriteCount = r.favouriteCount + :delta where r.id = :id")
+    int addToFavouriteCount(UUID id, long delta);
+
+    // The recipe and its image reference each other, so one of the references has to be cleared to delete either
+    @Modifying
+    @Query("update Recipe r set r.image = null where r.id = :id")
+    int clearImage(UUID id);
+
+    @Modifying
+    @Query("update Recipe r set r.commentCount = r.commentCount + :delta where r.id = :id")
+    int addToCommentCount(UUID id, long delta);
+
+    @Query("select r.commentCount from Recipe r where r.id = :id")
+    Optional<Long> findCommentCount(UUID id);
+
+    @Query(SUMMARY + NEWEST_FIRST)
+    List<RecipeSummaryDto> findRecipeSummaries(Limit limit);
+
+    @Query(SUMMARY + "where " + AFTER_CURSOR + NEWEST_FIRST)
+    List<RecipeSummaryDto> findRecipeSummariesAfter(Timestamp timeAdded, UUID id, Limit limit);
+
+    @Query(SUMMARY + "where r.id in :ids")
+    List<RecipeSummaryDto> findRecipeSummariesByIds(Collection<UUID> ids);
+
+    @Query(SUMMARY + BY_SUBSCRIBED_CREATORS + NEWEST_FIRST)
+    List<RecipeSummaryDto> findFeedSummaries(UUID subscriberId, long minSubscribers, long maxSubscribers, Limit limit);
+
+    @Query(SUMMARY + BY_SUBSCRIBED_CREATORS + "and " + AFTER_CURSOR + NEWEST_FIRST)
+    List<RecipeSummaryDto> findFeedSummariesAfter(UUID subscriberId, long minSubscribers, long maxSubscribers, Timestamp timeAdded, UUID id, Limit limit);
+
+    @Query(SUMMARY + "where c.id = :creatorId " + NEWEST_FIRST)
+    List<RecipeSummaryDto> findRecipeSummariesByCreator(UUID creatorId, Limit limit);
+
+    @Query(SUMMARY + "where c.id = :creatorId and " + AFTER_CURSOR + NEWEST_FIRST)
+    List<RecipeSummaryDto> findRecipeSummariesByCreatorAfter(UUID creatorId, Timestamp timeAdded, UUID id, Limit limit);
+
+    /*
+        Every recipe added in [from, to), oldest first, through a forward-only cursor that fetches rows in chunks.
+        Rows are projected to DTOs, so nothing accumulates in the persistence context however many there are.
+        Must be consumed and closed inside a transaction
+     */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("select new com.joel.recipes.dto.RecipeExportDto(r.id, r.title, r.description, r.directions, r.timeRequired, r.timeAdded, c.id, c.username, i.url) " +
+            "from Recipe r left join r.creator c left join r.image i " +
+            "where r.timeAdded >= :from and r.timeAdded < :to order by r.timeAdded, r.id")
+    Stream<RecipeExportDto> streamRecipeExport(Timestamp from, Timestamp to);
+
+    /*
+        Every recipe by id, a chunk at a time, for rebuilding in-memory indexes. Each chunk continues strictly after
+        the id of the last recipe of the previous one, so no rows are skipped with an OFFSET. Terms are not included;
+        they are loaded for a whole chunk with findIngredientsByRecipeIds and findTagsByRecipeIds
+     */
+    String DOCUMENT = "select new com.joel.recipes.model.RecipeDocument(r.id, r.title, r.description, r.directions, c.id, r.timeAdded, r.timeUpdated) " +
+            "from Recipe r left join r.creator c ";
+
+    @Query(DOCUMENT + "order by r.id")
+    List<RecipeDocument> findRecipeDocuments(Limit limit);
+
+    @Query(DOCUMENT + "where r.id > :id order by r.id")
+    List<RecipeDocument> findRecipeDocumentsAfter(UUID id, Limit limit);
+
+    @Query("select new com.joel.recipes.dto.RecipeTermDto(r.id, i) from Recipe r join r.ingredients i where r.id in :ids")
+    List<RecipeTermDto> findIngredientsByRecipeIds(Collection<UUID> ids);
+
+    @Query("select new com.joel.recipes.dto.RecipeTermDto(r.id, t) from Recipe r join r.tags t where r.id in :ids")
+    List<RecipeTermDto> findTagsByRecipeIds(Collection<UUID> ids);
 }
@@ -0,0 +1,20 @@
+package com.joel.recipes.repository;
+
+import com.joel.recipes.model.RecipeViews;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface RecipeViewsRepository extends JpaRepository<RecipeViews, UUID>, CrudRepository<RecipeViews, UUID> {
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select v from RecipeViews v where v.recipeId in :recipeIds")
+    List<RecipeViews> findAllForUpdate(Collection<UUID> recipeIds);
+}
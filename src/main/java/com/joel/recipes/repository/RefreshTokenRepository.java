@@ -1,13 +1,40 @@
 package com.joel.recipes.repository;
 
 import com.joel.recipes.model.RefreshToken;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface RefreshTokenRepository extends CrudRepository<RefreshToken, UUID> {
-    Optional<RefreshToken> findByTokenValue(UUID tokenValue);
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+    // With everything minting an access token reads, in a single statement; revoked tokens have no user
+    @Query("select t from RefreshToken t join fetch t.userEntity u left join fetch u.authorities where t.tokenHash = :tokenHash")
+    Optional<RefreshToken> findWithOwnerByTokenHash(String tokenHash);
+
+    @Query("select t.tokenHash from RefreshToken t where t.userEntity.id = :userId")
+    List<String> findTokenHashesByUserEntityId(UUID userId);
+
+    @Query("select t.tokenHash from RefreshToken t where t.revokedAt > :revokedAt")
+    List<String> findTokenHashesByRevokedAtAfter(Instant revokedAt);
+
+    @Modifying
+    @Query("update RefreshToken t set t.revokedAt = :revokedAt, t.userEntity = null where t.tokenHash in :tokenHashes")
+    int revokeByTokenHashIn(Collection<String> tokenHashes, Instant revokedAt);
+
+    @Query("select t.id from RefreshToken t where t.expirationDate < :expirationDate")
+    List<UUID> findIdsByExpirationDateBefore(Instant expirationDate, Limit limit);
+
+    @Modifying
+    @Query("delete from RefreshToken t where t.id in :ids")
+    int deleteByIdIn(Collection<UUID> ids);
 }
@@ -0,0 +1,21 @@
+package com.joel.recipes.repository;
+
+import com.joel.recipes.model.Subscription;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface SubscriptionRepository extends JpaRepository<Subscription, Subscription.Key>, CrudRepository<Subscription, Subscription.Key> {
+    @Query("select s.subscriberId from Subscription s where s.creatorId = :creatorId")
+    List<UUID> findSubscriberIds(UUID creatorId);
+
+    @Modifying
+    @Query("delete from Subscription s where s.creatorId = :creatorId and s.subscriberId = :subscriberId")
+    int deleteSubscription(UUID creatorId, UUID subscriberId);
+}
@@ -1,7 +1,10 @@
 package com.joel.recipes.repository;
 
 import com.joel.recipes.model.UserEntity;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
@@ -18,4 +21,24 @@ public interface UserEntityRepository extends JpaRepository<UserEntity, UUID>, C
         if (emailOrUsername.contains("@")) return findUserEntityByEmail(emailOrUsername);
         return findUserEntityByUsername(emailOrUsername);
     }
+
+    // The user with everything authenticating them reads, in a single statement, see UserEntityServiceImpl.loginUser
+    @EntityGraph(attributePaths = {"authorities", "emailVerificationToken", "passwordResetToken"})
+    Optional<UserEntity> findForAuthenticationByEmail(String email);
+
+    @EntityGraph(attributePaths = {"authorities", "emailVerificationToken", "passwordResetToken"})
+    Optional<UserEntity> findForAuthenticationByUsername(String username);
+
+    default Optional<UserEntity> findForAuthenticationByEmailOrUsername(String emailOrUsername) {
+        if (emailOrUsername.contains("@")) return findForAuthenticationByEmail(emailOrUsername);
+        return findForAuthenticationByUsername(emailOrUsername);
+    }
+
+    // The subscriber count is only ever changed by this statement, so concurrent subscriptions cannot lose updates
+    @Modifying
+    @Query("update UserEntity u set u.subscriberCount = u.subscriberCount + :delta where u.id = :id")
+    int addToSubscriberCount(UUID id, long delta);
+
+    @Query("select u.subscriberCount from UserEntity u where u.id = :id")
+    Optional<Long> findSubscriberCount(UUID id);
 }
@@ -0,0 +1,24 @@
+package com.joel.recipes.service;
+
+import com.joel.recipes.dto.CommentPageDto;
+import com.joel.recipes.dto.RecipeCommentDto;
+import com.joel.recipes.exception.CommentDoesNotExistException;
+import com.joel.recipes.exception.InvalidCursorException;
+import com.joel.recipes.exception.RecipeDoesNotExistException;
+import com.joel.recipes.exception.UserEntityDoesNotExistException;
+import org.springframework.stereotype.Service;
+
+import java.util.UUID;
+import java.util.function.Consumer;
+
+@Service
+public interface CommentService {
+    RecipeCommentDto addComment(UUID userId, UUID recipeId, String comment) throws RecipeDoesNotExistException, UserEntityDoesNotExistException;
+    // Users can only delete their own comments, through the recipe they commented on
+    void deleteComment(UUID userId, UUID recipeId, UUID commentId) throws CommentDoesNotExistException;
+    long countComments(UUID recipeId) throws RecipeDoesNotExistException;
+    // Newest first; cursor is the nextCursor of the previous page, or null for the first page
+    CommentPageDto findComments(UUID recipeId, String cursor, int size) throws RecipeDoesNotExistException, InvalidCursorException;
+    // Passes every comment of the recipe to the consumer, newest first, without holding them all in memory
+    void streamComments(UUID recipeId, Consumer<RecipeCommentDto> consumer);
+}
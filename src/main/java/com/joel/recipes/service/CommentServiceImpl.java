@@ -0,0 +1,96 @@
+package com.joel.recipes.service;
+
+import com.joel.recipes.dto.CommentPageDto;
+import com.joel.recipes.dto.RecipeCommentDto;
+import com.joel.recipes.event.CommentAddedEvent;
+import com.joel.recipes.exception.CommentDoesNotExistException;
+import com.joel.recipes.exception.InvalidCursorException;
+import com.joel.recipes.exception.RecipeDoesNotExistException;
+import com.joel.recipes.exception.UserEntityDoesNotExistException;
+import com.joel.recipes.model.RecipeComment;
+import com.joel.recipes.model.UserEntity;
+import com.joel.recipes.repository.RecipeCommentRepository;
+import com.joel.recipes.repository.RecipeRepository;
+import com.joel.recipes.repository.UserEntityRepository;
+import com.joel.recipes.util.pagination.KeysetCursor;
+import jakarta.transaction.Transactional;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+@Service
+@Transactional
+public class CommentServiceImpl implements CommentService {
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final RecipeCommentRepository recipeCommentRepository;
+    private final RecipeRepository recipeRepository;
+    private final UserEntityRepository userEntityRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public CommentServiceImpl(RecipeCommentRepository recipeCommentRepository, RecipeRepository recipeRepository, UserEntityRepository userEntityRepository, ApplicationEventPublisher eventPublisher) {
+        this.recipeCommentRepository = recipeCommentRepository;
+        this.recipeRepository = recipeRepository;
+        this.userEntityRepository = userEntityRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public RecipeCommentDto addComment(UUID userId, UUID recipeId, String comment) throws RecipeDoesNotExistException, UserEntityDoesNotExistException {
+        if (!this.recipeRepository.existsById(recipeId)) throw new RecipeDoesNotExistException();
+        UserEntity user = this.userEntityRepository.findById(userId).orElseThrow(UserEntityDoesNotExistException::new);
+
+        RecipeComment savedComment = this.recipeCommentRepository.save(RecipeComment.builder()
+                .comment(comment)
+                .timeAdded(new Timestamp(System.currentTimeMillis()))
+                .recipe(this.recipeRepository.getReferenceById(recipeId))
+                .user(user)
+                .build());
+        this.recipeRepository.addToCommentCount(recipeId, 1);
+        this.eventPublisher.publishEvent(new CommentAddedEvent(recipeId, userId));
+        return new RecipeCommentDto(savedComment.getId(), savedComment.getComment(), savedComment.getTimeAdded(), user.getId(), user.getUsername());
+    }
+
+    @Override
+    public void deleteComment(UUID userId, UUID recipeId, UUID commentId) throws CommentDoesNotExistException {
+        if (this.recipeCommentRepository.deleteComment(commentId, userId, recipeId) == 0) throw new CommentDoesNotExistException();
+        this.recipeRepository.addToCommentCount(recipeId, -1);
+    }
+
+    @Override
+    public long countComments(UUID recipeId) throws RecipeDoesNotExistException {
+        return this.recipeRepository.findCommentCount(recipeId).orElseThrow(RecipeDoesNotExistException::new);
+    }
+
+    @Override
+    public CommentPageDto findComments(UUID recipeId, String cursor, int size) throws RecipeDoesNotExistException, InvalidCursorException {
+        long totalComments = this.countComments(recipeId);
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        List<RecipeCommentDto> rows;
+        if (Objects.isNull(cursor)) {
+            rows = this.recipeCommentRepository.findComments(recipeId, Limit.of(pageSize + 1));
+        } else {
+            KeysetCursor position = KeysetCursor.decode(cursor);
+            rows = this.recipeCommentRepository.findCommentsAfter(recipeId, position.timeAdded(), position.id(), Limit.of(pageSize + 1));
+        }
+
+        if (rows.size() <= pageSize) return new CommentPageDto(rows, totalComments, null);
+        List<RecipeCommentDto> comments = rows.subList(0, pageSize);
+        RecipeCommentDto last = comments.get(pageSize - 1);
+        return new CommentPageDto(comments, totalComments, new KeysetCursor(last.timeAdded(), last.id()).encode());
+    }
+
+    @Override
+    public void streamComments(UUID recipeId, Consumer<RecipeCommentDto> consumer) {
+        try (Stream<RecipeCommentDto> comments = this.recipeCommentRepository.streamComments(recipeId)) {
+            comments.forEach(consumer);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.joel.recipes.service;
+
+import com.joel.recipes.dto.FavouritePageDto;
+import com.joel.recipes.exception.InvalidCursorException;
+import com.joel.recipes.exception.RecipeDoesNotExistException;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Service
+public interface FavouriteService {
+    // Both are idempotent: they return false, and change nothing, if the recipe already was/was not a favourite
+    boolean addFavourite(UUID userId, UUID recipeId) throws RecipeDoesNotExistException;
+    boolean removeFavourite(UUID userId, UUID recipeId);
+    // The ones among recipeIds that the user has favourited, in the given order
+    List<UUID> findFavourited(UUID userId, Collection<UUID> recipeIds);
+    // Newest favourite first; cursor is the nextCursor of the previous page, or null for the first page
+    FavouritePageDto findFavourites(UUID userId, String cursor, int size) throws InvalidCursorException;
+}
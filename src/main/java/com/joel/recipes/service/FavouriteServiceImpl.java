@@ -0,0 +1,178 @@
+package com.joel.recipes.service;
+
+import com.joel.recipes.dto.FavouritePageDto;
+import com.joel.recipes.dto.FavouriteSummaryDto;
+import com.joel.recipes.event.FavouriteChangedEvent;
+import com.joel.recipes.event.RecipeDeletedEvent;
+import com.joel.recipes.exception.InvalidCursorException;
+import com.joel.recipes.exception.RecipeDoesNotExistException;
+import com.joel.recipes.model.Favourite;
+import com.joel.recipes.repository.FavouriteRepository;
+import com.joel.recipes.repository.RecipeRepository;
+import com.joel.recipes.util.bitmap.RoaringBitmap;
+import com.joel.recipes.util.pagination.KeysetCursor;
+import com.joel.recipes.util.search.RecipeOrdinalRegistry;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.*;
+
+/*
+    Membership checks ("which of these recipes has the user favourited?") are answered from a bitmap of the ordinals
+    of the user's favourite recipes, cached for the most recently active users. Cached bitmaps are replaced rather
+    than modified, so readers never need a lock while using one
+ */
+@Service
+@Transactional
+public class FavouriteServiceImpl implements FavouriteService {
+    private static final int MAX_PAGE_SIZE = 100;
+
+    @Value("${favourites.membership-cache-size}")
+    private int membershipCacheSize;
+
+    private final FavouriteRepository favouriteRepository;
+    private final RecipeRepository recipeRepository;
+    private final RecipeOrdinalRegistry ordinalRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    // Guarded by itself. Least recently used first
+    private final LinkedHashMap<UUID, RoaringBitmap> membershipCache = new LinkedHashMap<>(16, 0.75f, true);
+    // Users whose bitmap is being loaded, mapped to whether their favourites changed during the load
+    private final Map<UUID, Boolean> loading = new HashMap<>();
+
+    public FavouriteServiceImpl(FavouriteRepository favouriteRepository, RecipeRepository recipeRepository, RecipeOrdinalRegistry ordinalRegistry,
+                                ApplicationEventPublisher eventPublisher, TransactionTemplate transactionTemplate) {
+        this.favouriteRepository = favouriteRepository;
+        this.recipeRepository = recipeRepository;
+        this.ordinalRegistry = ordinalRegistry;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /*
+        Two requests can both find no favourite, so the loser's insert fails on the primary key. It is done in a
+        transaction of its own and flushed before the count is touched, so that failure just means already added
+     */
+    @Override
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public boolean addFavourite(UUID userId, UUID recipeId) throws RecipeDoesNotExistException {
+        if (!this.recipeRepository.existsById(recipeId)) throw new RecipeDoesNotExistException();
+        if (this.favouriteRepository.existsById(new Favourite.Key(userId, recipeId))) return false;
+
+        try {
+            this.transactionTemplate.executeWithoutResult(status -> {
+                this.favouriteRepository.saveAndFlush(Favourite.builder()
+                        .userId(userId)
+                        .recipeId(recipeId)
+                        .timeAdded(new Timestamp(System.currentTimeMillis()))
+                        .build());
+                this.recipeRepository.addToFavouriteCount(recipeId, 1);
+                this.eventPublisher.publishEvent(new FavouriteChangedEvent(userId, recipeId, true));
+            });
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean removeFavourite(UUID userId, UUID recipeId) {
+        if (this.favouriteRepository.deleteFavourite(userId, recipeId) == 0) return false;
+
+        this.recipeRepository.addToFavouriteCount(recipeId, -1);
+        this.eventPublisher.publishEvent(new FavouriteChangedEvent(userId, recipeId, false));
+        return true;
+    }
+
+    @Override
+    public List<UUID> findFavourited(UUID userId, Collection<UUID> recipeIds) {
+        RoaringBitmap favourites = this.membershipOf(userId);
+        return recipeIds.stream()
+                .filter(recipeId -> {
+                    int ordinal = this.ordinalRegistry.findOrdinal(recipeId);
+                    return ordinal >= 0 && favourites.contains(ordinal);
+                })
+                .distinct()
+                .toList();
+    }
+
+    @Override
+    public FavouritePageDto findFavourites(UUID userId, String cursor, int size) throws InvalidCursorException {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        List<FavouriteSummaryDto> rows;
+        if (Objects.isNull(cursor)) {
+            rows = this.favouriteRepository.findFavouriteSummaries(userId, Limit.of(pageSize + 1));
+        } else {
+            KeysetCursor position = KeysetCursor.decode(cursor);
+            rows = this.favouriteRepository.findFavouriteSummariesAfter(userId, position.timeAdded(), position.id(), Limit.of(pageSize + 1));
+        }
+
+        if (rows.size() <= pageSize) return new FavouritePageDto(rows, null);
+        List<FavouriteSummaryDto> recipes = rows.subList(0, pageSize);
+        FavouriteSummaryDto last = recipes.get(pageSize - 1);
+        return new FavouritePageDto(recipes, new KeysetCursor(last.favouritedAt(), last.id()).encode());
+    }
+
+    @TransactionalEventListener
+    public void onFavouriteChanged(FavouriteChangedEvent event) {
+        int ordinal = this.ordinalRegistry.ordinalOf(event.recipeId());
+        synchronized (this.membershipCache) {
+            this.loading.replace(event.userId(), true);
+            RoaringBitmap cached = this.membershipCache.get(event.userId());
+            if (Objects.isNull(cached)) return;
+            RoaringBitmap updated = cached.copy();
+            if (event.favourite()) updated.add(ordinal);
+            else updated.remove(ordinal);
+            this.membershipCache.put(event.userId(), updated);
+        }
+    }
+
+    // Before commit, so that the favourites are deleted in the same transaction as the recipe
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onRecipeDeleted(RecipeDeletedEvent event) {
+        this.favouriteRepository.deleteByRecipeId(event.recipeId());
+    }
+
+    /*
+        Loads are not done under the lock. If the user's favourites change while their bitmap is being loaded,
+        the loaded bitmap may be stale, so it is used for this call but not cached
+     */
+    private RoaringBitmap membershipOf(UUID userId) {
+        synchronized (this.membershipCache) {
+            RoaringBitmap cached = this.membershipCache.get(userId);
+            if (Objects.nonNull(cached)) return cached;
+            this.loading.put(userId, false);
+        }
+
+        RoaringBitmap favourites = new RoaringBitmap();
+        try {
+            for (UUID recipeId : this.favouriteRepository.findRecipeIdsByUserId(userId)) {
+                favourites.add(this.ordinalRegistry.ordinalOf(recipeId));
+            }
+        } catch (RuntimeException e) {
+            synchronized (this.membershipCache) {
+                this.loading.remove(userId);
+            }
+            throw e;
+        }
+
+        synchronized (this.membershipCache) {
+            if (Boolean.FALSE.equals(this.loading.remove(userId))) {
+                this.membershipCache.put(userId, favourites);
+                if (this.membershipCache.size() > this.membershipCacheSize) {
+                    this.membershipCache.remove(this.membershipCache.keySet().iterator().next());
+                }
+            }
+        }
+        return favourites;
+    }
+}
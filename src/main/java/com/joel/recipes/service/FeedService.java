@@ -0,0 +1,17 @@
+package com.joel.recipes.service;
+
+import com.joel.recipes.dto.RecipePageDto;
+import com.joel.recipes.exception.InvalidCursorException;
+import com.joel.recipes.exception.UserEntityDoesNotExistException;
+import org.springframework.stereotype.Service;
+
+import java.util.UUID;
+
+@Service
+public interface FeedService {
+    // Both are idempotent: they return false, and change nothing, if the user already was/was not subscribed
+    boolean subscribe(UUID subscriberId, UUID creatorId) throws UserEntityDoesNotExistException;
+    boolean unsubscribe(UUID subscriberId, UUID creatorId);
+    // Recipes by the creators the user subscribes to, newest first; cursor is the nextCursor of the previous page
+    RecipePageDto findFeed(UUID userId, String cursor, int size) throws InvalidCursorException;
+}
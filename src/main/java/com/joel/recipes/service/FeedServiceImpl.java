@@ -0,0 +1,213 @@
+package com.joel.recipes.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.joel.recipes.dto.RecipePageDto;
+import com.joel.recipes.dto.RecipeSummaryDto;
+import com.joel.recipes.event.RecipeCreatedEvent;
+import com.joel.recipes.event.SubscriptionChangedEvent;
+import com.joel.recipes.exception.InvalidCursorException;
+import com.joel.recipes.exception.UserEntityDoesNotExistException;
+import com.joel.recipes.model.Subscription;
+import com.joel.recipes.repository.RecipeRepository;
+import com.joel.recipes.repository.SubscriptionRepository;
+import com.joel.recipes.repository.UserEntityRepository;
+import com.joel.recipes.util.feed.Timeline;
+import com.joel.recipes.util.pagination.KeysetCursor;
+import com.joel.recipes.util.search.RecipeOrdinalRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.*;
+
+/*
+    Home feeds are a hybrid of fan-out-on-write and fan-out-on-read.
+    Every active user has a Timeline of the recent recipes of the creators they subscribe to, and a new recipe is
+    pushed into the timelines of its creator's subscribers once it has committed. Pushing to every subscriber of a
+    creator with millions of them would make a single recipe cost millions of writes, so recipes by creators with
+    more than fanOutThreshold subscribers are not pushed; they are read from the database when the feed is, with a
+    query that only touches those few creators. A page of the feed is therefore one query for the timeline's recipes
+    and one for the popular creators', whatever the number of subscriptions, and a new recipe costs at most
+    fanOutThreshold pushes.
+    Timelines are only kept for recently active users and are rebuilt from the database when missing; pages past the
+    end of a timeline are read from the database directly
+ */
+@Service
+@Transactional
+public class FeedServiceImpl implements FeedService {
+    private static final int MAX_PAGE_SIZE = 100;
+    // The database orders UUIDs by their unsigned bytes, which is not UUID.compareTo's signed order
+    private static final Comparator<UUID> UUID_ORDER = Comparator.<UUID, Long>comparing(UUID::getMostSignificantBits, Long::compareUnsigned)
+            .thenComparing(UUID::getLeastSignificantBits, Long::compareUnsigned);
+    private static final Comparator<RecipeSummaryDto> NEWEST_FIRST = Comparator.comparing(RecipeSummaryDto::timeAdded)
+            .thenComparing(RecipeSummaryDto::id, UUID_ORDER)
+            .reversed();
+
+    private final long fanOutThreshold;
+    private final int timelineCapacity;
+
+    private final SubscriptionRepository subscriptionRepository;
+    private final UserEntityRepository userEntityRepository;
+    private final RecipeRepository recipeRepository;
+    private final RecipeOrdinalRegistry ordinalRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate writeTransaction;
+    private final TransactionTemplate readTransaction;
+    private final Cache<UUID, Timeline> timelines;
+
+    public FeedServiceImpl(SubscriptionRepository subscriptionRepository,
+                           UserEntityRepository userEntityRepository,
+                           RecipeRepository recipeRepository,
+                           RecipeOrdinalRegistry ordinalRegistry,
+                           ApplicationEventPublisher eventPublisher,
+                           PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry,
+                           @Value("${feed.fan-out-threshold}") long fanOutThreshold,
+                           @Value("${feed.timeline-capacity}") int timelineCapacity,
+                           @Value("${feed.cached-timelines}") long cachedTimelines) {
+        this.subscriptionRepository = subscriptionRepository;
+        this.userEntityRepository = userEntityRepository;
+        this.recipeRepository = recipeRepository;
+        this.ordinalRegistry = ordinalRegistry;
+        this.eventPublisher = eventPublisher;
+        this.fanOutThreshold = fanOutThreshold;
+        this.timelineCapacity = timelineCapacity;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        // Fan-out happens after the recipe's transaction has committed, so it reads in a transaction of its own
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readTransaction.setReadOnly(true);
+        this.timelines = Caffeine.newBuilder()
+                .maximumSize(cachedTimelines)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, this.timelines, "timelines");
+    }
+
+    // Like FavouriteServiceImpl.addFavourite, a subscription inserted concurrently fails on the primary key on its own
+    @Override
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public boolean subscribe(UUID subscriberId, UUID creatorId) throws UserEntityDoesNotExistException {
+        if (!this.userEntityRepository.existsById(creatorId)) throw new UserEntityDoesNotExistException();
+        if (subscriberId.equals(creatorId)) return false;
+        if (this.subscriptionRepository.existsById(new Subscription.Key(creatorId, subscriberId))) return false;
+
+        try {
+            this.writeTransaction.executeWithoutResult(status -> {
+                this.subscriptionRepository.saveAndFlush(Subscription.builder()
+                        .creatorId(creatorId)
+                        .subscriberId(subscriberId)
+                        .timeAdded(new Timestamp(System.currentTimeMillis()))
+                        .build());
+                this.userEntityRepository.addToSubscriberCount(creatorId, 1);
+                this.eventPublisher.publishEvent(new SubscriptionChangedEvent(creatorId, subscriberId, true));
+            });
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean unsubscribe(UUID subscriberId, UUID creatorId) {
+        if (this.subscriptionRepository.deleteSubscription(creatorId, subscriberId) == 0) return false;
+
+        this.userEntityRepository.addToSubscriberCount(creatorId, -1);
+        this.eventPublisher.publishEvent(new SubscriptionChangedEvent(creatorId, subscriberId, false));
+        return true;
+    }
+
+    @Override
+    public RecipePageDto findFeed(UUID userId, String cursor, int size) throws InvalidCursorException {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        KeysetCursor position = Objects.isNull(cursor) ? null : KeysetCursor.decode(cursor);
+
+        Timeline timeline = this.timelines.get(userId, this::loadTimeline);
+        List<Timeline.Entry> entries = timeline.newest(pageSize + 1, entry -> Objects.isNull(position) || isBefore(entry, position));
+
+        List<RecipeSummaryDto> rows;
+        if (entries.size() > pageSize || timeline.isComplete()) {
+            // The timeline covers the page for creators whose recipes are pushed; the rest are read here
+            List<UUID> ids = entries.stream().map(entry -> this.ordinalRegistry.idOf(entry.ordinal())).toList();
+            Map<UUID, RecipeSummaryDto> merged = new HashMap<>();
+            if (!ids.isEmpty()) {
+                this.recipeRepository.findRecipeSummariesByIds(ids).forEach(row -> merged.put(row.id(), row));
+            }
+            findFeedSummaries(userId, this.fanOutThreshold + 1, Long.MAX_VALUE, position, pageSize + 1).forEach(row -> merged.put(row.id(), row));
+            rows = merged.values().stream().sorted(NEWEST_FIRST).limit(pageSize + 1).toList();
+        } else {
+            // Past the end of the timeline, every creator's recipes are read from the database
+            rows = findFeedSummaries(userId, 0, Long.MAX_VALUE, position, pageSize + 1);
+        }
+
+        if (rows.size() <= pageSize) return new RecipePageDto(rows, null);
+        List<RecipeSummaryDto> recipes = rows.subList(0, pageSize);
+        RecipeSummaryDto last = recipes.get(pageSize - 1);
+        return new RecipePageDto(recipes, new KeysetCursor(last.timeAdded(), last.id()).encode());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipeCreated(RecipeCreatedEvent event) {
+        if (Objects.isNull(event.creatorId())) return;
+        List<UUID> subscriberIds = this.readTransaction.execute(status -> {
+            long subscriberCount = this.userEntityRepository.findSubscriberCount(event.creatorId()).orElse(0L);
+            if (subscriberCount > this.fanOutThreshold) return List.<UUID>of();
+            return this.subscriptionRepository.findSubscriberIds(event.creatorId());
+        });
+
+        int ordinal = this.ordinalRegistry.ordinalOf(event.recipeId());
+        long timeAdded = microsOf(event.timeAdded());
+        for (UUID subscriberId : subscriberIds) {
+            // Only timelines that are cached are updated; computeIfPresent waits for one that is being loaded
+            this.timelines.asMap().computeIfPresent(subscriberId, (id, timeline) -> {
+                timeline.push(ordinal, timeAdded);
+                return timeline;
+            });
+        }
+    }
+
+    // The subscriber's timeline no longer matches their subscriptions, so it is rebuilt on their next read
+    @TransactionalEventListener
+    public void onSubscriptionChanged(SubscriptionChangedEvent event) {
+        this.timelines.invalidate(event.subscriberId());
+    }
+
+    private Timeline loadTimeline(UUID userId) {
+        List<RecipeSummaryDto> rows = this.recipeRepository.findFeedSummaries(userId, 0, this.fanOutThreshold, Limit.of(this.timelineCapacity + 1));
+        // Every recipe newer than the first one that did not fit is in the timeline
+        long horizon = rows.size() > this.timelineCapacity ? microsOf(rows.get(this.timelineCapacity).timeAdded()) : Timeline.COMPLETE;
+        Timeline timeline = new Timeline(this.timelineCapacity, horizon);
+        for (int i = Math.min(rows.size(), this.timelineCapacity) - 1; i >= 0; i--) {
+            timeline.push(this.ordinalRegistry.ordinalOf(rows.get(i).id()), microsOf(rows.get(i).timeAdded()));
+        }
+        return timeline;
+    }
+
+    private List<RecipeSummaryDto> findFeedSummaries(UUID userId, long minSubscribers, long maxSubscribers, KeysetCursor position, int limit) {
+        if (Objects.isNull(position)) {
+            return this.recipeRepository.findFeedSummaries(userId, minSubscribers, maxSubscribers, Limit.of(limit));
+        }
+        return this.recipeRepository.findFeedSummariesAfter(userId, minSubscribers, maxSubscribers, position.timeAdded(), position.id(), Limit.of(limit));
+    }
+
+    private boolean isBefore(Timeline.Entry entry, KeysetCursor position) {
+        long cursorTime = microsOf(position.timeAdded());
+        if (entry.timeAdded() != cursorTime) return entry.timeAdded() < cursorTime;
+        return UUID_ORDER.compare(this.ordinalRegistry.idOf(entry.ordinal()), position.id()) < 0;
+    }
+
+    private static long microsOf(Timestamp timestamp) {
+        return Math.floorDiv(timestamp.getTime(), 1000) * 1_000_000 + timestamp.getNanos() / 1000;
+    }
+}
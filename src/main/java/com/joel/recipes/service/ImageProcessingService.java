@@ -0,0 +1,13 @@
+package com.joel.recipes.service;
+
+import org.springframework.stereotype.Service;
+
+import java.util.UUID;
+
+@Service
+public interface ImageProcessingService {
+    // Queues the image for variant generation; false if the queue is full and the image was left for a later sweep
+    boolean submit(UUID imageId);
+    // Queues images that are still waiting for their variants, as far as the queue has room
+    void resubmitPending();
+}
@@ -0,0 +1,201 @@
+package com.joel.recipes.service;
+
+import com.joel.recipes.event.RecipeImageChangedEvent;
+import com.joel.recipes.event.RecipeImageUploadedEvent;
+import com.joel.recipes.model.ImageProcessingStatus;
+import com.joel.recipes.model.ImageVariant;
+import com.joel.recipes.model.RecipeImage;
+import com.joel.recipes.repository.RecipeImageRepository;
+import com.joel.recipes.util.image.ImageResizer;
+import com.joel.recipes.util.image.ImageType;
+import com.joel.recipes.util.storage.ImageStorage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.java.Log;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.logging.Level;
+
+/*
+    Generates fixed-width variants and a blurred placeholder for every uploaded image, in the background.
+    Work runs on a fixed number of threads fed by a bounded queue, so a burst of uploads can neither start
+    unbounded decoding, which needs width x height x 4 bytes per image, nor queue without limit. When the queue
+    is full the image simply stays PENDING, and a periodic sweep queues pending images again as room frees up,
+    oldest first. The sweep also picks up images whose processing was lost to a restart.
+    Variant keys are derived from the original's content-addressed key, so identical uploads share variants too
+ */
+@Service
+@Log
+public class ImageProcessingServiceImpl implements ImageProcessingService {
+    private static final int PLACEHOLDER_WIDTH = 16;
+
+    private final RecipeImageRepository recipeImageRepository;
+    private final ImageStorage imageStorage;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int[] widths;
+    private final long maxPixels;
+
+    private final ThreadPoolExecutor executor;
+    // Images in the queue or being processed, so the sweep and the upload event cannot queue one twice
+    private final Set<UUID> queued = ConcurrentHashMap.newKeySet();
+
+    private final Timer queueWait;
+    private final Timer processingTime;
+    private final Counter deferred;
+    private final MeterRegistry meterRegistry;
+
+    public ImageProcessingServiceImpl(RecipeImageRepository recipeImageRepository,
+                                      ImageStorage imageStorage,
+                                      TransactionTemplate transactionTemplate,
+                                      ApplicationEventPublisher eventPublisher,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${images.processing.widths}") int[] widths,
+                                      @Value("${images.processing.workers}") int workers,
+                                      @Value("${images.processing.queue-capacity}") int queueCapacity,
+                                      @Value("${images.processing.max-pixels}") long maxPixels) {
+        this.recipeImageRepository = recipeImageRepository;
+        this.imageStorage = imageStorage;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.widths = Arrays.stream(widths).sorted().distinct().toArray();
+        this.maxPixels = maxPixels;
+        this.executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("image-processing-"), new ThreadPoolExecutor.AbortPolicy());
+
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("images.processing.queue.depth", this.executor, executor -> executor.getQueue().size()).register(meterRegistry);
+        Gauge.builder("images.processing.active", this.executor, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+        this.queueWait = Timer.builder("images.processing.queue.wait").publishPercentiles(0.5, 0.99).register(meterRegistry);
+        this.processingTime = Timer.builder("images.processing.duration").publishPercentiles(0.5, 0.99).register(meterRegistry);
+        this.deferred = meterRegistry.counter("images.processing.deferred");
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onImageUploaded(RecipeImageUploadedEvent event) {
+        this.submit(event.imageId());
+    }
+
+    @Override
+    public boolean submit(UUID imageId) {
+        if (!this.queued.add(imageId)) return true;
+        long enqueuedAt = System.nanoTime();
+        try {
+            this.executor.execute(() -> {
+                this.queueWait.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+                try {
+                    this.processingTime.record(() -> this.process(imageId));
+                } finally {
+                    this.queued.remove(imageId);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            this.queued.remove(imageId);
+            this.deferred.increment();
+            return false;
+        }
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${images.processing.sweep-interval-in-ms}")
+    public void resubmitPending() {
+        int room = this.executor.getQueue().remainingCapacity();
+        if (room == 0) return;
+        for (UUID imageId : this.recipeImageRepository.findIdsByProcessingStatus(ImageProcessingStatus.PENDING, Limit.of(room))) {
+            if (!this.submit(imageId)) return;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Queued images stay PENDING and are picked up by the sweep after the next start
+        this.executor.shutdownNow();
+    }
+
+    void process(UUID imageId) {
+        RecipeImage image = this.recipeImageRepository.findById(imageId).orElse(null);
+        // Replaced or deleted since it was queued, or already done by another instance
+        if (Objects.isNull(image) || image.getProcessingStatus() != ImageProcessingStatus.PENDING) return;
+
+        try {
+            Optional<BufferedImage> decoded;
+            try (InputStream in = this.imageStorage.open(image.getStorageKey())) {
+                decoded = ImageResizer.read(in, this.maxPixels);
+            }
+            if (decoded.isEmpty()) {
+                this.finish(imageId, ImageProcessingStatus.UNSUPPORTED);
+                return;
+            }
+
+            BufferedImage source = decoded.get();
+            List<ImageVariant> variants = new ArrayList<>();
+            for (int width : this.widths) {
+                // Never upscaled; the original serves anything at least as wide as itself
+                if (width >= source.getWidth()) break;
+                variants.add(this.storeVariant(image.getStorageKey(), source, width));
+            }
+            String placeholder = placeholderOf(source);
+
+            this.transactionTemplate.executeWithoutResult(status -> this.recipeImageRepository.findById(imageId).ifPresent(current -> {
+                current.setVariants(variants);
+                current.setPlaceholder(placeholder);
+                current.setProcessingStatus(ImageProcessingStatus.READY);
+                // The recipe page lists the variants, so cached copies of the recipe have to go
+                if (Objects.nonNull(current.getRecipe())) {
+                    this.eventPublisher.publishEvent(new RecipeImageChangedEvent(current.getRecipe().getId()));
+                }
+            }));
+            this.count(ImageProcessingStatus.READY);
+        } catch (IOException | RuntimeException e) {
+            log.log(Level.WARNING, "Unable to generate variants of image " + imageId, e);
+            this.finish(imageId, ImageProcessingStatus.FAILED);
+        }
+    }
+
+    private ImageVariant storeVariant(String originalKey, BufferedImage source, int width) throws IOException {
+        BufferedImage resized = ImageResizer.resize(source, width);
+        ImageType type = ImageResizer.outputTypeOf(resized);
+        String key = originalKey.substring(0, originalKey.lastIndexOf('.')) + "-w" + width + "." + type.extension();
+        if (!this.imageStorage.exists(key)) {
+            try (ImageStorage.StagedImage staged = this.imageStorage.stage()) {
+                ImageResizer.write(resized, type, staged.outputStream());
+                staged.commit(key, type.contentType());
+            }
+        }
+        return new ImageVariant(width, resized.getHeight(), key, this.imageStorage.urlOf(key), type.contentType());
+    }
+
+    private static String placeholderOf(BufferedImage source) throws IOException {
+        BufferedImage placeholder = ImageResizer.placeholder(source, Math.min(PLACEHOLDER_WIDTH, source.getWidth()));
+        ImageType type = ImageResizer.outputTypeOf(placeholder);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageResizer.write(placeholder, type, out);
+        return "data:" + type.contentType() + ";base64," + Base64.getEncoder().encodeToString(out.toByteArray());
+    }
+
+    private void finish(UUID imageId, ImageProcessingStatus status) {
+        this.transactionTemplate.executeWithoutResult(transaction -> this.recipeImageRepository.updateProcessingStatus(imageId, status));
+        this.count(status);
+    }
+
+    private void count(ImageProcessingStatus status) {
+        this.meterRegistry.counter("images.processing.images", "outcome", status.name().toLowerCase(Locale.ROOT)).increment();
+    }
+}
@@ -1,4 +1,27 @@
 package com.joel.recipes.service;
 
+import com.joel.recipes.dto.ImageUploadSessionDto;
+import com.joel.recipes.dto.RecipeImageDto;
+import com.joel.recipes.exception.ImageNotUploadedException;
+import com.joel.recipes.exception.ImageTooLargeException;
+import com.joel.recipes.exception.ImageUploadDoesNotExistException;
+import com.joel.recipes.exception.NotRecipeCreatorException;
+import com.joel.recipes.exception.RecipeDoesNotExistException;
+import com.joel.recipes.exception.UnsupportedImageTypeException;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.UUID;
+
+@Service
 public interface ImageService {
+    // Replaces the recipe's image; contentLength is -1 if the client did not say how long the image is
+    RecipeImageDto uploadImage(UUID userId, UUID recipeId, InputStream image, long contentLength) throws RecipeDoesNotExistException, NotRecipeCreatorException, UnsupportedImageTypeException, ImageTooLargeException, IOException;
+
+    // Lets the client upload the recipe's image straight to storage instead of through uploadImage
+    ImageUploadSessionDto startUpload(UUID userId, UUID recipeId) throws RecipeDoesNotExistException, NotRecipeCreatorException;
+
+    // Checks what was uploaded in the session and replaces the recipe's image with it
+    RecipeImageDto completeUpload(UUID userId, UUID recipeId, UUID uploadId) throws ImageUploadDoesNotExistException, ImageNotUploadedException, RecipeDoesNotExistException, UnsupportedImageTypeException, ImageTooLargeException, IOException;
 }
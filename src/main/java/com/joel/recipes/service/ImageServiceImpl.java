@@ -0,0 +1,268 @@
+package com.joel.recipes.service;
+
+import com.joel.recipes.dto.ImageUploadSessionDto;
+import com.joel.recipes.dto.RecipeImageDto;
+import com.joel.recipes.event.RecipeImageChangedEvent;
+import com.joel.recipes.event.RecipeImageDeletedEvent;
+import com.joel.recipes.event.RecipeImageUploadedEvent;
+import com.joel.recipes.exception.ImageNotUploadedException;
+import com.joel.recipes.exception.ImageTooLargeException;
+import com.joel.recipes.exception.ImageUploadDoesNotExistException;
+import com.joel.recipes.exception.NotRecipeCreatorException;
+import com.joel.recipes.exception.RecipeDoesNotExistException;
+import com.joel.recipes.exception.UnsupportedImageTypeException;
+import com.joel.recipes.model.ImageProcessingStatus;
+import com.joel.recipes.model.ImageUploadSession;
+import com.joel.recipes.model.Recipe;
+import com.joel.recipes.model.RecipeImage;
+import com.joel.recipes.repository.ImageUploadSessionRepository;
+import com.joel.recipes.repository.RecipeImageRepository;
+import com.joel.recipes.repository.RecipeRepository;
+import com.joel.recipes.repository.UserEntityRepository;
+import com.joel.recipes.util.image.ImageType;
+import com.joel.recipes.util.storage.ImageStorage;
+import lombok.extern.java.Log;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.stream.Stream;
+
+/*
+    Uploads are copied to storage a chunk at a time as they arrive, so memory use does not depend on image size.
+    The type is checked from the first chunk and the size as every chunk arrives, so a bad upload is stopped as
+    soon as it can be told apart, and the content is hashed on the way through to give its storage key.
+    No transaction is held open while the body is read; the image row is only written once storage has it.
+    Images uploaded straight to storage through an upload session go through the same checks when the session is
+    completed, reading the object back from storage, before being moved to their content-addressed key
+ */
+@Service
+@Log
+public class ImageServiceImpl implements ImageService {
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final int SWEEP_BATCH_SIZE = 100;
+
+    private final RecipeRepository recipeRepository;
+    private final RecipeImageRepository recipeImageRepository;
+    private final UserEntityRepository userEntityRepository;
+    private final ImageUploadSessionRepository imageUploadSessionRepository;
+    private final ImageStorage imageStorage;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final long maxSizeInBytes;
+    private final Duration uploadSessionLifespan;
+
+    private record StoredImage(String key, ImageType type, String contentHash, long sizeInBytes) {
+    }
+
+    public ImageServiceImpl(RecipeRepository recipeRepository,
+                            RecipeImageRepository recipeImageRepository,
+                            UserEntityRepository userEntityRepository,
+                            ImageUploadSessionRepository imageUploadSessionRepository,
+                            ImageStorage imageStorage,
+                            TransactionTemplate transactionTemplate,
+                            ApplicationEventPublisher eventPublisher,
+                            @Value("${images.upload.max-size-in-bytes}") long maxSizeInBytes,
+                            @Value("${images.upload.session-lifespan-in-seconds}") long uploadSessionLifespanInSeconds) {
+        this.recipeRepository = recipeRepository;
+        this.recipeImageRepository = recipeImageRepository;
+        this.userEntityRepository = userEntityRepository;
+        this.imageUploadSessionRepository = imageUploadSessionRepository;
+        this.imageStorage = imageStorage;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.maxSizeInBytes = maxSizeInBytes;
+        this.uploadSessionLifespan = Duration.ofSeconds(uploadSessionLifespanInSeconds);
+    }
+
+    @Override
+    public RecipeImageDto uploadImage(UUID userId, UUID recipeId, InputStream image, long contentLength) throws RecipeDoesNotExistException, NotRecipeCreatorException, UnsupportedImageTypeException, ImageTooLargeException, IOException {
+        this.checkCreator(userId, recipeId);
+        // Rejected before reading anything if the client says up front that it is too large
+        if (contentLength > this.maxSizeInBytes) throw new ImageTooLargeException();
+
+        StoredImage stored = this.store(image);
+        RecipeImage saved = this.transactionTemplate.execute(status -> this.replaceImage(userId, recipeId, stored));
+        if (Objects.isNull(saved)) throw new RecipeDoesNotExistException();
+        return RecipeImageDto.from(saved);
+    }
+
+    @Override
+    public ImageUploadSessionDto startUpload(UUID userId, UUID recipeId) throws RecipeDoesNotExistException, NotRecipeCreatorException {
+        this.checkCreator(userId, recipeId);
+        ImageUploadSession session = this.imageUploadSessionRepository.save(ImageUploadSession.builder()
+                .recipeId(recipeId)
+                .userId(userId)
+                .expirationDate(Instant.now().plus(this.uploadSessionLifespan))
+                .build());
+        ImageStorage.UploadTarget target = this.imageStorage.uploadTargetOf(session.getId(), session.getExpirationDate());
+        return new ImageUploadSessionDto(session.getId(), target.url(), target.headers(), session.getExpirationDate(), this.maxSizeInBytes);
+    }
+
+    /*
+        The session is not checked for expiry: its URL has stopped accepting uploads by then, and an image that
+        arrived in time can still be completed until the session is swept
+     */
+    @Override
+    public RecipeImageDto completeUpload(UUID userId, UUID recipeId, UUID uploadId) throws ImageUploadDoesNotExistException, ImageNotUploadedException, RecipeDoesNotExistException, UnsupportedImageTypeException, ImageTooLargeException, IOException {
+        ImageUploadSession session = this.imageUploadSessionRepository.findByIdAndRecipeIdAndUserId(uploadId, recipeId, userId)
+                .orElseThrow(ImageUploadDoesNotExistException::new);
+        long size = this.imageStorage.uploadSizeOf(uploadId).orElseThrow(ImageNotUploadedException::new);
+
+        StoredImage stored;
+        try {
+            // Blob storage cannot limit the size of an upload, so it is checked before reading anything
+            if (size > this.maxSizeInBytes) throw new ImageTooLargeException();
+            try (InputStream image = this.imageStorage.openUpload(uploadId)) {
+                stored = this.inspect(image, OutputStream.nullOutputStream());
+            }
+        } catch (UnsupportedImageTypeException | ImageTooLargeException e) {
+            // What was uploaded will never be accepted, so the session is over
+            this.imageStorage.deleteUpload(uploadId);
+            this.imageUploadSessionRepository.delete(session);
+            throw e;
+        }
+        this.imageStorage.promoteUpload(uploadId, stored.key(), stored.type().contentType());
+
+        RecipeImage saved = this.transactionTemplate.execute(status -> {
+            this.imageUploadSessionRepository.delete(session);
+            return this.replaceImage(userId, recipeId, stored);
+        });
+        if (Objects.isNull(saved)) throw new RecipeDoesNotExistException();
+        return RecipeImageDto.from(saved);
+    }
+
+    // Sessions are kept for one more lifespan after their URL expires, so that they can still be completed
+    @Scheduled(fixedDelayString = "${images.upload.sweep-interval-in-ms}")
+    public void deleteExpiredUploads() {
+        Instant cutoff = Instant.now().minus(this.uploadSessionLifespan);
+        List<ImageUploadSession> expired;
+        do {
+            expired = this.imageUploadSessionRepository.findByExpirationDateBefore(cutoff, Limit.of(SWEEP_BATCH_SIZE));
+            for (ImageUploadSession session : expired) {
+                try {
+                    this.imageStorage.deleteUpload(session.getId());
+                } catch (IOException e) {
+                    log.log(Level.WARNING, "Could not delete expired image upload " + session.getId(), e);
+                }
+            }
+            this.imageUploadSessionRepository.deleteAll(expired);
+        } while (expired.size() == SWEEP_BATCH_SIZE);
+    }
+
+    /*
+        Images with the same content share their stored objects, and variant keys are derived from the original's
+        key, so the objects are only deleted once no image has that content any more. Runs after commit so that
+        a rolled back delete keeps its objects.
+        The check races with an upload of the same content: if that upload's row is not committed yet when the
+        check runs, the objects it relies on are deleted under it. Both uploads have to be of identical bytes and
+        land within that window, and the cost is one broken image that its owner can upload again, so the race is
+        accepted rather than locking every upload against every delete
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipeImageDeleted(RecipeImageDeletedEvent event) {
+        if (this.recipeImageRepository.existsByStorageKey(event.storageKey())) return;
+        Stream.concat(event.variantStorageKeys().stream(), Stream.of(event.storageKey())).forEach(key -> {
+            try {
+                this.imageStorage.delete(key);
+            } catch (IOException e) {
+                log.log(Level.WARNING, "Could not delete stored image " + key, e);
+            }
+        });
+    }
+
+    private void checkCreator(UUID userId, UUID recipeId) throws RecipeDoesNotExistException, NotRecipeCreatorException {
+        if (this.recipeRepository.existsByIdAndCreatorId(recipeId, userId)) return;
+        if (!this.recipeRepository.existsById(recipeId)) throw new RecipeDoesNotExistException();
+        throw new NotRecipeCreatorException();
+    }
+
+    // Runs in a transaction; null if the recipe was deleted while the image was uploading
+    private RecipeImage replaceImage(UUID userId, UUID recipeId, StoredImage stored) {
+        Recipe recipe = this.recipeRepository.findById(recipeId).orElse(null);
+        // The stored object is left for any other image that shares it
+        if (Objects.isNull(recipe)) return null;
+
+        RecipeImage previous = recipe.getImage();
+        RecipeImage recipeImage = this.recipeImageRepository.save(RecipeImage.builder()
+                .recipe(recipe)
+                .user(this.userEntityRepository.getReferenceById(userId))
+                .url(this.imageStorage.urlOf(stored.key()))
+                .storageKey(stored.key())
+                .contentHash(stored.contentHash())
+                .contentType(stored.type().contentType())
+                .sizeInBytes(stored.sizeInBytes())
+                .processingStatus(ImageProcessingStatus.PENDING)
+                .timeAdded(new Timestamp(System.currentTimeMillis()))
+                .build());
+        recipe.setImage(recipeImage);
+        if (Objects.nonNull(previous)) {
+            this.recipeImageRepository.delete(previous);
+            this.eventPublisher.publishEvent(RecipeImageDeletedEvent.from(previous));
+        }
+        // The recipe page shows the image, so cached copies of the recipe have to go
+        this.eventPublisher.publishEvent(new RecipeImageChangedEvent(recipe.getId()));
+        this.eventPublisher.publishEvent(new RecipeImageUploadedEvent(recipeImage.getId()));
+        return recipeImage;
+    }
+
+    private StoredImage store(InputStream image) throws IOException, UnsupportedImageTypeException, ImageTooLargeException {
+        try (ImageStorage.StagedImage staged = this.imageStorage.stage()) {
+            StoredImage stored = this.inspect(image, staged.outputStream());
+            staged.commit(stored.key(), stored.type().contentType());
+            return stored;
+        }
+    }
+
+    /*
+        Copies the image to out while checking it. The key starts with two characters of the hash so that no one
+        directory or prefix ends up with every image
+     */
+    private StoredImage inspect(InputStream image, OutputStream out) throws IOException, UnsupportedImageTypeException, ImageTooLargeException {
+        MessageDigest digest = sha256();
+        byte[] chunk = new byte[CHUNK_SIZE];
+        ImageType type = null;
+        long size = 0;
+        int read;
+        while ((read = image.readNBytes(chunk, 0, chunk.length)) > 0) {
+            if (Objects.isNull(type)) {
+                type = ImageType.detect(chunk, read).orElseThrow(UnsupportedImageTypeException::new);
+            }
+            size += read;
+            if (size > this.maxSizeInBytes) throw new ImageTooLargeException();
+            digest.update(chunk, 0, read);
+            out.write(chunk, 0, read);
+        }
+        if (Objects.isNull(type)) throw new UnsupportedImageTypeException();
+
+        String contentHash = HexFormat.of().formatHex(digest.digest());
+        String key = contentHash.substring(0, 2) + "/" + contentHash + "." + type.extension();
+        return new StoredImage(key, type, contentHash, size);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.joel.recipes.service;
+
+import com.joel.recipes.dto.RecipeExportDto;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.function.Consumer;
+
+@Service
+public interface RecipeExportService {
+    /*
+        Passes every recipe added in [from, to) to the consumer, oldest first, without holding them all in memory.
+        Either bound may be null. Returns the number of recipes exported
+     */
+    long exportRecipes(Instant from, Instant to, Consumer<RecipeExportDto> consumer);
+}
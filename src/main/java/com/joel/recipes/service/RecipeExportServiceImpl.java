@@ -0,0 +1,72 @@
+package com.joel.recipes.service;
+
+import com.joel.recipes.dto.RecipeExportDto;
+import com.joel.recipes.dto.RecipeTermDto;
+import com.joel.recipes.repository.RecipeRepository;
+import jakarta.transaction.Transactional;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/*
+    Recipes are read through a forward-only cursor and handled in chunks of CHUNK_SIZE rows: the ingredients and
+    tags of a whole chunk are loaded with one query each, so exporting n recipes takes n / CHUNK_SIZE * 2 + 1
+    queries while memory use is bounded by the chunk, not by the catalogue
+ */
+@Service
+@Transactional
+public class RecipeExportServiceImpl implements RecipeExportService {
+    private static final int CHUNK_SIZE = 500;
+    // Far enough ahead that an unbounded export includes every recipe, close enough for every database's timestamp
+    private static final Instant END_OF_TIME = Instant.parse("9999-01-01T00:00:00Z");
+
+    private final RecipeRepository recipeRepository;
+
+    public RecipeExportServiceImpl(RecipeRepository recipeRepository) {
+        this.recipeRepository = recipeRepository;
+    }
+
+    @Override
+    public long exportRecipes(Instant from, Instant to, Consumer<RecipeExportDto> consumer) {
+        Timestamp start = Timestamp.from(Objects.requireNonNullElse(from, Instant.EPOCH));
+        Timestamp end = Timestamp.from(Objects.requireNonNullElse(to, END_OF_TIME));
+
+        long exported = 0;
+        List<RecipeExportDto> chunk = new ArrayList<>(CHUNK_SIZE);
+        try (Stream<RecipeExportDto> recipes = this.recipeRepository.streamRecipeExport(start, end)) {
+            Iterator<RecipeExportDto> iterator = recipes.iterator();
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == CHUNK_SIZE || !iterator.hasNext()) {
+                    writeChunk(chunk, consumer);
+                    exported += chunk.size();
+                    chunk.clear();
+                }
+            }
+        }
+        return exported;
+    }
+
+    private void writeChunk(List<RecipeExportDto> chunk, Consumer<RecipeExportDto> consumer) {
+        List<UUID> ids = chunk.stream().map(RecipeExportDto::id).toList();
+        Map<UUID, List<String>> ingredients = group(this.recipeRepository.findIngredientsByRecipeIds(ids));
+        Map<UUID, List<String>> tags = group(this.recipeRepository.findTagsByRecipeIds(ids));
+        for (RecipeExportDto recipe : chunk) {
+            consumer.accept(recipe.withCollections(
+                    ingredients.getOrDefault(recipe.id(), List.of()),
+                    tags.getOrDefault(recipe.id(), List.of())));
+        }
+    }
+
+    private static Map<UUID, List<String>> group(List<RecipeTermDto> terms) {
+        Map<UUID, List<String>> grouped = new HashMap<>();
+        for (RecipeTermDto term : terms) {
+            grouped.computeIfAbsent(term.recipeId(), id -> new ArrayList<>()).add(term.term());
+        }
+        return grouped;
+    }
+}
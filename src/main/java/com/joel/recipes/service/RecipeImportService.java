@@ -0,0 +1,14 @@
+package com.joel.recipes.service;
+
+import com.joel.recipes.dto.ImportReportDto;
+import com.joel.recipes.exception.UserEntityDoesNotExistException;
+import org.springframework.stereotype.Service;
+
+import java.io.InputStream;
+import java.util.UUID;
+
+@Service
+public interface RecipeImportService {
+    // Imports every recipe in the stream as created by the user; see RecipeJsonReader for the accepted formats
+    ImportReportDto importRecipes(InputStream in, UUID creatorId) throws UserEntityDoesNotExistException;
+}
@@ -0,0 +1,155 @@
+package com.joel.recipes.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.joel.recipes.dto.ImportErrorDto;
+import com.joel.recipes.dto.ImportReportDto;
+import com.joel.recipes.event.RecipeCreatedEvent;
+import com.joel.recipes.event.RecipeSavedEvent;
+import com.joel.recipes.exception.InvalidImportedRecipeException;
+import com.joel.recipes.exception.UserEntityDoesNotExistException;
+import com.joel.recipes.model.Recipe;
+import com.joel.recipes.model.RecipeDocument;
+import com.joel.recipes.model.UserEntity;
+import com.joel.recipes.repository.RecipeRepository;
+import com.joel.recipes.repository.UserEntityRepository;
+import com.joel.recipes.util.dictionary.TermDictionary;
+import com.joel.recipes.util.importer.RecipeJsonMapper;
+import com.joel.recipes.util.importer.RecipeJsonReader;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import lombok.extern.java.Log;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.logging.Level;
+
+/*
+    Imports recipes from a stream without ever holding more than one batch of them in memory.
+    Each batch is written in its own transaction through saveAll, which Hibernate sends to the database as
+    JDBC batches (see hibernate.jdbc.batch_size), and the persistence context is cleared afterwards so that
+    long imports do not accumulate managed entities. Invalid recipes are rejected one by one without failing
+    the import, while a stream that cannot be parsed stops it; batches written before that stay imported
+ */
+@Service
+@Log
+public class RecipeImportServiceImpl implements RecipeImportService {
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    @Value("${recipes.import.batch-size}")
+    private int batchSize;
+
+    private final RecipeRepository recipeRepository;
+    private final UserEntityRepository userEntityRepository;
+    private final TermDictionary termDictionary;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final Counter importedRecipes;
+    private final Counter rejectedRecipes;
+
+    public RecipeImportServiceImpl(RecipeRepository recipeRepository,
+                                   UserEntityRepository userEntityRepository,
+                                   TermDictionary termDictionary,
+                                   ApplicationEventPublisher eventPublisher,
+                                   TransactionTemplate transactionTemplate,
+                                   EntityManager entityManager,
+                                   ObjectMapper objectMapper,
+                                   MeterRegistry meterRegistry) {
+        this.recipeRepository = recipeRepository;
+        this.userEntityRepository = userEntityRepository;
+        this.termDictionary = termDictionary;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.importedRecipes = meterRegistry.counter("recipes.import.records", "outcome", "imported");
+        this.rejectedRecipes = meterRegistry.counter("recipes.import.records", "outcome", "rejected");
+    }
+
+    @Override
+    public ImportReportDto importRecipes(InputStream in, UUID creatorId) throws UserEntityDoesNotExistException {
+        if (!this.userEntityRepository.existsById(creatorId)) throw new UserEntityDoesNotExistException();
+
+        long start = System.nanoTime();
+        long imported = 0;
+        long rejected = 0;
+        boolean completed = true;
+        List<ImportErrorDto> errors = new ArrayList<>();
+        List<Recipe> batch = new ArrayList<>(batchSize);
+
+        try (RecipeJsonReader reader = new RecipeJsonReader(this.objectMapper, in)) {
+            JsonNode node;
+            while (Objects.nonNull(node = reader.next())) {
+                if (!RecipeJsonMapper.isRecipe(node)) continue;
+                try {
+                    batch.add(RecipeJsonMapper.toRecipe(node));
+                } catch (InvalidImportedRecipeException e) {
+                    rejected++;
+                    this.rejectedRecipes.increment();
+                    if (errors.size() < MAX_REPORTED_ERRORS) errors.add(new ImportErrorDto(reader.recordNumber(), e.getMessage()));
+                }
+
+                if (batch.size() >= batchSize) {
+                    imported += saveBatch(batch, creatorId);
+                    logProgress(imported, rejected, start);
+                }
+            }
+        } catch (IOException e) {
+            // Nothing after a syntax error can be trusted, so the recipes read since the last batch are dropped
+            log.log(Level.WARNING, "Recipe import stopped after " + imported + " recipes: " + e.getMessage());
+            completed = false;
+            batch.clear();
+            if (errors.size() < MAX_REPORTED_ERRORS) errors.add(new ImportErrorDto(imported + rejected + 1, "Malformed JSON: " + e.getMessage()));
+        }
+        if (!batch.isEmpty()) imported += saveBatch(batch, creatorId);
+
+        long durationInMs = (System.nanoTime() - start) / 1_000_000;
+        double recipesPerSecond = imported * 1000.0 / Math.max(durationInMs, 1);
+        log.info(String.format("Recipe import %s: %d imported, %d rejected in %d ms (%.0f recipes/s)",
+                completed ? "completed" : "stopped", imported, rejected, durationInMs, recipesPerSecond));
+        return new ImportReportDto(imported, rejected, errors, completed, durationInMs, recipesPerSecond);
+    }
+
+    private int saveBatch(List<Recipe> batch, UUID creatorId) {
+        // One lookup for the whole batch instead of one per new term while the recipes are flushed
+        this.termDictionary.register(batch.stream().flatMap(Recipe::terms).toList());
+        int saved = this.transactionTemplate.execute(status -> {
+            UserEntity creator = this.userEntityRepository.getReferenceById(creatorId);
+            Timestamp timeUpdated = new Timestamp(System.currentTimeMillis());
+            batch.forEach(recipe -> {
+                recipe.setCreator(creator);
+                recipe.setTimeUpdated(timeUpdated);
+            });
+            List<Recipe> savedRecipes = this.recipeRepository.saveAll(batch);
+            // Indexed for search and pushed to feeds once the batch has committed, like any other new recipe
+            for (Recipe recipe : savedRecipes) {
+                RecipeDocument document = RecipeDocument.from(recipe);
+                this.eventPublisher.publishEvent(new RecipeSavedEvent(document));
+                this.eventPublisher.publishEvent(new RecipeCreatedEvent(document.id(), creatorId, document.timeAdded()));
+            }
+            this.entityManager.flush();
+            this.entityManager.clear();
+            return savedRecipes.size();
+        });
+        this.importedRecipes.increment(saved);
+        batch.clear();
+        return saved;
+    }
+
+    private void logProgress(long imported, long rejected, long start) {
+        double seconds = Math.max((System.nanoTime() - start) / 1e9, 1e-3);
+        log.info(String.format("Recipe import: %d imported, %d rejected (%.0f recipes/s)", imported, rejected, imported / seconds));
+    }
+}
@@ -1,14 +1,29 @@
 package com.joel.recipes.service;
 
+import com.joel.recipes.dto.RecipeDetailsDto;
+import com.joel.recipes.dto.RecipePageDto;
+import com.joel.recipes.exception.InvalidCursorException;
+import com.joel.recipes.exception.RecipeDoesNotExistException;
 import com.joel.recipes.model.Recipe;
+import com.joel.recipes.model.RecipeDocument;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
 import java.util.UUID;
 
 @Service
 public interface RecipeService {
     Recipe addRecipe(Recipe recipe);
     Recipe updateRecipe(Recipe recipe);
-    Recipe getRecipeById(UUID id);
+    RecipeDetailsDto getRecipeById(UUID id) throws RecipeDoesNotExistException;
     void deleteRecipeById(UUID id);
+    long countRecipes();
+    // Newest first; cursor is the nextCursor of the previous page, or null for the first page
+    RecipePageDto findRecipes(String cursor, int size) throws InvalidCursorException;
+    RecipePageDto findRecipesByCreator(UUID creatorId, String cursor, int size) throws InvalidCursorException;
+    // Used to (re)build in-memory indexes without holding entities outside a transaction. Recipes in id order,
+    // starting after afterId, the id of the last recipe of the previous chunk, or from the first if it is null
+    List<RecipeDocument> findRecipeDocuments(UUID afterId, int size);
+    // When the most recently saved recipe was saved, in epoch milliseconds, or 0 if there are none
+    long findLatestChange();
 }
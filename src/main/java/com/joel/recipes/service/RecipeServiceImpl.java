@@ -1,38 +1,229 @@
 package com.joel.recipes.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.joel.recipes.dto.RecipeDetailsDto;
+import com.joel.recipes.dto.RecipePageDto;
+import com.joel.recipes.dto.RecipeSummaryDto;
+import com.joel.recipes.dto.RecipeTermDto;
+import com.joel.recipes.event.RecipeCreatedEvent;
+import com.joel.recipes.event.RecipeDeletedEvent;
+import com.joel.recipes.event.RecipeImageChangedEvent;
+import com.joel.recipes.event.RecipeImageDeletedEvent;
+import com.joel.recipes.event.RecipeSavedEvent;
+import com.joel.recipes.exception.InvalidCursorException;
+import com.joel.recipes.exception.RecipeDoesNotExistException;
 import com.joel.recipes.model.Recipe;
+import com.joel.recipes.model.RecipeDocument;
+import com.joel.recipes.model.RecipeImage;
+import com.joel.recipes.repository.RecipeCommentRepository;
+import com.joel.recipes.repository.RecipeImageRepository;
 import com.joel.recipes.repository.RecipeRepository;
+import com.joel.recipes.util.dictionary.TermDictionary;
+import com.joel.recipes.util.pagination.KeysetCursor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
 
 @Service
+@Transactional
 public class RecipeServiceImpl implements RecipeService{
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final RecipeRepository recipeRepository;
+    private final RecipeCommentRepository recipeCommentRepository;
+    private final RecipeImageRepository recipeImageRepository;
+    private final TermDictionary termDictionary;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /*
+        Recipe pages are read far more often than recipes change, so recipes are cached as immutable RecipeDetailsDtos.
+        Caffeine evicts by W-TinyLFU within a memory budget, and concurrent misses for the same id wait for
+        a single load. Entries are invalidated once a change to the recipe has committed
+     */
+    private final Cache<UUID, RecipeDetailsDto> recipeCache;
 
     @Autowired
-    public RecipeServiceImpl(RecipeRepository recipeRepository) {
+    public RecipeServiceImpl(RecipeRepository recipeRepository,
+                             RecipeCommentRepository recipeCommentRepository,
+                             RecipeImageRepository recipeImageRepository,
+                             TermDictionary termDictionary,
+                             TransactionTemplate transactionTemplate,
+                             ApplicationEventPublisher eventPublisher,
+                             MeterRegistry meterRegistry,
+                             @Value("${recipes.cache.maximum-size-in-bytes}") long recipeCacheMaximumSize) {
         this.recipeRepository = recipeRepository;
+        this.recipeCommentRepository = recipeCommentRepository;
+        this.recipeImageRepository = recipeImageRepository;
+        this.termDictionary = termDictionary;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.recipeCache = Caffeine.newBuilder()
+                .maximumWeight(recipeCacheMaximumSize)
+                .<UUID, RecipeDetailsDto>weigher((id, recipe) -> recipe.estimatedSize())
+                .recordStats()
+                .build();
+        // Exposes cache.gets (hit/miss), cache.evictions, cache.eviction.weight and cache.size tagged cache=recipes
+        CaffeineCacheMetrics.monitor(meterRegistry, this.recipeCache, "recipes");
     }
 
+    // New terms are registered before the transaction that saves the recipe, see TermDictionary
     @Override
+    @Transactional(Transactional.TxType.SUPPORTS)
     public Recipe addRecipe(Recipe recipe) {
-        return this.recipeRepository.save(recipe);
+        // Listings are ordered by timeAdded, so every recipe needs one
+        if (Objects.isNull(recipe.getTimeAdded())) recipe.setTimeAdded(new Timestamp(System.currentTimeMillis()));
+        recipe.setTimeUpdated(new Timestamp(System.currentTimeMillis()));
+        this.termDictionary.register(recipe.terms().toList());
+        return this.transactionTemplate.execute(status -> {
+            Recipe savedRecipe = this.recipeRepository.save(recipe);
+            RecipeDocument document = RecipeDocument.from(savedRecipe);
+            this.eventPublisher.publishEvent(new RecipeSavedEvent(document));
+            this.eventPublisher.publishEvent(new RecipeCreatedEvent(document.id(), document.creatorId(), document.timeAdded()));
+            return savedRecipe;
+        });
     }
 
     @Override
+    @Transactional(Transactional.TxType.SUPPORTS)
     public Recipe updateRecipe(Recipe recipe) {
-        return this.recipeRepository.save(recipe);
+        recipe.canonicalizeTerms();
+        recipe.setTimeUpdated(new Timestamp(System.currentTimeMillis()));
+        this.termDictionary.register(recipe.terms().toList());
+        return this.transactionTemplate.execute(status -> {
+            Recipe savedRecipe = this.recipeRepository.save(recipe);
+            this.eventPublisher.publishEvent(new RecipeSavedEvent(RecipeDocument.from(savedRecipe)));
+            return savedRecipe;
+        });
     }
 
+    // No transaction is needed for a cache hit; a miss loads everything in one query
     @Override
-    public Recipe getRecipeById(UUID id) {
-        return this.recipeRepository.findById(id).orElseThrow();
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public RecipeDetailsDto getRecipeById(UUID id) throws RecipeDoesNotExistException {
+        RecipeDetailsDto recipe = this.recipeCache.get(id, recipeId -> this.recipeRepository.findRecipeDetailsById(recipeId)
+                .map(RecipeDetailsDto::from)
+                .orElse(null));
+        if (Objects.isNull(recipe)) throw new RecipeDoesNotExistException();
+        return recipe;
+    }
+
+    /*
+        Invalidating after commit means a load can never put the old version back: a load that read the old row
+        either finished before the commit, or is still running and invalidate waits for it
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipeSaved(RecipeSavedEvent event) {
+        this.recipeCache.invalidate(event.document().id());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipeImageChanged(RecipeImageChangedEvent event) {
+        this.recipeCache.invalidate(event.recipeId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipeDeleted(RecipeDeletedEvent event) {
+        this.recipeCache.invalidate(event.recipeId());
     }
 
     @Override
     public void deleteRecipeById(UUID id) {
+        // Comments and images reference the recipe, so they have to go first
+        this.recipeCommentRepository.deleteByRecipeId(id);
+        this.deleteImages(id);
         this.recipeRepository.deleteById(id);
+        this.eventPublisher.publishEvent(new RecipeDeletedEvent(id));
+    }
+
+    // The stored objects are deleted by ImageServiceImpl once the rows are gone
+    private void deleteImages(UUID recipeId) {
+        List<RecipeImage> images = this.recipeImageRepository.findByRecipeId(recipeId);
+        if (images.isEmpty()) return;
+        this.recipeRepository.clearImage(recipeId);
+        this.recipeImageRepository.deleteAll(images);
+        images.forEach(image -> this.eventPublisher.publishEvent(RecipeImageDeletedEvent.from(image)));
+    }
+
+    @Override
+    public long countRecipes() {
+        return this.recipeRepository.count();
+    }
+
+    @Override
+    public RecipePageDto findRecipes(String cursor, int size) throws InvalidCursorException {
+        int pageSize = clampPageSize(size);
+        if (Objects.isNull(cursor)) {
+            return toPage(this.recipeRepository.findRecipeSummaries(Limit.of(pageSize + 1)), pageSize);
+        }
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        return toPage(this.recipeRepository.findRecipeSummariesAfter(position.timeAdded(), position.id(), Limit.of(pageSize + 1)), pageSize);
+    }
+
+    @Override
+    public RecipePageDto findRecipesByCreator(UUID creatorId, String cursor, int size) throws InvalidCursorException {
+        int pageSize = clampPageSize(size);
+        if (Objects.isNull(cursor)) {
+            return toPage(this.recipeRepository.findRecipeSummariesByCreator(creatorId, Limit.of(pageSize + 1)), pageSize);
+        }
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        return toPage(this.recipeRepository.findRecipeSummariesByCreatorAfter(creatorId, position.timeAdded(), position.id(), Limit.of(pageSize + 1)), pageSize);
+    }
+
+    @Override
+    public long findLatestChange() {
+        return this.recipeRepository.findLatestTimeUpdated().map(Timestamp::getTime).orElse(0L);
+    }
+
+    // Three queries per chunk, whatever its size
+    @Override
+    public List<RecipeDocument> findRecipeDocuments(UUID afterId, int size) {
+        List<RecipeDocument> documents = Objects.isNull(afterId)
+                ? this.recipeRepository.findRecipeDocuments(Limit.of(size))
+                : this.recipeRepository.findRecipeDocumentsAfter(afterId, Limit.of(size));
+        if (documents.isEmpty()) return documents;
+
+        List<UUID> ids = documents.stream().map(RecipeDocument::id).toList();
+        Map<UUID, List<String>> ingredients = group(this.recipeRepository.findIngredientsByRecipeIds(ids));
+        Map<UUID, List<String>> tags = group(this.recipeRepository.findTagsByRecipeIds(ids));
+        return documents.stream()
+                .map(document -> document.withTerms(ingredients.getOrDefault(document.id(), List.of()), tags.getOrDefault(document.id(), List.of())))
+                .toList();
+    }
+
+    private static Map<UUID, List<String>> group(List<RecipeTermDto> terms) {
+        Map<UUID, List<String>> grouped = new HashMap<>();
+        for (RecipeTermDto term : terms) {
+            grouped.computeIfAbsent(term.recipeId(), id -> new ArrayList<>()).add(term.term());
+        }
+        return grouped;
+    }
+
+    // One extra row is fetched to tell whether there is a next page without a count query
+    private static RecipePageDto toPage(List<RecipeSummaryDto> rows, int pageSize) {
+        if (rows.size() <= pageSize) return new RecipePageDto(rows, null);
+        List<RecipeSummaryDto> recipes = rows.subList(0, pageSize);
+        RecipeSummaryDto last = recipes.get(pageSize - 1);
+        return new RecipePageDto(recipes, new KeysetCursor(last.timeAdded(), last.id()).encode());
+    }
+
+    private static int clampPageSize(int size) {
+        return Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
     }
 }
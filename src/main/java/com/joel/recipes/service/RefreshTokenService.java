@@ -2,8 +2,8 @@ package com.joel.recipes.service;
 
 import com.joel.recipes.exception.ExpiredRefreshTokenException;
 import com.joel.recipes.exception.RefreshTokenNotFoundException;
-import com.joel.recipes.exception.UserEntityDoesNotExistException;
-import com.joel.recipes.model.RefreshToken;
+import com.joel.recipes.model.RefreshTokenOwner;
+import com.joel.recipes.model.UserEntity;
 import jakarta.transaction.Transactional;
 import org.springframework.stereotype.Service;
 
@@ -12,14 +12,16 @@ import java.util.UUID;
 @Service
 @Transactional
 public interface RefreshTokenService {
-    RefreshToken createRefreshToken(String usernameOrEmail) throws UserEntityDoesNotExistException;
+    // Returns the token itself, which only its user is ever given
+    String createRefreshToken(UserEntity userEntity);
 
-    RefreshToken findRefreshTokenByTokenValue(String refreshTokenValue) throws RefreshTokenNotFoundException;
+    RefreshTokenOwner findRefreshTokenOwner(String refreshTokenValue) throws RefreshTokenNotFoundException, ExpiredRefreshTokenException;
 
-    RefreshToken findRefreshTokenByTokenValue(UUID id) throws RefreshTokenNotFoundException;
+    void revokeRefreshToken(UUID userId, String refreshTokenValue) throws RefreshTokenNotFoundException;
 
-    RefreshToken verifyExpiration(RefreshToken refreshToken) throws ExpiredRefreshTokenException;
+    void revokeRefreshTokens(UUID userId);
 
-    void deleteRefreshToken(String refreshTokenValue) throws RefreshTokenNotFoundException;
+    void pollRevocations();
 
+    void deleteExpiredRefreshTokens();
 }
@@ -1,73 +1,194 @@
 package com.joel.recipes.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.joel.recipes.event.RefreshTokensRevokedEvent;
 import com.joel.recipes.exception.ExpiredRefreshTokenException;
 import com.joel.recipes.exception.RefreshTokenNotFoundException;
-import com.joel.recipes.exception.UserEntityDoesNotExistException;
 import com.joel.recipes.model.RefreshToken;
+import com.joel.recipes.model.RefreshTokenOwner;
 import com.joel.recipes.model.UserEntity;
 import com.joel.recipes.repository.RefreshTokenRepository;
-import com.joel.recipes.repository.UserEntityRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
-import java.util.UUID;
+import java.util.*;
 
+/*
+    Refresh tokens are looked up by the SHA-256 of their value, first in a bounded in-memory index and then in the
+    database, so refreshing an access token with a token this instance has issued or seen needs no query.
+    Each index entry expires with its token; Caffeine keeps variable expiries on a hierarchical timing wheel, so
+    expiring them costs nothing per lookup. The database stays the source of truth and the index is only ever a
+    subset of it, so a restart just empties the index.
+    Revoking a token marks its row rather than deleting it, so other instances drop it from their indexes when
+    they next poll for revocations. Expired rows, revoked or not, are deleted in chunks in the background
+ */
 @Service
 @Transactional
 public class RefreshTokenServiceImpl implements RefreshTokenService {
-
-    @Value("${refresh-token-lifespan-in-days}")
-    private int tokenLifespanInDays;
+    private static final int SWEEP_BATCH_SIZE = 1000;
+    // Polls look back this far before the previous one, to cover clocks differing between instances and
+    // revocations that were committed after the previous poll had started
+    private static final Duration REVOCATION_POLL_OVERLAP = Duration.ofMinutes(1);
 
     private final RefreshTokenRepository refreshTokenRepository;
-    private final UserEntityRepository userEntityRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int tokenLifespanInDays;
+    private final Cache<String, RefreshTokenOwner> owners;
+    private volatile Instant revocationsPolledAt = Instant.now();
 
-    public RefreshTokenServiceImpl(RefreshTokenRepository refreshTokenRepository, UserEntityRepository userEntityRepository) {
+    public RefreshTokenServiceImpl(RefreshTokenRepository refreshTokenRepository,
+                                   TransactionTemplate transactionTemplate,
+                                   ApplicationEventPublisher eventPublisher,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${refresh-token-lifespan-in-days}") int tokenLifespanInDays,
+                                   @Value("${refresh-token.index.maximum-size}") long maximumSize) {
         this.refreshTokenRepository = refreshTokenRepository;
-        this.userEntityRepository = userEntityRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.tokenLifespanInDays = tokenLifespanInDays;
+        this.owners = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new UntilExpiry())
+                .recordStats()
+                .build();
+        // Exposes cache.gets (hit/miss), cache.evictions and cache.size tagged cache=refresh-tokens
+        CaffeineCacheMetrics.monitor(meterRegistry, this.owners, "refresh-tokens");
     }
 
     @Override
-    public RefreshToken createRefreshToken(String usernameOrEmail) throws UserEntityDoesNotExistException {
-        UserEntity userEntity = this.userEntityRepository.findUserEntityByEmailOrUsername(usernameOrEmail).orElseThrow(UserEntityDoesNotExistException::new);
-
+    public String createRefreshToken(UserEntity userEntity) {
+        String tokenValue = UUID.randomUUID().toString();
+        String tokenHash = hashOf(tokenValue);
         RefreshToken refreshToken = RefreshToken.builder()
-                .tokenValue(UUID.randomUUID())
+                .tokenHash(tokenHash)
                 .expirationDate(Instant.now().plus(tokenLifespanInDays, ChronoUnit.DAYS))
                 .userEntity(userEntity).build();
-        refreshToken = this.refreshTokenRepository.save(refreshToken);
-        userEntity.getRefreshTokens().add(refreshToken);
-        this.userEntityRepository.save(userEntity);
-        return refreshToken;
+        this.refreshTokenRepository.save(refreshToken);
+        // Should the transaction roll back, the token is never handed out, so its entry is never looked up
+        this.owners.put(tokenHash, ownerOf(userEntity, refreshToken.getExpirationDate()));
+        return tokenValue;
     }
 
+    /*
+        Without a transaction, so that a token found in the index takes no connection either. Concurrent misses for
+        one token wait for a single load, and so does invalidating it, see onRefreshTokensRevoked
+     */
     @Override
-    public RefreshToken findRefreshTokenByTokenValue(String refreshTokenValue) throws RefreshTokenNotFoundException {
-        return this.refreshTokenRepository.findByTokenValue(UUID.fromString(refreshTokenValue)).orElseThrow(RefreshTokenNotFoundException::new);
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public RefreshTokenOwner findRefreshTokenOwner(String refreshTokenValue) throws RefreshTokenNotFoundException, ExpiredRefreshTokenException {
+        RefreshTokenOwner owner = this.owners.get(hashOf(refreshTokenValue), tokenHash -> this.refreshTokenRepository.findWithOwnerByTokenHash(tokenHash)
+                .map(refreshToken -> ownerOf(refreshToken.getUserEntity(), refreshToken.getExpirationDate()))
+                .orElse(null));
+        if (Objects.isNull(owner)) throw new RefreshTokenNotFoundException();
+        // Expired owners are never kept by the index; their rows are left for deleteExpiredRefreshTokens
+        if (owner.expirationDate().isBefore(Instant.now())) throw new ExpiredRefreshTokenException();
+        return owner;
     }
 
     @Override
-    public RefreshToken findRefreshTokenByTokenValue(UUID id) throws RefreshTokenNotFoundException {
-        return this.refreshTokenRepository.findByTokenValue(id).orElseThrow(RefreshTokenNotFoundException::new);
-
+    public void revokeRefreshToken(UUID userId, String refreshTokenValue) throws RefreshTokenNotFoundException {
+        String tokenHash = hashOf(refreshTokenValue);
+        this.refreshTokenRepository.findByTokenHash(tokenHash)
+                .filter(refreshToken -> Objects.nonNull(refreshToken.getUserEntity()) && refreshToken.getUserEntity().getId().equals(userId))
+                .orElseThrow(RefreshTokenNotFoundException::new);
+        this.revoke(List.of(tokenHash));
     }
 
     @Override
-    public RefreshToken verifyExpiration(RefreshToken refreshToken) throws ExpiredRefreshTokenException {
-        if (refreshToken.getExpirationDate().compareTo(Instant.now()) < 0) {
-            this.refreshTokenRepository.delete(refreshToken);
-            throw new ExpiredRefreshTokenException();
-        }
+    public void revokeRefreshTokens(UUID userId) {
+        List<String> tokenHashes = this.refreshTokenRepository.findTokenHashesByUserEntityId(userId);
+        if (!tokenHashes.isEmpty()) this.revoke(tokenHashes);
+    }
 
-        return refreshToken;
+    @Override
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    @Scheduled(fixedDelayString = "${refresh-token.revocation-poll-interval-in-ms}")
+    public void pollRevocations() {
+        Instant polledAt = Instant.now();
+        this.owners.invalidateAll(this.refreshTokenRepository.findTokenHashesByRevokedAtAfter(this.revocationsPolledAt.minus(REVOCATION_POLL_OVERLAP)));
+        this.revocationsPolledAt = polledAt;
     }
 
+    // Each chunk is deleted in a transaction of its own, so that the sweep never holds many row locks for long
     @Override
-    public void deleteRefreshToken(String refreshTokenValue) throws RefreshTokenNotFoundException {
-        RefreshToken refreshToken = this.findRefreshTokenByTokenValue(refreshTokenValue);
-        this.refreshTokenRepository.deleteById(refreshToken.getId());
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    @Scheduled(fixedDelayString = "${refresh-token.sweep-interval-in-ms}")
+    public void deleteExpiredRefreshTokens() {
+        Instant now = Instant.now();
+        List<UUID> expired;
+        do {
+            expired = this.refreshTokenRepository.findIdsByExpirationDateBefore(now, Limit.of(SWEEP_BATCH_SIZE));
+            List<UUID> batch = expired;
+            if (!batch.isEmpty()) this.transactionTemplate.executeWithoutResult(status -> this.refreshTokenRepository.deleteByIdIn(batch));
+        } while (expired.size() == SWEEP_BATCH_SIZE);
+    }
+
+    /*
+        Invalidating after commit means a load can never put a revoked token back: a load that read the row before
+        the revocation either finished before this, or is still running and invalidating waits for it.
+        Other instances drop the tokens when they next poll for revocations
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRefreshTokensRevoked(RefreshTokensRevokedEvent event) {
+        this.owners.invalidateAll(event.tokenHashes());
+    }
+
+    private void revoke(List<String> tokenHashes) {
+        this.refreshTokenRepository.revokeByTokenHashIn(tokenHashes, Instant.now());
+        this.eventPublisher.publishEvent(new RefreshTokensRevokedEvent(tokenHashes));
+    }
+
+    private static RefreshTokenOwner ownerOf(UserEntity userEntity, Instant expirationDate) {
+        List<GrantedAuthority> authorities = userEntity.getAuthorities().stream()
+                .map(authority -> (GrantedAuthority) new SimpleGrantedAuthority(authority.getAuthority()))
+                .toList();
+        return new RefreshTokenOwner(userEntity.getId(), userEntity.getUsername(), authorities, expirationDate);
+    }
+
+    // Tokens are UUIDs, which clients may send in either case
+    static String hashOf(String refreshTokenValue) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(refreshTokenValue.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.US_ASCII));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class UntilExpiry implements Expiry<String, RefreshTokenOwner> {
+        @Override
+        public long expireAfterCreate(String key, RefreshTokenOwner value, long currentTime) {
+            return Math.max(Duration.between(Instant.now(), value.expirationDate()).toNanos(), 0);
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, RefreshTokenOwner value, long currentTime, long currentDuration) {
+            return this.expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, RefreshTokenOwner value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
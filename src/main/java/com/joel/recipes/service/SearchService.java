@@ -1,4 +1,47 @@
 package com.joel.recipes.service;
 
+import com.joel.recipes.dto.FacetCountDto;
+import com.joel.recipes.dto.PantryMatchDto;
+import com.joel.recipes.dto.SearchResultDto;
+import com.joel.recipes.dto.SuggestionDto;
+import com.joel.recipes.model.RecipeDocument;
+import com.joel.recipes.util.bitmap.RoaringBitmap;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
 public interface SearchService {
+    List<SearchResultDto> search(String query, int limit);
+
+    // "Did you mean": the query with every misspelled term replaced by its best correction, if any term was misspelled
+    Optional<String> suggestSpelling(String query);
+
+    /*
+        Recipes that use at least `minMatched` of the given ingredients and need at most `maxMissing` others,
+        ordered by how few ingredients are missing
+     */
+    List<PantryMatchDto> findRecipesByPantry(Collection<String> ingredients, int minMatched, int maxMissing, int limit);
+
+    List<UUID> findRecipesWithAllIngredients(Collection<String> ingredients);
+
+    // Ordinals (see RecipeOrdinalRegistry) of the recipes that have every one of the tags
+    RoaringBitmap findRecipeOrdinalsWithAllTags(Collection<String> tags);
+
+    /*
+        Tag counts for the browse page, restricted to recipes matching the current filter:
+        the free-text query (if any), every selected tag and every selected ingredient
+     */
+    List<FacetCountDto> findTagFacets(String query, Collection<String> tags, Collection<String> ingredients, int limit);
+
+    // Up to `limit` completions of each type (titles, ingredients, tags), most popular first
+    List<SuggestionDto> suggest(String prefix, int limit);
+
+    void indexRecipe(RecipeDocument document);
+
+    void removeRecipe(UUID recipeId);
+
+    // Discards the in-memory index and rebuilds it from the database
+    void rebuildIndex();
 }
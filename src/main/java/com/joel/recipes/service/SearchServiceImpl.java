@@ -0,0 +1,350 @@
+package com.joel.recipes.service;
+
+import com.joel.recipes.dto.FacetCountDto;
+import com.joel.recipes.dto.PantryMatchDto;
+import com.joel.recipes.util.bitmap.RoaringBitmap;
+import com.joel.recipes.dto.SearchResultDto;
+import com.joel.recipes.dto.SuggestionDto;
+import com.joel.recipes.event.RecipeDeletedEvent;
+import com.joel.recipes.event.RecipeSavedEvent;
+import com.joel.recipes.model.RecipeDocument;
+import com.joel.recipes.util.search.*;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.java.Log;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.stream.Collectors;
+
+@Service
+@Log
+public class SearchServiceImpl implements SearchService, ApplicationListener<ApplicationReadyEvent> {
+    private static final int MAX_RESULTS = 100;
+    private static final String TITLE = "title";
+    private static final String INGREDIENT = "ingredient";
+    private static final String TAG = "tag";
+    // A misspelled query term is expanded to at most this many of its closest corrections
+    private static final int MAX_CORRECTIONS_PER_TERM = 3;
+
+    @Value("${search.index.build-batch-size}")
+    private int buildBatchSize;
+    @Value("${search.index.snapshot-path:}")
+    private String snapshotPath;
+    @Value("${search.typeahead.top-k}")
+    private int typeaheadTopK;
+    @Value("${indexes.build-on-startup}")
+    private boolean buildOnStartup;
+
+    private final RecipeService recipeService;
+    private final RecipeOrdinalRegistry ordinalRegistry;
+
+    private final RebuildableIndex<RecipeIndexes> indexes;
+    private final AtomicBoolean dirty = new AtomicBoolean(false);
+
+    /*
+        Prefix indexes by suggestion type and the spelling dictionary. Rebuilt in the background from the indexes
+        above and replaced as a whole, so readers never wait
+     */
+    private volatile Map<String, PrefixIndex> prefixIndexes = Map.of();
+    private volatile SpellingDictionary spellingDictionary = SpellingDictionary.empty();
+    private final AtomicBoolean suggestionsStale = new AtomicBoolean(true);
+
+    public SearchServiceImpl(RecipeService recipeService, RecipeOrdinalRegistry ordinalRegistry) {
+        this.recipeService = recipeService;
+        this.ordinalRegistry = ordinalRegistry;
+        this.indexes = new RebuildableIndex<>(new RecipeIndexes(), ordinalRegistry, new RebuildableIndex.Writer<>() {
+            @Override
+            public void put(RecipeIndexes index, int ordinal, RecipeDocument document) {
+                index.put(ordinal, document);
+            }
+
+            @Override
+            public void remove(RecipeIndexes index, int ordinal) {
+                index.remove(ordinal);
+            }
+        });
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        if (!this.buildOnStartup) return;
+        if (!this.loadSnapshot()) {
+            this.rebuildIndex();
+        }
+    }
+
+    /*
+        Terms that no recipe contains are searched for along with their closest corrections, so "brocoli" finds
+        "broccoli". The term itself is kept in case it was added after the spelling dictionary was last rebuilt
+     */
+    @Override
+    public List<SearchResultDto> search(String query, int limit) {
+        SpellingDictionary dictionary = this.spellingDictionary;
+        InvertedIndex textIndex = this.indexes.current().textIndex();
+        List<String> terms = new ArrayList<>();
+        for (String term : Tokenizer.tokenize(query)) {
+            terms.add(term);
+            List<SpellingDictionary.Correction> corrections = corrections(dictionary, textIndex, term);
+            if (corrections.isEmpty()) continue;
+            int bestDistance = corrections.get(0).distance();
+            corrections.stream()
+                    .filter(correction -> correction.distance() == bestDistance)
+                    .limit(MAX_CORRECTIONS_PER_TERM)
+                    .forEach(correction -> terms.add(correction.term()));
+        }
+        return textIndex.search(terms, clampLimit(limit)).stream()
+                .map(document -> new SearchResultDto(document.id(), document.title(), document.score()))
+                .toList();
+    }
+
+    @Override
+    public Optional<String> suggestSpelling(String query) {
+        SpellingDictionary dictionary = this.spellingDictionary;
+        InvertedIndex textIndex = this.indexes.current().textIndex();
+        List<String> terms = Tokenizer.tokenize(query);
+        boolean corrected = false;
+        for (int i = 0; i < terms.size(); i++) {
+            List<SpellingDictionary.Correction> corrections = corrections(dictionary, textIndex, terms.get(i));
+            if (!corrections.isEmpty()) {
+                terms.set(i, corrections.get(0).term());
+                corrected = true;
+            }
+        }
+        return corrected ? Optional.of(String.join(" ", terms)) : Optional.empty();
+    }
+
+    @Override
+    public List<PantryMatchDto> findRecipesByPantry(Collection<String> ingredients, int minMatched, int maxMissing, int limit) {
+        RecipeIndexes current = this.indexes.current();
+        Set<String> pantry = ingredients.stream().map(TermBitmapIndex::normalize).collect(Collectors.toSet());
+        return current.ingredientIndex().matchAtLeast(pantry, Math.max(minMatched, 1), Math.max(maxMissing, 0), clampLimit(limit)).stream()
+                .map(match -> new PantryMatchDto(
+                        this.ordinalRegistry.idOf(match.ordinal()),
+                        current.textIndex().title(match.ordinal()),
+                        match.matched(),
+                        match.missing(),
+                        current.ingredientIndex().termsOf(match.ordinal()).stream().filter(ingredient -> !pantry.contains(ingredient)).toList()))
+                .toList();
+    }
+
+    @Override
+    public List<UUID> findRecipesWithAllIngredients(Collection<String> ingredients) {
+        return Arrays.stream(this.indexes.current().ingredientIndex().matchAll(ingredients).toArray())
+                .mapToObj(this.ordinalRegistry::idOf)
+                .toList();
+    }
+
+    @Override
+    public RoaringBitmap findRecipeOrdinalsWithAllTags(Collection<String> tags) {
+        return this.indexes.current().tagIndex().matchAll(tags);
+    }
+
+    @Override
+    public List<FacetCountDto> findTagFacets(String query, Collection<String> tags, Collection<String> ingredients, int limit) {
+        RecipeIndexes current = this.indexes.current();
+        RoaringBitmap filter = null;
+        if (StringUtils.isNotBlank(query)) {
+            filter = current.textIndex().matchAny(Tokenizer.tokenize(query));
+        }
+        if (!tags.isEmpty()) {
+            RoaringBitmap tagFilter = current.tagIndex().matchAll(tags);
+            filter = Objects.isNull(filter) ? tagFilter : RoaringBitmap.and(filter, tagFilter);
+        }
+        if (!ingredients.isEmpty()) {
+            RoaringBitmap ingredientFilter = current.ingredientIndex().matchAll(ingredients);
+            filter = Objects.isNull(filter) ? ingredientFilter : RoaringBitmap.and(filter, ingredientFilter);
+        }
+
+        return current.tagIndex().countTerms(filter, clampLimit(limit)).stream()
+                .map(count -> new FacetCountDto(count.term(), count.count()))
+                .toList();
+    }
+
+    @Override
+    public List<SuggestionDto> suggest(String prefix, int limit) {
+        Map<String, PrefixIndex> current = this.prefixIndexes;
+        List<SuggestionDto> suggestions = new ArrayList<>();
+        for (String type : List.of(TITLE, INGREDIENT, TAG)) {
+            PrefixIndex prefixIndex = current.getOrDefault(type, PrefixIndex.empty());
+            prefixIndex.complete(prefix, Math.min(Math.max(limit, 1), this.typeaheadTopK))
+                    .forEach(suggestion -> suggestions.add(new SuggestionDto(suggestion.text(), type, suggestion.recipeId())));
+        }
+        return suggestions;
+    }
+
+    /*
+        Typeahead ranks ingredients and tags by how many recipes use them.
+        Titles do not have a popularity signal in the index yet, so they are ranked alphabetically.
+        The spelling vocabulary is every word of the titles, ingredients and tags, weighted by how many recipes use it
+     */
+    @Scheduled(fixedDelayString = "${search.suggestions.rebuild-interval-in-ms}")
+    public void rebuildSuggestions() {
+        if (!this.suggestionsStale.compareAndSet(true, false)) return;
+
+        RecipeIndexes current = this.indexes.current();
+        List<PrefixIndex.Suggestion> titles = new ArrayList<>();
+        current.textIndex().forEachTitle((id, title) -> {
+            if (StringUtils.isNotBlank(title)) titles.add(new PrefixIndex.Suggestion(title, id, 1));
+        });
+        List<PrefixIndex.Suggestion> ingredients = new ArrayList<>();
+        current.ingredientIndex().forEachTerm((ingredient, count) -> ingredients.add(new PrefixIndex.Suggestion(ingredient, null, count)));
+        List<PrefixIndex.Suggestion> tags = new ArrayList<>();
+        current.tagIndex().forEachTerm((tag, count) -> tags.add(new PrefixIndex.Suggestion(tag, null, count)));
+
+        this.prefixIndexes = Map.of(
+                TITLE, PrefixIndex.build(titles, true, this.typeaheadTopK),
+                INGREDIENT, PrefixIndex.build(ingredients, true, this.typeaheadTopK),
+                TAG, PrefixIndex.build(tags, false, this.typeaheadTopK)
+        );
+
+        Map<String, Integer> vocabulary = new HashMap<>();
+        for (List<PrefixIndex.Suggestion> suggestions : List.of(titles, ingredients, tags)) {
+            for (PrefixIndex.Suggestion suggestion : suggestions) {
+                Tokenizer.tokenize(suggestion.text()).forEach(word -> vocabulary.merge(word, suggestion.weight(), Integer::sum));
+            }
+        }
+        this.spellingDictionary = SpellingDictionary.build(vocabulary);
+    }
+
+    @Override
+    public void indexRecipe(RecipeDocument document) {
+        AnalyzedDocument analyzedDocument = RecipeAnalyzer.analyze(document);
+        this.indexes.put(document, current -> current.put(this.ordinalRegistry.ordinalOf(document.id()), document, analyzedDocument));
+        this.dirty.set(true);
+        this.suggestionsStale.set(true);
+    }
+
+    @Override
+    public void removeRecipe(UUID recipeId) {
+        this.indexes.remove(recipeId);
+        this.dirty.set(true);
+        this.suggestionsStale.set(true);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipeSaved(RecipeSavedEvent event) {
+        this.indexRecipe(event.document());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipeDeleted(RecipeDeletedEvent event) {
+        this.removeRecipe(event.recipeId());
+    }
+
+    /*
+        Recipes are read from the database one page at a time and each page is tokenized in parallel.
+        The new index is only swapped in once it is complete, so searches keep using the old one meanwhile
+     */
+    @Override
+    public void rebuildIndex() {
+        long start = System.nanoTime();
+        RecipeIndexes newIndexes = new RecipeIndexes();
+        this.indexes.rebuild(() -> {
+            UUID lastId = null;
+            while (true) {
+                List<RecipeDocument> documents = this.recipeService.findRecipeDocuments(lastId, this.buildBatchSize);
+                if (documents.isEmpty()) break;
+
+                List<AnalyzedDocument> analyzedDocuments = documents.parallelStream().map(RecipeAnalyzer::analyze).toList();
+                for (int i = 0; i < documents.size(); i++) {
+                    newIndexes.put(this.ordinalRegistry.ordinalOf(documents.get(i).id()), documents.get(i), analyzedDocuments.get(i));
+                }
+                if (documents.size() < this.buildBatchSize) break;
+                lastId = documents.get(documents.size() - 1).id();
+            }
+            return newIndexes;
+        });
+        this.dirty.set(true);
+        this.suggestionsStale.set(true);
+        log.info(String.format("Search index built with %d recipes in %d ms", newIndexes.documentCount(), (System.nanoTime() - start) / 1_000_000));
+    }
+
+    @Scheduled(fixedDelayString = "${search.index.snapshot-interval-in-ms}", initialDelayString = "${search.index.snapshot-interval-in-ms}")
+    public void scheduledSnapshot() {
+        if (this.dirty.compareAndSet(true, false)) {
+            this.writeSnapshot();
+        }
+    }
+
+    @PreDestroy
+    public void snapshotOnShutdown() {
+        this.writeSnapshot();
+    }
+
+    /*
+        Closest known terms for a word that no recipe contains; empty if any recipe does, in any field. The
+        dictionary only holds words from titles, ingredients and tags, so a word found only in descriptions or
+        directions is not a misspelling just because the dictionary lacks it.
+        Short words allow fewer edits since almost any three letters are one edit away from some other word
+     */
+    private static List<SpellingDictionary.Correction> corrections(SpellingDictionary dictionary, InvertedIndex textIndex, String term) {
+        if (term.length() < 3 || dictionary.contains(term) || term.chars().allMatch(Character::isDigit) || textIndex.contains(term)) return List.of();
+        return dictionary.lookup(term, term.length() <= 5 ? 1 : SpellingDictionary.MAX_EDIT_DISTANCE);
+    }
+
+    private static int clampLimit(int limit) {
+        return Math.min(Math.max(limit, 1), MAX_RESULTS);
+    }
+
+    private void writeSnapshot() {
+        if (StringUtils.isBlank(this.snapshotPath)) return;
+
+        Path target = Path.of(this.snapshotPath);
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            this.indexes.current().writeTo(out, this.ordinalRegistry);
+        } catch (IOException e) {
+            log.log(Level.WARNING, "Unable to write search index snapshot", e);
+            return;
+        }
+
+        try {
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.log(Level.WARNING, "Unable to replace search index snapshot", e);
+        }
+    }
+
+    /*
+        A snapshot is only trusted if it holds as many recipes as the database does, and its latest change is the
+        database's latest change. Recipes added or edited after it was taken are newer than anything it holds,
+        and recipes deleted after it leave it with more recipes, unless as many were added, which are newer.
+        Anything else means writes happened after it was taken, and the index is rebuilt instead
+     */
+    private boolean loadSnapshot() {
+        if (StringUtils.isBlank(this.snapshotPath) || !Files.exists(Path.of(this.snapshotPath))) return false;
+
+        boolean loaded = this.indexes.rebuild(() -> {
+            RecipeIndexes newIndexes;
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(Path.of(this.snapshotPath))))) {
+                newIndexes = RecipeIndexes.readFrom(in, this.ordinalRegistry);
+            } catch (IOException e) {
+                log.log(Level.WARNING, "Unable to read search index snapshot", e);
+                return null;
+            }
+
+            if (newIndexes.documentCount() != this.recipeService.countRecipes() || newIndexes.latestChange() != this.recipeService.findLatestChange()) {
+                log.info("Search index snapshot is stale, rebuilding from the database");
+                return null;
+            }
+            return newIndexes;
+        });
+        if (!loaded) return false;
+
+        this.suggestionsStale.set(true);
+        log.info(String.format("Search index loaded from snapshot with %d recipes", this.indexes.current().documentCount()));
+        return true;
+    }
+}
@@ -0,0 +1,16 @@
+package com.joel.recipes.service;
+
+import com.joel.recipes.dto.SimilarRecipeDto;
+import com.joel.recipes.exception.RecipeDoesNotExistException;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.UUID;
+
+@Service
+public interface SimilarRecipeService {
+    // The recipes sharing the most ingredients and tags with the recipe, most similar first
+    List<SimilarRecipeDto> findSimilar(UUID recipeId, int size) throws RecipeDoesNotExistException;
+    // Recomputes every recipe's signature from the database
+    void rebuildIndex();
+}
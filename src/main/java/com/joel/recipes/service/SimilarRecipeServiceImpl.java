@@ -0,0 +1,181 @@
+package com.joel.recipes.service;
+
+import com.joel.recipes.dto.RecipeSummaryDto;
+import com.joel.recipes.dto.SimilarRecipeDto;
+import com.joel.recipes.event.RecipeDeletedEvent;
+import com.joel.recipes.event.RecipeSavedEvent;
+import com.joel.recipes.exception.RecipeDoesNotExistException;
+import com.joel.recipes.model.RecipeDocument;
+import com.joel.recipes.repository.RecipeRepository;
+import com.joel.recipes.util.search.RebuildableIndex;
+import com.joel.recipes.util.search.RecipeOrdinalRegistry;
+import com.joel.recipes.util.search.TermBitmapIndex;
+import com.joel.recipes.util.similarity.LshIndex;
+import com.joel.recipes.util.similarity.MinHasher;
+import lombok.extern.java.Log;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/*
+    "Similar recipes" are found by MinHash and locality-sensitive hashing over each recipe's ingredients and tags,
+    so a lookup scores a handful of candidates instead of every recipe. Signatures follow recipe writes after
+    commit, and a rebuild computes them in parallel on the fork/join pool into a new index that is swapped in
+    once complete, replaying the writes made meanwhile, the same way the search index is rebuilt
+ */
+@Service
+@Log
+public class SimilarRecipeServiceImpl implements SimilarRecipeService, ApplicationListener<ApplicationReadyEvent> {
+    private static final int MAX_PAGE_SIZE = 100;
+    // The hash functions only have to agree between the recipes in one index, so any fixed seed will do
+    private static final long SEED = 0x5eed;
+    private static final String INGREDIENT = "ingredient";
+    private static final String TAG = "tag";
+
+    private final RecipeService recipeService;
+    private final RecipeRepository recipeRepository;
+    private final RecipeOrdinalRegistry ordinalRegistry;
+    private final int bands;
+    private final int rowsPerBand;
+    private final int buildBatchSize;
+    @Value("${indexes.build-on-startup}")
+    private boolean buildOnStartup;
+
+    private final RebuildableIndex<LshIndex> index;
+
+    public SimilarRecipeServiceImpl(RecipeService recipeService,
+                                    RecipeRepository recipeRepository,
+                                    RecipeOrdinalRegistry ordinalRegistry,
+                                    @Value("${similar.lsh.bands}") int bands,
+                                    @Value("${similar.lsh.rows-per-band}") int rowsPerBand,
+                                    @Value("${similar.index.build-batch-size}") int buildBatchSize) {
+        this.recipeService = recipeService;
+        this.recipeRepository = recipeRepository;
+        this.ordinalRegistry = ordinalRegistry;
+        this.bands = bands;
+        this.rowsPerBand = rowsPerBand;
+        this.buildBatchSize = buildBatchSize;
+        this.index = new RebuildableIndex<>(new LshIndex(bands, rowsPerBand, SEED), ordinalRegistry, new RebuildableIndex.Writer<>() {
+            @Override
+            public void put(LshIndex index, int ordinal, RecipeDocument document) {
+                index.put(ordinal, featuresOf(document));
+            }
+
+            @Override
+            public void remove(LshIndex index, int ordinal) {
+                index.remove(ordinal);
+            }
+        });
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        if (this.buildOnStartup) this.rebuildIndex();
+    }
+
+    @Override
+    public List<SimilarRecipeDto> findSimilar(UUID recipeId, int size) throws RecipeDoesNotExistException {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        int ordinal = this.ordinalRegistry.findOrdinal(recipeId);
+        LshIndex current = this.index.current();
+        if (ordinal < 0 || !current.contains(ordinal)) {
+            // Not indexed yet, either because the index is still being built or the recipe was only just written
+            if (!this.recipeRepository.existsById(recipeId)) throw new RecipeDoesNotExistException();
+            return List.of();
+        }
+
+        List<LshIndex.Similar> similar = current.similarTo(ordinal, pageSize);
+        if (similar.isEmpty()) return List.of();
+
+        List<UUID> ids = similar.stream().map(match -> this.ordinalRegistry.idOf(match.ordinal())).toList();
+        Map<UUID, RecipeSummaryDto> recipes = this.recipeRepository.findRecipeSummariesByIds(ids).stream()
+                .collect(Collectors.toMap(RecipeSummaryDto::id, Function.identity()));
+        List<SimilarRecipeDto> page = new ArrayList<>(similar.size());
+        for (int i = 0; i < similar.size(); i++) {
+            RecipeSummaryDto recipe = recipes.get(ids.get(i));
+            if (Objects.nonNull(recipe)) page.add(new SimilarRecipeDto(recipe, similar.get(i).similarity()));
+        }
+        return page;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipeSaved(RecipeSavedEvent event) {
+        this.index.put(event.document());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipeDeleted(RecipeDeletedEvent event) {
+        this.index.remove(event.recipeId());
+    }
+
+    /*
+        Recipes are read a page at a time, and each page is hashed and inserted by a fork/join task that splits it
+        until the pieces are small. Readers keep using the old index until the new one is complete
+     */
+    @Override
+    public void rebuildIndex() {
+        long start = System.nanoTime();
+        LshIndex newIndex = new LshIndex(this.bands, this.rowsPerBand, SEED);
+        this.index.rebuild(() -> {
+            UUID lastId = null;
+            while (true) {
+                List<RecipeDocument> documents = this.recipeService.findRecipeDocuments(lastId, this.buildBatchSize);
+                if (documents.isEmpty()) break;
+                ForkJoinPool.commonPool().invoke(new IndexTask(newIndex, this.ordinalRegistry, documents, 0, documents.size()));
+                if (documents.size() < this.buildBatchSize) break;
+                lastId = documents.get(documents.size() - 1).id();
+            }
+            return newIndex;
+        });
+        log.info(String.format("Similar recipe index built with %d recipes in %d ms", newIndex.size(), (System.nanoTime() - start) / 1_000_000));
+    }
+
+    // Ingredients and tags are normalized the way the search index normalizes them, and kept apart by namespace
+    static long[] featuresOf(RecipeDocument document) {
+        return LongStream.concat(
+                document.ingredients().stream().map(TermBitmapIndex::normalize).filter(term -> !term.isEmpty()).mapToLong(term -> MinHasher.featureOf(INGREDIENT, term)),
+                document.tags().stream().map(TermBitmapIndex::normalize).filter(term -> !term.isEmpty()).mapToLong(term -> MinHasher.featureOf(TAG, term))
+        ).toArray();
+    }
+
+    private static class IndexTask extends RecursiveAction {
+        private static final int THRESHOLD = 64;
+
+        private final LshIndex index;
+        private final RecipeOrdinalRegistry ordinalRegistry;
+        private final List<RecipeDocument> documents;
+        private final int from;
+        private final int to;
+
+        IndexTask(LshIndex index, RecipeOrdinalRegistry ordinalRegistry, List<RecipeDocument> documents, int from, int to) {
+            this.index = index;
+            this.ordinalRegistry = ordinalRegistry;
+            this.documents = documents;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    RecipeDocument document = documents.get(i);
+                    index.put(ordinalRegistry.ordinalOf(document.id()), featuresOf(document));
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new IndexTask(index, ordinalRegistry, documents, from, middle),
+                    new IndexTask(index, ordinalRegistry, documents, middle, to));
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.joel.recipes.service;
+
+import com.joel.recipes.dto.TrendingRecipeDto;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@Service
+public interface TrendingService {
+    // The recipes with the most recent views, favourites and comments, optionally only those with the tag
+    List<TrendingRecipeDto> findTrending(String tag, int size);
+    // Re-ranks the recipes from the interactions counted so far
+    void refresh();
+}
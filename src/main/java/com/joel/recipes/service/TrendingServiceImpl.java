@@ -0,0 +1,124 @@
+package com.joel.recipes.service;
+
+import com.joel.recipes.dto.RecipeSummaryDto;
+import com.joel.recipes.dto.TrendingRecipeDto;
+import com.joel.recipes.event.CommentAddedEvent;
+import com.joel.recipes.event.FavouriteChangedEvent;
+import com.joel.recipes.event.RecipeViewedEvent;
+import com.joel.recipes.repository.RecipeRepository;
+import com.joel.recipes.util.bitmap.RoaringBitmap;
+import com.joel.recipes.util.search.RecipeOrdinalRegistry;
+import com.joel.recipes.util.sketch.SlidingHeavyHitters;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/*
+    Trending recipes are ranked from views, favourites and comments as they happen, never by aggregating stored
+    rows. Interactions are weighted by kind and counted in a SlidingHeavyHitters, whose memory use is fixed, and
+    the ranking of its candidates is recomputed on a schedule, so requests only filter and page a ready list.
+    Deleted recipes drop out when the page is resolved against the database
+ */
+@Service
+public class TrendingServiceImpl implements TrendingService {
+    private static final int MAX_PAGE_SIZE = 100;
+    // 4 x 16384 counters per bucket overcount by at most 0.02% of the bucket's interactions with 98% probability
+    private static final int SKETCH_DEPTH = 4;
+    private static final int SKETCH_WIDTH = 16_384;
+
+    private final RecipeRepository recipeRepository;
+    private final RecipeOrdinalRegistry ordinalRegistry;
+    private final SearchService searchService;
+
+    private final long viewWeight;
+    private final long favouriteWeight;
+    private final long commentWeight;
+    private final double halfLife;
+    private final int candidateCount;
+
+    // Guarded by itself
+    private final SlidingHeavyHitters heavyHitters;
+    private volatile List<SlidingHeavyHitters.Scored> ranking = List.of();
+
+    public TrendingServiceImpl(RecipeRepository recipeRepository,
+                               RecipeOrdinalRegistry ordinalRegistry,
+                               SearchService searchService,
+                               @Value("${trending.window-in-minutes}") long windowInMinutes,
+                               @Value("${trending.bucket-count}") int bucketCount,
+                               @Value("${trending.half-life-in-minutes}") double halfLifeInMinutes,
+                               @Value("${trending.top-k-per-bucket}") int topK,
+                               @Value("${trending.weight.view}") long viewWeight,
+                               @Value("${trending.weight.favourite}") long favouriteWeight,
+                               @Value("${trending.weight.comment}") long commentWeight) {
+        this.recipeRepository = recipeRepository;
+        this.ordinalRegistry = ordinalRegistry;
+        this.searchService = searchService;
+        this.viewWeight = viewWeight;
+        this.favouriteWeight = favouriteWeight;
+        this.commentWeight = commentWeight;
+        this.halfLife = halfLifeInMinutes * 60_000;
+        this.candidateCount = topK * bucketCount;
+        long bucketDuration = Math.max(windowInMinutes * 60_000 / bucketCount, 1);
+        this.heavyHitters = new SlidingHeavyHitters(bucketCount, bucketDuration, SKETCH_DEPTH, SKETCH_WIDTH, topK);
+    }
+
+    @Override
+    public List<TrendingRecipeDto> findTrending(String tag, int size) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        RoaringBitmap withTag = StringUtils.isBlank(tag) ? null : this.searchService.findRecipeOrdinalsWithAllTags(List.of(tag));
+        List<SlidingHeavyHitters.Scored> page = this.ranking.stream()
+                .filter(scored -> Objects.isNull(withTag) || withTag.contains(scored.key()))
+                .limit(pageSize)
+                .toList();
+        if (page.isEmpty()) return List.of();
+
+        List<UUID> ids = page.stream().map(scored -> this.ordinalRegistry.idOf(scored.key())).toList();
+        Map<UUID, RecipeSummaryDto> recipes = this.recipeRepository.findRecipeSummariesByIds(ids).stream()
+                .collect(Collectors.toMap(RecipeSummaryDto::id, Function.identity()));
+        List<TrendingRecipeDto> trending = new ArrayList<>(page.size());
+        for (int i = 0; i < page.size(); i++) {
+            RecipeSummaryDto recipe = recipes.get(ids.get(i));
+            if (Objects.nonNull(recipe)) trending.add(new TrendingRecipeDto(recipe, page.get(i).score()));
+        }
+        return trending;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${trending.refresh-interval-in-ms}")
+    public void refresh() {
+        long now = System.currentTimeMillis();
+        synchronized (this.heavyHitters) {
+            this.ranking = this.heavyHitters.top(now, this.halfLife, this.candidateCount, key -> true);
+        }
+    }
+
+    @EventListener
+    public void onRecipeViewed(RecipeViewedEvent event) {
+        this.record(event.recipeId(), this.viewWeight);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFavouriteChanged(FavouriteChangedEvent event) {
+        if (event.favourite()) this.record(event.recipeId(), this.favouriteWeight);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentAdded(CommentAddedEvent event) {
+        this.record(event.recipeId(), this.commentWeight);
+    }
+
+    private void record(UUID recipeId, long weight) {
+        int ordinal = this.ordinalRegistry.ordinalOf(recipeId);
+        long now = System.currentTimeMillis();
+        synchronized (this.heavyHitters) {
+            this.heavyHitters.add(ordinal, weight, now);
+        }
+    }
+}
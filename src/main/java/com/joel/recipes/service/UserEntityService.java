@@ -7,6 +7,7 @@ import com.joel.recipes.exception.*;
 import com.joel.recipes.model.AuthenticatedUserEntity;
 import com.joel.recipes.model.UserEntity;
 import jakarta.mail.MessagingException;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Service;
 
@@ -14,7 +15,7 @@ import java.io.UnsupportedEncodingException;
 import java.util.UUID;
 
 @Service
-public interface UserEntityService extends UserDetailsService {
+public interface UserEntityService extends UserDetailsService, UserDetailsPasswordService {
     UserEntity findUserEntityById(UUID id);
 
     void updateUserEntity(UserEntity userEntity);
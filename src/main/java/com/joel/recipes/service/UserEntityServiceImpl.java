@@ -68,11 +68,8 @@ public class UserEntityServiceImpl implements UserEntityService {
 
     @Override
     public AuthenticatedUserEntity authenticateUserEntity(String email, String password) throws UserEntityDoesNotExistException {
-        UserEntity userEntity = this.userEntityRepository.findUserEntityByEmail(email).orElseThrow(UserEntityDoesNotExistException::new);
-        Authentication authentication = this.authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(email, password));
-        String jwt = this.jwtTokenService.generateJwt(authentication, userEntity.getId());
-        RefreshToken refreshToken = this.refreshTokenService.createRefreshToken(email);
-        return new AuthenticatedUserEntity(userEntity.getId(), jwt, refreshToken.getTokenValue().toString());
+        UserEntity userEntity = this.userEntityRepository.findForAuthenticationByEmail(email).orElseThrow(UserEntityDoesNotExistException::new);
+        return this.authenticate(userEntity, password);
     }
 
     /*
@@ -83,11 +80,9 @@ public class UserEntityServiceImpl implements UserEntityService {
      */
     @Override
     public AuthenticatedUserEntity authenticateUserEntity(String email) throws UserEntityDoesNotExistException {
-        UserEntity userEntity = this.userEntityRepository.findUserEntityByEmail(email).orElseThrow(UserEntityDoesNotExistException::new);
+        UserEntity userEntity = this.userEntityRepository.findForAuthenticationByEmail(email).orElseThrow(UserEntityDoesNotExistException::new);
         Authentication authentication = new UsernamePasswordAuthenticationToken(userEntity, null, userEntity.getAuthorities());
-        String jwt = this.jwtTokenService.generateJwt(authentication, userEntity.getId());
-        RefreshToken refreshToken = this.refreshTokenService.createRefreshToken(email);
-        return new AuthenticatedUserEntity(userEntity.getId(), jwt, refreshToken.getTokenValue().toString());
+        return this.issueTokens(userEntity, authentication);
     }
 
 
@@ -156,18 +151,18 @@ public class UserEntityServiceImpl implements UserEntityService {
 
     @Override
     public AuthenticatedUserEntity loginUser(String userNameOrEmail, String password) throws UserEntityDoesNotExistException, EmailAddressNotVerifiedException {
-        UserEntity userEntity = this.userEntityRepository.findUserEntityByEmailOrUsername(userNameOrEmail).orElseThrow(UserEntityDoesNotExistException::new);
+        UserEntity userEntity = this.userEntityRepository.findForAuthenticationByEmailOrUsername(userNameOrEmail).orElseThrow(UserEntityDoesNotExistException::new);
         if (!userEntity.isEmailVerified()) throw new EmailAddressNotVerifiedException();
-        return this.authenticateUserEntity(userEntity.getEmail(), password);
+        return this.authenticate(userEntity, password);
     }
 
+    // Usually answered from RefreshTokenService's index, without a transaction or any query
     @Override
+    @Transactional(Transactional.TxType.SUPPORTS)
     public String refreshToken(String refreshTokenValue) throws RefreshTokenNotFoundException, ExpiredRefreshTokenException {
-        RefreshToken refreshToken = this.refreshTokenService.findRefreshTokenByTokenValue(refreshTokenValue);
-        this.refreshTokenService.verifyExpiration(refreshToken);
-        UserEntity userEntity = refreshToken.getUserEntity();
-        Authentication authentication = new UsernamePasswordAuthenticationToken(userEntity, null, userEntity.getAuthorities());
-        return this.jwtTokenService.generateJwt(authentication, userEntity.getId());
+        RefreshTokenOwner owner = this.refreshTokenService.findRefreshTokenOwner(refreshTokenValue);
+        Authentication authentication = new UsernamePasswordAuthenticationToken(owner.username(), null, owner.authorities());
+        return this.jwtTokenService.generateJwt(authentication, owner.userId());
     }
 
 
@@ -193,11 +188,10 @@ public class UserEntityServiceImpl implements UserEntityService {
                 userEntity.setPasswordResetToken(null);
                 userEntity.setPassword(this.passwordEncoder.encode(password));
 
-
-                removeRefreshTokens(userEntity);
+                this.refreshTokenService.revokeRefreshTokens(userEntity.getId());
 
                 this.userEntityRepository.save(userEntity);
-                return this.authenticateUserEntity(userEntity.getEmail(), password);
+                return this.authenticate(userEntity, password);
             }
         }
 
@@ -284,28 +278,22 @@ public class UserEntityServiceImpl implements UserEntityService {
     // Logout user from all devices
     @Override
     public void logoutUserEntity(UUID id) throws UserEntityDoesNotExistException {
-        UserEntity userEntity = this.userEntityRepository.findById(id).orElseThrow(
-                UserEntityDoesNotExistException::new
-        );
-        removeRefreshTokens(userEntity);
+        if (!this.userEntityRepository.existsById(id)) throw new UserEntityDoesNotExistException();
+        this.refreshTokenService.revokeRefreshTokens(id);
     }
 
     // Logout user from a single device
     @Override
     public void logoutUserEntity(UUID id, UUID refreshTokenValue) throws UserEntityDoesNotExistException, RefreshTokenNotFoundException {
-        UserEntity userEntity = this.userEntityRepository.findById(id).orElseThrow(
-                UserEntityDoesNotExistException::new
-        );
-
-        RefreshToken refreshToken = this.refreshTokenService.findRefreshTokenByTokenValue(refreshTokenValue);
-        userEntity.getRefreshTokens().remove(refreshToken);
-        this.userEntityRepository.save(userEntity);
-        this.refreshTokenService.deleteRefreshToken(refreshTokenValue.toString());
+        if (!this.userEntityRepository.existsById(id)) throw new UserEntityDoesNotExistException();
+        this.refreshTokenService.revokeRefreshToken(id, refreshTokenValue.toString());
     }
 
     @Override
     public void deleteUserEntity(UUID id) throws UserEntityDoesNotExistException {
         userEntityRepository.findById(id).orElseThrow(UserEntityDoesNotExistException::new);
+        // Revoked rather than deleted with the user, so that other instances learn of it
+        this.refreshTokenService.revokeRefreshTokens(id);
         this.userEntityRepository.deleteById(id);
     }
 
@@ -320,18 +308,27 @@ public class UserEntityServiceImpl implements UserEntityService {
         throw new UserEntityDoesNotExistException();
     }
 
-    private void removeRefreshTokens(UserEntity userEntity) {
-        var refreshTokens = userEntity.getRefreshTokens();
-        refreshTokens.forEach(
-                (token) -> {
-                    try {
-                        this.refreshTokenService.deleteRefreshToken(token.getTokenValue().toString());
-                        userEntity.getRefreshTokens().remove(token);
-                        this.userEntityRepository.save(userEntity);
-                    } catch (RefreshTokenNotFoundException e) {
-                        throw new RuntimeException(e);
-                    }
-                }
-        );
+    // Called after a successful login whose hash was made with an outdated algorithm or strength
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        UserEntity userEntity = (UserEntity) user;
+        userEntity.setPassword(newPassword);
+        return this.userEntityRepository.save(userEntity);
+    }
+
+    /*
+        Checks the password of a user who is already loaded, with everything the check reads, and issues their
+        tokens. The provider takes the user from the token instead of loading them again, so together with the
+        user's select a login takes two statements: that select and the refresh token's insert
+     */
+    private AuthenticatedUserEntity authenticate(UserEntity userEntity, String password) {
+        Authentication authentication = this.authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(userEntity, password));
+        return this.issueTokens(userEntity, authentication);
+    }
+
+    private AuthenticatedUserEntity issueTokens(UserEntity userEntity, Authentication authentication) {
+        String jwt = this.jwtTokenService.generateJwt(authentication, userEntity.getId());
+        String refreshToken = this.refreshTokenService.createRefreshToken(userEntity);
+        return new AuthenticatedUserEntity(userEntity.getId(), jwt, refreshToken);
     }
 }
\ No newline at end of file
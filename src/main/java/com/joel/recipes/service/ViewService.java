@@ -0,0 +1,15 @@
+package com.joel.recipes.service;
+
+import com.joel.recipes.dto.RecipeViewsDto;
+import org.springframework.stereotype.Service;
+
+import java.util.UUID;
+
+@Service
+public interface ViewService {
+    // viewerId is null for anonymous views, which count towards the total but not towards unique viewers
+    void recordView(UUID recipeId, UUID viewerId);
+    RecipeViewsDto getViews(UUID recipeId);
+    // Writes the views recorded since the last flush to the database
+    void flush();
+}
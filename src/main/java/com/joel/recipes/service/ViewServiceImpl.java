@@ -0,0 +1,171 @@
+package com.joel.recipes.service;
+
+import com.joel.recipes.dto.RecipeViewsDto;
+import com.joel.recipes.event.RecipeDeletedEvent;
+import com.joel.recipes.event.RecipeViewedEvent;
+import com.joel.recipes.model.RecipeViews;
+import com.joel.recipes.repository.RecipeRepository;
+import com.joel.recipes.repository.RecipeViewsRepository;
+import com.joel.recipes.util.sketch.HyperLogLog;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.java.Log;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.stream.Collectors;
+
+/*
+    Views are counted in memory and written to the database in batches, so recording a view never touches
+    the database. Counters are LongAdders, which stripe increments across cells so concurrent views of
+    a popular recipe do not contend. Reads add the views that have not been flushed yet to the stored ones
+ */
+@Service
+@Log
+public class ViewServiceImpl implements ViewService {
+    @Value("${views.flush-batch-size}")
+    private int flushBatchSize;
+
+    private final RecipeViewsRepository recipeViewsRepository;
+    private final RecipeRepository recipeRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final ConcurrentHashMap<UUID, PendingViews> pendingViews = new ConcurrentHashMap<>();
+
+    public ViewServiceImpl(RecipeViewsRepository recipeViewsRepository, RecipeRepository recipeRepository, TransactionTemplate transactionTemplate, ApplicationEventPublisher eventPublisher) {
+        this.recipeViewsRepository = recipeViewsRepository;
+        this.recipeRepository = recipeRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+    }
+
+    private static class PendingViews {
+        private final LongAdder views = new LongAdder();
+        // Guarded by this; null until a signed-in user views the recipe
+        private HyperLogLog viewers;
+
+        synchronized void addViewer(UUID viewerId) {
+            if (Objects.isNull(viewers)) viewers = new HyperLogLog();
+            viewers.add(viewerId);
+        }
+
+        synchronized HyperLogLog copyViewers() {
+            return Objects.isNull(viewers) ? null : viewers.copy();
+        }
+
+        synchronized HyperLogLog takeViewers() {
+            HyperLogLog taken = viewers;
+            viewers = null;
+            return taken;
+        }
+
+        synchronized void restore(long views, HyperLogLog viewers) {
+            this.views.add(views);
+            if (Objects.isNull(viewers)) return;
+            if (Objects.isNull(this.viewers)) this.viewers = viewers;
+            else this.viewers.merge(viewers);
+        }
+    }
+
+    private record Flush(UUID recipeId, long views, HyperLogLog viewers) {
+    }
+
+    @Override
+    public void recordView(UUID recipeId, UUID viewerId) {
+        PendingViews pending = this.pendingViews.computeIfAbsent(recipeId, id -> new PendingViews());
+        pending.views.increment();
+        if (Objects.nonNull(viewerId)) pending.addViewer(viewerId);
+        this.eventPublisher.publishEvent(new RecipeViewedEvent(recipeId));
+    }
+
+    @Override
+    public RecipeViewsDto getViews(UUID recipeId) {
+        Optional<RecipeViews> stored = this.recipeViewsRepository.findById(recipeId);
+        long totalViews = stored.map(RecipeViews::getTotalViews).orElse(0L);
+        HyperLogLog viewers = stored.map(RecipeViews::getUniqueViewers).map(HyperLogLog::fromBytes).orElseGet(HyperLogLog::new);
+
+        PendingViews pending = this.pendingViews.get(recipeId);
+        if (Objects.nonNull(pending)) {
+            totalViews += pending.views.sum();
+            HyperLogLog pendingViewers = pending.copyViewers();
+            if (Objects.nonNull(pendingViewers)) viewers.merge(pendingViewers);
+        }
+        return new RecipeViewsDto(recipeId, totalViews, viewers.estimate());
+    }
+
+    /*
+        Counters are drained by subtracting the sum that was read rather than with sumThenReset, which is not atomic and
+        loses views recorded between its read and its reset. Views recorded while a flush is running are kept for the
+        next one.
+        Recipes that were not viewed since the previous flush are dropped from memory; a view racing with that removal
+        can be lost, which is acceptable for view counts. A batch that fails to write is put back for the next flush
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${views.flush-interval-in-ms}")
+    public void flush() {
+        List<Flush> flushes = new ArrayList<>();
+        this.pendingViews.forEach((recipeId, pending) -> {
+            long views = pending.views.sum();
+            pending.views.add(-views);
+            HyperLogLog viewers = pending.takeViewers();
+            if (views == 0 && Objects.isNull(viewers)) {
+                this.pendingViews.remove(recipeId, pending);
+            } else {
+                flushes.add(new Flush(recipeId, views, viewers));
+            }
+        });
+
+        for (int from = 0; from < flushes.size(); from += this.flushBatchSize) {
+            List<Flush> batch = flushes.subList(from, Math.min(from + this.flushBatchSize, flushes.size()));
+            try {
+                this.transactionTemplate.executeWithoutResult(status -> this.write(batch));
+            } catch (RuntimeException e) {
+                log.log(Level.WARNING, "Unable to flush recipe views, retrying on the next flush", e);
+                batch.forEach(flush -> this.pendingViews.computeIfAbsent(flush.recipeId(), id -> new PendingViews()).restore(flush.views(), flush.viewers()));
+            }
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        this.flush();
+    }
+
+    // Before commit, so that the statistics are deleted in the same transaction as the recipe
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onRecipeDeleted(RecipeDeletedEvent event) {
+        this.pendingViews.remove(event.recipeId());
+        this.recipeViewsRepository.deleteById(event.recipeId());
+    }
+
+    // One query for the rows to update, locked so that concurrent flushes cannot lose each other's counts, one batch of writes
+    private void write(List<Flush> batch) {
+        Set<UUID> recipeIds = batch.stream().map(Flush::recipeId).collect(Collectors.toSet());
+        // Views of recipes that do not exist (or were deleted since) are dropped
+        Set<UUID> existingRecipeIds = new HashSet<>(this.recipeRepository.findExistingIds(recipeIds));
+        Map<UUID, RecipeViews> rows = this.recipeViewsRepository.findAllForUpdate(existingRecipeIds).stream()
+                .collect(Collectors.toMap(RecipeViews::getRecipeId, Function.identity()));
+
+        for (Flush flush : batch) {
+            if (!existingRecipeIds.contains(flush.recipeId())) continue;
+            RecipeViews row = rows.computeIfAbsent(flush.recipeId(), id -> RecipeViews.builder().recipeId(id).build());
+            row.setTotalViews(row.getTotalViews() + flush.views());
+            if (Objects.nonNull(flush.viewers())) {
+                HyperLogLog viewers = Objects.isNull(row.getUniqueViewers()) ? new HyperLogLog() : HyperLogLog.fromBytes(row.getUniqueViewers());
+                viewers.merge(flush.viewers());
+                row.setUniqueViewers(viewers.toBytes());
+            }
+        }
+        this.recipeViewsRepository.saveAll(rows.values());
+    }
+}
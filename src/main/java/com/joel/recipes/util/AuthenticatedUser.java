@@ -0,0 +1,18 @@
+package com.joel.recipes.util;
+
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+
+public class AuthenticatedUser {
+    private AuthenticatedUser() {
+    }
+
+    // The user id JWTTokenService puts in the "id" claim; empty for anonymous requests
+    public static Optional<UUID> idOf(Jwt jwt) {
+        if (Objects.isNull(jwt) || Objects.isNull(jwt.getClaimAsString("id"))) return Optional.empty();
+        return Optional.of(UUID.fromString(jwt.getClaimAsString("id")));
+    }
+}
@@ -0,0 +1,29 @@
+package com.joel.recipes.util.dictionary;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.Objects;
+
+/*
+    Stores ingredients and tags as TermDictionary ids while entities keep working with the text.
+    Hibernate gets instances from Spring, which is what injects the dictionary
+ */
+@Converter
+public class TermConverter implements AttributeConverter<String, Integer> {
+    private final TermDictionary termDictionary;
+
+    public TermConverter(TermDictionary termDictionary) {
+        this.termDictionary = termDictionary;
+    }
+
+    @Override
+    public Integer convertToDatabaseColumn(String term) {
+        return Objects.isNull(term) ? null : this.termDictionary.idOf(term);
+    }
+
+    @Override
+    public String convertToEntityAttribute(Integer id) {
+        return Objects.isNull(id) ? null : this.termDictionary.nameOf(id);
+    }
+}
@@ -0,0 +1,138 @@
+package com.joel.recipes.util.dictionary;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/*
+    Two-way mapping between canonical ingredient and tag text and the int ids recipes store instead, shared by
+    everything in the process. Every loaded recipe gets the dictionary's single String instance of each term, so
+    "salt" is on the heap once rather than once per recipe. Terms are only ever added, so an id never changes
+    meaning and the in-memory maps never need invalidating.
+    New terms are inserted and committed in their own transaction, so an id handed out is valid even if the
+    recipe that introduced it is rolled back, and concurrent inserts of one term from several instances settle
+    on the row that won the unique constraint. Terms have to be registered before the transaction that saves a
+    recipe starts: inside one, the insert would hold a second pooled connection. TermConverter only looks ids up,
+    so flushing a recipe never touches the term table. JDBC is used rather than the EntityManager because names
+    of terms added by other instances are looked up while Hibernate is in the middle of loading recipes
+ */
+@Component
+public class TermDictionary {
+    // Keeps IN lists well below the bind parameter limits of the databases
+    private static final int LOOKUP_BATCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate insertTransaction;
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, String> names = new ConcurrentHashMap<>();
+
+    // The transaction manager is lazy because it needs the EntityManagerFactory, which needs TermConverter, which needs this
+    public TermDictionary(DataSource dataSource, @Lazy PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(this.jdbcTemplate);
+        this.insertTransaction = new TransactionTemplate(transactionManager);
+        this.insertTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // Lower case with surrounding whitespace removed and inner whitespace collapsed, so "Olive  Oil " is "olive oil"
+    public static String canonicalize(String term) {
+        if (Objects.isNull(term)) return "";
+        return term.strip().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    // Canonical, non-blank and distinct
+    public static Set<String> canonicalize(Set<String> terms) {
+        if (Objects.isNull(terms)) return null;
+        return terms.stream()
+                .map(TermDictionary::canonicalize)
+                .filter(term -> !term.isEmpty())
+                .collect(Collectors.toCollection(HashSet::new));
+    }
+
+    // Loads every term before the first requests, rather than one query per term as recipes are first read
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void preload() {
+        this.jdbcTemplate.query("select id, name from term", resultSet -> {
+            this.cache(resultSet.getInt(1), resultSet.getString(2));
+        });
+    }
+
+    // Only for registered terms, see register
+    public int idOf(String term) {
+        String canonical = canonicalize(term);
+        Integer id = this.ids.get(canonical);
+        if (Objects.isNull(id)) throw new IllegalStateException("Term \"" + canonical + "\" was not registered before saving");
+        return id;
+    }
+
+    public String nameOf(int id) {
+        String name = this.names.get(id);
+        if (Objects.nonNull(name)) return name;
+        List<String> found = this.jdbcTemplate.queryForList("select name from term where id = ?", String.class, id);
+        if (found.isEmpty()) throw new IllegalStateException("Unknown term id " + id);
+        return this.cache(id, found.get(0));
+    }
+
+    /*
+        Assigns ids to any of the terms that do not have one yet, looking the others up in as few queries as possible.
+        Called outside of any transaction, so that it never waits for a second connection while holding one
+     */
+    public void register(Collection<String> terms) {
+        Set<String> missing = terms.stream()
+                .map(TermDictionary::canonicalize)
+                .filter(term -> !term.isEmpty() && !this.ids.containsKey(term))
+                .collect(Collectors.toSet());
+        if (missing.isEmpty()) return;
+
+        this.load(missing);
+        missing.removeIf(this.ids::containsKey);
+        if (missing.isEmpty()) return;
+
+        for (String term : missing) {
+            try {
+                this.insertTransaction.executeWithoutResult(status -> this.jdbcTemplate.update("insert into term (name) values (?)", term));
+            } catch (DuplicateKeyException e) {
+                // Inserted by another request or instance in the meantime, which is just as good
+            }
+        }
+        this.load(missing);
+    }
+
+    public int size() {
+        return this.names.size();
+    }
+
+    private void load(Collection<String> terms) {
+        List<String> remaining = new ArrayList<>(terms);
+        for (int from = 0; from < remaining.size(); from += LOOKUP_BATCH_SIZE) {
+            List<String> chunk = remaining.subList(from, Math.min(from + LOOKUP_BATCH_SIZE, remaining.size()));
+            this.namedParameterJdbcTemplate.query("select id, name from term where name in (:names)", Map.of("names", chunk), resultSet -> {
+                this.cache(resultSet.getInt(1), resultSet.getString(2));
+            });
+        }
+    }
+
+    // Both maps share the one String instance per term
+    private String cache(int id, String name) {
+        String shared = this.names.computeIfAbsent(id, key -> name);
+        this.ids.putIfAbsent(shared, id);
+        return shared;
+    }
+}
@@ -0,0 +1,60 @@
+package com.joel.recipes.util.export;
+
+import com.joel.recipes.dto.RecipeExportDto;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
+
+/*
+    RFC 4180 CSV with a header row. Ingredients and tags are joined with '|' into a single column each,
+    and timeAdded is written as an ISO-8601 instant
+ */
+class CsvRecipeExportWriter implements RecipeExportWriter {
+    private static final String HEADER = "id,title,description,ingredients,directions,tags,timeRequired,timeAdded,creatorId,creatorUsername,imageUrl";
+    private static final String LIST_SEPARATOR = "|";
+
+    private final Writer writer;
+
+    CsvRecipeExportWriter(OutputStream out) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(HEADER);
+        writer.write("\r\n");
+    }
+
+    @Override
+    public void write(RecipeExportDto recipe) throws IOException {
+        writeField(recipe.id(), false);
+        writeField(recipe.title(), false);
+        writeField(recipe.description(), false);
+        writeField(join(recipe.ingredients()), false);
+        writeField(recipe.directions(), false);
+        writeField(join(recipe.tags()), false);
+        writeField(recipe.timeRequired(), false);
+        writeField(Objects.isNull(recipe.timeAdded()) ? null : recipe.timeAdded().toInstant(), false);
+        writeField(recipe.creatorId(), false);
+        writeField(recipe.creatorUsername(), false);
+        writeField(recipe.imageUrl(), true);
+    }
+
+    // Only flushes, since the output stream belongs to the caller
+    @Override
+    public void close() throws IOException {
+        writer.flush();
+    }
+
+    private void writeField(Object value, boolean last) throws IOException {
+        if (Objects.nonNull(value)) writer.write(escape(value.toString()));
+        writer.write(last ? "\r\n" : ",");
+    }
+
+    static String escape(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) return value;
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static String join(List<String> values) {
+        return String.join(LIST_SEPARATOR, values);
+    }
+}
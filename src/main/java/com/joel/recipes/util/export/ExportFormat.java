@@ -0,0 +1,45 @@
+package com.joel.recipes.util.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.joel.recipes.exception.UnsupportedExportFormatException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+
+public enum ExportFormat {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    // Formats are named by their extension, in any case, by the export endpoint and the command line
+    public static ExportFormat of(String name) throws UnsupportedExportFormatException {
+        try {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new UnsupportedExportFormatException();
+        }
+    }
+
+    public String contentType() {
+        return contentType;
+    }
+
+    public String extension() {
+        return extension;
+    }
+
+    public RecipeExportWriter open(ObjectMapper objectMapper, OutputStream out) throws IOException {
+        return switch (this) {
+            case NDJSON -> new NdjsonRecipeExportWriter(objectMapper, out);
+            case CSV -> new CsvRecipeExportWriter(out);
+        };
+    }
+}
@@ -0,0 +1,31 @@
+package com.joel.recipes.util.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.joel.recipes.dto.RecipeExportDto;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+// One JSON object per line
+class NdjsonRecipeExportWriter implements RecipeExportWriter {
+    private final SequenceWriter writer;
+
+    NdjsonRecipeExportWriter(ObjectMapper objectMapper, OutputStream out) throws IOException {
+        this.writer = objectMapper.writer()
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("\n")
+                .writeValues(out);
+    }
+
+    @Override
+    public void write(RecipeExportDto recipe) throws IOException {
+        writer.write(recipe);
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
@@ -0,0 +1,11 @@
+package com.joel.recipes.util.export;
+
+import com.joel.recipes.dto.RecipeExportDto;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+// Writes exported recipes to an output stream one at a time; closing flushes but does not close the stream
+public interface RecipeExportWriter extends Closeable {
+    void write(RecipeExportDto recipe) throws IOException;
+}
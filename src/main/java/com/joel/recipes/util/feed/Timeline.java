@@ -0,0 +1,114 @@
+package com.joel.recipes.util.feed;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/*
+    A bounded, newest-last ring buffer of recipe ordinals and the times (in microseconds) they were added.
+    Entries are kept sorted by time, so the rare push that arrives out of order is shifted into place.
+    Once full, pushing evicts the oldest entry and raises the horizon: the timeline holds every pushed recipe
+    added after its horizon, while recipes added at or before it may be missing and have to be read elsewhere.
+    Arrays start small and grow up to the capacity, so timelines of users who follow few people stay small
+ */
+public class Timeline {
+    public static final long COMPLETE = Long.MIN_VALUE;
+    private static final int INITIAL_CAPACITY = 16;
+
+    public record Entry(int ordinal, long timeAdded) {
+    }
+
+    private final int capacity;
+    private int[] ordinals;
+    private long[] times;
+    private int head;
+    private int size;
+    private long horizon;
+
+    public Timeline(int capacity, long horizon) {
+        this.capacity = capacity;
+        this.ordinals = new int[Math.min(capacity, INITIAL_CAPACITY)];
+        this.times = new long[ordinals.length];
+        this.horizon = horizon;
+    }
+
+    public synchronized void push(int ordinal, long timeAdded) {
+        if (timeAdded <= horizon) return;
+
+        // Usually the new entry is the newest one, so the search for its position stops at once
+        int position = size;
+        while (position > 0 && timeAt(position - 1) > timeAdded) position--;
+        for (int i = position - 1; i >= 0 && timeAt(i) == timeAdded; i--) {
+            if (ordinalAt(i) == ordinal) return;
+        }
+
+        if (size == capacity) {
+            // A full timeline only drops its oldest entry, which here is the new one
+            if (position == 0) {
+                horizon = timeAdded;
+                return;
+            }
+            horizon = Math.max(horizon, times[head]);
+            head = (head + 1) % ordinals.length;
+            size--;
+            position--;
+            if (timeAdded <= horizon) return;
+        } else if (size == ordinals.length) {
+            grow();
+        }
+
+        for (int i = size; i > position; i--) {
+            set(i, ordinalAt(i - 1), timeAt(i - 1));
+        }
+        set(position, ordinal, timeAdded);
+        size++;
+    }
+
+    // Up to `limit` entries accepted by the filter, newest first, among those added after the horizon
+    public synchronized List<Entry> newest(int limit, Predicate<Entry> filter) {
+        List<Entry> entries = new ArrayList<>(Math.min(limit, size));
+        for (int i = size - 1; i >= 0 && entries.size() < limit; i--) {
+            Entry entry = new Entry(ordinalAt(i), timeAt(i));
+            if (filter.test(entry)) entries.add(entry);
+        }
+        return entries;
+    }
+
+    public synchronized long horizon() {
+        return horizon;
+    }
+
+    public synchronized boolean isComplete() {
+        return horizon == COMPLETE;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private int ordinalAt(int index) {
+        return ordinals[(head + index) % ordinals.length];
+    }
+
+    private long timeAt(int index) {
+        return times[(head + index) % times.length];
+    }
+
+    private void set(int index, int ordinal, long timeAdded) {
+        ordinals[(head + index) % ordinals.length] = ordinal;
+        times[(head + index) % times.length] = timeAdded;
+    }
+
+    private void grow() {
+        int newLength = Math.min(capacity, ordinals.length * 2);
+        int[] newOrdinals = new int[newLength];
+        long[] newTimes = new long[newLength];
+        for (int i = 0; i < size; i++) {
+            newOrdinals[i] = ordinalAt(i);
+            newTimes[i] = timeAt(i);
+        }
+        ordinals = newOrdinals;
+        times = newTimes;
+        head = 0;
+    }
+}
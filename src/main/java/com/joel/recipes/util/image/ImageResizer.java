@@ -0,0 +1,110 @@
+package com.joel.recipes.util.image;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.ConvolveOp;
+import java.awt.image.Kernel;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Optional;
+
+/*
+    Decoding, downscaling and encoding with the JDK's ImageIO and Java2D, so no native libraries are needed.
+    ImageIO reads JPEG, PNG and GIF; WebP has no reader in the JDK
+ */
+public final class ImageResizer {
+    private static final float JPEG_QUALITY = 0.82f;
+
+    private ImageResizer() {
+    }
+
+    /*
+        Empty if no reader understands the format. The dimensions are read from the header before anything is
+        decoded, so an image that would need more than maxPixels of memory is refused without allocating it
+     */
+    public static Optional<BufferedImage> read(InputStream in, long maxPixels) throws IOException {
+        try (ImageInputStream imageIn = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(imageIn);
+            if (!readers.hasNext()) return Optional.empty();
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageIn, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxPixels) throw new IOException("Image has " + pixels + " pixels, more than the limit of " + maxPixels);
+                return Optional.of(reader.read(0));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /*
+        Halves the image until it is less than twice the target width and then scales the rest of the way.
+        A single bilinear step skips most of the pixels of a large reduction, which looks jagged
+     */
+    public static BufferedImage resize(BufferedImage source, int width) {
+        BufferedImage current = source;
+        while (current.getWidth() / 2 >= width) {
+            current = scale(current, current.getWidth() / 2, Math.max(current.getHeight() / 2, 1));
+        }
+        if (current.getWidth() == width) return current;
+        return scale(current, width, heightFor(source, width));
+    }
+
+    // A few pixels wide and blurred, so it encodes to a few hundred bytes and only gives the colours and shapes
+    public static BufferedImage placeholder(BufferedImage source, int width) {
+        BufferedImage small = resize(source, width);
+        float[] kernel = new float[9];
+        Arrays.fill(kernel, 1 / 9f);
+        BufferedImage blurred = new BufferedImage(small.getWidth(), small.getHeight(), small.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        return new ConvolveOp(new Kernel(3, 3, kernel), ConvolveOp.EDGE_NO_OP, null).filter(small, blurred);
+    }
+
+    public static int heightFor(BufferedImage source, int width) {
+        return Math.max((int) Math.round((double) source.getHeight() * width / source.getWidth()), 1);
+    }
+
+    // Images with transparency are written as PNG, since JPEG has no alpha channel; anything else as JPEG
+    public static ImageType outputTypeOf(BufferedImage image) {
+        return image.getColorModel().hasAlpha() ? ImageType.PNG : ImageType.JPEG;
+    }
+
+    public static void write(BufferedImage image, ImageType type, OutputStream out) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(type == ImageType.JPEG ? "jpeg" : "png").next();
+        try (ImageOutputStream imageOut = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(imageOut);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (type == ImageType.JPEG) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(JPEG_QUALITY);
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private static BufferedImage scale(BufferedImage source, int width, int height) {
+        int type = source.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage scaled = new BufferedImage(width, height, type);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+}
@@ -0,0 +1,62 @@
+package com.joel.recipes.util.image;
+
+import java.util.Optional;
+
+/*
+    The image formats accepted for upload, recognised from their first bytes rather than from what the client
+    claims, since the Content-Type header and file name are both under the client's control
+ */
+public enum ImageType {
+    JPEG("image/jpeg", "jpg"),
+    PNG("image/png", "png"),
+    GIF("image/gif", "gif"),
+    WEBP("image/webp", "webp");
+
+    // Enough of the header to tell all the formats apart
+    public static final int MAGIC_BYTES = 12;
+
+    private final String contentType;
+    private final String extension;
+
+    ImageType(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String contentType() {
+        return contentType;
+    }
+
+    public String extension() {
+        return extension;
+    }
+
+    public static Optional<ImageType> forExtension(String extension) {
+        for (ImageType type : values()) {
+            if (type.extension.equalsIgnoreCase(extension)) return Optional.of(type);
+        }
+        return Optional.empty();
+    }
+
+    public static Optional<ImageType> detect(byte[] header, int length) {
+        if (startsWith(header, length, 0xff, 0xd8, 0xff)) return Optional.of(JPEG);
+        if (startsWith(header, length, 0x89, 'P', 'N', 'G', 0x0d, 0x0a, 0x1a, 0x0a)) return Optional.of(PNG);
+        if (startsWith(header, length, 'G', 'I', 'F', '8') && length >= 6 && (header[4] == '7' || header[4] == '9') && header[5] == 'a') {
+            return Optional.of(GIF);
+        }
+        // RIFF, then a four byte length, then WEBP
+        if (startsWith(header, length, 'R', 'I', 'F', 'F') && length >= MAGIC_BYTES
+                && header[8] == 'W' && header[9] == 'E' && header[10] == 'B' && header[11] == 'P') {
+            return Optional.of(WEBP);
+        }
+        return Optional.empty();
+    }
+
+    private static boolean startsWith(byte[] header, int length, int... magic) {
+        if (length < magic.length) return false;
+        for (int i = 0; i < magic.length; i++) {
+            if ((header[i] & 0xff) != magic[i]) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,155 @@
+package com.joel.recipes.util.importer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.joel.recipes.exception.InvalidImportedRecipeException;
+import com.joel.recipes.model.Recipe;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+/*
+    Maps an imported JSON object to a Recipe. Both our own field names (title, ingredients, directions, tags,
+    timeRequired, timeAdded) and schema.org Recipe properties (name, recipeIngredient, recipeInstructions,
+    keywords, recipeCategory, recipeCuisine, totalTime, datePublished) are understood
+ */
+public final class RecipeJsonMapper {
+    private static final int MAX_TEXT_LENGTH = 255;
+    private static final int MAX_INGREDIENTS = 200;
+    private static final int MAX_TAGS = 50;
+
+    private RecipeJsonMapper() {
+    }
+
+    // JSON-LD nodes of other types, such as the WebPage or Person a recipe page's graph also holds, are not recipes
+    public static boolean isRecipe(JsonNode node) {
+        JsonNode type = node.get("@type");
+        if (Objects.isNull(type)) return true;
+        if (type.isArray()) {
+            for (JsonNode value : type) {
+                if ("Recipe".equals(value.asText())) return true;
+            }
+            return false;
+        }
+        return "Recipe".equals(type.asText());
+    }
+
+    public static Recipe toRecipe(JsonNode node) throws InvalidImportedRecipeException {
+        String title = text(node, "title", "name");
+        if (Objects.isNull(title)) throw new InvalidImportedRecipeException("Title is required");
+        if (title.length() > MAX_TEXT_LENGTH) throw new InvalidImportedRecipeException("Title cannot be longer than " + MAX_TEXT_LENGTH + " characters");
+
+        Set<String> ingredients = values(node, "ingredients", "recipeIngredient");
+        if (ingredients.isEmpty()) throw new InvalidImportedRecipeException("At least one ingredient is required");
+        if (ingredients.size() > MAX_INGREDIENTS) throw new InvalidImportedRecipeException("No more than " + MAX_INGREDIENTS + " ingredients are allowed");
+
+        Set<String> tags = values(node, "tags", "keywords", "recipeCategory", "recipeCuisine");
+        if (tags.size() > MAX_TAGS) throw new InvalidImportedRecipeException("No more than " + MAX_TAGS + " tags are allowed");
+        for (String value : concat(ingredients, tags)) {
+            if (value.length() > MAX_TEXT_LENGTH) throw new InvalidImportedRecipeException("Ingredients and tags cannot be longer than " + MAX_TEXT_LENGTH + " characters");
+        }
+
+        String timeRequired = text(node, "timeRequired", "totalTime");
+        if (Objects.nonNull(timeRequired) && timeRequired.length() > MAX_TEXT_LENGTH) {
+            throw new InvalidImportedRecipeException("Time required cannot be longer than " + MAX_TEXT_LENGTH + " characters");
+        }
+
+        return Recipe.builder()
+                .title(title)
+                .description(text(node, "description"))
+                .ingredients(ingredients)
+                .directions(directions(node))
+                .tags(tags)
+                .timeRequired(timeRequired)
+                .timeAdded(timestamp(text(node, "timeAdded", "datePublished")))
+                .build();
+    }
+
+    // The first of the fields that holds non-blank text
+    private static String text(JsonNode node, String... fields) {
+        for (String field : fields) {
+            JsonNode value = node.get(field);
+            if (Objects.nonNull(value) && value.isValueNode() && !value.asText().isBlank()) return value.asText().trim();
+        }
+        return null;
+    }
+
+    // Strings from every one of the fields, which may each be a string, a comma-separated string or an array
+    private static Set<String> values(JsonNode node, String... fields) {
+        Set<String> values = new LinkedHashSet<>();
+        for (String field : fields) {
+            JsonNode value = node.get(field);
+            if (Objects.isNull(value)) continue;
+            if (value.isArray()) {
+                value.forEach(item -> add(values, item.asText()));
+            } else if (value.isValueNode()) {
+                boolean commaSeparated = field.equals("keywords") || field.equals("tags");
+                for (String item : commaSeparated ? value.asText().split(",") : new String[]{value.asText()}) {
+                    add(values, item);
+                }
+            }
+        }
+        return values;
+    }
+
+    private static void add(Set<String> values, String value) {
+        if (!value.isBlank()) values.add(value.trim());
+    }
+
+    // recipeInstructions can be text, a list of strings, HowToSteps, or HowToSections of HowToSteps
+    private static String directions(JsonNode node) {
+        String directions = text(node, "directions");
+        if (Objects.nonNull(directions)) return directions;
+        JsonNode instructions = node.get("recipeInstructions");
+        if (Objects.isNull(instructions)) return null;
+
+        List<String> steps = new ArrayList<>();
+        collectSteps(instructions, steps);
+        return steps.isEmpty() ? null : String.join("\n", steps);
+    }
+
+    private static void collectSteps(JsonNode instructions, List<String> steps) {
+        if (instructions.isArray()) {
+            instructions.forEach(instruction -> collectSteps(instruction, steps));
+        } else if (instructions.has("itemListElement")) {
+            collectSteps(instructions.get("itemListElement"), steps);
+        } else if (instructions.has("text")) {
+            add(steps, instructions.get("text").asText());
+        } else if (instructions.isValueNode()) {
+            add(steps, instructions.asText());
+        }
+    }
+
+    private static void add(List<String> steps, String step) {
+        if (!step.isBlank()) steps.add(step.trim());
+    }
+
+    private static List<String> concat(Set<String> first, Set<String> second) {
+        List<String> values = new ArrayList<>(first);
+        values.addAll(second);
+        return values;
+    }
+
+    // ISO instants, offset date-times or dates; anything else (or nothing) means now
+    private static Timestamp timestamp(String value) {
+        if (Objects.nonNull(value)) {
+            try {
+                return Timestamp.from(OffsetDateTime.parse(value).toInstant());
+            } catch (DateTimeParseException ignored) {
+            }
+            try {
+                return Timestamp.from(Instant.parse(value));
+            } catch (DateTimeParseException ignored) {
+            }
+            try {
+                return Timestamp.from(LocalDate.parse(value).atStartOfDay().toInstant(ZoneOffset.UTC));
+            } catch (DateTimeParseException ignored) {
+            }
+        }
+        return new Timestamp(System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,82 @@
+package com.joel.recipes.util.importer;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Objects;
+
+/*
+    Reads recipe objects one at a time from a stream holding any of:
+    - NDJSON (or any sequence of top-level JSON objects), one recipe per object
+    - a JSON array of recipes
+    - JSON-LD whose top-level object (or objects) holds the recipes in an "@graph" array
+    Only the recipe being read is ever held in memory; arrays and "@graph" are walked token by token
+ */
+public class RecipeJsonReader implements Closeable {
+    private static final String GRAPH = "@graph";
+
+    private final JsonParser parser;
+    private long recordNumber;
+
+    public RecipeJsonReader(ObjectMapper objectMapper, InputStream in) throws IOException {
+        this.parser = objectMapper.getFactory().createParser(in);
+    }
+
+    // The next recipe object, or null at the end of the stream
+    public JsonNode next() throws IOException {
+        while (true) {
+            JsonToken token = parser.nextToken();
+            if (Objects.isNull(token)) return null;
+
+            switch (token) {
+                case START_OBJECT -> {
+                    JsonNode recipe = readObject();
+                    if (Objects.nonNull(recipe)) {
+                        recordNumber++;
+                        return recipe;
+                    }
+                }
+                case START_ARRAY, END_ARRAY, END_OBJECT -> {
+                    // Entering or leaving the top-level array, an "@graph" array or the object holding it
+                }
+                case FIELD_NAME -> {
+                    // A field after "@graph" in its container, such as "@context"
+                    parser.nextToken();
+                    parser.skipChildren();
+                }
+                default -> throw new IOException("Expected a recipe object but found " + token);
+            }
+        }
+    }
+
+    // 1-based number of the recipe last returned by next(), for error reports
+    public long recordNumber() {
+        return recordNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+
+    /*
+        Reads the object the parser is at. Fields are read into a tree, except for "@graph": when it is found,
+        the object is treated as a container, the parser is left at the start of the array, and null is returned
+     */
+    private JsonNode readObject() throws IOException {
+        ObjectNode object = (ObjectNode) parser.getCodec().createObjectNode();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (GRAPH.equals(field) && value == JsonToken.START_ARRAY) return null;
+            object.set(field, parser.readValueAsTree());
+        }
+        return object;
+    }
+}
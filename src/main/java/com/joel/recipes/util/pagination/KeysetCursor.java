@@ -0,0 +1,42 @@
+package com.joel.recipes.util.pagination;
+
+import com.joel.recipes.exception.InvalidCursorException;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.sql.Timestamp;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.UUID;
+
+/*
+    Position of the last row of a page in a (timeAdded, id) keyset listing order.
+    Clients only ever see it as an opaque URL-safe token
+ */
+public record KeysetCursor(Timestamp timeAdded, UUID id) {
+    private static final int VERSION = 1;
+    private static final int ENCODED_LENGTH = 1 + Long.BYTES + Integer.BYTES + 2 * Long.BYTES;
+
+    public String encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(ENCODED_LENGTH)
+                .put((byte) VERSION)
+                .putLong(timeAdded.getTime())
+                .putInt(timeAdded.getNanos())
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    public static KeysetCursor decode(String token) throws InvalidCursorException {
+        if (Objects.isNull(token)) throw new InvalidCursorException();
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Base64.getUrlDecoder().decode(token));
+            if (buffer.remaining() != ENCODED_LENGTH || buffer.get() != VERSION) throw new InvalidCursorException();
+            Timestamp timeAdded = new Timestamp(buffer.getLong());
+            timeAdded.setNanos(buffer.getInt());
+            return new KeysetCursor(timeAdded, new UUID(buffer.getLong(), buffer.getLong()));
+        } catch (IllegalArgumentException | BufferUnderflowException e) {
+            throw new InvalidCursorException();
+        }
+    }
+}
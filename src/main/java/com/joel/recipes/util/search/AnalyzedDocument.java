@@ -0,0 +1,10 @@
+package com.joel.recipes.util.search;
+
+import java.util.UUID;
+
+/*
+    A recipe reduced to its distinct terms and their field-weighted frequencies.
+    terms[i] occurs with weight frequencies[i]
+ */
+public record AnalyzedDocument(UUID id, String title, String[] terms, float[] frequencies) {
+}
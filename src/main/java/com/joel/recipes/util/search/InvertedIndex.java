@@ -0,0 +1,329 @@
+package com.joel.recipes.util.search;
+
+import com.joel.recipes.util.bitmap.RoaringBitmap;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+
+/*
+    BM25-ranked inverted index keyed by int document ordinals.
+    Postings live in PostingList primitive arrays; a small forward index (term ids per document)
+    is kept alongside so that updates and removals only touch the postings of the terms the document contained.
+    Reads share a read lock and writes take the write lock, so searches never see a half-indexed document
+ */
+public class InvertedIndex {
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final int SNAPSHOT_MAGIC = 0x52494458;
+    private static final int SNAPSHOT_VERSION = 1;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Term dictionary
+    private final Map<String, Integer> termIds = new HashMap<>();
+    private final List<String> terms = new ArrayList<>();
+    private final List<PostingList> postings = new ArrayList<>();
+
+    // Forward index, indexed by document ordinal
+    private UUID[] documentIds = new UUID[0];
+    private String[] titles = new String[0];
+    private int[][] documentTerms = new int[0][];
+    private float[][] documentFrequencies = new float[0][];
+    private float[] documentLengths = new float[0];
+
+    private int documentCount;
+    private double totalDocumentLength;
+
+    public void put(int ordinal, AnalyzedDocument document) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(ordinal);
+            ensureCapacity(ordinal + 1);
+
+            int[] ids = new int[document.terms().length];
+            float length = 0;
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = termId(document.terms()[i]);
+                postings.get(ids[i]).put(ordinal, document.frequencies()[i]);
+                length += document.frequencies()[i];
+            }
+
+            documentIds[ordinal] = document.id();
+            titles[ordinal] = document.title();
+            documentTerms[ordinal] = ids;
+            documentFrequencies[ordinal] = document.frequencies().clone();
+            documentLengths[ordinal] = length;
+            documentCount++;
+            totalDocumentLength += length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean remove(int ordinal) {
+        lock.writeLock().lock();
+        try {
+            return removeInternal(ordinal);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            termIds.clear();
+            terms.clear();
+            postings.clear();
+            documentIds = new UUID[0];
+            titles = new String[0];
+            documentTerms = new int[0][];
+            documentFrequencies = new float[0][];
+            documentLengths = new float[0];
+            documentCount = 0;
+            totalDocumentLength = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int documentCount() {
+        lock.readLock().lock();
+        try {
+            return documentCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Whether any document contains the term
+    public boolean contains(String term) {
+        lock.readLock().lock();
+        try {
+            Integer termId = termIds.get(term);
+            return Objects.nonNull(termId) && postings.get(termId).size() > 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public String title(int ordinal) {
+        lock.readLock().lock();
+        try {
+            return ordinal < titles.length ? titles[ordinal] : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void forEachTitle(BiConsumer<UUID, String> consumer) {
+        lock.readLock().lock();
+        try {
+            for (int ordinal = 0; ordinal < documentIds.length; ordinal++) {
+                if (Objects.nonNull(documentIds[ordinal])) consumer.accept(documentIds[ordinal], titles[ordinal]);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Every document containing at least one of the terms, unscored
+    public RoaringBitmap matchAny(Collection<String> queryTerms) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap result = new RoaringBitmap();
+            for (String term : new LinkedHashSet<>(queryTerms)) {
+                Integer termId = termIds.get(term);
+                if (Objects.isNull(termId)) continue;
+                PostingList list = postings.get(termId);
+                for (int i = 0; i < list.size(); i++) {
+                    result.add(list.documentAt(i));
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /*
+        Scores every document containing at least one of the terms with BM25 and returns the best `limit` of them.
+        The postings are walked document-at-a-time, so no per-query accumulator proportional to the corpus is allocated
+     */
+    public List<ScoredDocument> search(Collection<String> queryTerms, int limit) {
+        if (limit <= 0 || queryTerms.isEmpty()) return List.of();
+
+        lock.readLock().lock();
+        try {
+            if (documentCount == 0) return List.of();
+
+            List<PostingList> lists = new ArrayList<>();
+            List<Float> idfs = new ArrayList<>();
+            for (String term : new LinkedHashSet<>(queryTerms)) {
+                Integer termId = termIds.get(term);
+                if (Objects.isNull(termId) || postings.get(termId).size() == 0) continue;
+                PostingList list = postings.get(termId);
+                lists.add(list);
+                idfs.add(idf(list.size()));
+            }
+            if (lists.isEmpty()) return List.of();
+
+            float averageLength = (float) (totalDocumentLength / documentCount);
+            int[] cursors = new int[lists.size()];
+            PriorityQueue<ScoredDocument> topDocuments = new PriorityQueue<>(limit + 1, Comparator.comparingDouble(ScoredDocument::score));
+
+            while (true) {
+                int document = Integer.MAX_VALUE;
+                for (int i = 0; i < lists.size(); i++) {
+                    if (cursors[i] < lists.get(i).size()) {
+                        document = Math.min(document, lists.get(i).documentAt(cursors[i]));
+                    }
+                }
+                if (document == Integer.MAX_VALUE) break;
+
+                float lengthNorm = K1 * (1 - B + B * documentLengths[document] / averageLength);
+                float score = 0;
+                for (int i = 0; i < lists.size(); i++) {
+                    PostingList list = lists.get(i);
+                    if (cursors[i] < list.size() && list.documentAt(cursors[i]) == document) {
+                        float frequency = list.frequencyAt(cursors[i]);
+                        score += idfs.get(i) * frequency * (K1 + 1) / (frequency + lengthNorm);
+                        cursors[i]++;
+                    }
+                }
+
+                if (topDocuments.size() < limit) {
+                    topDocuments.add(new ScoredDocument(document, documentIds[document], titles[document], score));
+                } else if (score > topDocuments.peek().score()) {
+                    topDocuments.poll();
+                    topDocuments.add(new ScoredDocument(document, documentIds[document], titles[document], score));
+                }
+            }
+
+            List<ScoredDocument> results = new ArrayList<>(topDocuments);
+            results.sort(Comparator.comparingDouble(ScoredDocument::score).reversed().thenComparingInt(ScoredDocument::ordinal));
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /*
+        Writes the term dictionary and forward index. Postings are not written since they can be
+        rebuilt from the forward index without tokenizing anything or touching the database
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+        lock.readLock().lock();
+        try {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeInt(terms.size());
+            for (String term : terms) {
+                writeString(out, term);
+            }
+            out.writeInt(documentCount);
+            for (int ordinal = 0; ordinal < documentIds.length; ordinal++) {
+                if (Objects.isNull(documentIds[ordinal])) continue;
+                out.writeLong(documentIds[ordinal].getMostSignificantBits());
+                out.writeLong(documentIds[ordinal].getLeastSignificantBits());
+                writeString(out, titles[ordinal]);
+                int[] ids = documentTerms[ordinal];
+                out.writeInt(ids.length);
+                for (int i = 0; i < ids.length; i++) {
+                    out.writeInt(ids[i]);
+                    out.writeFloat(documentFrequencies[ordinal][i]);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public static List<AnalyzedDocument> readFrom(DataInputStream in) throws IOException {
+        if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+            throw new IOException("Unrecognized search index snapshot");
+        }
+        String[] dictionary = new String[in.readInt()];
+        for (int i = 0; i < dictionary.length; i++) {
+            dictionary[i] = readString(in);
+        }
+
+        int count = in.readInt();
+        List<AnalyzedDocument> documents = new ArrayList<>(count);
+        for (int d = 0; d < count; d++) {
+            UUID id = new UUID(in.readLong(), in.readLong());
+            String title = readString(in);
+            int termCount = in.readInt();
+            String[] documentTerms = new String[termCount];
+            float[] frequencies = new float[termCount];
+            for (int i = 0; i < termCount; i++) {
+                documentTerms[i] = dictionary[in.readInt()];
+                frequencies[i] = in.readFloat();
+            }
+            documents.add(new AnalyzedDocument(id, title, documentTerms, frequencies));
+        }
+        return documents;
+    }
+
+    private boolean removeInternal(int ordinal) {
+        if (ordinal >= documentIds.length || Objects.isNull(documentIds[ordinal])) return false;
+
+        for (int termId : documentTerms[ordinal]) {
+            postings.get(termId).remove(ordinal);
+        }
+        totalDocumentLength -= documentLengths[ordinal];
+        documentCount--;
+        documentIds[ordinal] = null;
+        titles[ordinal] = null;
+        documentTerms[ordinal] = null;
+        documentFrequencies[ordinal] = null;
+        documentLengths[ordinal] = 0;
+        return true;
+    }
+
+    private int termId(String term) {
+        Integer id = termIds.get(term);
+        if (Objects.nonNull(id)) return id;
+        id = terms.size();
+        termIds.put(term, id);
+        terms.add(term);
+        postings.add(new PostingList());
+        return id;
+    }
+
+    private float idf(int documentFrequency) {
+        return (float) Math.log(1 + (documentCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= documentIds.length) return;
+        int newCapacity = Math.max(capacity, documentIds.length + (documentIds.length >> 1) + 16);
+        documentIds = Arrays.copyOf(documentIds, newCapacity);
+        titles = Arrays.copyOf(titles, newCapacity);
+        documentTerms = Arrays.copyOf(documentTerms, newCapacity);
+        documentFrequencies = Arrays.copyOf(documentFrequencies, newCapacity);
+        documentLengths = Arrays.copyOf(documentLengths, newCapacity);
+    }
+
+    // DataOutputStream.writeUTF is limited to 64KB, so strings are written as length-prefixed UTF-8
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (Objects.isNull(value)) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) return null;
+        return new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+}
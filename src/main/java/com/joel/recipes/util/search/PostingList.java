@@ -0,0 +1,69 @@
+package com.joel.recipes.util.search;
+
+import java.util.Arrays;
+
+/*
+    Postings for a single term, kept as two parallel primitive arrays sorted by document ordinal.
+    Appending a new document (the common case) is amortized O(1); out-of-order inserts and
+    removals shift the tail of the arrays with a single System.arraycopy
+ */
+public class PostingList {
+    private static final int INITIAL_CAPACITY = 4;
+
+    private int[] documents = new int[INITIAL_CAPACITY];
+    private float[] frequencies = new float[INITIAL_CAPACITY];
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    public int documentAt(int index) {
+        return documents[index];
+    }
+
+    public float frequencyAt(int index) {
+        return frequencies[index];
+    }
+
+    public void put(int document, float frequency) {
+        if (size == 0 || documents[size - 1] < document) {
+            ensureCapacity(size + 1);
+            documents[size] = document;
+            frequencies[size] = frequency;
+            size++;
+            return;
+        }
+
+        int index = Arrays.binarySearch(documents, 0, size, document);
+        if (index >= 0) {
+            frequencies[index] = frequency;
+            return;
+        }
+
+        int insertionPoint = -index - 1;
+        ensureCapacity(size + 1);
+        System.arraycopy(documents, insertionPoint, documents, insertionPoint + 1, size - insertionPoint);
+        System.arraycopy(frequencies, insertionPoint, frequencies, insertionPoint + 1, size - insertionPoint);
+        documents[insertionPoint] = document;
+        frequencies[insertionPoint] = frequency;
+        size++;
+    }
+
+    public boolean remove(int document) {
+        int index = Arrays.binarySearch(documents, 0, size, document);
+        if (index < 0) return false;
+
+        System.arraycopy(documents, index + 1, documents, index, size - index - 1);
+        System.arraycopy(frequencies, index + 1, frequencies, index, size - index - 1);
+        size--;
+        return true;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= documents.length) return;
+        int newCapacity = Math.max(capacity, documents.length + (documents.length >> 1));
+        documents = Arrays.copyOf(documents, newCapacity);
+        frequencies = Arrays.copyOf(frequencies, newCapacity);
+    }
+}
@@ -0,0 +1,143 @@
+package com.joel.recipes.util.search;
+
+import java.util.*;
+
+/*
+    Immutable prefix-completion index.
+    Every completion key is kept in one sorted array, so the keys starting with a prefix form a contiguous range
+    found with two binary searches. Short prefixes match huge ranges, so for every trie node whose range is larger
+    than SCAN_THRESHOLD the top-K completions are precomputed; any other prefix covers at most SCAN_THRESHOLD keys
+    and is answered by scanning them. Lookups are therefore bounded no matter how large the vocabulary is,
+    while only the few "heavy" nodes of the trie are ever materialized.
+    Instances are never modified after build(), so they can be read concurrently and swapped atomically
+ */
+public class PrefixIndex {
+    private static final int SCAN_THRESHOLD = 256;
+    // Multi-word text such as titles can also be completed from the start of each of its first few words,
+    // so "pas" finds "Garlic Pasta"
+    private static final int MAX_WORD_STARTS = 6;
+
+    // recipeId is only set for completions that point at a single recipe, such as titles
+    public record Suggestion(String text, UUID recipeId, int weight) {
+    }
+
+    private final String[] keys;
+    private final int[] keySuggestions;
+    private final Suggestion[] suggestions;
+    private final Map<String, int[]> heavyPrefixes;
+    private final int topK;
+
+    private PrefixIndex(String[] keys, int[] keySuggestions, Suggestion[] suggestions, Map<String, int[]> heavyPrefixes, int topK) {
+        this.keys = keys;
+        this.keySuggestions = keySuggestions;
+        this.suggestions = suggestions;
+        this.heavyPrefixes = heavyPrefixes;
+        this.topK = topK;
+    }
+
+    public static PrefixIndex empty() {
+        return new PrefixIndex(new String[0], new int[0], new Suggestion[0], Map.of(), 0);
+    }
+
+    public static PrefixIndex build(List<Suggestion> suggestions, boolean completeFromEachWord, int topK) {
+        record Key(String key, int suggestion) {
+        }
+
+        List<Key> entries = new ArrayList<>();
+        for (int i = 0; i < suggestions.size(); i++) {
+            String key = normalize(suggestions.get(i).text());
+            if (key.isEmpty()) continue;
+            entries.add(new Key(key, i));
+            if (completeFromEachWord) {
+                int wordStarts = 1;
+                for (int c = key.indexOf(' '); c >= 0 && wordStarts < MAX_WORD_STARTS; c = key.indexOf(' ', c + 1)) {
+                    entries.add(new Key(key.substring(c + 1), i));
+                    wordStarts++;
+                }
+            }
+        }
+        entries.sort(Comparator.comparing(Key::key));
+
+        String[] keys = new String[entries.size()];
+        int[] keySuggestions = new int[entries.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = entries.get(i).key();
+            keySuggestions[i] = entries.get(i).suggestion();
+        }
+
+        PrefixIndex index = new PrefixIndex(keys, keySuggestions, suggestions.toArray(new Suggestion[0]), new HashMap<>(), topK);
+        index.cacheHeavyPrefixes(0, keys.length, 0);
+        return index;
+    }
+
+    public List<Suggestion> complete(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty() || limit <= 0) return List.of();
+
+        int[] cached = heavyPrefixes.get(key);
+        if (Objects.nonNull(cached)) {
+            return Arrays.stream(cached).limit(limit).mapToObj(i -> suggestions[i]).toList();
+        }
+
+        int from = lowerBound(key);
+        int to = lowerBound(key + Character.MAX_VALUE);
+        return Arrays.stream(best(from, to, Math.min(limit, Math.max(topK, 1)))).mapToObj(i -> suggestions[i]).toList();
+    }
+
+    public int size() {
+        return suggestions.length;
+    }
+
+    // Lower-cased, accent-folded, single-spaced; trailing space is kept since "pasta " should not match "pastas"
+    static String normalize(String text) {
+        String folded = Tokenizer.fold(text).replaceAll("\\s+", " ");
+        return folded.stripLeading();
+    }
+
+    /*
+        keys[from, to) all share the first `depth` characters. If there are more than SCAN_THRESHOLD of them,
+        their top-K is cached under that prefix and each child range (grouped by the next character) is visited
+     */
+    private void cacheHeavyPrefixes(int from, int to, int depth) {
+        if (to - from <= SCAN_THRESHOLD) return;
+        if (depth > 0) {
+            heavyPrefixes.put(keys[from].substring(0, depth), best(from, to, topK));
+        }
+
+        int start = from;
+        // Keys that end exactly at this depth sort first and have no children
+        while (start < to && keys[start].length() == depth) start++;
+        while (start < to) {
+            char c = keys[start].charAt(depth);
+            int end = start + 1;
+            while (end < to && keys[end].charAt(depth) == c) end++;
+            cacheHeavyPrefixes(start, end, depth + 1);
+            start = end;
+        }
+    }
+
+    // Distinct suggestions with the highest weights among keys[from, to), best first
+    private int[] best(int from, int to, int limit) {
+        Comparator<Integer> ranking = Comparator.<Integer>comparingInt(i -> suggestions[i].weight()).reversed()
+                .thenComparing(i -> suggestions[i].text(), String.CASE_INSENSITIVE_ORDER);
+        PriorityQueue<Integer> top = new PriorityQueue<>(limit + 1, ranking.reversed());
+        Set<Integer> inTop = new HashSet<>();
+        for (int k = from; k < to; k++) {
+            int suggestion = keySuggestions[k];
+            if (!inTop.add(suggestion)) continue;
+            top.add(suggestion);
+            if (top.size() > limit) inTop.remove(top.poll());
+        }
+        return top.stream().sorted(ranking).mapToInt(Integer::intValue).toArray();
+    }
+
+    private int lowerBound(String key) {
+        int low = 0, high = keys.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle].compareTo(key) < 0) low = middle + 1;
+            else high = middle;
+        }
+        return low;
+    }
+}
@@ -0,0 +1,91 @@
+package com.joel.recipes.util.search;
+
+import com.joel.recipes.model.RecipeDocument;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/*
+    An in-memory index of recipes that follows recipe writes and can be rebuilt without stopping readers.
+    While a rebuild is running, writes go to the live index and are also recorded, then replayed onto the new index
+    before it is swapped in. Recording stops however the rebuild ends, so a failed rebuild cannot leave every later
+    write recorded. Used by the search and similar recipe indexes
+ */
+public class RebuildableIndex<I> {
+    public interface Writer<I> {
+        void put(I index, int ordinal, RecipeDocument document);
+
+        void remove(I index, int ordinal);
+    }
+
+    private final RecipeOrdinalRegistry ordinalRegistry;
+    private final Writer<I> writer;
+    private final Object swapLock = new Object();
+    private volatile I current;
+    // Non-null while a rebuild is running
+    private Map<UUID, Optional<RecipeDocument>> changesDuringRebuild;
+
+    public RebuildableIndex(I initial, RecipeOrdinalRegistry ordinalRegistry, Writer<I> writer) {
+        this.current = initial;
+        this.ordinalRegistry = ordinalRegistry;
+        this.writer = writer;
+    }
+
+    public I current() {
+        return current;
+    }
+
+    public void put(RecipeDocument document) {
+        this.put(document, index -> writer.put(index, ordinalRegistry.ordinalOf(document.id()), document));
+    }
+
+    // For writes that do their expensive part before taking the lock; write puts the document into the index given
+    public void put(RecipeDocument document, Consumer<I> write) {
+        synchronized (swapLock) {
+            write.accept(current);
+            if (Objects.nonNull(changesDuringRebuild)) changesDuringRebuild.put(document.id(), Optional.of(document));
+        }
+    }
+
+    public void remove(UUID recipeId) {
+        int ordinal = ordinalRegistry.findOrdinal(recipeId);
+        synchronized (swapLock) {
+            if (ordinal >= 0) writer.remove(current, ordinal);
+            if (Objects.nonNull(changesDuringRebuild)) changesDuringRebuild.put(recipeId, Optional.empty());
+        }
+    }
+
+    /*
+        Swaps in the index returned by build, with the writes made while it ran. build runs without the lock and
+        returns null to keep the current index. Returns whether the index was swapped
+     */
+    public boolean rebuild(Supplier<I> build) {
+        synchronized (swapLock) {
+            changesDuringRebuild = new ConcurrentHashMap<>();
+        }
+        try {
+            I rebuilt = build.get();
+            if (Objects.isNull(rebuilt)) return false;
+            synchronized (swapLock) {
+                changesDuringRebuild.forEach((id, document) -> {
+                    if (document.isPresent()) {
+                        writer.put(rebuilt, ordinalRegistry.ordinalOf(id), document.get());
+                    } else if (ordinalRegistry.findOrdinal(id) >= 0) {
+                        writer.remove(rebuilt, ordinalRegistry.findOrdinal(id));
+                    }
+                });
+                current = rebuilt;
+            }
+            return true;
+        } finally {
+            synchronized (swapLock) {
+                changesDuringRebuild = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.joel.recipes.util.search;
+
+import com.joel.recipes.model.RecipeDocument;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/*
+    Turns a RecipeDocument into an AnalyzedDocument.
+    Each field is tokenized separately and its terms are weighted so that a match
+    in the title counts for more than a match somewhere in the directions
+ */
+public final class RecipeAnalyzer {
+    public static final float TITLE_WEIGHT = 3.0f;
+    public static final float INGREDIENT_WEIGHT = 2.0f;
+    public static final float TAG_WEIGHT = 2.0f;
+    public static final float DESCRIPTION_WEIGHT = 1.0f;
+    public static final float DIRECTIONS_WEIGHT = 0.5f;
+
+    private RecipeAnalyzer() {
+    }
+
+    public static AnalyzedDocument analyze(RecipeDocument document) {
+        Map<String, Float> frequencies = new LinkedHashMap<>();
+        addField(frequencies, document.title(), TITLE_WEIGHT);
+        addFields(frequencies, document.ingredients(), INGREDIENT_WEIGHT);
+        addFields(frequencies, document.tags(), TAG_WEIGHT);
+        addField(frequencies, document.description(), DESCRIPTION_WEIGHT);
+        addField(frequencies, document.directions(), DIRECTIONS_WEIGHT);
+
+        String[] terms = new String[frequencies.size()];
+        float[] weights = new float[frequencies.size()];
+        int i = 0;
+        for (Map.Entry<String, Float> entry : frequencies.entrySet()) {
+            terms[i] = entry.getKey();
+            weights[i] = entry.getValue();
+            i++;
+        }
+        return new AnalyzedDocument(document.id(), document.title(), terms, weights);
+    }
+
+    private static void addFields(Map<String, Float> frequencies, Collection<String> values, float weight) {
+        if (Objects.isNull(values)) return;
+        values.forEach(value -> addField(frequencies, value, weight));
+    }
+
+    private static void addField(Map<String, Float> frequencies, String value, float weight) {
+        for (String token : Tokenizer.tokenize(value)) {
+            frequencies.merge(token, weight, Float::sum);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.joel.recipes.util.search;
+
+import com.joel.recipes.model.RecipeDocument;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/*
+    The set of in-memory indexes kept for recipes. They are always built, updated, swapped and
+    snapshotted together so that a recipe is either visible to all of them or to none.
+    They also keep the latest timeUpdated of any recipe put into them, which a snapshot is checked against
+ */
+public class RecipeIndexes {
+    private static final int SNAPSHOT_MAGIC = 0x52495853;
+    private static final int SNAPSHOT_VERSION = 4;
+
+    private final InvertedIndex textIndex = new InvertedIndex();
+    private final TermBitmapIndex ingredientIndex = new TermBitmapIndex();
+    private final TermBitmapIndex tagIndex = new TermBitmapIndex();
+    // Epoch milliseconds, never lowered, so a removal only shows in documentCount
+    private volatile long latestChange;
+
+    public InvertedIndex textIndex() {
+        return textIndex;
+    }
+
+    public TermBitmapIndex ingredientIndex() {
+        return ingredientIndex;
+    }
+
+    public TermBitmapIndex tagIndex() {
+        return tagIndex;
+    }
+
+    public void put(int ordinal, RecipeDocument document) {
+        this.put(ordinal, document, RecipeAnalyzer.analyze(document));
+    }
+
+    // Lets callers run the analysis, which is the expensive part, on another thread
+    public void put(int ordinal, RecipeDocument document, AnalyzedDocument analyzedDocument) {
+        textIndex.put(ordinal, analyzedDocument);
+        ingredientIndex.put(ordinal, document.ingredients());
+        tagIndex.put(ordinal, document.tags());
+        if (Objects.nonNull(document.timeUpdated())) latestChange = Math.max(latestChange, document.timeUpdated().getTime());
+    }
+
+    public void remove(int ordinal) {
+        textIndex.remove(ordinal);
+        ingredientIndex.remove(ordinal);
+        tagIndex.remove(ordinal);
+    }
+
+    public int documentCount() {
+        return textIndex.documentCount();
+    }
+
+    public long latestChange() {
+        return latestChange;
+    }
+
+    public void writeTo(DataOutputStream out, RecipeOrdinalRegistry ordinalRegistry) throws IOException {
+        out.writeInt(SNAPSHOT_MAGIC);
+        out.writeInt(SNAPSHOT_VERSION);
+        out.writeLong(latestChange);
+        textIndex.writeTo(out);
+        ingredientIndex.writeTo(out, ordinalRegistry::idOf);
+        tagIndex.writeTo(out, ordinalRegistry::idOf);
+    }
+
+    public static RecipeIndexes readFrom(DataInputStream in, RecipeOrdinalRegistry ordinalRegistry) throws IOException {
+        if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+            throw new IOException("Unrecognized search index snapshot");
+        }
+        long latestChange = in.readLong();
+        List<AnalyzedDocument> documents = InvertedIndex.readFrom(in);
+        Map<UUID, List<String>> ingredients = TermBitmapIndex.readFrom(in);
+        Map<UUID, List<String>> tags = TermBitmapIndex.readFrom(in);
+
+        RecipeIndexes indexes = new RecipeIndexes();
+        indexes.latestChange = latestChange;
+        for (AnalyzedDocument document : documents) {
+            int ordinal = ordinalRegistry.ordinalOf(document.id());
+            indexes.textIndex.put(ordinal, document);
+            indexes.ingredientIndex.put(ordinal, ingredients.getOrDefault(document.id(), List.of()));
+            indexes.tagIndex.put(ordinal, tags.getOrDefault(document.id(), List.of()));
+        }
+        return indexes;
+    }
+}
@@ -0,0 +1,50 @@
+package com.joel.recipes.util.search;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+    Maps recipe UUIDs to dense int ordinals so that in-memory indexes can use primitive arrays
+    and bitmaps instead of hashing UUIDs. Ordinals are never reused within a process, which means
+    an index that has not yet processed a deletion can never confuse the deleted recipe with a new one
+ */
+@Component
+public class RecipeOrdinalRegistry {
+    private final ConcurrentHashMap<UUID, Integer> ordinals = new ConcurrentHashMap<>();
+    private volatile UUID[] ids = new UUID[1024];
+    private int nextOrdinal;
+
+    public int ordinalOf(UUID id) {
+        Integer ordinal = ordinals.get(id);
+        if (Objects.nonNull(ordinal)) return ordinal;
+        return ordinals.computeIfAbsent(id, this::assign);
+    }
+
+    // Returns -1 if the recipe has never been registered
+    public int findOrdinal(UUID id) {
+        return ordinals.getOrDefault(id, -1);
+    }
+
+    public UUID idOf(int ordinal) {
+        UUID[] current = ids;
+        return ordinal >= 0 && ordinal < current.length ? current[ordinal] : null;
+    }
+
+    // One past the highest ordinal handed out so far
+    public synchronized int size() {
+        return nextOrdinal;
+    }
+
+    private synchronized int assign(UUID id) {
+        int ordinal = nextOrdinal++;
+        if (ordinal >= ids.length) {
+            ids = Arrays.copyOf(ids, ids.length * 2);
+        }
+        ids[ordinal] = id;
+        return ordinal;
+    }
+}
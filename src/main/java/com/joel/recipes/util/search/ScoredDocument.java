@@ -0,0 +1,6 @@
+package com.joel.recipes.util.search;
+
+import java.util.UUID;
+
+public record ScoredDocument(int ordinal, UUID id, String title, float score) {
+}
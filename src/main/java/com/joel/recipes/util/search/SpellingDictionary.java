@@ -0,0 +1,136 @@
+package com.joel.recipes.util.search;
+
+import java.util.*;
+
+/*
+    Immutable SymSpell-style spelling dictionary.
+    Every term is stored under each string that can be made from it by deleting up to MAX_EDIT_DISTANCE characters,
+    so candidates for a misspelled word are found by generating the deletions of the word and looking them up,
+    instead of computing the edit distance to every term in the vocabulary. Only the first PREFIX_LENGTH characters
+    are used for the deletions, which bounds the size of the dictionary; candidates are then verified on the full word
+ */
+public class SpellingDictionary {
+    public static final int MAX_EDIT_DISTANCE = 2;
+    private static final int PREFIX_LENGTH = 7;
+
+    public record Correction(String term, int distance, int frequency) {
+    }
+
+    private final Map<String, Integer> frequencies;
+    private final String[] terms;
+    private final Map<String, int[]> deletions;
+
+    private SpellingDictionary(Map<String, Integer> frequencies, String[] terms, Map<String, int[]> deletions) {
+        this.frequencies = frequencies;
+        this.terms = terms;
+        this.deletions = deletions;
+    }
+
+    public static SpellingDictionary empty() {
+        return new SpellingDictionary(Map.of(), new String[0], Map.of());
+    }
+
+    // frequencies: every term of the vocabulary with how often it is used; more frequent terms are better corrections
+    public static SpellingDictionary build(Map<String, Integer> frequencies) {
+        String[] terms = frequencies.keySet().toArray(new String[0]);
+        Map<String, int[]> deletions = new HashMap<>(terms.length * 8);
+        for (int termId = 0; termId < terms.length; termId++) {
+            for (String deletion : deletionsOf(prefixOf(terms[termId]), MAX_EDIT_DISTANCE)) {
+                int[] termIds = deletions.get(deletion);
+                if (Objects.isNull(termIds)) {
+                    deletions.put(deletion, new int[]{termId});
+                } else {
+                    termIds = Arrays.copyOf(termIds, termIds.length + 1);
+                    termIds[termIds.length - 1] = termId;
+                    deletions.put(deletion, termIds);
+                }
+            }
+        }
+        return new SpellingDictionary(Map.copyOf(frequencies), terms, deletions);
+    }
+
+    public boolean contains(String term) {
+        return frequencies.containsKey(term);
+    }
+
+    public int size() {
+        return terms.length;
+    }
+
+    // Terms within `maxDistance` edits of the word, closest first, then most frequent
+    public List<Correction> lookup(String word, int maxDistance) {
+        int distanceLimit = Math.min(maxDistance, MAX_EDIT_DISTANCE);
+        if (distanceLimit < 0 || word.isEmpty()) return List.of();
+
+        Set<Integer> seen = new HashSet<>();
+        List<Correction> corrections = new ArrayList<>();
+        for (String deletion : deletionsOf(prefixOf(word), distanceLimit)) {
+            int[] termIds = deletions.get(deletion);
+            if (Objects.isNull(termIds)) continue;
+            for (int termId : termIds) {
+                String term = terms[termId];
+                if (Math.abs(term.length() - word.length()) > distanceLimit || !seen.add(termId)) continue;
+                int distance = distance(word, term, distanceLimit);
+                if (distance <= distanceLimit) corrections.add(new Correction(term, distance, frequencies.get(term)));
+            }
+        }
+        corrections.sort(Comparator.comparingInt(Correction::distance)
+                .thenComparing(Comparator.comparingInt(Correction::frequency).reversed())
+                .thenComparing(Correction::term));
+        return corrections;
+    }
+
+    private static String prefixOf(String word) {
+        return word.length() > PREFIX_LENGTH ? word.substring(0, PREFIX_LENGTH) : word;
+    }
+
+    // The word itself and every string made from it by deleting up to maxDeletions characters
+    static Set<String> deletionsOf(String word, int maxDeletions) {
+        Set<String> result = new HashSet<>();
+        result.add(word);
+        List<String> level = List.of(word);
+        for (int d = 0; d < maxDeletions; d++) {
+            List<String> next = new ArrayList<>();
+            for (String current : level) {
+                for (int i = 0; i < current.length(); i++) {
+                    String deletion = current.substring(0, i) + current.substring(i + 1);
+                    if (result.add(deletion)) next.add(deletion);
+                }
+            }
+            level = next;
+        }
+        return result;
+    }
+
+    /*
+        Optimal string alignment distance (Levenshtein plus transpositions of adjacent characters, since "brocolli" style
+        swaps are common). Gives up and returns limit + 1 as soon as every cell of a row exceeds the limit
+     */
+    static int distance(String a, String b, int limit) {
+        int[] previousPrevious = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) previous[j] = j;
+
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMinimum = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previousPrevious[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMinimum = Math.min(rowMinimum, value);
+            }
+            if (rowMinimum > limit) return limit + 1;
+
+            int[] recycled = previousPrevious;
+            previousPrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[b.length()];
+    }
+}
@@ -0,0 +1,302 @@
+package com.joel.recipes.util.search;
+
+import com.joel.recipes.util.bitmap.RoaringBitmap;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntFunction;
+import java.util.function.ObjIntConsumer;
+
+/*
+    Maps whole terms (an ingredient such as "olive oil", a tag such as "vegan") to a RoaringBitmap
+    of the ordinals of the recipes that have them, so set questions become bitmap operations.
+    The terms of each recipe are also kept by ordinal so that updates can clear the old bits
+ */
+public class TermBitmapIndex {
+    // Filters matching at most 1/NARROW_FILTER_RATIO of the recipes are counted through the forward index
+    private static final int NARROW_FILTER_RATIO = 8;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> termIds = new HashMap<>();
+    private final List<String> terms = new ArrayList<>();
+    private final List<RoaringBitmap> bitmaps = new ArrayList<>();
+    private int[][] documentTerms = new int[0][];
+    private final RoaringBitmap documents = new RoaringBitmap();
+
+    public record TermMatch(int ordinal, int matched, int missing) {
+    }
+
+    public record TermCount(String term, int count) {
+    }
+
+    // "  Olive   Oil " and "olive oil" are the same term
+    public static String normalize(String term) {
+        return Tokenizer.fold(term).trim().replaceAll("\\s+", " ");
+    }
+
+    public void put(int ordinal, Collection<String> values) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(ordinal);
+            if (ordinal >= documentTerms.length) {
+                documentTerms = Arrays.copyOf(documentTerms, Math.max(ordinal + 1, documentTerms.length + (documentTerms.length >> 1) + 16));
+            }
+
+            Set<Integer> ids = new LinkedHashSet<>();
+            for (String value : values) {
+                String term = normalize(value);
+                if (!term.isEmpty()) ids.add(termId(term));
+            }
+            int[] documentTermIds = ids.stream().mapToInt(Integer::intValue).toArray();
+            for (int termId : documentTermIds) {
+                bitmaps.get(termId).add(ordinal);
+            }
+            documentTerms[ordinal] = documentTermIds;
+            documents.add(ordinal);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int ordinal) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(ordinal);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int documentCount() {
+        lock.readLock().lock();
+        try {
+            return documents.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // A copy of the bitmap of every indexed recipe
+    public RoaringBitmap allDocuments() {
+        lock.readLock().lock();
+        try {
+            return documents.copy();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Every term with the number of recipes that have it
+    public void forEachTerm(ObjIntConsumer<String> consumer) {
+        lock.readLock().lock();
+        try {
+            for (int termId = 0; termId < terms.size(); termId++) {
+                int count = bitmaps.get(termId).cardinality();
+                if (count > 0) consumer.accept(terms.get(termId), count);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<String> termsOf(int ordinal) {
+        lock.readLock().lock();
+        try {
+            if (ordinal >= documentTerms.length || Objects.isNull(documentTerms[ordinal])) return List.of();
+            return Arrays.stream(documentTerms[ordinal]).mapToObj(terms::get).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Recipes that have every one of the terms
+    public RoaringBitmap matchAll(Collection<String> values) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap result = null;
+            for (String value : new LinkedHashSet<>(values)) {
+                RoaringBitmap bitmap = bitmapOf(value);
+                if (Objects.isNull(bitmap)) return new RoaringBitmap();
+                result = Objects.isNull(result) ? bitmap.copy() : RoaringBitmap.and(result, bitmap);
+                if (result.isEmpty()) return result;
+            }
+            return Objects.isNull(result) ? documents.copy() : result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Recipes that have at least one of the terms
+    public RoaringBitmap matchAny(Collection<String> values) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap result = new RoaringBitmap();
+            for (String value : new LinkedHashSet<>(values)) {
+                RoaringBitmap bitmap = bitmapOf(value);
+                if (Objects.nonNull(bitmap)) result = RoaringBitmap.or(result, bitmap);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /*
+        Recipes that have at least `minMatched` of the terms and are missing at most `maxMissing` of their own terms,
+        best first: fewest missing terms, then most matched terms.
+        If every term is required the candidates are a plain intersection; otherwise the union is walked once
+        per term bitmap to count matches, so the work is proportional to the postings touched, not the corpus
+     */
+    public List<TermMatch> matchAtLeast(Collection<String> values, int minMatched, int maxMissing, int limit) {
+        lock.readLock().lock();
+        try {
+            List<RoaringBitmap> matching = new ArrayList<>();
+            for (String value : new LinkedHashSet<>(values)) {
+                RoaringBitmap bitmap = bitmapOf(value);
+                if (Objects.nonNull(bitmap) && !bitmap.isEmpty()) matching.add(bitmap);
+            }
+            if (matching.isEmpty() || minMatched > matching.size() || limit <= 0) return List.of();
+
+            int[] candidates;
+            int[] counts;
+            if (minMatched == matching.size()) {
+                RoaringBitmap intersection = matching.get(0);
+                for (int i = 1; i < matching.size(); i++) {
+                    intersection = RoaringBitmap.and(intersection, matching.get(i));
+                }
+                candidates = intersection.toArray();
+                counts = new int[candidates.length];
+                Arrays.fill(counts, matching.size());
+            } else {
+                RoaringBitmap union = new RoaringBitmap();
+                for (RoaringBitmap bitmap : matching) {
+                    union = RoaringBitmap.or(union, bitmap);
+                }
+                candidates = union.toArray();
+                counts = new int[candidates.length];
+                for (RoaringBitmap bitmap : matching) {
+                    bitmap.forEach(ordinal -> counts[Arrays.binarySearch(candidates, ordinal)]++);
+                }
+            }
+
+            Comparator<TermMatch> ranking = Comparator.comparingInt(TermMatch::missing)
+                    .thenComparing(Comparator.comparingInt(TermMatch::matched).reversed())
+                    .thenComparingInt(TermMatch::ordinal);
+            PriorityQueue<TermMatch> best = new PriorityQueue<>(limit + 1, ranking.reversed());
+            for (int i = 0; i < candidates.length; i++) {
+                if (counts[i] < minMatched) continue;
+                int missing = documentTerms[candidates[i]].length - counts[i];
+                if (missing > maxMissing) continue;
+                best.add(new TermMatch(candidates[i], counts[i], missing));
+                if (best.size() > limit) best.poll();
+            }
+
+            List<TermMatch> results = new ArrayList<>(best);
+            results.sort(ranking);
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /*
+        Facet counts: for every term, how many of the recipes in `filter` have it; a null filter means every recipe.
+        Narrow filters are counted by walking the filter's recipes through the forward index, which is proportional to
+        the size of the filter. Broad filters are intersected with each term's bitmap, container by container,
+        which is proportional to the number of terms and does not materialize anything
+     */
+    public List<TermCount> countTerms(RoaringBitmap filter, int limit) {
+        if (limit <= 0) return List.of();
+
+        lock.readLock().lock();
+        try {
+            int[] counts = new int[terms.size()];
+            if (Objects.nonNull(filter) && filter.cardinality() <= documents.cardinality() / NARROW_FILTER_RATIO) {
+                filter.forEach(ordinal -> {
+                    if (ordinal < documentTerms.length && Objects.nonNull(documentTerms[ordinal])) {
+                        for (int termId : documentTerms[ordinal]) counts[termId]++;
+                    }
+                });
+            } else {
+                for (int termId = 0; termId < terms.size(); termId++) {
+                    RoaringBitmap bitmap = bitmaps.get(termId);
+                    counts[termId] = Objects.isNull(filter) ? bitmap.cardinality() : RoaringBitmap.andCardinality(bitmap, filter);
+                }
+            }
+
+            Comparator<TermCount> ranking = Comparator.comparingInt(TermCount::count).reversed().thenComparing(TermCount::term);
+            PriorityQueue<TermCount> best = new PriorityQueue<>(limit + 1, ranking.reversed());
+            for (int termId = 0; termId < counts.length; termId++) {
+                if (counts[termId] == 0) continue;
+                best.add(new TermCount(terms.get(termId), counts[termId]));
+                if (best.size() > limit) best.poll();
+            }
+
+            List<TermCount> results = new ArrayList<>(best);
+            results.sort(ranking);
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void writeTo(DataOutputStream out, IntFunction<UUID> idOf) throws IOException {
+        lock.readLock().lock();
+        try {
+            out.writeInt(documents.cardinality());
+            for (int ordinal : documents.toArray()) {
+                UUID id = idOf.apply(ordinal);
+                out.writeLong(id.getMostSignificantBits());
+                out.writeLong(id.getLeastSignificantBits());
+                out.writeInt(documentTerms[ordinal].length);
+                for (int termId : documentTerms[ordinal]) {
+                    out.writeUTF(terms.get(termId));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public static Map<UUID, List<String>> readFrom(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        Map<UUID, List<String>> documentTerms = new HashMap<>(count * 2);
+        for (int d = 0; d < count; d++) {
+            UUID id = new UUID(in.readLong(), in.readLong());
+            String[] values = new String[in.readInt()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = in.readUTF();
+            }
+            documentTerms.put(id, List.of(values));
+        }
+        return documentTerms;
+    }
+
+    private RoaringBitmap bitmapOf(String value) {
+        Integer termId = termIds.get(normalize(value));
+        return Objects.isNull(termId) ? null : bitmaps.get(termId);
+    }
+
+    private void removeInternal(int ordinal) {
+        if (ordinal >= documentTerms.length || Objects.isNull(documentTerms[ordinal])) return;
+        for (int termId : documentTerms[ordinal]) {
+            bitmaps.get(termId).remove(ordinal);
+        }
+        documentTerms[ordinal] = null;
+        documents.remove(ordinal);
+    }
+
+    private int termId(String term) {
+        Integer id = termIds.get(term);
+        if (Objects.nonNull(id)) return id;
+        id = terms.size();
+        termIds.put(term, id);
+        terms.add(term);
+        bitmaps.add(new RoaringBitmap());
+        return id;
+    }
+}
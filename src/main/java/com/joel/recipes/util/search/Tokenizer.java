@@ -0,0 +1,53 @@
+package com.joel.recipes.util.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/*
+    Splits free text into lower-cased, accent-folded terms.
+    Anything that is not a letter or a digit is treated as a separator
+ */
+public final class Tokenizer {
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "into",
+            "is", "it", "of", "on", "or", "the", "then", "to", "until", "with"
+    );
+
+    private Tokenizer() {
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (Objects.isNull(text) || text.isEmpty()) return tokens;
+
+        String normalized = fold(text);
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean isTokenChar = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (isTokenChar && start < 0) {
+                start = i;
+            } else if (!isTokenChar && start >= 0) {
+                String token = normalized.substring(start, i);
+                if (!STOP_WORDS.contains(token)) tokens.add(token);
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    // Lower-cases the text and strips accents so that "Crème" and "creme" match
+    public static String fold(String text) {
+        String lowerCase = text.toLowerCase();
+        for (int i = 0; i < lowerCase.length(); i++) {
+            if (lowerCase.charAt(i) > 127) {
+                return DIACRITICS.matcher(Normalizer.normalize(lowerCase, Normalizer.Form.NFD)).replaceAll("");
+            }
+        }
+        return lowerCase;
+    }
+}
@@ -0,0 +1,134 @@
+package com.joel.recipes.util.similarity;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+    Locality-sensitive hashing over MinHash signatures. A signature is cut into bands of rows and each band is
+    hashed to a bucket; two ordinals become candidates if all rows of any one band agree. With b bands of r rows,
+    sets with Jaccard similarity s are candidates with probability 1 - (1 - s^r)^b, which rises steeply around
+    (1/b)^(1/r), so lookups only look at a few buckets instead of every other set. Candidates are then ranked by
+    their exact Jaccard similarity, computed from the stored features.
+    Thread safe: changes to one ordinal are atomic, and reads run alongside them without locking
+ */
+public class LshIndex {
+    private final MinHasher hasher;
+    private final int bands;
+    private final int rows;
+    private final ConcurrentHashMap<Integer, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Set<Integer>> buckets = new ConcurrentHashMap<>();
+
+    public record Similar(int ordinal, double similarity) {
+    }
+
+    // features are sorted and distinct so that Jaccard similarity is a merge
+    private record Entry(long[] features, long[] bucketKeys) {
+    }
+
+    public LshIndex(int bands, int rows, long seed) {
+        this.bands = bands;
+        this.rows = rows;
+        this.hasher = new MinHasher(bands * rows, seed);
+    }
+
+    // Replaces whatever was indexed for the ordinal. An ordinal without features is similar to nothing
+    public void put(int ordinal, long[] features) {
+        long[] sorted = Arrays.stream(features).sorted().distinct().toArray();
+        Entry entry = new Entry(sorted, sorted.length == 0 ? new long[0] : bucketKeys(hasher.signature(sorted)));
+        entries.compute(ordinal, (key, previous) -> {
+            if (Objects.nonNull(previous)) unlink(ordinal, previous);
+            for (long bucketKey : entry.bucketKeys()) {
+                // compute rather than computeIfAbsent, so the bucket cannot be dropped as empty before the add
+                buckets.compute(bucketKey, (k, bucket) -> {
+                    Set<Integer> members = Objects.isNull(bucket) ? ConcurrentHashMap.newKeySet() : bucket;
+                    members.add(ordinal);
+                    return members;
+                });
+            }
+            return entry;
+        });
+    }
+
+    public void remove(int ordinal) {
+        entries.computeIfPresent(ordinal, (key, previous) -> {
+            unlink(ordinal, previous);
+            return null;
+        });
+    }
+
+    public boolean contains(int ordinal) {
+        return entries.containsKey(ordinal);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    // The most similar other ordinals, most similar first; empty if the ordinal is not indexed
+    public List<Similar> similarTo(int ordinal, int limit) {
+        Entry entry = entries.get(ordinal);
+        if (Objects.isNull(entry)) return List.of();
+
+        Set<Integer> candidates = new HashSet<>();
+        for (long bucketKey : entry.bucketKeys()) {
+            Set<Integer> bucket = buckets.get(bucketKey);
+            if (Objects.nonNull(bucket)) candidates.addAll(bucket);
+        }
+        candidates.remove(ordinal);
+
+        PriorityQueue<Similar> top = new PriorityQueue<>(Comparator.comparingDouble(Similar::similarity).thenComparing(Similar::ordinal, Comparator.reverseOrder()));
+        for (int candidate : candidates) {
+            Entry other = entries.get(candidate);
+            if (Objects.isNull(other)) continue;
+            double similarity = jaccard(entry.features(), other.features());
+            if (similarity == 0) continue;
+            top.add(new Similar(candidate, similarity));
+            if (top.size() > limit) top.poll();
+        }
+
+        List<Similar> similar = new ArrayList<>(top);
+        similar.sort(top.comparator().reversed());
+        return similar;
+    }
+
+    static double jaccard(long[] a, long[] b) {
+        int i = 0;
+        int j = 0;
+        int shared = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                shared++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        int union = a.length + b.length - shared;
+        return union == 0 ? 0 : (double) shared / union;
+    }
+
+    private void unlink(int ordinal, Entry entry) {
+        for (long bucketKey : entry.bucketKeys()) {
+            buckets.computeIfPresent(bucketKey, (key, bucket) -> {
+                bucket.remove(ordinal);
+                return bucket.isEmpty() ? null : bucket;
+            });
+        }
+    }
+
+    // The band number is hashed in too, so equal rows in different bands do not share a bucket
+    private long[] bucketKeys(int[] signature) {
+        long[] keys = new long[bands];
+        for (int band = 0; band < bands; band++) {
+            long hash = band;
+            for (int row = 0; row < rows; row++) {
+                hash = hash * 0x9e3779b97f4a7c15L + signature[band * rows + row];
+            }
+            keys[band] = MinHasher.mix(hash);
+        }
+        return keys;
+    }
+}
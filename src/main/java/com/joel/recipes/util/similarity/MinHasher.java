@@ -0,0 +1,61 @@
+package com.joel.recipes.util.similarity;
+
+import java.util.SplittableRandom;
+
+/*
+    MinHash signatures of sets of 64-bit feature hashes. Each of the signature's values is the smallest hash of the
+    set under one of a family of independent hash functions, so two sets agree on any one value with probability
+    equal to their Jaccard similarity, and the fraction of values on which their signatures agree estimates it.
+    Immutable and thread safe
+ */
+public class MinHasher {
+    private final long[] seeds;
+
+    public MinHasher(int hashCount, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        this.seeds = new long[hashCount];
+        for (int i = 0; i < hashCount; i++) {
+            this.seeds[i] = random.nextLong();
+        }
+    }
+
+    public int hashCount() {
+        return seeds.length;
+    }
+
+    // An empty set has a signature of Integer.MAX_VALUE everywhere
+    public int[] signature(long[] features) {
+        int[] signature = new int[seeds.length];
+        for (int i = 0; i < seeds.length; i++) {
+            int min = Integer.MAX_VALUE;
+            for (long feature : features) {
+                min = Math.min(min, (int) (mix(feature ^ seeds[i]) >>> 33));
+            }
+            signature[i] = min;
+        }
+        return signature;
+    }
+
+    // 64-bit FNV-1a of the namespace and value, so that equal values in different namespaces are different features
+    public static long featureOf(String namespace, String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < namespace.length(); i++) {
+            hash = (hash ^ namespace.charAt(i)) * 0x100000001b3L;
+        }
+        hash = (hash ^ ':') * 0x100000001b3L;
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    // MurmurHash3 finalizer
+    static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,64 @@
+package com.joel.recipes.util.sketch;
+
+import java.util.Arrays;
+
+/*
+    Count-min sketch: approximate counts of int keys in a fixed depth x width table of counters.
+    A key's estimate is the smallest of its counters, so it never undercounts, and with width w it overcounts
+    by at most about e/w of the total count with probability 1 - e^-depth. Updates are conservative: only the
+    counters that would otherwise fall below the new estimate are raised, which makes overcounting much rarer.
+    Not thread safe
+ */
+public class CountMinSketch {
+    private final int depth;
+    private final int widthMask;
+    private final long[] counters;
+    private long total;
+
+    // width is rounded up to a power of two
+    public CountMinSketch(int depth, int width) {
+        this.depth = depth;
+        int roundedWidth = Integer.highestOneBit(Math.max(width - 1, 1)) << 1;
+        this.widthMask = roundedWidth - 1;
+        this.counters = new long[depth * roundedWidth];
+    }
+
+    // Returns the key's new estimate
+    public long add(int key, long count) {
+        long estimate = estimate(key) + count;
+        for (int row = 0; row < depth; row++) {
+            int index = indexOf(row, key);
+            if (counters[index] < estimate) counters[index] = estimate;
+        }
+        total += count;
+        return estimate;
+    }
+
+    public long estimate(int key) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters[indexOf(row, key)]);
+        }
+        return estimate;
+    }
+
+    public long total() {
+        return total;
+    }
+
+    public void clear() {
+        Arrays.fill(counters, 0);
+        total = 0;
+    }
+
+    // One independent hash per row, from a MurmurHash3 finalizer seeded by the row
+    private int indexOf(int row, int key) {
+        long hash = (key & 0xffffffffL) * 0x9e3779b97f4a7c15L + row * 0xc2b2ae3d27d4eb4fL;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return row * (widthMask + 1) + (int) (hash & widthMask);
+    }
+}
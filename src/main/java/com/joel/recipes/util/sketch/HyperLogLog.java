@@ -0,0 +1,94 @@
+package com.joel.recipes.util.sketch;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/*
+    HyperLogLog cardinality sketch: estimates how many distinct values were added using a fixed 4 KB of registers,
+    with a standard error of about 1.6%. Sketches merge losslessly (register-wise max), so a sketch of recent views
+    can be folded into the stored one. Not thread safe
+ */
+public class HyperLogLog {
+    private static final int PRECISION = 12;
+    private static final int REGISTER_COUNT = 1 << PRECISION;
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTER_COUNT);
+    private static final byte VERSION = 1;
+    public static final int SERIALIZED_LENGTH = 2 + REGISTER_COUNT;
+
+    private final byte[] registers;
+
+    public HyperLogLog() {
+        this.registers = new byte[REGISTER_COUNT];
+    }
+
+    private HyperLogLog(byte[] registers) {
+        this.registers = registers;
+    }
+
+    public void add(UUID value) {
+        this.addHash(hash(value));
+    }
+
+    // hash must be a well-mixed 64 bit hash of the value
+    public void addHash(long hash) {
+        int register = (int) (hash >>> (Long.SIZE - PRECISION));
+        // Position of the first 1 bit in the remaining bits; the sentinel bit caps it when they are all 0
+        byte rank = (byte) (Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1);
+        if (rank > registers[register]) registers[register] = rank;
+    }
+
+    public void merge(HyperLogLog other) {
+        for (int i = 0; i < REGISTER_COUNT; i++) {
+            if (other.registers[i] > registers[i]) registers[i] = other.registers[i];
+        }
+    }
+
+    public long estimate() {
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) zeros++;
+        }
+        double estimate = ALPHA * REGISTER_COUNT * REGISTER_COUNT / sum;
+        // Small cardinalities are estimated far more accurately by linear counting of the empty registers
+        if (estimate <= 2.5 * REGISTER_COUNT && zeros > 0) {
+            estimate = REGISTER_COUNT * Math.log((double) REGISTER_COUNT / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    public HyperLogLog copy() {
+        return new HyperLogLog(registers.clone());
+    }
+
+    public byte[] toBytes() {
+        byte[] bytes = new byte[SERIALIZED_LENGTH];
+        bytes[0] = VERSION;
+        bytes[1] = PRECISION;
+        System.arraycopy(registers, 0, bytes, 2, REGISTER_COUNT);
+        return bytes;
+    }
+
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        if (bytes.length != SERIALIZED_LENGTH || bytes[0] != VERSION || bytes[1] != PRECISION) {
+            throw new IllegalArgumentException("Unrecognized HyperLogLog encoding");
+        }
+        return new HyperLogLog(Arrays.copyOfRange(bytes, 2, bytes.length));
+    }
+
+    // Random UUIDs are already well mixed but sequential ones are not, so both halves go through a finalizer
+    static long hash(UUID value) {
+        return mix(value.getMostSignificantBits() ^ mix(value.getLeastSignificantBits()));
+    }
+
+    // MurmurHash3 64 bit finalizer
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
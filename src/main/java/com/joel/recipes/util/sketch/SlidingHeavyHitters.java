@@ -0,0 +1,162 @@
+package com.joel.recipes.util.sketch;
+
+import java.util.*;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+/*
+    Approximate, time-decayed heavy hitters over a sliding window.
+    The window is split into buckets of equal duration, used as a ring: each bucket counts its keys in a
+    CountMinSketch and keeps the keys with the top-K counts of that bucket in an indexed min-heap, so memory is
+    fixed whatever the number of keys. Ranking only looks at the keys in some bucket's top-K, scoring each by
+    its count in every live bucket weighted by 2^(-age / halfLife), so recent activity counts the most.
+    Buckets that fall out of the window are cleared lazily when their slot is reused. Not thread safe
+ */
+public class SlidingHeavyHitters {
+    public record Scored(int key, double score) {
+    }
+
+    private final long bucketDuration;
+    private final Bucket[] buckets;
+
+    public SlidingHeavyHitters(int bucketCount, long bucketDuration, int sketchDepth, int sketchWidth, int topK) {
+        this.bucketDuration = bucketDuration;
+        this.buckets = new Bucket[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new Bucket(new CountMinSketch(sketchDepth, sketchWidth), new TopK(topK));
+        }
+    }
+
+    public void add(int key, long count, long now) {
+        long start = now - Math.floorMod(now, bucketDuration);
+        Bucket bucket = buckets[(int) Math.floorMod(start / bucketDuration, (long) buckets.length)];
+        if (bucket.start != start) {
+            bucket.sketch.clear();
+            bucket.topK.clear();
+            bucket.start = start;
+        }
+        bucket.topK.offer(key, bucket.sketch.add(key, count));
+    }
+
+    /*
+        Up to `limit` keys accepted by the filter, highest score first.
+        halfLife is in the same unit as the timestamps; 0 or less means no decay within the window
+     */
+    public List<Scored> top(long now, double halfLife, int limit, IntPredicate filter) {
+        List<Bucket> live = new ArrayList<>();
+        for (Bucket bucket : buckets) {
+            if (bucket.start > now - (long) buckets.length * bucketDuration && bucket.sketch.total() > 0) live.add(bucket);
+        }
+
+        double[] weights = new double[live.size()];
+        Set<Integer> candidates = new HashSet<>();
+        for (int i = 0; i < live.size(); i++) {
+            Bucket bucket = live.get(i);
+            double age = Math.max(0, now - bucket.start);
+            weights[i] = halfLife > 0 ? Math.pow(2, -age / halfLife) : 1;
+            bucket.topK.forEach(candidates::add);
+        }
+
+        Comparator<Scored> ranking = Comparator.comparingDouble(Scored::score).reversed().thenComparingInt(Scored::key);
+        PriorityQueue<Scored> best = new PriorityQueue<>(limit + 1, ranking.reversed());
+        for (int key : candidates) {
+            if (!filter.test(key)) continue;
+            double score = 0;
+            for (int i = 0; i < live.size(); i++) {
+                score += weights[i] * live.get(i).sketch.estimate(key);
+            }
+            best.add(new Scored(key, score));
+            if (best.size() > limit) best.poll();
+        }
+
+        List<Scored> results = new ArrayList<>(best);
+        results.sort(ranking);
+        return results;
+    }
+
+    private static final class Bucket {
+        private final CountMinSketch sketch;
+        private final TopK topK;
+        private long start = Long.MIN_VALUE;
+
+        private Bucket(CountMinSketch sketch, TopK topK) {
+            this.sketch = sketch;
+            this.topK = topK;
+        }
+    }
+
+    // The k keys with the highest counts, in a min-heap indexed by key so that a key's count can be raised in place
+    private static final class TopK {
+        private final int[] keys;
+        private final long[] counts;
+        private final Map<Integer, Integer> positions;
+        private int size;
+
+        private TopK(int k) {
+            this.keys = new int[k];
+            this.counts = new long[k];
+            this.positions = new HashMap<>(k * 2);
+        }
+
+        void offer(int key, long count) {
+            Integer position = positions.get(key);
+            if (Objects.nonNull(position)) {
+                counts[position] = count;
+                siftDown(position);
+            } else if (size < keys.length) {
+                keys[size] = key;
+                counts[size] = count;
+                positions.put(key, size);
+                siftUp(size++);
+            } else if (count > counts[0]) {
+                positions.remove(keys[0]);
+                keys[0] = key;
+                counts[0] = count;
+                positions.put(key, 0);
+                siftDown(0);
+            }
+        }
+
+        void forEach(IntConsumer consumer) {
+            for (int i = 0; i < size; i++) consumer.accept(keys[i]);
+        }
+
+        void clear() {
+            positions.clear();
+            size = 0;
+        }
+
+        private void siftUp(int index) {
+            while (index > 0) {
+                int parent = (index - 1) / 2;
+                if (counts[parent] <= counts[index]) return;
+                swap(parent, index);
+                index = parent;
+            }
+        }
+
+        private void siftDown(int index) {
+            while (true) {
+                int smallest = index;
+                int left = 2 * index + 1;
+                int right = left + 1;
+                if (left < size && counts[left] < counts[smallest]) smallest = left;
+                if (right < size && counts[right] < counts[smallest]) smallest = right;
+                if (smallest == index) return;
+                swap(smallest, index);
+                index = smallest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int key = keys[a];
+            long count = counts[a];
+            keys[a] = keys[b];
+            counts[a] = counts[b];
+            keys[b] = key;
+            counts[b] = count;
+            positions.put(keys[a], a);
+            positions.put(keys[b], b);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.joel.recipes.util.storage;
+
+import com.azure.storage.blob.BlobClient;
+import com.azure.storage.blob.BlobContainerClient;
+import com.azure.storage.blob.BlobServiceClient;
+import com.azure.storage.blob.models.BlobHttpHeaders;
+import com.azure.storage.blob.models.BlobStorageException;
+import com.azure.storage.blob.sas.BlobSasPermission;
+import com.azure.storage.blob.sas.BlobServiceSasSignatureValues;
+import com.azure.storage.blob.specialized.BlockBlobClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/*
+    Stores images as blobs in one container. An upload is staged as the blocks of a temporary blob, written as the
+    buffer of the blob output stream fills, and then copied server side to its content-addressed name.
+    The BlobServiceClient comes from spring.cloud.azure.storage.blob.*, so pointing the connection string at
+    Azurite is enough to run against it locally.
+    Direct uploads go to blobs under uploads/ through service SAS URLs that can only create and write that one blob,
+    which needs the client to be authorized with the account key, as it is with a connection string
+ */
+@Component
+@ConditionalOnProperty(name = "images.storage.backend", havingValue = "azure")
+public class AzureBlobImageStorage implements ImageStorage {
+    private static final String STAGING_PREFIX = "staging/";
+    private static final String UPLOADS_PREFIX = "uploads/";
+    private static final int NOT_FOUND = 404;
+    private static final Duration COPY_POLL_INTERVAL = Duration.ofMillis(200);
+
+    private final BlobContainerClient container;
+
+    public AzureBlobImageStorage(BlobServiceClient blobServiceClient, @Value("${images.storage.azure.container}") String containerName) {
+        this.container = blobServiceClient.getBlobContainerClient(containerName);
+        this.container.createIfNotExists();
+    }
+
+    @Override
+    public StagedImage stage() {
+        BlockBlobClient blob = this.container.getBlobClient(STAGING_PREFIX + UUID.randomUUID()).getBlockBlobClient();
+        return new StagedBlob(blob, blob.getBlobOutputStream(true));
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return this.container.getBlobClient(key).exists();
+    }
+
+    @Override
+    public InputStream open(String key) {
+        return this.container.getBlobClient(key).openInputStream();
+    }
+
+    @Override
+    public void delete(String key) {
+        this.container.getBlobClient(key).deleteIfExists();
+    }
+
+    @Override
+    public String urlOf(String key) {
+        return this.container.getBlobClient(key).getBlobUrl();
+    }
+
+    @Override
+    public UploadTarget uploadTargetOf(UUID uploadId, Instant expirationDate) {
+        BlobClient upload = this.uploadBlobOf(uploadId);
+        BlobSasPermission permission = new BlobSasPermission().setCreatePermission(true).setWritePermission(true);
+        String sas = upload.generateSas(new BlobServiceSasSignatureValues(expirationDate.atOffset(ZoneOffset.UTC), permission));
+        // Put Blob needs to be told which kind of blob to create
+        return new UploadTarget(upload.getBlobUrl() + "?" + sas, Map.of("x-ms-blob-type", "BlockBlob"));
+    }
+
+    @Override
+    public OptionalLong uploadSizeOf(UUID uploadId) {
+        try {
+            return OptionalLong.of(this.uploadBlobOf(uploadId).getProperties().getBlobSize());
+        } catch (BlobStorageException e) {
+            if (e.getStatusCode() == NOT_FOUND) return OptionalLong.empty();
+            throw e;
+        }
+    }
+
+    @Override
+    public InputStream openUpload(UUID uploadId) {
+        return this.uploadBlobOf(uploadId).openInputStream();
+    }
+
+    @Override
+    public void promoteUpload(UUID uploadId, String key, String contentType) {
+        BlobClient upload = this.uploadBlobOf(uploadId);
+        try {
+            this.copyIntoPlace(upload.getBlobUrl(), key, contentType);
+        } finally {
+            upload.deleteIfExists();
+        }
+    }
+
+    @Override
+    public void deleteUpload(UUID uploadId) {
+        this.uploadBlobOf(uploadId).deleteIfExists();
+    }
+
+    private BlobClient uploadBlobOf(UUID uploadId) {
+        return this.container.getBlobClient(UPLOADS_PREFIX + uploadId);
+    }
+
+    // An existing blob with the same key has the same content, so the new copy is simply dropped
+    private void copyIntoPlace(String sourceUrl, String key, String contentType) {
+        BlobClient target = this.container.getBlobClient(key);
+        if (target.exists()) return;
+        target.beginCopy(sourceUrl, COPY_POLL_INTERVAL).waitForCompletion();
+        target.setHttpHeaders(new BlobHttpHeaders().setContentType(contentType));
+    }
+
+    private class StagedBlob implements StagedImage {
+        private final BlockBlobClient blob;
+        private final OutputStream out;
+        private boolean committed;
+
+        StagedBlob(BlockBlobClient blob, OutputStream out) {
+            this.blob = blob;
+            this.out = out;
+        }
+
+        @Override
+        public OutputStream outputStream() {
+            return this.out;
+        }
+
+        @Override
+        public void commit(String key, String contentType) throws IOException {
+            try {
+                this.out.close();
+                copyIntoPlace(this.blob.getBlobUrl(), key, contentType);
+            } finally {
+                this.committed = true;
+                this.blob.deleteIfExists();
+            }
+        }
+
+        // Blocks that were staged but never committed are removed by the storage service itself
+        @Override
+        public void close() {
+            if (this.committed) return;
+            this.blob.deleteIfExists();
+        }
+    }
+}
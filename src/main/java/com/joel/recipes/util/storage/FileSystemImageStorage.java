@@ -0,0 +1,212 @@
+package com.joel.recipes.util.storage;
+
+import com.joel.recipes.exception.ImageTooLargeException;
+import com.joel.recipes.exception.InvalidUploadUrlException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/*
+    Stores images as files under a root directory. Uploads are staged in a directory under the same root, so
+    committing is an atomic rename and a reader never sees a partly written image.
+    Direct uploads go to ImageFileController through URLs signed with HMAC-SHA256, which still passes through the
+    application but keeps the flow the same as on a blob store, and lets a proxy in front take over the uploads
+ */
+@Component
+@ConditionalOnProperty(name = "images.storage.backend", havingValue = "filesystem", matchIfMissing = true)
+public class FileSystemImageStorage implements ImageStorage {
+    private static final String STAGING_DIRECTORY = ".staging";
+    private static final String UPLOADS_DIRECTORY = "uploads";
+    private static final String SIGNATURE_ALGORITHM = "HmacSHA256";
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final Path root;
+    private final Path staging;
+    private final Path uploads;
+    private final String baseUrl;
+    private final String uploadUrl;
+    private final SecretKeySpec signingKey;
+
+    public FileSystemImageStorage(@Value("${images.storage.filesystem.root}") Path root,
+                                  @Value("${images.storage.filesystem.base-url}") String baseUrl,
+                                  @Value("${images.storage.filesystem.upload-url}") String uploadUrl,
+                                  @Value("${images.storage.filesystem.upload-signing-key}") String signingKey) throws IOException {
+        this.root = root.toAbsolutePath().normalize();
+        this.staging = this.root.resolve(STAGING_DIRECTORY);
+        this.uploads = this.staging.resolve(UPLOADS_DIRECTORY);
+        this.baseUrl = baseUrl;
+        this.uploadUrl = uploadUrl;
+        this.signingKey = new SecretKeySpec(signingKey.isBlank() ? randomKey() : signingKey.getBytes(StandardCharsets.UTF_8), SIGNATURE_ALGORITHM);
+        Files.createDirectories(this.uploads);
+    }
+
+    @Override
+    public StagedImage stage() throws IOException {
+        Path file = Files.createTempFile(this.staging, "upload-", ".tmp");
+        return new StagedFile(file, Files.newOutputStream(file));
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.exists(this.pathOf(key));
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        return Files.newInputStream(this.pathOf(key));
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(this.pathOf(key));
+    }
+
+    @Override
+    public String urlOf(String key) {
+        return this.baseUrl + key;
+    }
+
+    @Override
+    public UploadTarget uploadTargetOf(UUID uploadId, Instant expirationDate) {
+        long expires = expirationDate.getEpochSecond();
+        return new UploadTarget(this.uploadUrl + uploadId + "?expires=" + expires + "&signature=" + this.sign(uploadId, expires), Map.of());
+    }
+
+    @Override
+    public OptionalLong uploadSizeOf(UUID uploadId) throws IOException {
+        Path upload = this.uploadPathOf(uploadId);
+        return Files.exists(upload) ? OptionalLong.of(Files.size(upload)) : OptionalLong.empty();
+    }
+
+    @Override
+    public InputStream openUpload(UUID uploadId) throws IOException {
+        return Files.newInputStream(this.uploadPathOf(uploadId));
+    }
+
+    @Override
+    public void promoteUpload(UUID uploadId, String key, String contentType) throws IOException {
+        this.moveIntoPlace(this.uploadPathOf(uploadId), key);
+    }
+
+    @Override
+    public void deleteUpload(UUID uploadId) throws IOException {
+        Files.deleteIfExists(this.uploadPathOf(uploadId));
+    }
+
+    /*
+        Stores the body of a PUT to an upload URL. It is only checked to be no larger than an image may be here;
+        completing the upload checks what it is. Nothing is visible under the upload id until all of it has arrived,
+        and uploading again replaces it
+     */
+    public void receiveUpload(UUID uploadId, long expires, String signature, InputStream body, long maxSizeInBytes) throws InvalidUploadUrlException, ImageTooLargeException, IOException {
+        boolean valid = MessageDigest.isEqual(this.sign(uploadId, expires).getBytes(StandardCharsets.US_ASCII), signature.getBytes(StandardCharsets.US_ASCII));
+        if (!valid || Instant.now().getEpochSecond() > expires) throw new InvalidUploadUrlException();
+
+        Path file = Files.createTempFile(this.staging, "upload-", ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(file)) {
+                byte[] chunk = new byte[CHUNK_SIZE];
+                long size = 0;
+                int read;
+                while ((read = body.readNBytes(chunk, 0, chunk.length)) > 0) {
+                    size += read;
+                    if (size > maxSizeInBytes) throw new ImageTooLargeException();
+                    out.write(chunk, 0, read);
+                }
+            }
+            Files.move(file, this.uploadPathOf(uploadId), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    // Keys come from hashes, but are checked anyway so that none can point outside the root
+    public Path pathOf(String key) {
+        Path path = this.root.resolve(key).normalize();
+        if (!path.startsWith(this.root) || path.startsWith(this.staging)) throw new IllegalArgumentException("Invalid image key " + key);
+        return path;
+    }
+
+    private Path uploadPathOf(UUID uploadId) {
+        return this.uploads.resolve(uploadId.toString());
+    }
+
+    // An existing file with the same key has the same content, so the new copy is simply dropped
+    private void moveIntoPlace(Path file, String key) throws IOException {
+        Path target = this.pathOf(key);
+        if (Files.exists(target)) {
+            Files.delete(file);
+        } else {
+            Files.createDirectories(target.getParent());
+            Files.move(file, target, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    // The expiry is signed along with the upload id, so it cannot be extended
+    private String sign(UUID uploadId, long expires) {
+        try {
+            Mac mac = Mac.getInstance(SIGNATURE_ALGORITHM);
+            mac.init(this.signingKey);
+            byte[] signature = mac.doFinal((uploadId + ":" + expires).getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+        } catch (GeneralSecurityException e) {
+            // Every Java platform is required to support HmacSHA256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Upload URLs signed with a random key stop working when the application restarts
+    private static byte[] randomKey() {
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        return key;
+    }
+
+    private class StagedFile implements StagedImage {
+        private final Path file;
+        private final OutputStream out;
+        private boolean committed;
+
+        StagedFile(Path file, OutputStream out) {
+            this.file = file;
+            this.out = out;
+        }
+
+        @Override
+        public OutputStream outputStream() {
+            return this.out;
+        }
+
+        @Override
+        public void commit(String key, String contentType) throws IOException {
+            this.out.close();
+            moveIntoPlace(this.file, key);
+            this.committed = true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (this.committed) return;
+            this.out.close();
+            Files.deleteIfExists(this.file);
+        }
+    }
+}
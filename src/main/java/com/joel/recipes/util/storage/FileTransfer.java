@@ -0,0 +1,54 @@
+package com.joel.recipes.util.storage;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+    Sends part of a file as a response body.
+    On Tomcat's NIO connector the file is handed to the connector's sendfile support, which writes it to the
+    socket with sendfile(2) after the servlet returns, without copying it through the heap. Elsewhere the response
+    is only an output stream, so the fallback is an ordinary buffered copy: FileChannel.transferTo reads the file
+    into a buffer and writes it through the stream's channel
+ */
+public final class FileTransfer {
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private FileTransfer() {
+    }
+
+    // The response's Content-Length must already be set to count
+    public static void send(Path path, long start, long count, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, path.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            return;
+        }
+        // Not a socket channel, so transferTo copies through a buffer here
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            transfer(channel, start, count, Channels.newChannel(response.getOutputStream()));
+        }
+    }
+
+    // transferTo may move fewer bytes than asked for, so it is repeated until everything has been sent
+    public static long transfer(FileChannel channel, long position, long count, WritableByteChannel target) throws IOException {
+        long sent = 0;
+        while (sent < count) {
+            long transferred = channel.transferTo(position + sent, count - sent, target);
+            // Only possible if the file shrank, which content-addressed files never do
+            if (transferred <= 0) break;
+            sent += transferred;
+        }
+        return sent;
+    }
+}
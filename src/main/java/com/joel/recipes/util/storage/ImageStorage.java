@@ -0,0 +1,58 @@
+package com.joel.recipes.util.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/*
+    Where image bytes live. Objects are content-addressed: an upload is written to a staging location first and
+    only given its key, derived from its hash, once all of it has arrived. Committing to a key that already exists
+    keeps the existing object, so identical uploads are stored once.
+    Clients can also upload straight to storage through a URL that only allows writing one object, named by an
+    upload id, for a limited time. Such an object is not trusted until it has been checked and promoted to its key
+ */
+public interface ImageStorage {
+    StagedImage stage() throws IOException;
+
+    boolean exists(String key) throws IOException;
+
+    InputStream open(String key) throws IOException;
+
+    // Does nothing if there is no object with the key
+    void delete(String key) throws IOException;
+
+    // Where clients can download the object from
+    String urlOf(String key);
+
+    UploadTarget uploadTargetOf(UUID uploadId, Instant expirationDate);
+
+    // The size of the directly uploaded object, or empty if nothing has been uploaded
+    OptionalLong uploadSizeOf(UUID uploadId) throws IOException;
+
+    InputStream openUpload(UUID uploadId) throws IOException;
+
+    // Moves a directly uploaded object to its key, with the same rules as StagedImage.commit
+    void promoteUpload(UUID uploadId, String key, String contentType) throws IOException;
+
+    void deleteUpload(UUID uploadId) throws IOException;
+
+    // The image has to be sent as the body of a PUT to url, with these headers
+    record UploadTarget(String url, Map<String, String> headers) {
+    }
+
+    /*
+        An upload in progress. Closing it without committing discards whatever was written
+     */
+    interface StagedImage extends AutoCloseable {
+        OutputStream outputStream();
+
+        void commit(String key, String contentType) throws IOException;
+
+        @Override
+        void close() throws IOException;
+    }
+}
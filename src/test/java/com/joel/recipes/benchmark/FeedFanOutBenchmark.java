@@ -0,0 +1,119 @@
+package com.joel.recipes.benchmark;
+
+import com.joel.recipes.util.feed.Timeline;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+    Cost of publishing a recipe and of reading a feed page with 200k users and 5k creators whose subscriber counts
+    follow a Zipf distribution (a handful of creators with tens of thousands of subscribers, a long tail with a few),
+    comparing pushing to every subscriber with the hybrid that stops pushing above FeedServiceImpl's fan-out threshold.
+    Only the in-memory timelines are measured; the database queries are the same for both strategies.
+    Skipped during normal builds; run with: mvn test -Dtest=FeedFanOutBenchmark -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class FeedFanOutBenchmark {
+    static final int USERS = 200_000;
+    static final int CREATORS = 5_000;
+    static final int SUBSCRIPTIONS = 2_000_000;
+    static final int TIMELINE_CAPACITY = 200;
+    static final int FAN_OUT_THRESHOLD = 10_000;
+    static final int POSTS = 20_000;
+    static final int PAGE_SIZE = 20;
+
+    int[][] subscribers;
+    int[] postingCreators;
+
+    @BeforeAll
+    void setUp() {
+        Random random = new Random(7);
+        double[] cumulative = new double[CREATORS];
+        double total = 0;
+        for (int i = 0; i < CREATORS; i++) {
+            total += 1.0 / (i + 1);
+            cumulative[i] = total;
+        }
+
+        int[] counts = new int[CREATORS];
+        int[] subscriptionCreators = new int[SUBSCRIPTIONS];
+        for (int s = 0; s < SUBSCRIPTIONS; s++) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+            subscriptionCreators[s] = index < 0 ? -index - 1 : index;
+            counts[subscriptionCreators[s]]++;
+        }
+        subscribers = new int[CREATORS][];
+        for (int c = 0; c < CREATORS; c++) {
+            subscribers[c] = new int[counts[c]];
+        }
+        int[] filled = new int[CREATORS];
+        for (int s = 0; s < SUBSCRIPTIONS; s++) {
+            int creator = subscriptionCreators[s];
+            subscribers[creator][filled[creator]++] = random.nextInt(USERS);
+        }
+
+        // Every creator posts about as often, whatever their audience
+        postingCreators = new int[POSTS];
+        for (int p = 0; p < POSTS; p++) {
+            postingCreators[p] = random.nextInt(CREATORS);
+        }
+        long popular = Arrays.stream(counts).filter(count -> count > FAN_OUT_THRESHOLD).count();
+        System.out.printf("Largest creator has %,d subscribers, %d creators are above the fan-out threshold%n",
+                Arrays.stream(counts).max().orElse(0), popular);
+    }
+
+    @Test
+    void publish_pushToEverySubscriber() {
+        report("push to every subscriber", Integer.MAX_VALUE);
+    }
+
+    @Test
+    void publish_hybrid() {
+        report("hybrid, threshold " + FAN_OUT_THRESHOLD, FAN_OUT_THRESHOLD);
+    }
+
+    private void report(String name, int threshold) {
+        Timeline[] timelines = new Timeline[USERS];
+        for (int u = 0; u < USERS; u++) {
+            timelines[u] = new Timeline(TIMELINE_CAPACITY, Timeline.COMPLETE);
+        }
+
+        long[] publishTimings = new long[POSTS];
+        long pushes = 0;
+        for (int p = 0; p < POSTS; p++) {
+            int[] audience = subscribers[postingCreators[p]];
+            long start = System.nanoTime();
+            if (audience.length <= threshold) {
+                for (int subscriber : audience) {
+                    timelines[subscriber].push(p, p);
+                }
+                pushes += audience.length;
+            }
+            publishTimings[p] = System.nanoTime() - start;
+        }
+
+        Random random = new Random(11);
+        long[] readTimings = new long[POSTS];
+        int read = 0;
+        for (int r = 0; r < POSTS; r++) {
+            Timeline timeline = timelines[random.nextInt(USERS)];
+            long start = System.nanoTime();
+            read += timeline.newest(PAGE_SIZE + 1, entry -> true).size();
+            readTimings[r] = System.nanoTime() - start;
+        }
+
+        Arrays.sort(publishTimings);
+        Arrays.sort(readTimings);
+        System.out.printf("%-30s publish p50 %6d us  p99 %6d us  max %7d us  (%,d pushes)   read p50 %4d us  p99 %4d us%n", name,
+                publishTimings[POSTS / 2] / 1_000, publishTimings[POSTS * 99 / 100] / 1_000, publishTimings[POSTS - 1] / 1_000, pushes,
+                readTimings[POSTS / 2] / 1_000, readTimings[POSTS * 99 / 100] / 1_000);
+        assertThat(read).isPositive();
+    }
+}
@@ -0,0 +1,124 @@
+package com.joel.recipes.benchmark;
+
+import com.joel.recipes.util.storage.FileTransfer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+    Cost of sending a 1 MB image over a loopback socket, comparing FileChannel.transferTo, which the kernel turns
+    into sendfile(2), with reading the file through an InputStream into a byte[] buffer and writing that to the
+    socket, which copies every byte into and out of the heap. A background thread drains the other end of the socket.
+    Skipped during normal builds; run with: mvn test -Dtest=ImageServingBenchmark -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ImageServingBenchmark {
+    static final int IMAGE_SIZE = 1 << 20;
+    static final int WARMUP = 200;
+    static final int ITERATIONS = 2_000;
+    static final int BUFFER_SIZE = 8192;
+
+    Path image;
+    ServerSocketChannel server;
+    SocketChannel client;
+    Thread drain;
+
+    @BeforeAll
+    void setUp() throws IOException {
+        byte[] content = new byte[IMAGE_SIZE];
+        new Random(7).nextBytes(content);
+        image = Files.createTempFile("benchmark-", ".jpg");
+        Files.write(image, content);
+
+        server = ServerSocketChannel.open().bind(new InetSocketAddress("localhost", 0));
+        client = SocketChannel.open(server.getLocalAddress());
+        SocketChannel peer = server.accept();
+        drain = new Thread(() -> {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+            try (peer) {
+                while (peer.read(buffer.clear()) >= 0) {
+                    // Discarded
+                }
+            } catch (IOException ignored) {
+            }
+        });
+        drain.setDaemon(true);
+        drain.start();
+    }
+
+    @AfterAll
+    void tearDown() throws IOException {
+        client.close();
+        server.close();
+        Files.deleteIfExists(image);
+    }
+
+    @Test
+    void send_transferTo() throws IOException {
+        report("transferTo", () -> {
+            try (FileChannel channel = FileChannel.open(image, StandardOpenOption.READ)) {
+                return FileTransfer.transfer(channel, 0, IMAGE_SIZE, client);
+            }
+        });
+    }
+
+    @Test
+    void send_byteArrayBuffer() throws IOException {
+        OutputStream out = Channels.newOutputStream(client);
+        report("InputStream to byte[]", () -> {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long copied = 0;
+            try (InputStream in = Files.newInputStream(image)) {
+                int read;
+                while ((read = in.read(buffer)) >= 0) {
+                    out.write(buffer, 0, read);
+                    copied += read;
+                }
+            }
+            return copied;
+        });
+    }
+
+    private void report(String name, Send send) throws IOException {
+        for (int i = 0; i < WARMUP; i++) {
+            send.run();
+        }
+        long[] timings = new long[ITERATIONS];
+        long sent = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            sent += send.run();
+            timings[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(timings);
+        double seconds = Arrays.stream(timings).sum() / 1e9;
+        System.out.printf("%-25s p50 %5d us  p99 %5d us  %,6.0f MB/s%n", name,
+                timings[ITERATIONS / 2] / 1_000, timings[ITERATIONS * 99 / 100] / 1_000, sent / seconds / (1 << 20));
+        assertThat(sent).isEqualTo((long) IMAGE_SIZE * ITERATIONS);
+    }
+
+    @FunctionalInterface
+    interface Send {
+        long run() throws IOException;
+    }
+}
@@ -0,0 +1,107 @@
+package com.joel.recipes.benchmark;
+
+import com.joel.recipes.config.security.CachingJwtDecoder;
+import com.joel.recipes.config.security.KeyGeneratorUtility;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.oauth2.jwt.*;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
+
+import java.security.KeyPair;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+    Cost of authenticating a request from its bearer token: decoding and verifying it with NimbusJwtDecoder and
+    converting it with JwtAuthenticationConverter every time, compared with CachingJwtDecoder, for 1,000 clients
+    that each send requests with the same token, as they do for the 10 minutes it is valid.
+    Skipped during normal builds; run with: mvn test -Dtest=JwtDecodingBenchmark -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class JwtDecodingBenchmark {
+    static final int CLIENTS = 1_000;
+    static final int WARMUP = 20_000;
+    static final int REQUESTS = 200_000;
+
+    String[] tokens;
+    JwtDecoder nimbusDecoder;
+    JwtAuthenticationConverter authenticationConverter;
+    JwtGrantedAuthoritiesConverter authoritiesConverter;
+
+    @BeforeAll
+    void setUp() {
+        KeyPair keyPair = KeyGeneratorUtility.generateRsaKey();
+        RSAKey jwk = new RSAKey.Builder((RSAPublicKey) keyPair.getPublic()).privateKey((RSAPrivateKey) keyPair.getPrivate()).build();
+        JwtEncoder encoder = new NimbusJwtEncoder(new ImmutableJWKSet<>(new JWKSet(jwk)));
+        nimbusDecoder = NimbusJwtDecoder.withPublicKey((RSAPublicKey) keyPair.getPublic()).build();
+
+        authoritiesConverter = new JwtGrantedAuthoritiesConverter();
+        authoritiesConverter.setAuthoritiesClaimName("roles");
+        authoritiesConverter.setAuthorityPrefix("ROLE_");
+        authenticationConverter = new JwtAuthenticationConverter();
+        authenticationConverter.setJwtGrantedAuthoritiesConverter(authoritiesConverter);
+
+        // The same claims JWTTokenService issues
+        tokens = new String[CLIENTS];
+        for (int c = 0; c < CLIENTS; c++) {
+            JwtClaimsSet claims = JwtClaimsSet.builder()
+                    .issuer("self")
+                    .issuedAt(Instant.now())
+                    .subject("user" + c)
+                    .claim("roles", "USER")
+                    .claim("id", UUID.randomUUID())
+                    .expiresAt(Instant.now().plus(10, ChronoUnit.MINUTES))
+                    .build();
+            tokens[c] = encoder.encode(JwtEncoderParameters.from(claims)).getTokenValue();
+        }
+    }
+
+    @Test
+    void authenticate_nimbusDecoder() {
+        report("NimbusJwtDecoder", nimbusDecoder, authenticationConverter);
+    }
+
+    @Test
+    void authenticate_cachingDecoder() {
+        CachingJwtDecoder cachingDecoder = new CachingJwtDecoder(nimbusDecoder, authoritiesConverter, 10_000, new SimpleMeterRegistry());
+        report("CachingJwtDecoder", cachingDecoder, cachingDecoder);
+    }
+
+    private void report(String name, JwtDecoder decoder, Converter<Jwt, ? extends AbstractAuthenticationToken> converter) {
+        Random random = new Random(7);
+        for (int i = 0; i < WARMUP; i++) {
+            converter.convert(decoder.decode(tokens[random.nextInt(CLIENTS)]));
+        }
+
+        long[] timings = new long[REQUESTS];
+        int authenticated = 0;
+        for (int i = 0; i < REQUESTS; i++) {
+            String token = tokens[random.nextInt(CLIENTS)];
+            long start = System.nanoTime();
+            AbstractAuthenticationToken authentication = converter.convert(decoder.decode(token));
+            timings[i] = System.nanoTime() - start;
+            if (authentication.isAuthenticated()) authenticated++;
+        }
+        Arrays.sort(timings);
+        System.out.printf("%-20s p50 %6d ns  p99 %7d ns  mean %6d ns%n", name,
+                timings[REQUESTS / 2], timings[REQUESTS * 99 / 100], Arrays.stream(timings).sum() / REQUESTS);
+        assertThat(authenticated).isEqualTo(REQUESTS);
+    }
+}
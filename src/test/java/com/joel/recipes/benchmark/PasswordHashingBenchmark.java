@@ -0,0 +1,43 @@
+package com.joel.recipes.benchmark;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+    Time one bcrypt hash takes on this machine at each strength, for choosing security.password.bcrypt-strength:
+    a login costs one hash, and a burst of them can keep security.password.hashing.workers cores busy at once.
+    Skipped during normal builds; run with: mvn test -Dtest=PasswordHashingBenchmark -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class PasswordHashingBenchmark {
+    static final int WARMUP = 5;
+    static final int HASHES = 20;
+
+    @Test
+    void matches_byStrength() {
+        for (int strength = 8; strength <= 13; strength++) {
+            BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+            String hash = encoder.encode("#Password123");
+            for (int i = 0; i < WARMUP; i++) {
+                encoder.matches("#Password123", hash);
+            }
+
+            long[] timings = new long[HASHES];
+            int matched = 0;
+            for (int i = 0; i < HASHES; i++) {
+                long start = System.nanoTime();
+                if (encoder.matches("#Password123", hash)) matched++;
+                timings[i] = System.nanoTime() - start;
+            }
+            Arrays.sort(timings);
+            System.out.printf("strength %2d  p50 %7.1f ms  p99 %7.1f ms%n", strength,
+                    timings[HASHES / 2] / 1e6, timings[HASHES * 99 / 100] / 1e6);
+            assertThat(matched).isEqualTo(HASHES);
+        }
+    }
+}
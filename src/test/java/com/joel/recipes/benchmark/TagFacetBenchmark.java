@@ -0,0 +1,92 @@
+package com.joel.recipes.benchmark;
+
+import com.joel.recipes.util.bitmap.RoaringBitmap;
+import com.joel.recipes.util.search.TermBitmapIndex;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+    Tag facet counting over 1M recipes with a Zipf-like tag distribution (a few very common tags, a long tail).
+    Skipped during normal builds; run with: mvn test -Dtest=TagFacetBenchmark -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class TagFacetBenchmark {
+    static final int RECIPES = 1_000_000;
+    static final int TAGS = 500;
+    static final int WARMUP_ITERATIONS = 20;
+    static final int MEASURED_ITERATIONS = 100;
+
+    TermBitmapIndex tagIndex;
+
+    @BeforeAll
+    void setUp() {
+        Random random = new Random(7);
+        double[] cumulative = new double[TAGS];
+        double total = 0;
+        for (int i = 0; i < TAGS; i++) {
+            total += 1.0 / (i + 1);
+            cumulative[i] = total;
+        }
+
+        tagIndex = new TermBitmapIndex();
+        long start = System.nanoTime();
+        for (int recipe = 0; recipe < RECIPES; recipe++) {
+            Set<String> tags = new HashSet<>();
+            int tagCount = 3 + random.nextInt(6);
+            while (tags.size() < tagCount) {
+                int index = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+                tags.add("tag-" + (index < 0 ? -index - 1 : index));
+            }
+            tagIndex.put(recipe, tags);
+        }
+        System.out.printf("Indexed %,d recipes in %d ms%n", RECIPES, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Test
+    void countTerms_noFilter() {
+        report("no filter", () -> tagIndex.countTerms(null, 50));
+    }
+
+    @Test
+    void countTerms_commonTagFilter() {
+        RoaringBitmap filter = tagIndex.matchAll(List.of("tag-0"));
+        report("filter tag-0 (" + filter.cardinality() + " recipes)", () -> tagIndex.countTerms(filter, 50));
+    }
+
+    @Test
+    void countTerms_twoTagFilter() {
+        RoaringBitmap filter = tagIndex.matchAll(List.of("tag-0", "tag-3"));
+        report("filter tag-0 AND tag-3 (" + filter.cardinality() + " recipes)", () -> tagIndex.countTerms(filter, 50));
+    }
+
+    @Test
+    void countTerms_rareTagFilter() {
+        RoaringBitmap filter = tagIndex.matchAll(List.of("tag-400"));
+        report("filter tag-400 (" + filter.cardinality() + " recipes)", () -> tagIndex.countTerms(filter, 50));
+    }
+
+    private void report(String name, Supplier<List<TermBitmapIndex.TermCount>> facetQuery) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            facetQuery.get();
+        }
+
+        long[] timings = new long[MEASURED_ITERATIONS];
+        List<TermBitmapIndex.TermCount> result = List.of();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            long start = System.nanoTime();
+            result = facetQuery.get();
+            timings[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(timings);
+        System.out.printf("%-45s p50 %8d us   p99 %8d us%n", name, timings[MEASURED_ITERATIONS / 2] / 1_000, timings[MEASURED_ITERATIONS * 99 / 100] / 1_000);
+        assertThat(result).isNotEmpty();
+    }
+}
@@ -0,0 +1,87 @@
+package com.joel.recipes.config.security;
+
+import com.joel.recipes.exception.PasswordHashingUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BoundedPasswordEncoderTest {
+    SimpleMeterRegistry meterRegistry;
+    PasswordEncoder delegate;
+    BoundedPasswordEncoder encoder;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        delegate = mock(PasswordEncoder.class);
+        encoder = new BoundedPasswordEncoder(delegate, 1, 1, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        encoder.shutdown();
+    }
+
+    @Test
+    void encodeAndMatches_hashOnWorkerThreadAndRecordTime() {
+        // Arrange
+        BoundedPasswordEncoder bcrypt = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), 2, 10, meterRegistry);
+
+        // Act
+        String hash = bcrypt.encode("#Password123");
+        boolean matches = bcrypt.matches("#Password123", hash);
+        boolean wrongMatches = bcrypt.matches("#Password124", hash);
+        bcrypt.shutdown();
+
+        // Assert
+        assertThat(matches).isTrue();
+        assertThat(wrongMatches).isFalse();
+        assertThat(meterRegistry.get("security.password.hashing.duration").timer().count()).isEqualTo(3);
+    }
+
+    @Test
+    void encode_queueFull_rejectedWithoutWaiting() throws Exception {
+        // Arrange
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(delegate.encode("busy")).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return "hash";
+        });
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("busy"));
+        started.await(5, TimeUnit.SECONDS);
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encoder.encode("busy"));
+        while (meterRegistry.get("security.password.hashing.queue.depth").gauge().value() < 1) Thread.onSpinWait();
+
+        // Act and Assert
+        assertThatExceptionOfType(PasswordHashingUnavailableException.class).isThrownBy(() -> encoder.encode("busy"));
+        assertThat(meterRegistry.get("security.password.hashing.rejected").counter().count()).isEqualTo(1);
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("hash");
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("hash");
+    }
+
+    @Test
+    void matches_delegateThrows_sameExceptionRethrown() {
+        // Arrange
+        when(delegate.matches("#Password123", "hash")).thenThrow(new IllegalArgumentException("Invalid hash"));
+
+        // Act and Assert
+        assertThatExceptionOfType(IllegalArgumentException.class)
+                .isThrownBy(() -> encoder.matches("#Password123", "hash"))
+                .withMessage("Invalid hash");
+    }
+}
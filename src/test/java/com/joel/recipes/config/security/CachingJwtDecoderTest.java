@@ -0,0 +1,110 @@
+package com.joel.recipes.config.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CachingJwtDecoderTest {
+    static final Instant START = Instant.parse("2026-01-01T00:00:00Z");
+
+    final AtomicLong elapsedNanos = new AtomicLong();
+    JwtDecoder delegate;
+    CachingJwtDecoder decoder;
+
+    @BeforeEach
+    void setUp() {
+        delegate = mock(JwtDecoder.class);
+        Clock clock = new Clock() {
+            @Override
+            public ZoneId getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return START.plusNanos(elapsedNanos.get());
+            }
+        };
+        JwtGrantedAuthoritiesConverter authoritiesConverter = new JwtGrantedAuthoritiesConverter();
+        authoritiesConverter.setAuthoritiesClaimName("roles");
+        authoritiesConverter.setAuthorityPrefix("ROLE_");
+        decoder = new CachingJwtDecoder(delegate, authoritiesConverter, 100, clock, elapsedNanos::get);
+    }
+
+    @Test
+    void decode_sameTokenTwice_verifiedOnce() {
+        // Arrange
+        Jwt jwt = jwt("token", START.plusSeconds(600));
+        when(delegate.decode("token")).thenReturn(jwt);
+
+        // Act
+        Jwt first = decoder.decode("token");
+        Jwt second = decoder.decode("token");
+        AbstractAuthenticationToken authentication = decoder.convert(second);
+
+        // Assert
+        assertThat(second).isSameAs(first);
+        verify(delegate, times(1)).decode("token");
+        assertThat(authentication.getName()).isEqualTo("user");
+        assertThat(authentication.getAuthorities()).extracting("authority").containsExactly("ROLE_USER");
+    }
+
+    @Test
+    void decode_afterExpiry_verifiedAgain() {
+        // Arrange
+        when(delegate.decode("token")).thenReturn(jwt("token", START.plusSeconds(600)));
+        decoder.decode("token");
+        elapsedNanos.addAndGet(Duration.ofSeconds(601).toNanos());
+
+        // Act
+        decoder.decode("token");
+
+        // Assert
+        verify(delegate, times(2)).decode("token");
+    }
+
+    @Test
+    void decode_invalidToken_notCached() {
+        // Arrange
+        when(delegate.decode("forged")).thenThrow(new BadJwtException("Invalid signature"));
+
+        // Act and assert
+        for (int i = 0; i < 2; i++) {
+            assertThatExceptionOfType(BadJwtException.class).isThrownBy(() -> decoder.decode("forged"));
+        }
+        verify(delegate, times(2)).decode("forged");
+    }
+
+    static Jwt jwt(String token, Instant expiresAt) {
+        return Jwt.withTokenValue(token)
+                .header("alg", "RS256")
+                .subject("user")
+                .claim("roles", "USER")
+                .issuedAt(START)
+                .expiresAt(expiresAt)
+                .build();
+    }
+}
@@ -0,0 +1,85 @@
+package com.joel.recipes.config.security;
+
+import com.joel.recipes.util.dictionary.TermDictionary;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+// Each KeyRing stands for an instance of the application; rings created with a later clock are instances later on
+@DataJpaTest
+@Import(TermDictionary.class)
+class KeyRingTest {
+    static final Duration ROTATION_INTERVAL = Duration.ofHours(24);
+    static final Instant START = Instant.parse("2026-01-01T12:00:00Z");
+
+    @Autowired
+    DataSource dataSource;
+
+    @Test
+    void signingKey_twoInstances_acceptEachOthersTokens() {
+        // Arrange
+        KeyRing first = keyRingAt(START, SigningAlgorithm.ES256);
+        KeyRing second = keyRingAt(START, SigningAlgorithm.ES256);
+
+        // Act
+        String token = sign(first);
+
+        // Assert
+        assertThat(second.signingKey().kid()).isEqualTo(first.signingKey().kid());
+        assertThat(second.jwtDecoder().decode(token).getSubject()).isEqualTo("user");
+        assertThat(second.publicJwks().getKeys()).hasSize(2).noneMatch(jwk -> jwk.isPrivate());
+        assertThat(new JdbcTemplate(dataSource).queryForList("select private_jwk from signing_key", String.class))
+                .allMatch(privateJwk -> privateJwk.startsWith("aes-gcm:"));
+        assertThat(new JdbcTemplate(dataSource).queryForList("select algorithm from signing_key", String.class))
+                .containsOnly("ES256");
+    }
+
+    @Test
+    void signingKey_afterRotation_newKeyAndOldTokensAcceptedForOnePeriod() {
+        // Arrange
+        String token = sign(keyRingAt(START, SigningAlgorithm.RS256));
+        KeyRing nextPeriod = keyRingAt(START.plus(ROTATION_INTERVAL), SigningAlgorithm.EdDSA);
+
+        // Act
+        String nextToken = sign(nextPeriod);
+        KeyRing twoPeriodsLater = keyRingAt(START.plus(ROTATION_INTERVAL.multipliedBy(2)), SigningAlgorithm.EdDSA);
+        twoPeriodsLater.refresh();
+
+        // Assert
+        assertThat(nextPeriod.jwtDecoder().decode(token).getSubject()).isEqualTo("user");
+        // The next period's key was created by the first ring, before the algorithm changed
+        assertThat(nextPeriod.jwtDecoder().decode(nextToken).getHeaders()).containsEntry("alg", "RS256");
+        assertThat(twoPeriodsLater.signingKey().algorithm()).isEqualTo(SigningAlgorithm.EdDSA);
+        assertThatExceptionOfType(BadJwtException.class).isThrownBy(() -> twoPeriodsLater.jwtDecoder().decode(token));
+    }
+
+    KeyRing keyRingAt(Instant instant, SigningAlgorithm algorithm) {
+        return new KeyRing(dataSource, algorithm, ROTATION_INTERVAL, "secret", Clock.fixed(instant, ZoneOffset.UTC));
+    }
+
+    // Tokens are checked against the real time, so they are issued now whatever the ring's clock says
+    static String sign(KeyRing keyRing) {
+        JwtClaimsSet claims = JwtClaimsSet.builder()
+                .issuer("self")
+                .issuedAt(Instant.now())
+                .subject("user")
+                .expiresAt(Instant.now().plus(10, ChronoUnit.MINUTES))
+                .build();
+        return new KeyRingJwtEncoder(keyRing).encode(JwtEncoderParameters.from(claims)).getTokenValue();
+    }
+}
@@ -0,0 +1,32 @@
+package com.joel.recipes.config.security;
+
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSObject;
+import com.nimbusds.jose.Payload;
+import com.nimbusds.jose.jwk.JWK;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.security.KeyPair;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SigningAlgorithmTest {
+    @ParameterizedTest
+    @EnumSource(SigningAlgorithm.class)
+    void toKeyPair_storedJwk_signsAndVerifies(SigningAlgorithm algorithm) throws Exception {
+        // Arrange
+        JWK stored = JWK.parse(algorithm.toJwk("kid", algorithm.generate()).toJSONString());
+        KeyPair keyPair = algorithm.toKeyPair(stored);
+        JWSObject jws = new JWSObject(new JWSHeader.Builder(algorithm.jwsAlgorithm()).keyID("kid").build(), new Payload("claims"));
+
+        // Act
+        jws.sign(algorithm.signer(keyPair.getPrivate()));
+        JWSObject parsed = JWSObject.parse(jws.serialize());
+
+        // Assert
+        assertThat(stored.toPublicJWK().isPrivate()).isFalse();
+        assertThat(parsed.verify(algorithm.verifier(keyPair.getPublic()))).isTrue();
+        assertThat(parsed.verify(algorithm.verifier(algorithm.generate().getPublic()))).isFalse();
+    }
+}
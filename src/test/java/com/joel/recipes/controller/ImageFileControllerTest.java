@@ -0,0 +1,131 @@
+package com.joel.recipes.controller;
+
+import com.joel.recipes.controller.errorhandler.ImageErrorHandler;
+import com.joel.recipes.util.storage.FileSystemImageStorage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+class ImageFileControllerTest {
+    private static final String HASH = "ab12cd34";
+    private static final String URL = "/api/v1/image/ab/" + HASH + ".png";
+    private static final byte[] CONTENT = "0123456789".getBytes();
+
+    @TempDir
+    Path root;
+
+    private FileSystemImageStorage imageStorage;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        imageStorage = new FileSystemImageStorage(root, "/api/v1/image/", "/api/v1/image/upload/", "signing-key");
+        Files.createDirectories(root.resolve("ab"));
+        Files.write(root.resolve("ab/" + HASH + ".png"), CONTENT);
+        mockMvc = MockMvcBuilders.standaloneSetup(new ImageFileController(imageStorage, 1024))
+                .setControllerAdvice(new ImageErrorHandler())
+                .addPlaceholderValue("api", "api/v1/")
+                .build();
+    }
+
+    @Test
+    void serveImage_imageExists_sendsImageWithStrongETag() throws Exception {
+        // Act
+        MockHttpServletResponse response = mockMvc.perform(get(URL)).andReturn().getResponse();
+
+        // Assert
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsByteArray()).isEqualTo(CONTENT);
+        assertThat(response.getContentType()).isEqualTo("image/png");
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo("\"" + HASH + "\"");
+        assertThat(response.getHeader(HttpHeaders.CACHE_CONTROL)).contains("immutable");
+    }
+
+    @Test
+    void serveImage_ifNoneMatchesETag_notModified() throws Exception {
+        // Act
+        MockHttpServletResponse response = mockMvc.perform(get(URL).header(HttpHeaders.IF_NONE_MATCH, "\"other\", W/\"" + HASH + "\""))
+                .andReturn().getResponse();
+
+        // Assert
+        assertThat(response.getStatus()).isEqualTo(304);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    void serveImage_range_sendsPartialContent() throws Exception {
+        // Act
+        MockHttpServletResponse response = mockMvc.perform(get(URL).header(HttpHeaders.RANGE, "bytes=2-5"))
+                .andReturn().getResponse();
+
+        // Assert
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getContentAsString()).isEqualTo("2345");
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 2-5/10");
+    }
+
+    @Test
+    void serveImage_rangeAfterEnd_notSatisfiable() throws Exception {
+        // Act
+        MockHttpServletResponse response = mockMvc.perform(get(URL).header(HttpHeaders.RANGE, "bytes=20-"))
+                .andReturn().getResponse();
+
+        // Assert
+        assertThat(response.getStatus()).isEqualTo(416);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */10");
+    }
+
+    @Test
+    void serveImage_missingImage_notFound() throws Exception {
+        // Act
+        MockHttpServletResponse response = mockMvc.perform(get("/api/v1/image/ab/missing.png")).andReturn().getResponse();
+
+        // Assert
+        assertThat(response.getStatus()).isEqualTo(404);
+    }
+
+    @Test
+    void receiveUpload_signedUrl_uploadStored() throws Exception {
+        // Arrange
+        UUID uploadId = UUID.randomUUID();
+        String url = imageStorage.uploadTargetOf(uploadId, Instant.now().plusSeconds(60)).url();
+
+        // Act
+        MockHttpServletResponse response = mockMvc.perform(put(url).contentType(MediaType.IMAGE_PNG).content(CONTENT))
+                .andReturn().getResponse();
+
+        // Assert
+        assertThat(response.getStatus()).isEqualTo(201);
+        assertThat(imageStorage.uploadSizeOf(uploadId)).hasValue(CONTENT.length);
+    }
+
+    @Test
+    void receiveUpload_urlForAnotherUpload_forbidden() throws Exception {
+        // Arrange
+        UUID uploadId = UUID.randomUUID();
+        String url = imageStorage.uploadTargetOf(UUID.randomUUID(), Instant.now().plusSeconds(60)).url();
+        String otherUrl = "/api/v1/image/upload/" + uploadId + url.substring(url.indexOf('?'));
+
+        // Act
+        MockHttpServletResponse response = mockMvc.perform(put(otherUrl).content(CONTENT)).andReturn().getResponse();
+
+        // Assert
+        assertThat(response.getStatus()).isEqualTo(403);
+        assertThat(imageStorage.uploadSizeOf(uploadId)).isEmpty();
+    }
+}
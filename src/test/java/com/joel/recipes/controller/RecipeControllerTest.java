@@ -0,0 +1,109 @@
+package com.joel.recipes.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.joel.recipes.controller.errorhandler.RecipeErrorHandler;
+import com.joel.recipes.dto.RecipeExportDto;
+import com.joel.recipes.service.RecipeExportService;
+import com.joel.recipes.service.RecipeImportService;
+import com.joel.recipes.service.RecipeService;
+import com.joel.recipes.service.SimilarRecipeService;
+import com.joel.recipes.service.ViewService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+class RecipeControllerTest {
+    private static final String EXPORT_URL = "/api/v1/recipe/export";
+
+    @Mock
+    RecipeService recipeService;
+    @Mock
+    ViewService viewService;
+    @Mock
+    RecipeImportService recipeImportService;
+    @Mock
+    RecipeExportService recipeExportService;
+    @Mock
+    SimilarRecipeService similarRecipeService;
+    AutoCloseable autoCloseable;
+    MockMvc mockMvc;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        autoCloseable = MockitoAnnotations.openMocks(this);
+        RecipeController recipeController = new RecipeController(recipeService, viewService, recipeImportService, recipeExportService, similarRecipeService, new ObjectMapper());
+        mockMvc = MockMvcBuilders.standaloneSetup(recipeController)
+                .setControllerAdvice(new RecipeErrorHandler())
+                .addPlaceholderValue("api", "api/v1/")
+                .build();
+
+        RecipeExportDto recipe = new RecipeExportDto(UUID.randomUUID(), "Pasta", "Quick", List.of("pasta"), "Boil it", List.of("dinner"), "10 minutes",
+                new Timestamp(1_700_000_000_000L), UUID.randomUUID(), "john123", null);
+        when(recipeExportService.exportRecipes(any(), any(), any())).thenAnswer(invocation -> {
+            invocation.getArgument(2, Consumer.class).accept(recipe);
+            return 1L;
+        });
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        autoCloseable.close();
+    }
+
+    @Test
+    void exportRecipes_noFormat_ndjson() throws Exception {
+        // Act
+        MockHttpServletResponse response = export(EXPORT_URL);
+
+        // Assert
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentType()).startsWith("application/x-ndjson");
+        assertThat(response.getHeader(HttpHeaders.CONTENT_DISPOSITION)).contains("recipes.ndjson");
+        assertThat(response.getContentAsString()).contains("\"title\":\"Pasta\"");
+    }
+
+    @Test
+    void exportRecipes_lowerCaseCsv_csv() throws Exception {
+        // Act
+        MockHttpServletResponse response = export(EXPORT_URL + "?format=csv");
+
+        // Assert
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentType()).startsWith("text/csv");
+        assertThat(response.getContentAsString()).startsWith("id,title,").contains("Pasta");
+    }
+
+    @Test
+    void exportRecipes_unknownFormat_badRequest() throws Exception {
+        // Act
+        MockHttpServletResponse response = mockMvc.perform(get(EXPORT_URL + "?format=xml")).andReturn().getResponse();
+
+        // Assert
+        assertThat(response.getStatus()).isEqualTo(400);
+    }
+
+    // The body is streamed, so it is only written once the async part of the request is dispatched
+    MockHttpServletResponse export(String url) throws Exception {
+        MvcResult result = mockMvc.perform(get(url)).andReturn();
+        return mockMvc.perform(asyncDispatch(result)).andReturn().getResponse();
+    }
+}
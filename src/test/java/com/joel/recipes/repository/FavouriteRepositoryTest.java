@@ -0,0 +1,85 @@
+package com.joel.recipes.repository;
+
+import com.joel.recipes.dto.FavouriteSummaryDto;
+import com.joel.recipes.model.Favourite;
+import com.joel.recipes.model.Recipe;
+import com.joel.recipes.util.dictionary.TermDictionary;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import(TermDictionary.class)
+class FavouriteRepositoryTest {
+
+    @Autowired
+    FavouriteRepository favouriteRepository;
+    @Autowired
+    RecipeRepository recipeRepository;
+    @Autowired
+    TestEntityManager entityManager;
+
+    final UUID userId = UUID.randomUUID();
+    List<Recipe> recipes = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 5; i++) {
+            Recipe recipe = recipeRepository.save(Recipe.builder().title("Recipe " + i).timeAdded(new Timestamp(0)).build());
+            recipes.add(recipe);
+            favouriteRepository.save(Favourite.builder()
+                    .userId(userId)
+                    .recipeId(recipe.getId())
+                    .timeAdded(new Timestamp(1_700_000_000_000L + i * 1000L))
+                    .build());
+        }
+        favouriteRepository.save(Favourite.builder().userId(UUID.randomUUID()).recipeId(recipes.get(0).getId()).timeAdded(new Timestamp(0)).build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        favouriteRepository.deleteAll();
+        recipeRepository.deleteAll();
+    }
+
+    @Test
+    void findFavouriteSummariesAfter_pagesThroughUsersFavouritesNewestFirst() {
+        // Act
+        List<FavouriteSummaryDto> firstPage = favouriteRepository.findFavouriteSummaries(userId, Limit.of(3));
+        FavouriteSummaryDto last = firstPage.get(firstPage.size() - 1);
+        List<FavouriteSummaryDto> secondPage = favouriteRepository.findFavouriteSummariesAfter(userId, last.favouritedAt(), last.id(), Limit.of(3));
+
+        // Assert
+        assertThat(firstPage).extracting(FavouriteSummaryDto::title).containsExactly("Recipe 4", "Recipe 3", "Recipe 2");
+        assertThat(secondPage).extracting(FavouriteSummaryDto::title).containsExactly("Recipe 1", "Recipe 0");
+    }
+
+    @Test
+    void addToFavouriteCount_updatesCountWithoutLoadingRecipe() {
+        // Arrange
+        UUID recipeId = recipes.get(0).getId();
+        entityManager.flush();
+
+        // Act
+        recipeRepository.addToFavouriteCount(recipeId, 1);
+        recipeRepository.addToFavouriteCount(recipeId, 1);
+        entityManager.clear();
+
+        // Assert
+        assertThat(recipeRepository.findById(recipeId).orElseThrow().getFavouriteCount()).isEqualTo(2);
+        assertThat(favouriteRepository.deleteFavourite(userId, recipeId)).isEqualTo(1);
+        assertThat(favouriteRepository.deleteFavourite(userId, recipeId)).isZero();
+    }
+}
@@ -0,0 +1,104 @@
+package com.joel.recipes.repository;
+
+import com.joel.recipes.dto.RecipeCommentDto;
+import com.joel.recipes.model.AccountStatus;
+import com.joel.recipes.model.Recipe;
+import com.joel.recipes.model.RecipeComment;
+import com.joel.recipes.model.UserEntity;
+import com.joel.recipes.util.dictionary.TermDictionary;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import(TermDictionary.class)
+class RecipeCommentRepositoryTest {
+
+    @Autowired
+    RecipeCommentRepository recipeCommentRepository;
+    @Autowired
+    RecipeRepository recipeRepository;
+    @Autowired
+    UserEntityRepository userEntityRepository;
+    Recipe recipe;
+    Recipe otherRecipe;
+
+    @BeforeEach
+    void setUp() {
+        recipe = recipeRepository.save(Recipe.builder().title("Pasta").timeAdded(new Timestamp(0)).build());
+        otherRecipe = recipeRepository.save(Recipe.builder().title("Soup").timeAdded(new Timestamp(0)).build());
+        for (int i = 0; i < 7; i++) {
+            recipeCommentRepository.save(RecipeComment.builder()
+                    .comment("Comment " + i)
+                    .timeAdded(new Timestamp(1_700_000_000_000L + i * 1000L))
+                    .recipe(recipe)
+                    .build());
+        }
+        recipeCommentRepository.save(RecipeComment.builder().comment("Elsewhere").timeAdded(new Timestamp(0)).recipe(otherRecipe).build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        recipeCommentRepository.deleteAll();
+        recipeRepository.deleteAll();
+        userEntityRepository.deleteAll();
+    }
+
+    @Test
+    void findCommentsAfter_continuesFromCursor() {
+        // Act
+        List<RecipeCommentDto> firstPage = recipeCommentRepository.findComments(recipe.getId(), Limit.of(4));
+        RecipeCommentDto last = firstPage.get(firstPage.size() - 1);
+        List<RecipeCommentDto> secondPage = recipeCommentRepository.findCommentsAfter(recipe.getId(), last.timeAdded(), last.id(), Limit.of(4));
+
+        // Assert
+        assertThat(firstPage).extracting(RecipeCommentDto::comment).containsExactly("Comment 6", "Comment 5", "Comment 4", "Comment 3");
+        assertThat(secondPage).extracting(RecipeCommentDto::comment).containsExactly("Comment 2", "Comment 1", "Comment 0");
+    }
+
+    @Test
+    void streamComments_returnsOnlyThatRecipesComments() {
+        // Act
+        List<String> comments;
+        try (Stream<RecipeCommentDto> stream = recipeCommentRepository.streamComments(recipe.getId())) {
+            comments = stream.map(RecipeCommentDto::comment).toList();
+        }
+
+        // Assert
+        assertThat(comments).hasSize(7).doesNotContain("Elsewhere");
+    }
+
+    @Test
+    void deleteComment_throughAnotherRecipe_nothingDeleted() {
+        // Arrange
+        UserEntity user = userEntityRepository.save(UserEntity.builder()
+                .username("john123")
+                .email("john@example.com")
+                .accountStatus(AccountStatus.ACTIVE)
+                .build());
+        RecipeComment comment = recipeCommentRepository.save(RecipeComment.builder()
+                .comment("Mine")
+                .timeAdded(new Timestamp(0))
+                .recipe(recipe)
+                .user(user)
+                .build());
+
+        // Act
+        int deletedThroughOtherRecipe = recipeCommentRepository.deleteComment(comment.getId(), user.getId(), otherRecipe.getId());
+        int deleted = recipeCommentRepository.deleteComment(comment.getId(), user.getId(), recipe.getId());
+
+        // Assert
+        assertThat(deletedThroughOtherRecipe).isZero();
+        assertThat(deleted).isEqualTo(1);
+    }
+}
@@ -0,0 +1,211 @@
+package com.joel.recipes.repository;
+
+import com.joel.recipes.dto.RecipeExportDto;
+import com.joel.recipes.dto.RecipeSummaryDto;
+import com.joel.recipes.dto.RecipeTermDto;
+import com.joel.recipes.model.AccountStatus;
+import com.joel.recipes.model.ImageProcessingStatus;
+import com.joel.recipes.model.ImageVariant;
+import com.joel.recipes.model.Recipe;
+import com.joel.recipes.model.RecipeDocument;
+import com.joel.recipes.model.RecipeImage;
+import com.joel.recipes.model.Subscription;
+import com.joel.recipes.model.UserEntity;
+import com.joel.recipes.util.dictionary.TermDictionary;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+// Recipe's TermConverter needs the dictionary, which is not part of the JPA slice
+@Import(TermDictionary.class)
+class RecipeRepositoryTest {
+
+    @Autowired
+    RecipeRepository recipeRepository;
+    @Autowired
+    UserEntityRepository userEntityRepository;
+    @Autowired
+    SubscriptionRepository subscriptionRepository;
+    @Autowired
+    RecipeImageRepository recipeImageRepository;
+    @Autowired
+    TermDictionary termDictionary;
+    @Autowired
+    TestEntityManager entityManager;
+    UserEntity creator;
+
+    @BeforeEach
+    void setUp() {
+        creator = userEntityRepository.save(UserEntity.builder()
+                .username("john123")
+                .email("john@example.com")
+                .accountStatus(AccountStatus.ACTIVE)
+                .build());
+
+        termDictionary.register(IntStream.range(0, 10).mapToObj(i -> "ingredient " + i).toList());
+        // Two recipes per timestamp, so ties have to be broken by id
+        for (int i = 0; i < 10; i++) {
+            recipeRepository.save(Recipe.builder()
+                    .title("Recipe " + i)
+                    .timeAdded(new Timestamp(1_700_000_000_000L + (i / 2) * 1000L))
+                    .creator(i % 2 == 0 ? creator : null)
+                    .ingredients(Set.of("ingredient " + i))
+                    .build());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        subscriptionRepository.deleteAll();
+        recipeRepository.deleteAll();
+        userEntityRepository.deleteAll();
+    }
+
+    @Test
+    void findRecipeSummariesAfter_walksEveryRecipeOnceNewestFirst() {
+        // Act
+        List<RecipeSummaryDto> all = new ArrayList<>();
+        List<RecipeSummaryDto> page = recipeRepository.findRecipeSummaries(Limit.of(3));
+        while (!page.isEmpty()) {
+            all.addAll(page);
+            RecipeSummaryDto last = page.get(page.size() - 1);
+            page = recipeRepository.findRecipeSummariesAfter(last.timeAdded(), last.id(), Limit.of(3));
+        }
+
+        // Assert
+        assertThat(all).hasSize(10);
+        assertThat(all).extracting(RecipeSummaryDto::id).doesNotHaveDuplicates();
+        assertThat(all).extracting(RecipeSummaryDto::timeAdded).isSortedAccordingTo((a, b) -> b.compareTo(a));
+    }
+
+    @Test
+    void findRecipeDocumentsAfter_walksEveryRecipeOnceInIdOrder() {
+        // Act
+        List<RecipeDocument> all = new ArrayList<>();
+        List<RecipeDocument> chunk = recipeRepository.findRecipeDocuments(Limit.of(3));
+        while (!chunk.isEmpty()) {
+            all.addAll(chunk);
+            chunk = recipeRepository.findRecipeDocumentsAfter(chunk.get(chunk.size() - 1).id(), Limit.of(3));
+        }
+
+        // Assert
+        assertThat(all).extracting(RecipeDocument::title).hasSize(10).doesNotHaveDuplicates();
+        assertThat(all).filteredOn(document -> document.title().equals("Recipe 0"))
+                .singleElement()
+                .satisfies(document -> assertThat(document.creatorId()).isEqualTo(creator.getId()));
+    }
+
+    @Test
+    void findRecipeSummariesByCreatorAfter_onlyThatCreatorsRecipes() {
+        // Act
+        List<RecipeSummaryDto> firstPage = recipeRepository.findRecipeSummariesByCreator(creator.getId(), Limit.of(4));
+        RecipeSummaryDto last = firstPage.get(firstPage.size() - 1);
+        List<RecipeSummaryDto> secondPage = recipeRepository.findRecipeSummariesByCreatorAfter(creator.getId(), last.timeAdded(), last.id(), Limit.of(4));
+
+        // Assert
+        assertThat(firstPage).hasSize(4);
+        assertThat(secondPage).extracting(RecipeSummaryDto::title).containsExactly("Recipe 0");
+        assertThat(firstPage).extracting(RecipeSummaryDto::creatorUsername).containsOnly("john123");
+    }
+
+    @Test
+    void streamRecipeExport_timeAddedRange_oldestFirstWithinRange() {
+        // Arrange
+        Timestamp from = new Timestamp(1_700_000_001_000L);
+        Timestamp to = new Timestamp(1_700_000_003_000L);
+
+        // Act
+        List<RecipeExportDto> exported;
+        try (Stream<RecipeExportDto> recipes = recipeRepository.streamRecipeExport(from, to)) {
+            exported = recipes.toList();
+        }
+        List<RecipeTermDto> ingredients = recipeRepository.findIngredientsByRecipeIds(exported.stream().map(RecipeExportDto::id).toList());
+
+        // Assert
+        assertThat(exported).extracting(RecipeExportDto::title).containsExactlyInAnyOrder("Recipe 2", "Recipe 3", "Recipe 4", "Recipe 5");
+        assertThat(exported).extracting(RecipeExportDto::timeAdded).isSorted();
+        assertThat(ingredients).extracting(RecipeTermDto::term).containsExactlyInAnyOrder("ingredient 2", "ingredient 3", "ingredient 4", "ingredient 5");
+    }
+
+    @Test
+    void findFeedSummaries_subscriberCountRange_onlyMatchingCreators() {
+        // Arrange
+        UserEntity subscriber = userEntityRepository.save(UserEntity.builder().username("jane").email("jane@example.com").build());
+        subscriptionRepository.save(Subscription.builder().creatorId(creator.getId()).subscriberId(subscriber.getId()).build());
+        userEntityRepository.addToSubscriberCount(creator.getId(), 1);
+
+        // Act
+        List<RecipeSummaryDto> pushed = recipeRepository.findFeedSummaries(subscriber.getId(), 0, 1, Limit.of(3));
+        List<RecipeSummaryDto> pulled = recipeRepository.findFeedSummaries(subscriber.getId(), 2, Long.MAX_VALUE, Limit.of(3));
+
+        // Assert
+        assertThat(pushed).extracting(RecipeSummaryDto::title).containsExactly("Recipe 8", "Recipe 6", "Recipe 4");
+        assertThat(pulled).isEmpty();
+    }
+
+    @Test
+    void save_termsAreCanonicalAndSharedBetweenRecipes() {
+        // Arrange
+        termDictionary.register(List.of("Olive  Oil", " olive oil", "Salt", "Vegan", "salt"));
+        Recipe first = recipeRepository.save(Recipe.builder().title("First").ingredients(Set.of("Olive  Oil", " olive oil", "Salt")).tags(Set.of("Vegan")).build());
+        Recipe second = recipeRepository.save(Recipe.builder().title("Second").ingredients(Set.of("salt")).build());
+        entityManager.flush();
+        entityManager.clear();
+
+        // Act
+        Recipe loadedFirst = recipeRepository.findById(first.getId()).orElseThrow();
+        Recipe loadedSecond = recipeRepository.findById(second.getId()).orElseThrow();
+
+        // Assert
+        assertThat(loadedFirst.getIngredients()).containsExactlyInAnyOrder("olive oil", "salt");
+        assertThat(loadedFirst.getTags()).containsExactly("vegan");
+        String salt = loadedSecond.getIngredients().iterator().next();
+        assertThat(loadedFirst.getIngredients()).anySatisfy(ingredient -> assertThat(ingredient).isSameAs(salt));
+        assertThat(termDictionary.nameOf(termDictionary.idOf("SALT"))).isSameAs(salt);
+    }
+
+    @Test
+    void findRecipeDetailsById_severalIngredientsTagsAndVariants_eachVariantOnce() {
+        // Arrange
+        termDictionary.register(List.of("flour", "sugar", "butter", "baking", "dessert", "sweet"));
+        Recipe recipe = recipeRepository.save(Recipe.builder()
+                .title("Shortbread")
+                .ingredients(Set.of("flour", "sugar", "butter"))
+                .tags(Set.of("baking", "dessert", "sweet"))
+                .build());
+        RecipeImage image = recipeImageRepository.save(RecipeImage.builder()
+                .recipe(recipe)
+                .processingStatus(ImageProcessingStatus.READY)
+                .variants(List.of(new ImageVariant(320, 240, "ab/abc-w320.webp", "/images/ab/abc-w320.webp", "image/webp"),
+                        new ImageVariant(640, 480, "ab/abc-w640.webp", "/images/ab/abc-w640.webp", "image/webp"),
+                        new ImageVariant(1280, 960, "ab/abc-w1280.webp", "/images/ab/abc-w1280.webp", "image/webp")))
+                .build());
+        recipe.setImage(image);
+        recipeRepository.save(recipe);
+        entityManager.flush();
+        entityManager.clear();
+
+        // Act
+        Recipe loaded = recipeRepository.findRecipeDetailsById(recipe.getId()).orElseThrow();
+
+        // Assert
+        assertThat(loaded.getImage().getVariants()).extracting(ImageVariant::getWidth).containsExactly(320, 640, 1280);
+        assertThat(loaded.getIngredients()).hasSize(3);
+        assertThat(loaded.getTags()).hasSize(3);
+    }
+}
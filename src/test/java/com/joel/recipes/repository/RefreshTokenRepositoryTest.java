@@ -1,11 +1,13 @@
 package com.joel.recipes.repository;
 
 import com.joel.recipes.model.RefreshToken;
+import com.joel.recipes.util.dictionary.TermDictionary;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
 
 import java.util.NoSuchElementException;
 import java.util.UUID;
@@ -14,19 +16,20 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 
 @DataJpaTest
+@Import(TermDictionary.class)
 class RefreshTokenRepositoryTest {
     @Autowired
     RefreshTokenRepository refreshTokenRepository;
     RefreshToken refreshToken;
 
     final UUID ID = UUID.fromString("5381fce7-8b92-47ce-bbeb-fb7c37166f7f");
-    final UUID TOKEN_VALUE = UUID.fromString("89ef100c-1d0f-4bb3-9295-4b5a6af31c9e");
+    final String TOKEN_HASH = "5f3c6dcbd0d3e1e1d9a8a6a4b0e0c1e6b7f0f5f0e2d6c3a1b9c8d7e6f5a4b3c2";
 
     @BeforeEach
     void setUp() {
         refreshToken = RefreshToken.builder()
                 .id(ID)
-                .tokenValue(TOKEN_VALUE)
+                .tokenHash(TOKEN_HASH)
                 .build();
 
         refreshTokenRepository.save(refreshToken);
@@ -37,23 +40,23 @@ class RefreshTokenRepositoryTest {
     }
 
     @Test
-    void findByTokenValue_tokenFound() {
+    void findByTokenHash_tokenFound() {
         // Arrange and act
-        RefreshToken token = refreshTokenRepository.findByTokenValue(TOKEN_VALUE).orElseThrow();
+        RefreshToken token = refreshTokenRepository.findByTokenHash(TOKEN_HASH).orElseThrow();
 
         // Assert
-        assertThat(token.getTokenValue()).isEqualTo(refreshToken.getTokenValue());
+        assertThat(token.getTokenHash()).isEqualTo(refreshToken.getTokenHash());
         assertThat(token.getId()).isEqualTo(refreshToken.getId());
     }
 
     @Test
-    void findByTokenValue_tokenNotFound_exceptionThrown() {
+    void findByTokenHash_tokenNotFound_exceptionThrown() {
 
-        final UUID tokenNotInDb = UUID.randomUUID();
+        final String tokenNotInDb = "0".repeat(64);
 
         // Assert
         assertThatExceptionOfType(NoSuchElementException.class).isThrownBy(() -> {
-            refreshTokenRepository.findByTokenValue(tokenNotInDb).orElseThrow();
+            refreshTokenRepository.findByTokenHash(tokenNotInDb).orElseThrow();
         });
     }
 }
\ No newline at end of file
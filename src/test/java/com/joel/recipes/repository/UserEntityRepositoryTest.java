@@ -2,11 +2,13 @@ package com.joel.recipes.repository;
 
 import com.joel.recipes.model.AccountStatus;
 import com.joel.recipes.model.UserEntity;
+import com.joel.recipes.util.dictionary.TermDictionary;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
 
 import java.util.NoSuchElementException;
 import java.util.UUID;
@@ -15,6 +17,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 
 @DataJpaTest
+@Import(TermDictionary.class)
 class UserEntityRepositoryTest {
 
     @Autowired
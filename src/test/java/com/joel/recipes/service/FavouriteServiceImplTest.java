@@ -0,0 +1,114 @@
+package com.joel.recipes.service;
+
+import com.joel.recipes.event.FavouriteChangedEvent;
+import com.joel.recipes.exception.RecipeDoesNotExistException;
+import com.joel.recipes.model.Favourite;
+import com.joel.recipes.repository.FavouriteRepository;
+import com.joel.recipes.repository.RecipeRepository;
+import com.joel.recipes.util.search.RecipeOrdinalRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class FavouriteServiceImplTest {
+
+    @Mock
+    FavouriteRepository favouriteRepository;
+    @Mock
+    RecipeRepository recipeRepository;
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+    @Mock
+    PlatformTransactionManager transactionManager;
+    AutoCloseable autoCloseable;
+    FavouriteServiceImpl favouriteService;
+
+    final UUID userId = UUID.randomUUID();
+    final UUID recipeId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        autoCloseable = MockitoAnnotations.openMocks(this);
+        favouriteService = new FavouriteServiceImpl(favouriteRepository, recipeRepository, new RecipeOrdinalRegistry(), eventPublisher,
+                new TransactionTemplate(transactionManager));
+        ReflectionTestUtils.setField(favouriteService, "membershipCacheSize", 10);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        autoCloseable.close();
+    }
+
+    @Test
+    void addFavourite_alreadyFavourite_changesNothing() throws RecipeDoesNotExistException {
+        // Arrange
+        when(recipeRepository.existsById(recipeId)).thenReturn(true);
+        when(favouriteRepository.existsById(new Favourite.Key(userId, recipeId))).thenReturn(true);
+
+        // Act
+        boolean added = favouriteService.addFavourite(userId, recipeId);
+
+        // Assert
+        assertThat(added).isFalse();
+        verify(favouriteRepository, never()).saveAndFlush(any());
+        verify(recipeRepository, never()).addToFavouriteCount(any(), anyLong());
+    }
+
+    @Test
+    void addFavourite_addedConcurrently_changesNothing() throws RecipeDoesNotExistException {
+        // Arrange
+        when(recipeRepository.existsById(recipeId)).thenReturn(true);
+        when(favouriteRepository.existsById(new Favourite.Key(userId, recipeId))).thenReturn(false);
+        when(favouriteRepository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("duplicate key"));
+
+        // Act
+        boolean added = favouriteService.addFavourite(userId, recipeId);
+
+        // Assert
+        assertThat(added).isFalse();
+        verify(recipeRepository, never()).addToFavouriteCount(any(), anyLong());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void addFavourite_recipeDoesNotExist_exceptionIsThrown() {
+        // Arrange
+        when(recipeRepository.existsById(recipeId)).thenReturn(false);
+
+        // Act and assert
+        assertThatExceptionOfType(RecipeDoesNotExistException.class).isThrownBy(() -> favouriteService.addFavourite(userId, recipeId));
+    }
+
+    @Test
+    void findFavourited_loadsOnceAndFollowsChanges() {
+        // Arrange
+        UUID otherRecipeId = UUID.randomUUID();
+        when(favouriteRepository.findRecipeIdsByUserId(userId)).thenReturn(List.of(recipeId));
+
+        // Act
+        List<UUID> before = favouriteService.findFavourited(userId, List.of(otherRecipeId, recipeId));
+        favouriteService.onFavouriteChanged(new FavouriteChangedEvent(userId, otherRecipeId, true));
+        favouriteService.onFavouriteChanged(new FavouriteChangedEvent(userId, recipeId, false));
+        List<UUID> after = favouriteService.findFavourited(userId, List.of(otherRecipeId, recipeId));
+
+        // Assert
+        assertThat(before).containsExactly(recipeId);
+        assertThat(after).containsExactly(otherRecipeId);
+        verify(favouriteRepository, times(1)).findRecipeIdsByUserId(userId);
+    }
+}
@@ -0,0 +1,125 @@
+package com.joel.recipes.service;
+
+import com.joel.recipes.dto.RecipePageDto;
+import com.joel.recipes.dto.RecipeSummaryDto;
+import com.joel.recipes.event.RecipeCreatedEvent;
+import com.joel.recipes.exception.InvalidCursorException;
+import com.joel.recipes.exception.UserEntityDoesNotExistException;
+import com.joel.recipes.model.Subscription;
+import com.joel.recipes.repository.RecipeRepository;
+import com.joel.recipes.repository.SubscriptionRepository;
+import com.joel.recipes.repository.UserEntityRepository;
+import com.joel.recipes.util.search.RecipeOrdinalRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class FeedServiceImplTest {
+    static final long FAN_OUT_THRESHOLD = 100;
+
+    @Mock
+    SubscriptionRepository subscriptionRepository;
+    @Mock
+    UserEntityRepository userEntityRepository;
+    @Mock
+    RecipeRepository recipeRepository;
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+    @Mock
+    PlatformTransactionManager transactionManager;
+    AutoCloseable autoCloseable;
+    FeedServiceImpl feedService;
+
+    final UUID userId = UUID.randomUUID();
+    final UUID creatorId = UUID.randomUUID();
+    final UUID popularCreatorId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        autoCloseable = MockitoAnnotations.openMocks(this);
+        feedService = new FeedServiceImpl(subscriptionRepository, userEntityRepository, recipeRepository, new RecipeOrdinalRegistry(),
+                eventPublisher, transactionManager, new SimpleMeterRegistry(), FAN_OUT_THRESHOLD, 50, 10);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        autoCloseable.close();
+    }
+
+    @Test
+    void subscribe_subscribedConcurrently_changesNothing() throws UserEntityDoesNotExistException {
+        // Arrange
+        when(userEntityRepository.existsById(creatorId)).thenReturn(true);
+        when(subscriptionRepository.existsById(new Subscription.Key(creatorId, userId))).thenReturn(false);
+        when(subscriptionRepository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("duplicate key"));
+
+        // Act
+        boolean subscribed = feedService.subscribe(userId, creatorId);
+
+        // Assert
+        assertThat(subscribed).isFalse();
+        verify(userEntityRepository, never()).addToSubscriberCount(any(), anyLong());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void onRecipeCreated_popularCreator_notPushed() {
+        // Arrange
+        when(userEntityRepository.findSubscriberCount(popularCreatorId)).thenReturn(Optional.of(FAN_OUT_THRESHOLD + 1));
+
+        // Act
+        feedService.onRecipeCreated(new RecipeCreatedEvent(UUID.randomUUID(), popularCreatorId, new Timestamp(1000)));
+
+        // Assert
+        verify(subscriptionRepository, never()).findSubscriberIds(any());
+    }
+
+    @Test
+    void findFeed_mergesTimelineWithPopularCreatorsNewestFirst() throws InvalidCursorException {
+        // Arrange
+        RecipeSummaryDto stored = summary(creatorId, 1000);
+        RecipeSummaryDto popular = summary(popularCreatorId, 2000);
+        RecipeSummaryDto pushed = summary(creatorId, 3000);
+        when(recipeRepository.findFeedSummaries(eq(userId), eq(0L), eq(FAN_OUT_THRESHOLD), any(Limit.class))).thenReturn(List.of(stored));
+        when(recipeRepository.findFeedSummaries(eq(userId), eq(FAN_OUT_THRESHOLD + 1), eq(Long.MAX_VALUE), any(Limit.class))).thenReturn(List.of(popular));
+        when(userEntityRepository.findSubscriberCount(creatorId)).thenReturn(Optional.of(1L));
+        when(subscriptionRepository.findSubscriberIds(creatorId)).thenReturn(List.of(userId));
+        when(recipeRepository.findRecipeSummariesByIds(anyCollection())).thenReturn(List.of(stored, pushed));
+
+        // Act
+        feedService.findFeed(userId, null, 10);
+        feedService.onRecipeCreated(new RecipeCreatedEvent(pushed.id(), creatorId, pushed.timeAdded()));
+        RecipePageDto page = feedService.findFeed(userId, null, 10);
+
+        // Assert
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<UUID>> ids = ArgumentCaptor.forClass(Collection.class);
+        verify(recipeRepository, times(2)).findRecipeSummariesByIds(ids.capture());
+        assertThat(ids.getValue()).containsExactly(pushed.id(), stored.id());
+        verify(recipeRepository, times(1)).findFeedSummaries(eq(userId), eq(0L), eq(FAN_OUT_THRESHOLD), any(Limit.class));
+        assertThat(page.recipes()).containsExactly(pushed, popular, stored);
+        assertThat(page.nextCursor()).isNull();
+    }
+
+    private static RecipeSummaryDto summary(UUID creatorId, long timeAdded) {
+        return new RecipeSummaryDto(UUID.randomUUID(), "Recipe", null, new Timestamp(timeAdded), creatorId, "creator", 0);
+    }
+}
@@ -0,0 +1,142 @@
+package com.joel.recipes.service;
+
+import com.joel.recipes.event.RecipeImageChangedEvent;
+import com.joel.recipes.event.RecipeSavedEvent;
+import com.joel.recipes.model.ImageProcessingStatus;
+import com.joel.recipes.model.ImageVariant;
+import com.joel.recipes.model.Recipe;
+import com.joel.recipes.model.RecipeImage;
+import com.joel.recipes.repository.RecipeImageRepository;
+import com.joel.recipes.util.storage.FileSystemImageStorage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ImageProcessingServiceImplTest {
+    @Mock
+    RecipeImageRepository recipeImageRepository;
+    @Mock
+    TransactionTemplate transactionTemplate;
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+    @TempDir
+    Path root;
+    AutoCloseable autoCloseable;
+    FileSystemImageStorage imageStorage;
+    SimpleMeterRegistry meterRegistry;
+    ImageProcessingServiceImpl imageProcessingService;
+
+    final UUID imageId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        autoCloseable = MockitoAnnotations.openMocks(this);
+        imageStorage = new FileSystemImageStorage(root, "/images/", "/images/upload/", "signing-key");
+        meterRegistry = new SimpleMeterRegistry();
+        imageProcessingService = new ImageProcessingServiceImpl(recipeImageRepository, imageStorage, transactionTemplate, eventPublisher, meterRegistry,
+                new int[]{320, 640, 1280}, 1, 1, 50_000_000);
+        doAnswer(invocation -> {
+            invocation.getArgument(0, Consumer.class).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        imageProcessingService.shutdown();
+        autoCloseable.close();
+    }
+
+    @Test
+    void process_generatesNarrowerVariantsAndPlaceholder() throws IOException {
+        // Arrange
+        RecipeImage image = pendingImage("ab/abc.png");
+        UUID recipeId = UUID.randomUUID();
+        image.setRecipe(Recipe.builder().id(recipeId).build());
+        Path original = imageStorage.pathOf("ab/abc.png");
+        Files.createDirectories(original.getParent());
+        try (OutputStream out = Files.newOutputStream(original)) {
+            ImageIO.write(new BufferedImage(1000, 500, BufferedImage.TYPE_INT_RGB), "png", out);
+        }
+
+        // Act
+        imageProcessingService.process(imageId);
+
+        // Assert
+        assertThat(image.getProcessingStatus()).isEqualTo(ImageProcessingStatus.READY);
+        assertThat(image.getVariants()).extracting(ImageVariant::getWidth).containsExactly(320, 640);
+        assertThat(image.getVariants()).extracting(ImageVariant::getHeight).containsExactly(160, 320);
+        assertThat(image.getVariants()).allSatisfy(variant -> assertThat(imageStorage.exists(variant.getStorageKey())).isTrue());
+        assertThat(image.getPlaceholder()).startsWith("data:image/jpeg;base64,");
+        assertThat(meterRegistry.counter("images.processing.images", "outcome", "ready").count()).isEqualTo(1);
+        verify(eventPublisher).publishEvent(new RecipeImageChangedEvent(recipeId));
+        verify(eventPublisher, never()).publishEvent(any(RecipeSavedEvent.class));
+    }
+
+    @Test
+    void process_undecodableImage_markedUnsupported() throws IOException {
+        // Arrange
+        pendingImage("ab/abc.webp");
+        Path original = imageStorage.pathOf("ab/abc.webp");
+        Files.createDirectories(original.getParent());
+        Files.write(original, "RIFF\0\0\0\0WEBPVP8 ".getBytes());
+
+        // Act
+        imageProcessingService.process(imageId);
+
+        // Assert
+        verify(recipeImageRepository).updateProcessingStatus(imageId, ImageProcessingStatus.UNSUPPORTED);
+    }
+
+    @Test
+    void submit_queueFull_deferredToSweep() throws InterruptedException {
+        // Arrange
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        when(recipeImageRepository.findById(any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return Optional.empty();
+        });
+
+        // Act
+        boolean running = imageProcessingService.submit(UUID.randomUUID());
+        started.await();
+        boolean queued = imageProcessingService.submit(UUID.randomUUID());
+        boolean deferred = imageProcessingService.submit(UUID.randomUUID());
+        release.countDown();
+
+        // Assert
+        assertThat(running).isTrue();
+        assertThat(queued).isTrue();
+        assertThat(deferred).isFalse();
+        assertThat(meterRegistry.counter("images.processing.deferred").count()).isEqualTo(1);
+    }
+
+    RecipeImage pendingImage(String storageKey) {
+        RecipeImage image = RecipeImage.builder().id(imageId).storageKey(storageKey).processingStatus(ImageProcessingStatus.PENDING).build();
+        when(recipeImageRepository.findById(imageId)).thenReturn(Optional.of(image));
+        return image;
+    }
+}
@@ -0,0 +1,197 @@
+package com.joel.recipes.service;
+
+import com.joel.recipes.dto.ImageUploadSessionDto;
+import com.joel.recipes.dto.RecipeImageDto;
+import com.joel.recipes.exception.ImageTooLargeException;
+import com.joel.recipes.exception.NotRecipeCreatorException;
+import com.joel.recipes.exception.UnsupportedImageTypeException;
+import com.joel.recipes.model.ImageUploadSession;
+import com.joel.recipes.model.Recipe;
+import com.joel.recipes.model.RecipeImage;
+import com.joel.recipes.repository.ImageUploadSessionRepository;
+import com.joel.recipes.repository.RecipeImageRepository;
+import com.joel.recipes.repository.RecipeRepository;
+import com.joel.recipes.repository.UserEntityRepository;
+import com.joel.recipes.util.storage.FileSystemImageStorage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ImageServiceImplTest {
+    static final byte[] PNG_HEADER = {(byte) 0x89, 'P', 'N', 'G', 0x0d, 0x0a, 0x1a, 0x0a, 0, 0, 0, 0x0d};
+
+    @Mock
+    RecipeRepository recipeRepository;
+    @Mock
+    RecipeImageRepository recipeImageRepository;
+    @Mock
+    UserEntityRepository userEntityRepository;
+    @Mock
+    ImageUploadSessionRepository imageUploadSessionRepository;
+    @Mock
+    TransactionTemplate transactionTemplate;
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+    @TempDir
+    Path root;
+    AutoCloseable autoCloseable;
+    FileSystemImageStorage imageStorage;
+    ImageServiceImpl imageService;
+
+    final UUID userId = UUID.randomUUID();
+    final UUID recipeId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        autoCloseable = MockitoAnnotations.openMocks(this);
+        imageStorage = new FileSystemImageStorage(root, "/images/", "/images/upload/", "signing-key");
+        imageService = new ImageServiceImpl(recipeRepository, recipeImageRepository, userEntityRepository, imageUploadSessionRepository, imageStorage, transactionTemplate, eventPublisher, 100_000, 900);
+        when(recipeRepository.existsByIdAndCreatorId(recipeId, userId)).thenReturn(true);
+        when(recipeRepository.findById(recipeId)).thenReturn(Optional.of(Recipe.builder().id(recipeId).build()));
+        when(imageUploadSessionRepository.save(any())).thenAnswer(invocation -> {
+            ImageUploadSession session = invocation.getArgument(0, ImageUploadSession.class);
+            session.setId(UUID.randomUUID());
+            return session;
+        });
+        when(recipeImageRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0, RecipeImage.class));
+        when(transactionTemplate.execute(any())).thenAnswer(invocation -> invocation.getArgument(0, TransactionCallback.class).doInTransaction(null));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        autoCloseable.close();
+    }
+
+    @Test
+    void uploadImage_sameContentTwice_storedOnce() throws Exception {
+        // Arrange
+        byte[] image = png(20_000);
+
+        // Act
+        RecipeImageDto first = imageService.uploadImage(userId, recipeId, new ByteArrayInputStream(image), image.length);
+        RecipeImageDto second = imageService.uploadImage(userId, recipeId, new ByteArrayInputStream(image), -1);
+
+        // Assert
+        assertThat(first.contentType()).isEqualTo("image/png");
+        assertThat(first.sizeInBytes()).isEqualTo(image.length);
+        assertThat(second.url()).isEqualTo(first.url()).startsWith("/images/").endsWith(first.contentHash() + ".png");
+        assertThat(storedFiles()).hasSize(1);
+    }
+
+    @Test
+    void uploadImage_notAnImage_rejectedAndNothingStored() throws IOException {
+        // Arrange
+        byte[] text = "<html><body>not an image</body></html>".getBytes();
+
+        // Act and assert
+        assertThatExceptionOfType(UnsupportedImageTypeException.class)
+                .isThrownBy(() -> imageService.uploadImage(userId, recipeId, new ByteArrayInputStream(text), text.length));
+        assertThat(storedFiles()).isEmpty();
+    }
+
+    @Test
+    void uploadImage_tooLargeWithoutContentLength_stoppedMidStream() throws IOException {
+        // Arrange
+        byte[] image = png(500_000);
+
+        // Act and assert
+        assertThatExceptionOfType(ImageTooLargeException.class)
+                .isThrownBy(() -> imageService.uploadImage(userId, recipeId, new ByteArrayInputStream(image), -1));
+        assertThat(storedFiles()).isEmpty();
+    }
+
+    @Test
+    void uploadImage_notCreator_exceptionIsThrown() {
+        // Arrange
+        UUID otherUserId = UUID.randomUUID();
+        when(recipeRepository.existsById(recipeId)).thenReturn(true);
+
+        // Act and assert
+        assertThatExceptionOfType(NotRecipeCreatorException.class)
+                .isThrownBy(() -> imageService.uploadImage(otherUserId, recipeId, new ByteArrayInputStream(png(100)), -1));
+    }
+
+    @Test
+    void completeUpload_imageUploadedWithSignedUrl_storedUnderItsHash() throws Exception {
+        // Arrange
+        byte[] image = png(20_000);
+        ImageUploadSessionDto session = startUploadSession();
+        upload(session, image);
+
+        // Act
+        RecipeImageDto completed = imageService.completeUpload(userId, recipeId, session.id());
+
+        // Assert
+        assertThat(completed.sizeInBytes()).isEqualTo(image.length);
+        assertThat(completed.url()).endsWith(completed.contentHash() + ".png");
+        assertThat(storedFiles()).hasSize(1);
+        verify(imageUploadSessionRepository).delete(any());
+    }
+
+    @Test
+    void completeUpload_notAnImage_rejectedAndUploadDiscarded() throws Exception {
+        // Arrange
+        ImageUploadSessionDto session = startUploadSession();
+        upload(session, "<html><body>not an image</body></html>".getBytes());
+
+        // Act and assert
+        assertThatExceptionOfType(UnsupportedImageTypeException.class)
+                .isThrownBy(() -> imageService.completeUpload(userId, recipeId, session.id()));
+        assertThat(storedFiles()).isEmpty();
+    }
+
+    ImageUploadSessionDto startUploadSession() throws Exception {
+        ImageUploadSessionDto session = imageService.startUpload(userId, recipeId);
+        when(imageUploadSessionRepository.findByIdAndRecipeIdAndUserId(session.id(), recipeId, userId))
+                .thenReturn(Optional.of(new ImageUploadSession(session.id(), recipeId, userId, session.expirationDate())));
+        return session;
+    }
+
+    // What ImageFileController does with a PUT to the signed URL
+    void upload(ImageUploadSessionDto session, byte[] content) throws Exception {
+        String query = URI.create(session.uploadUrl()).getQuery();
+        long expires = Long.parseLong(query.substring(query.indexOf("expires=") + 8, query.indexOf('&')));
+        String signature = query.substring(query.indexOf("signature=") + 10);
+        assertThat(expires).isGreaterThan(Instant.now().getEpochSecond());
+        imageStorage.receiveUpload(session.id(), expires, signature, new ByteArrayInputStream(content), 100_000);
+    }
+
+    static byte[] png(int size) {
+        byte[] image = Arrays.copyOf(PNG_HEADER, size);
+        for (int i = PNG_HEADER.length; i < size; i++) {
+            image[i] = (byte) i;
+        }
+        return image;
+    }
+
+    // Every file under the root, staged or committed
+    List<Path> storedFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            return files.filter(Files::isRegularFile).toList();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.joel.recipes.service;
+
+import com.joel.recipes.config.security.JWTTokenService;
+import com.joel.recipes.config.security.ResolvedUserAuthenticationProvider;
+import com.joel.recipes.model.AccountStatus;
+import com.joel.recipes.model.AuthenticatedUserEntity;
+import com.joel.recipes.model.RefreshToken;
+import com.joel.recipes.model.Role;
+import com.joel.recipes.model.RoleType;
+import com.joel.recipes.model.UserEntity;
+import com.joel.recipes.repository.RefreshTokenRepository;
+import com.joel.recipes.util.UserEntityMapper;
+import com.joel.recipes.util.dictionary.TermDictionary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/*
+    Locks in how many statements a login takes: one select for the user with their roles, and one insert for the
+    refresh token. Minting the JWT is done in memory
+ */
+@DataJpaTest(properties = {"spring.jpa.properties.hibernate.generate_statistics=true", "refresh-token-lifespan-in-days=1", "refresh-token.index.maximum-size=100",
+        "refresh-token.revocation-poll-interval-in-ms=5000", "refresh-token.sweep-interval-in-ms=300000"})
+@Import({TermDictionary.class, UserEntityServiceImpl.class, RefreshTokenServiceImpl.class, LoginStatementCountTest.AuthenticationConfig.class})
+class LoginStatementCountTest {
+    static final String PASSWORD = "#Password123";
+
+    @Autowired
+    UserEntityService userEntityService;
+    @Autowired
+    RefreshTokenRepository refreshTokenRepository;
+    @Autowired
+    PasswordEncoder passwordEncoder;
+    @Autowired
+    TestEntityManager testEntityManager;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+    @MockBean
+    JWTTokenService jwtTokenService;
+    @MockBean
+    EmailService emailService;
+    @MockBean
+    UserEntityMapper userEntityMapper;
+
+    Statistics statistics;
+    UserEntity userEntity;
+
+    @TestConfiguration
+    static class AuthenticationConfig {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        PasswordEncoder passwordEncoder() {
+            return new BCryptPasswordEncoder(4);
+        }
+
+        // The same provider SecurityConfig.restApiAuthenticationManager sets up
+        @Bean
+        AuthenticationManager authenticationManager(@Lazy UserEntityService userEntityService, PasswordEncoder passwordEncoder) {
+            return new ProviderManager(new ResolvedUserAuthenticationProvider(userEntityService, userEntityService, passwordEncoder));
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        Role role = testEntityManager.persist(new Role(null, RoleType.USER.name()));
+        userEntity = testEntityManager.persist(UserEntity.builder()
+                .firstname("John")
+                .lastname("Smith")
+                .username("john123")
+                .password(passwordEncoder.encode(PASSWORD))
+                .email("john@example.com")
+                .isEmailVerified(true)
+                .authorities(Set.of(role))
+                .accountStatus(AccountStatus.ACTIVE)
+                .build());
+        testEntityManager.flush();
+        testEntityManager.clear();
+
+        when(jwtTokenService.generateJwt(any(), any())).thenReturn("jwt");
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void loginUser_withUsername_oneSelectAndOneInsert() throws Exception {
+        // Act
+        AuthenticatedUserEntity authenticatedUserEntity = userEntityService.loginUser("john123", PASSWORD);
+        testEntityManager.flush();
+
+        // Assert
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(1);
+        assertThat(statistics.getEntityUpdateCount()).isZero();
+        RefreshToken refreshToken = refreshTokenRepository.findByTokenHash(RefreshTokenServiceImpl.hashOf(authenticatedUserEntity.refreshToken())).orElseThrow();
+        assertThat(refreshToken.getUserEntity().getId()).isEqualTo(userEntity.getId());
+    }
+
+    @Test
+    void loginUser_withEmail_oneSelectAndOneInsert() throws Exception {
+        // Act
+        userEntityService.loginUser("john@example.com", PASSWORD);
+        testEntityManager.flush();
+
+        // Assert
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void loginUser_incorrectPassword_onlySelect() {
+        // Act and assert
+        assertThatExceptionOfType(BadCredentialsException.class).isThrownBy(() -> userEntityService.loginUser("john123", "#Password321"));
+        testEntityManager.flush();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,142 @@
+package com.joel.recipes.service;
+
+import com.joel.recipes.model.AccountStatus;
+import com.joel.recipes.model.ImageProcessingStatus;
+import com.joel.recipes.model.ImageVariant;
+import com.joel.recipes.model.Recipe;
+import com.joel.recipes.model.RecipeImage;
+import com.joel.recipes.model.UserEntity;
+import com.joel.recipes.repository.RecipeImageRepository;
+import com.joel.recipes.repository.RecipeRepository;
+import com.joel.recipes.repository.UserEntityRepository;
+import com.joel.recipes.util.dictionary.TermDictionary;
+import com.joel.recipes.util.storage.FileSystemImageStorage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Commits for real, so that the foreign keys are checked and the stored objects are deleted after commit
+@DataJpaTest(properties = {"recipes.cache.maximum-size-in-bytes=1048576", "images.upload.max-size-in-bytes=100000",
+        "images.upload.session-lifespan-in-seconds=900", "images.upload.sweep-interval-in-ms=60000"})
+@Import({TermDictionary.class, RecipeServiceImpl.class, ImageServiceImpl.class, RecipeDeletionTest.StorageConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RecipeDeletionTest {
+    static final String STORAGE_KEY = "ab/abcdef.png";
+    static final String VARIANT_STORAGE_KEY = "ab/abcdef-w320.webp";
+
+    @Autowired
+    RecipeService recipeService;
+    @Autowired
+    RecipeRepository recipeRepository;
+    @Autowired
+    RecipeImageRepository recipeImageRepository;
+    @Autowired
+    UserEntityRepository userEntityRepository;
+    @Autowired
+    FileSystemImageStorage imageStorage;
+    @Autowired
+    TermDictionary termDictionary;
+
+    UserEntity creator;
+
+    @TestConfiguration
+    static class StorageConfig {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        FileSystemImageStorage imageStorage() throws IOException {
+            return new FileSystemImageStorage(Files.createTempDirectory("images"), "/images/", "/images/upload/", "signing-key");
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        creator = userEntityRepository.save(UserEntity.builder()
+                .username("john123")
+                .email("john@example.com")
+                .accountStatus(AccountStatus.ACTIVE)
+                .build());
+        termDictionary.register(List.of("pasta"));
+        store(STORAGE_KEY);
+        store(VARIANT_STORAGE_KEY);
+    }
+
+    @AfterEach
+    void tearDown() {
+        recipeRepository.findAll().forEach(recipe -> recipeService.deleteRecipeById(recipe.getId()));
+        userEntityRepository.deleteAll();
+    }
+
+    @Test
+    void deleteRecipeById_withImage_imageRowsAndStoredObjectsDeleted() {
+        // Arrange
+        Recipe recipe = recipeWithImage("Pasta");
+
+        // Act
+        recipeService.deleteRecipeById(recipe.getId());
+
+        // Assert
+        assertThat(recipeRepository.existsById(recipe.getId())).isFalse();
+        assertThat(recipeImageRepository.count()).isZero();
+        assertThat(imageStorage.exists(STORAGE_KEY)).isFalse();
+        assertThat(imageStorage.exists(VARIANT_STORAGE_KEY)).isFalse();
+    }
+
+    @Test
+    void deleteRecipeById_imageSharedWithAnotherRecipe_storedObjectsKept() {
+        // Arrange
+        Recipe recipe = recipeWithImage("Pasta");
+        Recipe other = recipeWithImage("Same picture, different pasta");
+
+        // Act
+        recipeService.deleteRecipeById(recipe.getId());
+
+        // Assert
+        assertThat(recipeImageRepository.findByRecipeId(other.getId())).hasSize(1);
+        assertThat(imageStorage.exists(STORAGE_KEY)).isTrue();
+        assertThat(imageStorage.exists(VARIANT_STORAGE_KEY)).isTrue();
+    }
+
+    Recipe recipeWithImage(String title) {
+        Recipe recipe = recipeRepository.save(Recipe.builder()
+                .title(title)
+                .creator(creator)
+                .ingredients(Set.of("pasta"))
+                .build());
+        RecipeImage image = recipeImageRepository.save(RecipeImage.builder()
+                .recipe(recipe)
+                .url(imageStorage.urlOf(STORAGE_KEY))
+                .storageKey(STORAGE_KEY)
+                .processingStatus(ImageProcessingStatus.READY)
+                .variants(List.of(new ImageVariant(320, 240, VARIANT_STORAGE_KEY, imageStorage.urlOf(VARIANT_STORAGE_KEY), "image/webp")))
+                .build());
+        recipe.setImage(image);
+        return recipeRepository.save(recipe);
+    }
+
+    void store(String key) throws IOException {
+        Path path = imageStorage.pathOf(key);
+        Files.createDirectories(path.getParent());
+        Files.write(path, new byte[]{1, 2, 3});
+    }
+}
@@ -0,0 +1,152 @@
+package com.joel.recipes.service;
+
+import com.joel.recipes.dto.RecipeDetailsDto;
+import com.joel.recipes.dto.RecipeTermDto;
+import com.joel.recipes.event.RecipeDeletedEvent;
+import com.joel.recipes.event.RecipeSavedEvent;
+import com.joel.recipes.exception.RecipeDoesNotExistException;
+import com.joel.recipes.model.Recipe;
+import com.joel.recipes.model.RecipeDocument;
+import com.joel.recipes.repository.RecipeCommentRepository;
+import com.joel.recipes.repository.RecipeImageRepository;
+import com.joel.recipes.repository.RecipeRepository;
+import com.joel.recipes.util.dictionary.TermDictionary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.Mockito.*;
+
+class RecipeServiceImplTest {
+
+    @Mock
+    RecipeRepository recipeRepository;
+    @Mock
+    RecipeCommentRepository recipeCommentRepository;
+    @Mock
+    RecipeImageRepository recipeImageRepository;
+    @Mock
+    TermDictionary termDictionary;
+    @Mock
+    TransactionTemplate transactionTemplate;
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+    AutoCloseable autoCloseable;
+    SimpleMeterRegistry meterRegistry;
+    RecipeServiceImpl recipeService;
+
+    final UUID recipeId = UUID.randomUUID();
+    Recipe recipe;
+
+    @BeforeEach
+    void setUp() {
+        autoCloseable = MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        recipeService = new RecipeServiceImpl(recipeRepository, recipeCommentRepository, recipeImageRepository, termDictionary, transactionTemplate, eventPublisher, meterRegistry, 1024 * 1024);
+        recipe = Recipe.builder().id(recipeId).title("Pasta").ingredients(Set.of("pasta", "garlic")).tags(Set.of()).build();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        autoCloseable.close();
+    }
+
+    @Test
+    void getRecipeById_secondCall_isServedFromCache() throws RecipeDoesNotExistException {
+        // Arrange
+        when(recipeRepository.findRecipeDetailsById(recipeId)).thenReturn(Optional.of(recipe));
+
+        // Act
+        RecipeDetailsDto first = recipeService.getRecipeById(recipeId);
+        RecipeDetailsDto second = recipeService.getRecipeById(recipeId);
+
+        // Assert
+        assertThat(second).isSameAs(first);
+        assertThat(second.ingredients()).containsExactlyInAnyOrder("pasta", "garlic");
+        verify(recipeRepository, times(1)).findRecipeDetailsById(recipeId);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void getRecipeById_afterUpdateOrDelete_isReloaded() throws RecipeDoesNotExistException {
+        // Arrange
+        when(recipeRepository.findRecipeDetailsById(recipeId)).thenReturn(Optional.of(recipe));
+        recipeService.getRecipeById(recipeId);
+
+        // Act
+        recipe.setTitle("Better pasta");
+        recipeService.onRecipeSaved(new RecipeSavedEvent(RecipeDocument.from(recipe)));
+        String titleAfterUpdate = recipeService.getRecipeById(recipeId).title();
+        when(recipeRepository.findRecipeDetailsById(recipeId)).thenReturn(Optional.empty());
+        recipeService.onRecipeDeleted(new RecipeDeletedEvent(recipeId));
+
+        // Assert
+        assertThat(titleAfterUpdate).isEqualTo("Better pasta");
+        assertThatExceptionOfType(RecipeDoesNotExistException.class).isThrownBy(() -> recipeService.getRecipeById(recipeId));
+    }
+
+    @Test
+    void getRecipeById_concurrentMisses_loadOnce() throws Exception {
+        // Arrange
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(recipeRepository.findRecipeDetailsById(recipeId)).thenAnswer(invocation -> {
+            loading.countDown();
+            release.await();
+            return Optional.of(recipe);
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // Act
+        List<Future<RecipeDetailsDto>> results = new ArrayList<>();
+        results.add(executor.submit(() -> recipeService.getRecipeById(recipeId)));
+        loading.await();
+        for (int i = 0; i < 7; i++) {
+            results.add(executor.submit(() -> recipeService.getRecipeById(recipeId)));
+        }
+        Thread.sleep(100);
+        release.countDown();
+
+        // Assert
+        for (Future<RecipeDetailsDto> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS).title()).isEqualTo("Pasta");
+        }
+        verify(recipeRepository, times(1)).findRecipeDetailsById(recipeId);
+        executor.shutdown();
+    }
+
+    @Test
+    void findRecipeDocuments_chunk_termsLoadedForWholeChunk() {
+        // Arrange
+        UUID otherRecipeId = UUID.randomUUID();
+        List<UUID> ids = List.of(recipeId, otherRecipeId);
+        when(recipeRepository.findRecipeDocumentsAfter(eq(recipeId), any(Limit.class))).thenReturn(List.of(
+                new RecipeDocument(recipeId, "Pasta", null, null, null, null, null),
+                new RecipeDocument(otherRecipeId, "Soup", null, null, null, null, null)));
+        when(recipeRepository.findIngredientsByRecipeIds(ids)).thenReturn(List.of(new RecipeTermDto(recipeId, "pasta"), new RecipeTermDto(recipeId, "garlic")));
+        when(recipeRepository.findTagsByRecipeIds(ids)).thenReturn(List.of(new RecipeTermDto(otherRecipeId, "soup")));
+
+        // Act
+        List<RecipeDocument> documents = recipeService.findRecipeDocuments(recipeId, 2);
+
+        // Assert
+        assertThat(documents).extracting(RecipeDocument::ingredients).containsExactly(Set.of("pasta", "garlic"), Set.of());
+        assertThat(documents).extracting(RecipeDocument::tags).containsExactly(Set.of(), Set.of("soup"));
+    }
+}
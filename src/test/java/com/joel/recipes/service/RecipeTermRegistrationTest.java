@@ -0,0 +1,72 @@
+package com.joel.recipes.service;
+
+import com.joel.recipes.model.Recipe;
+import com.joel.recipes.repository.RecipeRepository;
+import com.joel.recipes.util.dictionary.TermDictionary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+    Saves recipes with new terms through a pool of one connection. Registering a term while the recipe's
+    transaction holds that connection would wait for a second one until the pool timed out
+ */
+@DataJpaTest(properties = {"spring.datasource.url=jdbc:h2:mem:single-connection;DB_CLOSE_DELAY=-1", "spring.datasource.hikari.maximum-pool-size=1",
+        "spring.datasource.hikari.connection-timeout=1000", "recipes.cache.maximum-size-in-bytes=1048576"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({TermDictionary.class, RecipeServiceImpl.class, RecipeTermRegistrationTest.MetricsConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RecipeTermRegistrationTest {
+    @Autowired
+    RecipeService recipeService;
+    @Autowired
+    RecipeRepository recipeRepository;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @TestConfiguration
+    static class MetricsConfig {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Test
+    void addRecipeAndUpdateRecipe_newTerms_savedWithOneConnection() {
+        // Arrange
+        Recipe recipe = recipeService.addRecipe(Recipe.builder()
+                .title("Shakshuka")
+                .ingredients(new HashSet<>(Set.of("Eggs", "Harissa")))
+                .tags(new HashSet<>(Set.of("Breakfast")))
+                .build());
+
+        // Act
+        recipe.getTags().add("Sumac  Sprinkled");
+        recipeService.updateRecipe(recipe);
+
+        // Assert
+        Recipe loaded = transactionTemplate.execute(status -> {
+            Recipe found = recipeRepository.findById(recipe.getId()).orElseThrow();
+            found.getIngredients().size();
+            found.getTags().size();
+            return found;
+        });
+        assertThat(loaded.getIngredients()).containsExactlyInAnyOrder("eggs", "harissa");
+        assertThat(loaded.getTags()).containsExactlyInAnyOrder("breakfast", "sumac sprinkled");
+    }
+}
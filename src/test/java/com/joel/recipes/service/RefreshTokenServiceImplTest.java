@@ -0,0 +1,217 @@
+package com.joel.recipes.service;
+
+import com.joel.recipes.event.RefreshTokensRevokedEvent;
+import com.joel.recipes.exception.ExpiredRefreshTokenException;
+import com.joel.recipes.exception.RefreshTokenNotFoundException;
+import com.joel.recipes.model.AccountStatus;
+import com.joel.recipes.model.RefreshToken;
+import com.joel.recipes.model.RefreshTokenOwner;
+import com.joel.recipes.model.Role;
+import com.joel.recipes.model.RoleType;
+import com.joel.recipes.model.UserEntity;
+import com.joel.recipes.repository.RefreshTokenRepository;
+import com.joel.recipes.repository.RoleRepository;
+import com.joel.recipes.repository.UserEntityRepository;
+import com.joel.recipes.util.dictionary.TermDictionary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Two services over the same database stand for two instances of the application, or one before and after a restart
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import(TermDictionary.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RefreshTokenServiceImplTest {
+    @Autowired
+    RefreshTokenRepository refreshTokenRepository;
+    @Autowired
+    UserEntityRepository userEntityRepository;
+    @Autowired
+    RoleRepository roleRepository;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    RefreshTokenServiceImpl instance;
+    RefreshTokenServiceImpl otherInstance;
+    UserEntity userEntity;
+    Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        instance = instanceOver(refreshTokenRepository);
+        otherInstance = instanceOver(refreshTokenRepository);
+
+        Role role = roleRepository.save(new Role(null, RoleType.USER.name()));
+        userEntity = userEntityRepository.save(UserEntity.builder()
+                .firstname("John")
+                .lastname("Smith")
+                .username("john123")
+                .password("#Password123")
+                .email("john@example.com")
+                .authorities(Set.of(role))
+                .accountStatus(AccountStatus.ACTIVE)
+                .build());
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        refreshTokenRepository.deleteAll();
+        userEntityRepository.deleteAll();
+        roleRepository.deleteAll();
+    }
+
+    @Test
+    void findRefreshTokenOwner_issuedByThisInstance_noStatements() throws Exception {
+        // Arrange
+        String refreshToken = instance.createRefreshToken(userEntity);
+        statistics.clear();
+
+        // Act
+        RefreshTokenOwner owner = instance.findRefreshTokenOwner(refreshToken);
+
+        // Assert
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(owner.userId()).isEqualTo(userEntity.getId());
+        assertThat(owner.username()).isEqualTo("john123");
+        assertThat(owner.authorities()).extracting("authority").containsExactly("USER");
+    }
+
+    @Test
+    void findRefreshTokenOwner_issuedByOtherInstance_loadedOnceThenFromIndex() throws Exception {
+        // Arrange
+        String refreshToken = otherInstance.createRefreshToken(userEntity);
+        statistics.clear();
+
+        // Act
+        RefreshTokenOwner loaded = instance.findRefreshTokenOwner(refreshToken);
+        long statementsToLoad = statistics.getPrepareStatementCount();
+        RefreshTokenOwner indexed = instance.findRefreshTokenOwner(refreshToken);
+
+        // Assert
+        assertThat(statementsToLoad).isEqualTo(1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(indexed).isEqualTo(loaded);
+        assertThat(refreshTokenRepository.findAll()).extracting(RefreshToken::getTokenHash).doesNotContain(refreshToken);
+    }
+
+    @Test
+    void findRefreshTokenOwner_revokedByOtherInstance_notFoundAfterPoll() throws Exception {
+        // Arrange
+        String refreshToken = instance.createRefreshToken(userEntity);
+        transactionTemplate.executeWithoutResult(status -> otherInstance.revokeRefreshTokens(userEntity.getId()));
+
+        // Act
+        instance.pollRevocations();
+
+        // Assert
+        assertThatExceptionOfType(RefreshTokenNotFoundException.class).isThrownBy(() -> instance.findRefreshTokenOwner(refreshToken));
+        assertThatExceptionOfType(RefreshTokenNotFoundException.class).isThrownBy(() -> otherInstance.findRefreshTokenOwner(refreshToken));
+    }
+
+    @Test
+    void findRefreshTokenOwner_expired_exceptionThrown() {
+        // Arrange
+        refreshTokenRepository.save(RefreshToken.builder()
+                .tokenHash(RefreshTokenServiceImpl.hashOf("21c11823-4e5c-4eb0-8ea3-5e67e42c1220"))
+                .expirationDate(Instant.now().minusSeconds(60))
+                .userEntity(userEntity)
+                .build());
+
+        // Act and assert
+        assertThatExceptionOfType(ExpiredRefreshTokenException.class).isThrownBy(() -> instance.findRefreshTokenOwner("21C11823-4E5C-4EB0-8EA3-5E67E42C1220"));
+    }
+
+    @Test
+    void findRefreshTokenOwner_revokedWhileLoading_notPutBack() throws Exception {
+        // Arrange
+        RefreshTokenRepository repository = mock(RefreshTokenRepository.class);
+        RefreshTokenServiceImpl racingInstance = instanceOver(repository);
+        String tokenHash = RefreshTokenServiceImpl.hashOf("21c11823-4e5c-4eb0-8ea3-5e67e42c1220");
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch revoked = new CountDownLatch(1);
+        RefreshToken readBeforeRevocation = RefreshToken.builder()
+                .tokenHash(tokenHash)
+                .expirationDate(Instant.now().plusSeconds(60))
+                .userEntity(userEntity)
+                .build();
+        when(repository.findWithOwnerByTokenHash(tokenHash)).thenAnswer(invocation -> {
+            loading.countDown();
+            revoked.await(5, TimeUnit.SECONDS);
+            return Optional.of(readBeforeRevocation);
+        }).thenReturn(Optional.empty());
+        when(repository.findTokenHashesByUserEntityId(userEntity.getId())).thenReturn(List.of(tokenHash));
+        when(repository.revokeByTokenHashIn(any(), any())).thenAnswer(invocation -> {
+            revoked.countDown();
+            return 1;
+        });
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        // Act
+        Future<RefreshTokenOwner> load = executor.submit(() -> racingInstance.findRefreshTokenOwner("21c11823-4e5c-4eb0-8ea3-5e67e42c1220"));
+        loading.await(5, TimeUnit.SECONDS);
+        racingInstance.revokeRefreshTokens(userEntity.getId());
+        load.get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        // Assert
+        assertThatExceptionOfType(RefreshTokenNotFoundException.class).isThrownBy(() -> racingInstance.findRefreshTokenOwner("21c11823-4e5c-4eb0-8ea3-5e67e42c1220"));
+    }
+
+    @Test
+    void deleteExpiredRefreshTokens_moreThanOneChunk_onlyExpiredDeleted() {
+        // Arrange
+        List<RefreshToken> refreshTokens = new ArrayList<>();
+        IntStream.range(0, 2500).forEach(i -> refreshTokens.add(RefreshToken.builder()
+                .tokenHash(RefreshTokenServiceImpl.hashOf("expired-" + i))
+                .expirationDate(Instant.now().minusSeconds(60))
+                .build()));
+        refreshTokenRepository.saveAll(refreshTokens);
+        String refreshToken = instance.createRefreshToken(userEntity);
+
+        // Act
+        instance.deleteExpiredRefreshTokens();
+
+        // Assert
+        assertThat(refreshTokenRepository.findAll()).extracting(RefreshToken::getTokenHash).containsExactly(RefreshTokenServiceImpl.hashOf(refreshToken));
+    }
+
+    // Delivers an instance's events to itself, as its application context would
+    RefreshTokenServiceImpl instanceOver(RefreshTokenRepository repository) {
+        RefreshTokenServiceImpl[] self = new RefreshTokenServiceImpl[1];
+        self[0] = new RefreshTokenServiceImpl(repository, transactionTemplate, event -> self[0].onRefreshTokensRevoked((RefreshTokensRevokedEvent) event),
+                new SimpleMeterRegistry(), 1, 100);
+        return self[0];
+    }
+}
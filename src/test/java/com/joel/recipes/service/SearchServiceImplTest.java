@@ -0,0 +1,145 @@
+package com.joel.recipes.service;
+
+import com.joel.recipes.dto.SearchResultDto;
+import com.joel.recipes.model.RecipeDocument;
+import com.joel.recipes.util.search.RecipeOrdinalRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SearchServiceImplTest {
+    final UUID teaId = UUID.randomUUID();
+    final UUID soupId = UUID.randomUUID();
+
+    @Mock
+    RecipeService recipeService;
+    AutoCloseable autoCloseable;
+    SearchServiceImpl searchService;
+    @TempDir
+    Path snapshotDirectory;
+
+    @BeforeEach
+    void setUp() {
+        autoCloseable = MockitoAnnotations.openMocks(this);
+        searchService = new SearchServiceImpl(recipeService, new RecipeOrdinalRegistry());
+        ReflectionTestUtils.setField(searchService, "typeaheadTopK", 10);
+
+        searchService.indexRecipe(new RecipeDocument(teaId, "Milky tea", "A warm cup", null, Set.of("tea", "milk"), Set.of("drink"), null, null, null));
+        searchService.indexRecipe(new RecipeDocument(soupId, "Pumpkin soup", "Silky and smooth", "Blend until silky", Set.of("pumpkin", "cream"), Set.of("soup"), null, null, null));
+        searchService.rebuildSuggestions();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        autoCloseable.close();
+    }
+
+    @Test
+    void search_wordOnlyInDescriptions_notCorrected() {
+        // Act and assert
+        assertThat(searchService.search("silky", 10)).extracting(SearchResultDto::id).containsExactly(soupId);
+        assertThat(searchService.suggestSpelling("silky")).isEmpty();
+    }
+
+    @Test
+    void search_misspelledWord_findsCorrection() {
+        // Act and assert
+        assertThat(searchService.search("pumpkn", 10)).extracting(SearchResultDto::id).containsExactly(soupId);
+        assertThat(searchService.suggestSpelling("pumpkn soup")).contains("pumpkin soup");
+    }
+
+    @Test
+    void search_wordAddedAfterDictionaryRebuild_foundWithoutRebuild() {
+        // Arrange
+        UUID noodlesId = UUID.randomUUID();
+        searchService.indexRecipe(new RecipeDocument(noodlesId, "Soupy noodles", "Noodles in broth", null, Set.of("noodles"), Set.of(), null, null, null));
+
+        // Act and assert
+        assertThat(searchService.search("soupy", 10)).extracting(SearchResultDto::id).containsExactly(noodlesId);
+    }
+
+    @Test
+    void onApplicationEvent_snapshotAsLargeButRecipeEditedSince_rebuilt() {
+        // Arrange
+        writeSnapshot(document(teaId, "Milky tea", 1000), document(soupId, "Pumpkin soup", 2000));
+        when(recipeService.countRecipes()).thenReturn(2L);
+        when(recipeService.findLatestChange()).thenReturn(3000L);
+        when(recipeService.findRecipeDocuments(null, 100)).thenReturn(List.of(document(teaId, "Milky tea", 1000), document(soupId, "Carrot soup", 3000)));
+        SearchServiceImpl restarted = searchServiceWithSnapshot();
+
+        // Act
+        restarted.onApplicationEvent(null);
+
+        // Assert
+        assertThat(restarted.search("carrot", 10)).extracting(SearchResultDto::id).containsExactly(soupId);
+        assertThat(restarted.search("pumpkin", 10)).isEmpty();
+    }
+
+    @Test
+    void onApplicationEvent_snapshotCurrent_loadedWithoutRebuild() {
+        // Arrange
+        writeSnapshot(document(teaId, "Milky tea", 1000), document(soupId, "Pumpkin soup", 2000));
+        when(recipeService.countRecipes()).thenReturn(2L);
+        when(recipeService.findLatestChange()).thenReturn(2000L);
+        SearchServiceImpl restarted = searchServiceWithSnapshot();
+
+        // Act
+        restarted.onApplicationEvent(null);
+
+        // Assert
+        assertThat(restarted.search("pumpkin", 10)).extracting(SearchResultDto::id).containsExactly(soupId);
+        verify(recipeService, never()).findRecipeDocuments(any(), anyInt());
+    }
+
+    @Test
+    void rebuildIndex_failed_currentIndexKept() {
+        // Arrange
+        when(recipeService.findRecipeDocuments(any(), anyInt())).thenThrow(new IllegalStateException("Connection refused"));
+        ReflectionTestUtils.setField(searchService, "buildBatchSize", 100);
+
+        // Act
+        assertThatExceptionOfType(IllegalStateException.class).isThrownBy(() -> searchService.rebuildIndex());
+
+        // Assert
+        assertThat(searchService.search("pumpkin", 10)).extracting(SearchResultDto::id).containsExactly(soupId);
+    }
+
+    void writeSnapshot(RecipeDocument... documents) {
+        SearchServiceImpl running = searchServiceWithSnapshot();
+        for (RecipeDocument document : documents) {
+            running.indexRecipe(document);
+        }
+        running.snapshotOnShutdown();
+    }
+
+    SearchServiceImpl searchServiceWithSnapshot() {
+        SearchServiceImpl withSnapshot = new SearchServiceImpl(recipeService, new RecipeOrdinalRegistry());
+        ReflectionTestUtils.setField(withSnapshot, "typeaheadTopK", 10);
+        ReflectionTestUtils.setField(withSnapshot, "buildBatchSize", 100);
+        ReflectionTestUtils.setField(withSnapshot, "snapshotPath", snapshotDirectory.resolve("search-index.bin").toString());
+        ReflectionTestUtils.setField(withSnapshot, "buildOnStartup", true);
+        return withSnapshot;
+    }
+
+    static RecipeDocument document(UUID id, String title, long timeUpdated) {
+        return new RecipeDocument(id, title, null, null, Set.of(), Set.of(), null, new Timestamp(timeUpdated), new Timestamp(timeUpdated));
+    }
+}
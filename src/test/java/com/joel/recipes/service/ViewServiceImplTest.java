@@ -0,0 +1,94 @@
+package com.joel.recipes.service;
+
+import com.joel.recipes.model.RecipeViews;
+import com.joel.recipes.repository.RecipeRepository;
+import com.joel.recipes.repository.RecipeViewsRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class ViewServiceImplTest {
+
+    @Mock
+    RecipeViewsRepository recipeViewsRepository;
+    @Mock
+    RecipeRepository recipeRepository;
+    @Mock
+    PlatformTransactionManager transactionManager;
+    AutoCloseable autoCloseable;
+    ViewServiceImpl viewService;
+
+    final UUID recipeId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        autoCloseable = MockitoAnnotations.openMocks(this);
+        viewService = new ViewServiceImpl(recipeViewsRepository, recipeRepository, new TransactionTemplate(transactionManager), mock(ApplicationEventPublisher.class));
+        ReflectionTestUtils.setField(viewService, "flushBatchSize", 100);
+        when(recipeRepository.findExistingIds(anyCollection())).thenReturn(List.of(recipeId));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        autoCloseable.close();
+    }
+
+    @Test
+    void getViews_beforeFlush_includesPendingViews() {
+        // Arrange
+        UUID viewer = UUID.randomUUID();
+        when(recipeViewsRepository.findById(recipeId)).thenReturn(Optional.of(RecipeViews.builder().recipeId(recipeId).totalViews(10).build()));
+
+        // Act
+        viewService.recordView(recipeId, viewer);
+        viewService.recordView(recipeId, viewer);
+        viewService.recordView(recipeId, null);
+
+        // Assert
+        var views = viewService.getViews(recipeId);
+        assertThat(views.totalViews()).isEqualTo(13);
+        assertThat(views.uniqueViewers()).isEqualTo(1);
+        verify(recipeViewsRepository, never()).saveAll(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_addsPendingViewsToStoredRow() {
+        // Arrange
+        when(recipeViewsRepository.findAllForUpdate(anyCollection())).thenReturn(List.of(RecipeViews.builder().recipeId(recipeId).totalViews(10).build()));
+        viewService.recordView(recipeId, UUID.randomUUID());
+        viewService.recordView(recipeId, UUID.randomUUID());
+        viewService.recordView(UUID.randomUUID(), null);
+
+        // Act
+        viewService.flush();
+        viewService.flush();
+
+        // Assert
+        ArgumentCaptor<Iterable<RecipeViews>> saved = ArgumentCaptor.forClass(Iterable.class);
+        verify(recipeViewsRepository, times(1)).saveAll(saved.capture());
+        List<RecipeViews> rows = new ArrayList<>();
+        saved.getValue().forEach(rows::add);
+        assertThat(rows).singleElement().satisfies(row -> {
+            assertThat(row.getTotalViews()).isEqualTo(12);
+            assertThat(row.getUniqueViewers()).isNotNull();
+        });
+    }
+}
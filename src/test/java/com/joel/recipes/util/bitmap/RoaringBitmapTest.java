@@ -0,0 +1,73 @@
+package com.joel.recipes.util.bitmap;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RoaringBitmapTest {
+
+    @Test
+    void add_contains_remove() {
+        // Arrange
+        RoaringBitmap bitmap = RoaringBitmap.of(1, 70_000, 5);
+
+        // Act
+        bitmap.remove(5);
+
+        // Assert
+        assertThat(bitmap.contains(1)).isTrue();
+        assertThat(bitmap.contains(70_000)).isTrue();
+        assertThat(bitmap.contains(5)).isFalse();
+        assertThat(bitmap.toArray()).containsExactly(1, 70_000);
+    }
+
+    @Test
+    void add_moreThan4096ValuesInChunk_switchesToDenseContainerAndBack() {
+        // Arrange
+        RoaringBitmap bitmap = new RoaringBitmap();
+
+        // Act
+        for (int i = 0; i < 10_000; i++) bitmap.add(i * 2);
+        int denseCardinality = bitmap.cardinality();
+        for (int i = 0; i < 9_000; i++) bitmap.remove(i * 2);
+
+        // Assert
+        assertThat(denseCardinality).isEqualTo(10_000);
+        assertThat(bitmap.cardinality()).isEqualTo(1_000);
+        assertThat(bitmap.contains(19_998)).isTrue();
+        assertThat(bitmap.contains(0)).isFalse();
+    }
+
+    @Test
+    void and_or_andCardinality_matchBitSet() {
+        // Arrange
+        Random random = new Random(42);
+        RoaringBitmap a = new RoaringBitmap();
+        RoaringBitmap b = new RoaringBitmap();
+        BitSet expectedA = new BitSet();
+        BitSet expectedB = new BitSet();
+        for (int i = 0; i < 50_000; i++) {
+            int x = random.nextInt(300_000);
+            int y = random.nextInt(i % 2 == 0 ? 300_000 : 20_000);
+            a.add(x);
+            expectedA.set(x);
+            b.add(y);
+            expectedB.set(y);
+        }
+        BitSet expectedAnd = (BitSet) expectedA.clone();
+        expectedAnd.and(expectedB);
+        BitSet expectedOr = (BitSet) expectedA.clone();
+        expectedOr.or(expectedB);
+        BitSet expectedAndNot = (BitSet) expectedA.clone();
+        expectedAndNot.andNot(expectedB);
+
+        // Act and assert
+        assertThat(RoaringBitmap.and(a, b).toArray()).isEqualTo(expectedAnd.stream().toArray());
+        assertThat(RoaringBitmap.or(a, b).toArray()).isEqualTo(expectedOr.stream().toArray());
+        assertThat(RoaringBitmap.andNot(a, b).toArray()).isEqualTo(expectedAndNot.stream().toArray());
+        assertThat(RoaringBitmap.andCardinality(a, b)).isEqualTo(expectedAnd.cardinality());
+    }
+}
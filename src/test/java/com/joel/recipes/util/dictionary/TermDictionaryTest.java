@@ -0,0 +1,95 @@
+package com.joel.recipes.util.dictionary;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+// Terms are only ever added, so every test uses terms of its own rather than cleaning the table up
+@DataJpaTest
+@Import(TermDictionary.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TermDictionaryTest {
+    @Autowired
+    TermDictionary termDictionary;
+    @Autowired
+    DataSource dataSource;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    void canonicalize_differentSpellings_sameTerm() {
+        // Act and assert
+        assertThat(TermDictionary.canonicalize("  Olive \t Oil ")).isEqualTo("olive oil");
+        assertThat(TermDictionary.canonicalize(Set.of("Salt", "salt ", " ", "SALT"))).containsExactly("salt");
+        assertThat(TermDictionary.canonicalize((String) null)).isEmpty();
+    }
+
+    @Test
+    void idOf_registeredInAnotherSpelling_sameId() {
+        // Arrange
+        String term = "saffron " + UUID.randomUUID();
+        termDictionary.register(List.of(term));
+
+        // Act and assert
+        assertThat(termDictionary.idOf(" " + term.toUpperCase() + " ")).isEqualTo(termDictionary.idOf(term));
+        assertThat(termDictionary.nameOf(termDictionary.idOf(term))).isEqualTo(term);
+    }
+
+    @Test
+    void idOf_notRegistered_exceptionThrown() {
+        // Act and assert
+        assertThatExceptionOfType(IllegalStateException.class).isThrownBy(() -> termDictionary.idOf("unregistered " + UUID.randomUUID()));
+    }
+
+    // Each dictionary stands for an application instance; they race to insert the same new terms
+    @Test
+    void register_sameTermsFromSeveralInstancesAtOnce_oneRowPerTerm() throws Exception {
+        // Arrange
+        String prefix = UUID.randomUUID().toString();
+        List<String> terms = IntStream.range(0, 50).mapToObj(i -> prefix + " " + i).toList();
+        List<TermDictionary> instances = IntStream.range(0, 4).mapToObj(i -> new TermDictionary(dataSource, transactionManager)).toList();
+        ExecutorService executor = Executors.newFixedThreadPool(instances.size());
+        CountDownLatch start = new CountDownLatch(1);
+
+        // Act
+        List<Future<?>> registrations = new ArrayList<>();
+        for (TermDictionary instance : instances) {
+            registrations.add(executor.submit(() -> {
+                start.await();
+                instance.register(terms);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> registration : registrations) {
+            registration.get();
+        }
+        executor.shutdown();
+
+        // Assert
+        Integer rows = new JdbcTemplate(dataSource).queryForObject("select count(*) from term where name like ?", Integer.class, prefix + "%");
+        assertThat(rows).isEqualTo(terms.size());
+        for (String term : terms) {
+            assertThat(instances).extracting(instance -> instance.idOf(term)).containsOnly(instances.get(0).idOf(term));
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.joel.recipes.util.feed;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimelineTest {
+
+    @Test
+    void push_outOfOrderAndDuplicate_keptSortedOnce() {
+        // Arrange
+        Timeline timeline = new Timeline(10, Timeline.COMPLETE);
+
+        // Act
+        timeline.push(1, 100);
+        timeline.push(3, 300);
+        timeline.push(2, 200);
+        timeline.push(3, 300);
+
+        // Assert
+        assertThat(timeline.newest(10, entry -> true)).extracting(Timeline.Entry::ordinal).containsExactly(3, 2, 1);
+    }
+
+    @Test
+    void push_full_evictsOldestAndRaisesHorizon() {
+        // Arrange
+        Timeline timeline = new Timeline(20, Timeline.COMPLETE);
+
+        // Act
+        for (int i = 1; i <= 50; i++) {
+            timeline.push(i, i * 10L);
+        }
+        timeline.push(99, 15);
+
+        // Assert
+        assertThat(timeline.size()).isEqualTo(20);
+        assertThat(timeline.isComplete()).isFalse();
+        assertThat(timeline.horizon()).isEqualTo(300);
+        assertThat(timeline.newest(3, entry -> true)).extracting(Timeline.Entry::ordinal).containsExactly(50, 49, 48);
+    }
+
+    @Test
+    void newest_filter_skipsRejectedEntries() {
+        // Arrange
+        Timeline timeline = new Timeline(10, Timeline.COMPLETE);
+        for (int i = 1; i <= 5; i++) {
+            timeline.push(i, i);
+        }
+
+        // Act
+        List<Timeline.Entry> entries = timeline.newest(2, entry -> entry.timeAdded() < 4);
+
+        // Assert
+        assertThat(entries).extracting(Timeline.Entry::ordinal).containsExactly(3, 2);
+    }
+}
@@ -0,0 +1,49 @@
+package com.joel.recipes.util.importer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.joel.recipes.exception.InvalidImportedRecipeException;
+import com.joel.recipes.model.Recipe;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RecipeJsonMapperTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void toRecipe_schemaOrgRecipe_mapsFields() throws IOException, InvalidImportedRecipeException {
+        // Arrange
+        JsonNode node = objectMapper.readTree("""
+                {"@type": ["Recipe"], "name": " Soup ", "recipeIngredient": ["water", "salt", " "],
+                 "keywords": "quick, vegan", "recipeCuisine": "French", "totalTime": "PT20M",
+                 "datePublished": "2023-05-01",
+                 "recipeInstructions": [{"@type": "HowToSection", "itemListElement": [{"@type": "HowToStep", "text": "Boil"}]},
+                                        {"@type": "HowToStep", "text": "Season"}]}
+                """);
+
+        // Act
+        Recipe recipe = RecipeJsonMapper.toRecipe(node);
+
+        // Assert
+        assertThat(RecipeJsonMapper.isRecipe(node)).isTrue();
+        assertThat(recipe.getTitle()).isEqualTo("Soup");
+        assertThat(recipe.getIngredients()).containsExactly("water", "salt");
+        assertThat(recipe.getTags()).containsExactly("quick", "vegan", "French");
+        assertThat(recipe.getDirections()).isEqualTo("Boil\nSeason");
+        assertThat(recipe.getTimeRequired()).isEqualTo("PT20M");
+        assertThat(recipe.getTimeAdded().toInstant().toString()).isEqualTo("2023-05-01T00:00:00Z");
+    }
+
+    @Test
+    void toRecipe_missingTitle_throwsInvalidImportedRecipeException() throws IOException {
+        // Arrange
+        JsonNode node = objectMapper.readTree("{\"ingredients\": [\"water\"]}");
+
+        // Act and assert
+        assertThatThrownBy(() -> RecipeJsonMapper.toRecipe(node)).isInstanceOf(InvalidImportedRecipeException.class);
+    }
+}
@@ -0,0 +1,85 @@
+package com.joel.recipes.util.importer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RecipeJsonReaderTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void next_ndjson_readsEveryObject() throws IOException {
+        // Arrange
+        String json = """
+                {"title": "Soup"}
+                {"title": "Bread"}
+                """;
+
+        // Act
+        List<String> titles = readTitles(json);
+
+        // Assert
+        assertThat(titles).containsExactly("Soup", "Bread");
+    }
+
+    @Test
+    void next_array_readsEveryElement() throws IOException {
+        // Act
+        List<String> titles = readTitles("[{\"title\": \"Soup\"}, {\"title\": \"Bread\", \"tags\": [\"baking\"]}]");
+
+        // Assert
+        assertThat(titles).containsExactly("Soup", "Bread");
+    }
+
+    @Test
+    void next_jsonLdGraph_readsGraphAndSkipsFieldsAroundIt() throws IOException {
+        // Arrange
+        String json = """
+                {"@id": "page", "@graph": [
+                    {"@type": "Recipe", "name": "Soup"},
+                    {"@type": "Person", "name": "Joel"}
+                ], "@context": {"@vocab": "https://schema.org/"}}
+                """;
+
+        // Act
+        List<String> names = new ArrayList<>();
+        try (RecipeJsonReader reader = new RecipeJsonReader(objectMapper, new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)))) {
+            for (JsonNode node = reader.next(); Objects.nonNull(node); node = reader.next()) {
+                names.add(node.get("name").asText());
+            }
+        }
+
+        // Assert
+        assertThat(names).containsExactly("Soup", "Joel");
+    }
+
+    @Test
+    void next_malformedJson_throwsIOException() throws IOException {
+        // Arrange
+        RecipeJsonReader reader = new RecipeJsonReader(objectMapper, new ByteArrayInputStream("{\"title\": \"Soup\"} {\"title\": ".getBytes(StandardCharsets.UTF_8)));
+
+        // Act and assert
+        assertThat(reader.next()).isNotNull();
+        assertThatThrownBy(reader::next).isInstanceOf(IOException.class);
+    }
+
+    private List<String> readTitles(String json) throws IOException {
+        List<String> titles = new ArrayList<>();
+        try (RecipeJsonReader reader = new RecipeJsonReader(objectMapper, new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)))) {
+            for (JsonNode node = reader.next(); Objects.nonNull(node); node = reader.next()) {
+                titles.add(node.get("title").asText());
+            }
+        }
+        return titles;
+    }
+}
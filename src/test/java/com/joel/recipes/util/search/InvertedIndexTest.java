@@ -0,0 +1,99 @@
+package com.joel.recipes.util.search;
+
+import com.joel.recipes.model.RecipeDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InvertedIndexTest {
+
+    InvertedIndex index;
+    final UUID PASTA_ID = UUID.fromString("2c7f0a3c-1b6e-4b55-9a53-1d8c0e0f7a01");
+    final UUID SALAD_ID = UUID.fromString("2c7f0a3c-1b6e-4b55-9a53-1d8c0e0f7a02");
+    final UUID SOUP_ID = UUID.fromString("2c7f0a3c-1b6e-4b55-9a53-1d8c0e0f7a03");
+
+    @BeforeEach
+    void setUp() {
+        index = new InvertedIndex();
+        index.put(0, analyze(PASTA_ID, "Garlic Pasta", "Quick weeknight dinner", Set.of("spaghetti", "garlic", "olive oil"), Set.of("vegan")));
+        index.put(1, analyze(SALAD_ID, "Greek Salad", "Fresh and crunchy", Set.of("feta", "olive oil", "tomato"), Set.of("vegetarian")));
+        index.put(2, analyze(SOUP_ID, "Tomato Soup", "Roasted garlic and tomato", Set.of("tomato", "garlic", "stock"), Set.of("vegan")));
+    }
+
+    @Test
+    void search_termInTitle_ranksTitleMatchFirst() {
+        // Act
+        List<ScoredDocument> results = index.search(Tokenizer.tokenize("garlic"), 10);
+
+        // Assert
+        assertThat(results).extracting(ScoredDocument::id).containsExactly(PASTA_ID, SOUP_ID);
+    }
+
+    @Test
+    void search_accentsAndCase_areIgnored() {
+        // Act
+        List<ScoredDocument> results = index.search(Tokenizer.tokenize("TOMÀTO"), 10);
+
+        // Assert
+        assertThat(results).extracting(ScoredDocument::id).containsExactly(SOUP_ID, SALAD_ID);
+    }
+
+    @Test
+    void search_limit_isRespected() {
+        // Act
+        List<ScoredDocument> results = index.search(Tokenizer.tokenize("olive tomato garlic"), 1);
+
+        // Assert
+        assertThat(results).hasSize(1);
+    }
+
+    @Test
+    void put_existingOrdinal_replacesPreviousTerms() {
+        // Act
+        index.put(0, analyze(PASTA_ID, "Pesto Pasta", null, Set.of("basil"), Set.of()));
+
+        // Assert
+        assertThat(index.search(Tokenizer.tokenize("spaghetti"), 10)).isEmpty();
+        assertThat(index.search(Tokenizer.tokenize("basil"), 10)).extracting(ScoredDocument::id).containsExactly(PASTA_ID);
+        assertThat(index.documentCount()).isEqualTo(3);
+    }
+
+    @Test
+    void remove_documentNoLongerReturned() {
+        // Act
+        boolean removed = index.remove(2);
+
+        // Assert
+        assertThat(removed).isTrue();
+        assertThat(index.search(Tokenizer.tokenize("soup"), 10)).isEmpty();
+        assertThat(index.documentCount()).isEqualTo(2);
+    }
+
+    @Test
+    void writeTo_readFrom_roundTripsDocuments() throws IOException {
+        // Arrange
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        index.writeTo(new DataOutputStream(bytes));
+
+        // Act
+        List<AnalyzedDocument> documents = InvertedIndex.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        InvertedIndex restored = new InvertedIndex();
+        for (int i = 0; i < documents.size(); i++) {
+            restored.put(i, documents.get(i));
+        }
+
+        // Assert
+        assertThat(restored.documentCount()).isEqualTo(3);
+        assertThat(restored.search(Tokenizer.tokenize("garlic"), 10)).extracting(ScoredDocument::id).containsExactly(PASTA_ID, SOUP_ID);
+    }
+
+    private AnalyzedDocument analyze(UUID id, String title, String description, Set<String> ingredients, Set<String> tags) {
+        return RecipeAnalyzer.analyze(new RecipeDocument(id, title, description, null, ingredients, tags, null, null, null));
+    }
+}
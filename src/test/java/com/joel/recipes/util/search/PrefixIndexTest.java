@@ -0,0 +1,59 @@
+package com.joel.recipes.util.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PrefixIndexTest {
+
+    @Test
+    void complete_ranksByWeightThenText() {
+        // Arrange
+        PrefixIndex index = PrefixIndex.build(List.of(
+                new PrefixIndex.Suggestion("garlic", null, 40),
+                new PrefixIndex.Suggestion("garam masala", null, 5),
+                new PrefixIndex.Suggestion("Gärtner salad", null, 5),
+                new PrefixIndex.Suggestion("ginger", null, 100)
+        ), false, 10);
+
+        // Act
+        List<String> completions = index.complete("GA", 10).stream().map(PrefixIndex.Suggestion::text).toList();
+
+        // Assert
+        assertThat(completions).containsExactly("garlic", "garam masala", "Gärtner salad");
+    }
+
+    @Test
+    void complete_fromEachWord_findsLaterWordsOnce() {
+        // Arrange
+        UUID id = UUID.randomUUID();
+        PrefixIndex index = PrefixIndex.build(List.of(new PrefixIndex.Suggestion("Pasta with Garlic Pasta Sauce", id, 1)), true, 10);
+
+        // Act and assert
+        assertThat(index.complete("garl", 10)).extracting(PrefixIndex.Suggestion::recipeId).containsExactly(id);
+        assertThat(index.complete("pas", 10)).hasSize(1);
+        assertThat(index.complete("sauce ", 10)).isEmpty();
+    }
+
+    @Test
+    void complete_heavyPrefix_returnsSameAsScan() {
+        // Arrange
+        List<PrefixIndex.Suggestion> suggestions = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            suggestions.add(new PrefixIndex.Suggestion("salt " + i, null, i % 97));
+        }
+        PrefixIndex index = PrefixIndex.build(suggestions, false, 5);
+
+        // Act
+        List<PrefixIndex.Suggestion> completions = index.complete("s", 5);
+
+        // Assert
+        assertThat(completions).extracting(PrefixIndex.Suggestion::weight).containsOnly(96);
+        assertThat(completions).extracting(PrefixIndex.Suggestion::text).isSorted();
+        assertThat(index.complete("salt 1999", 5)).extracting(PrefixIndex.Suggestion::text).containsExactly("salt 1999");
+    }
+}
@@ -0,0 +1,80 @@
+package com.joel.recipes.util.search;
+
+import com.joel.recipes.model.RecipeDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class RebuildableIndexTest {
+    final UUID teaId = UUID.randomUUID();
+    final UUID soupId = UUID.randomUUID();
+
+    RecipeOrdinalRegistry ordinalRegistry;
+    // Titles by ordinal
+    RebuildableIndex<Map<Integer, String>> index;
+
+    @BeforeEach
+    void setUp() {
+        ordinalRegistry = new RecipeOrdinalRegistry();
+        index = new RebuildableIndex<>(new HashMap<>(), ordinalRegistry, new RebuildableIndex.Writer<>() {
+            @Override
+            public void put(Map<Integer, String> titles, int ordinal, RecipeDocument document) {
+                titles.put(ordinal, document.title());
+            }
+
+            @Override
+            public void remove(Map<Integer, String> titles, int ordinal) {
+                titles.remove(ordinal);
+            }
+        });
+        index.put(document(teaId, "Milky tea"));
+    }
+
+    @Test
+    void rebuild_writesDuringRebuild_replayedOntoNewIndex() {
+        // Act
+        index.rebuild(() -> {
+            Map<Integer, String> rebuilt = new HashMap<>(Map.of(ordinalRegistry.ordinalOf(teaId), "Milky tea"));
+            index.put(document(soupId, "Pumpkin soup"));
+            index.remove(teaId);
+            return rebuilt;
+        });
+
+        // Assert
+        assertThat(index.current()).containsExactly(Map.entry(ordinalRegistry.ordinalOf(soupId), "Pumpkin soup"));
+    }
+
+    @Test
+    void rebuild_buildReturnsNull_currentIndexKept() {
+        // Act
+        boolean swapped = index.rebuild(() -> null);
+
+        // Assert
+        assertThat(swapped).isFalse();
+        assertThat(index.current()).containsValue("Milky tea");
+    }
+
+    @Test
+    void rebuild_buildFails_writesNoLongerRecorded() {
+        // Act
+        assertThatExceptionOfType(IllegalStateException.class).isThrownBy(() -> index.rebuild(() -> {
+            throw new IllegalStateException("Connection refused");
+        }));
+        index.put(document(soupId, "Pumpkin soup"));
+
+        // Assert
+        assertThat(index).extracting("changesDuringRebuild").isNull();
+        assertThat(index.current()).containsValues("Milky tea", "Pumpkin soup");
+    }
+
+    static RecipeDocument document(UUID id, String title) {
+        return new RecipeDocument(id, title, null, null, Set.of(), Set.of(), null, null, null);
+    }
+}
@@ -0,0 +1,54 @@
+package com.joel.recipes.util.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SpellingDictionaryTest {
+
+    SpellingDictionary dictionary = SpellingDictionary.build(Map.of(
+            "parmesan", 120,
+            "broccoli", 80,
+            "broccolini", 3,
+            "garlic", 500,
+            "garlicky", 2,
+            "carrot", 90
+    ));
+
+    @Test
+    void lookup_commonMisspellings_findsTerm() {
+        // Act and assert
+        assertThat(dictionary.lookup("parmesean", 2)).extracting(SpellingDictionary.Correction::term).containsExactly("parmesan");
+        assertThat(dictionary.lookup("brocoli", 2)).extracting(SpellingDictionary.Correction::term).first().isEqualTo("broccoli");
+        assertThat(dictionary.lookup("garilc", 1)).extracting(SpellingDictionary.Correction::term).containsExactly("garlic");
+    }
+
+    @Test
+    void lookup_ordersByDistanceThenFrequency() {
+        // Act
+        List<SpellingDictionary.Correction> corrections = dictionary.lookup("garlicy", 2);
+
+        // Assert
+        assertThat(corrections).containsExactly(
+                new SpellingDictionary.Correction("garlic", 1, 500),
+                new SpellingDictionary.Correction("garlicky", 1, 2)
+        );
+    }
+
+    @Test
+    void lookup_beyondMaxDistance_findsNothing() {
+        // Act and assert
+        assertThat(dictionary.lookup("carot", 1)).extracting(SpellingDictionary.Correction::term).containsExactly("carrot");
+        assertThat(dictionary.lookup("kerot", 1)).isEmpty();
+    }
+
+    @Test
+    void distance_countsTranspositionAsOneEdit() {
+        // Act and assert
+        assertThat(SpellingDictionary.distance("garlic", "gralic", 2)).isEqualTo(1);
+        assertThat(SpellingDictionary.distance("garlic", "carrot", 2)).isEqualTo(3);
+    }
+}
@@ -0,0 +1,85 @@
+package com.joel.recipes.util.search;
+
+import com.joel.recipes.util.bitmap.RoaringBitmap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TermBitmapIndexTest {
+
+    TermBitmapIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new TermBitmapIndex();
+        index.put(0, Set.of("Spaghetti", "Garlic", "Olive  Oil"));
+        index.put(1, Set.of("feta", "olive oil", "tomato", "cucumber"));
+        index.put(2, Set.of("tomato", "garlic"));
+    }
+
+    @Test
+    void matchAll_returnsIntersection() {
+        // Act and assert
+        assertThat(index.matchAll(List.of("garlic", "tomato")).toArray()).containsExactly(2);
+        assertThat(index.matchAll(List.of("garlic", "saffron")).toArray()).isEmpty();
+    }
+
+    @Test
+    void matchAtLeast_fullyMakeable_onlyRecipesWithNoMissingIngredients() {
+        // Act
+        List<TermBitmapIndex.TermMatch> matches = index.matchAtLeast(Set.of("garlic", "tomato", "spaghetti"), 1, 0, 10);
+
+        // Assert
+        assertThat(matches).containsExactly(new TermBitmapIndex.TermMatch(2, 2, 0));
+    }
+
+    @Test
+    void matchAtLeast_rankedByMissingIngredients() {
+        // Act
+        List<TermBitmapIndex.TermMatch> matches = index.matchAtLeast(Set.of("olive oil", "garlic", "tomato"), 1, Integer.MAX_VALUE, 10);
+
+        // Assert
+        assertThat(matches).extracting(TermBitmapIndex.TermMatch::ordinal).containsExactly(2, 0, 1);
+        assertThat(matches.get(1).missing()).isEqualTo(1);
+        assertThat(matches.get(2).missing()).isEqualTo(2);
+    }
+
+    @Test
+    void put_existingOrdinal_replacesTerms() {
+        // Act
+        index.put(2, Set.of("basil"));
+
+        // Assert
+        assertThat(index.matchAll(List.of("tomato")).toArray()).containsExactly(1);
+        assertThat(index.termsOf(2)).containsExactly("basil");
+    }
+
+    @Test
+    void countTerms_withFilter_countsOnlyFilteredRecipes() {
+        // Act
+        List<TermBitmapIndex.TermCount> counts = index.countTerms(RoaringBitmap.of(1, 2), 10);
+
+        // Assert
+        assertThat(counts).containsExactly(
+                new TermBitmapIndex.TermCount("tomato", 2),
+                new TermBitmapIndex.TermCount("cucumber", 1),
+                new TermBitmapIndex.TermCount("feta", 1),
+                new TermBitmapIndex.TermCount("garlic", 1),
+                new TermBitmapIndex.TermCount("olive oil", 1));
+    }
+
+    @Test
+    void countTerms_withoutFilter_countsEveryRecipe() {
+        // Act
+        List<TermBitmapIndex.TermCount> counts = index.countTerms(null, 2);
+
+        // Assert
+        assertThat(counts).containsExactly(
+                new TermBitmapIndex.TermCount("garlic", 2),
+                new TermBitmapIndex.TermCount("olive oil", 2));
+    }
+}
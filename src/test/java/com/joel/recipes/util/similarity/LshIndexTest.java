@@ -0,0 +1,77 @@
+package com.joel.recipes.util.similarity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class LshIndexTest {
+
+    @Test
+    void similarTo_ranksCandidatesByExactJaccard() {
+        // Arrange
+        LshIndex index = new LshIndex(32, 4, 1);
+        index.put(0, LongStream.range(0, 20).toArray());
+        index.put(1, LongStream.range(0, 19).toArray());
+        index.put(2, LongStream.range(4, 24).toArray());
+        index.put(3, LongStream.range(100, 120).toArray());
+
+        // Act
+        List<LshIndex.Similar> similar = index.similarTo(0, 10);
+
+        // Assert
+        assertThat(similar).extracting(LshIndex.Similar::ordinal).containsExactly(1, 2);
+        assertThat(similar.get(0).similarity()).isEqualTo(19 / 20.0);
+        assertThat(similar.get(1).similarity()).isEqualTo(16 / 24.0);
+    }
+
+    @Test
+    void put_replacesPreviousFeatures() {
+        // Arrange
+        LshIndex index = new LshIndex(32, 4, 1);
+        index.put(0, LongStream.range(0, 20).toArray());
+        index.put(1, LongStream.range(0, 20).toArray());
+
+        // Act
+        index.put(1, LongStream.range(100, 120).toArray());
+
+        // Assert
+        assertThat(index.similarTo(0, 10)).isEmpty();
+        assertThat(index.size()).isEqualTo(2);
+    }
+
+    @Test
+    void remove_ordinalIsNoLongerSimilar() {
+        // Arrange
+        LshIndex index = new LshIndex(32, 4, 1);
+        index.put(0, LongStream.range(0, 20).toArray());
+        index.put(1, LongStream.range(0, 20).toArray());
+
+        // Act
+        index.remove(1);
+
+        // Assert
+        assertThat(index.similarTo(0, 10)).isEmpty();
+        assertThat(index.contains(1)).isFalse();
+    }
+
+    @Test
+    void signature_agreementEstimatesJaccard() {
+        // Arrange
+        MinHasher hasher = new MinHasher(512, 1);
+        int[] first = hasher.signature(LongStream.range(0, 100).map(MinHasher::mix).toArray());
+        int[] second = hasher.signature(LongStream.range(50, 150).map(MinHasher::mix).toArray());
+
+        // Act
+        int agreeing = 0;
+        for (int i = 0; i < first.length; i++) {
+            if (first[i] == second[i]) agreeing++;
+        }
+
+        // Assert
+        assertThat(agreeing / 512.0).isCloseTo(1 / 3.0, within(0.08));
+    }
+}
@@ -0,0 +1,53 @@
+package com.joel.recipes.util.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class HyperLogLogTest {
+
+    @Test
+    void estimate_smallCardinality_isExact() {
+        // Arrange
+        HyperLogLog sketch = new HyperLogLog();
+        UUID viewer = UUID.randomUUID();
+
+        // Act
+        for (int i = 0; i < 5; i++) sketch.add(viewer);
+        sketch.add(UUID.randomUUID());
+
+        // Assert
+        assertThat(sketch.estimate()).isEqualTo(2);
+    }
+
+    @Test
+    void estimate_largeCardinality_isWithinFivePercent() {
+        // Arrange
+        HyperLogLog sketch = new HyperLogLog();
+
+        // Act
+        for (long i = 0; i < 200_000; i++) sketch.add(new UUID(0, i));
+
+        // Assert
+        assertThat((double) sketch.estimate()).isCloseTo(200_000, within(10_000.0));
+    }
+
+    @Test
+    void merge_afterRoundTrip_countsUnion() {
+        // Arrange
+        HyperLogLog first = new HyperLogLog();
+        HyperLogLog second = new HyperLogLog();
+        for (long i = 0; i < 1_000; i++) first.add(new UUID(1, i));
+        for (long i = 500; i < 1_500; i++) second.add(new UUID(1, i));
+
+        // Act
+        HyperLogLog merged = HyperLogLog.fromBytes(first.toBytes());
+        merged.merge(second);
+
+        // Assert
+        assertThat((double) merged.estimate()).isCloseTo(1_500, within(50.0));
+    }
+}
@@ -0,0 +1,60 @@
+package com.joel.recipes.util.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlidingHeavyHittersTest {
+    static final long MINUTE = 60_000;
+
+    @Test
+    void top_ranksHeaviestKeysFirst() {
+        // Arrange
+        SlidingHeavyHitters heavyHitters = new SlidingHeavyHitters(6, 10 * MINUTE, 4, 1024, 10);
+        for (int key = 0; key < 1000; key++) {
+            heavyHitters.add(key, 1, 0);
+        }
+        heavyHitters.add(7, 50, 0);
+        heavyHitters.add(3, 30, 0);
+
+        // Act
+        List<SlidingHeavyHitters.Scored> top = heavyHitters.top(MINUTE, 0, 2, key -> true);
+
+        // Assert
+        assertThat(top).extracting(SlidingHeavyHitters.Scored::key).containsExactly(7, 3);
+        assertThat(top.get(0).score()).isGreaterThanOrEqualTo(51);
+    }
+
+    @Test
+    void top_halfLife_recentActivityOutranksOlder() {
+        // Arrange
+        SlidingHeavyHitters heavyHitters = new SlidingHeavyHitters(6, 10 * MINUTE, 4, 1024, 10);
+        heavyHitters.add(1, 10, 0);
+        heavyHitters.add(2, 6, 50 * MINUTE);
+
+        // Act
+        List<SlidingHeavyHitters.Scored> decayed = heavyHitters.top(55 * MINUTE, 10 * MINUTE, 2, key -> true);
+        List<SlidingHeavyHitters.Scored> undecayed = heavyHitters.top(55 * MINUTE, 0, 2, key -> true);
+
+        // Assert
+        assertThat(decayed).extracting(SlidingHeavyHitters.Scored::key).containsExactly(2, 1);
+        assertThat(undecayed).extracting(SlidingHeavyHitters.Scored::key).containsExactly(1, 2);
+    }
+
+    @Test
+    void top_outsideWindowOrFiltered_excluded() {
+        // Arrange
+        SlidingHeavyHitters heavyHitters = new SlidingHeavyHitters(6, 10 * MINUTE, 4, 1024, 10);
+        heavyHitters.add(1, 100, 0);
+        heavyHitters.add(2, 1, 65 * MINUTE);
+        heavyHitters.add(3, 1, 65 * MINUTE);
+
+        // Act
+        List<SlidingHeavyHitters.Scored> top = heavyHitters.top(65 * MINUTE, 0, 10, key -> key != 3);
+
+        // Assert
+        assertThat(top).extracting(SlidingHeavyHitters.Scored::key).containsExactly(2);
+    }
+}
@@ -0,0 +1,93 @@
+package com.joel.recipes.util.storage;
+
+import com.azure.storage.blob.BlobContainerClient;
+import com.azure.storage.blob.BlobServiceClient;
+import com.azure.storage.blob.BlobServiceClientBuilder;
+import com.azure.storage.blob.models.ListBlobsOptions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Needs Azurite on its default ports, e.g. docker run -p 10000:10000 mcr.microsoft.com/azure-storage/azurite
+@EnabledIfSystemProperty(named = "azurite", matches = "true")
+class AzureBlobImageStorageTest {
+    BlobServiceClient blobServiceClient;
+    String containerName;
+    AzureBlobImageStorage imageStorage;
+
+    @BeforeEach
+    void setUp() {
+        blobServiceClient = new BlobServiceClientBuilder().connectionString("UseDevelopmentStorage=true").buildClient();
+        containerName = "test-" + UUID.randomUUID();
+        imageStorage = new AzureBlobImageStorage(blobServiceClient, containerName);
+    }
+
+    @AfterEach
+    void tearDown() {
+        blobServiceClient.getBlobContainerClient(containerName).deleteIfExists();
+    }
+
+    @Test
+    void commit_sameKeyTwice_storedOnceAndStagingRemoved() throws IOException {
+        // Arrange
+        byte[] content = "image".getBytes(StandardCharsets.UTF_8);
+
+        // Act
+        for (int i = 0; i < 2; i++) {
+            try (ImageStorage.StagedImage staged = imageStorage.stage()) {
+                staged.outputStream().write(content);
+                staged.commit("ab/abc.png", "image/png");
+            }
+        }
+
+        // Assert
+        BlobContainerClient container = blobServiceClient.getBlobContainerClient(containerName);
+        assertThat(imageStorage.exists("ab/abc.png")).isTrue();
+        assertThat(container.getBlobClient("ab/abc.png").getProperties().getContentType()).isEqualTo("image/png");
+        assertThat(container.listBlobs(new ListBlobsOptions().setPrefix("staging/"), null)).isEmpty();
+    }
+
+    @Test
+    void close_withoutCommit_nothingStored() throws IOException {
+        // Act
+        try (ImageStorage.StagedImage staged = imageStorage.stage()) {
+            staged.outputStream().write(new byte[1024]);
+        }
+
+        // Assert
+        assertThat(blobServiceClient.getBlobContainerClient(containerName).listBlobs()).isEmpty();
+    }
+
+    @Test
+    void promoteUpload_uploadedWithSasUrl_movedToKey() throws Exception {
+        // Arrange
+        UUID uploadId = UUID.randomUUID();
+        byte[] content = "image".getBytes(StandardCharsets.UTF_8);
+        ImageStorage.UploadTarget target = imageStorage.uploadTargetOf(uploadId, Instant.now().plusSeconds(60));
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(target.url())).PUT(HttpRequest.BodyPublishers.ofByteArray(content));
+        target.headers().forEach(request::header);
+        int status = HttpClient.newHttpClient().send(request.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+
+        // Act
+        long size = imageStorage.uploadSizeOf(uploadId).orElseThrow();
+        imageStorage.promoteUpload(uploadId, "ab/abc.png", "image/png");
+
+        // Assert
+        assertThat(status).isEqualTo(201);
+        assertThat(size).isEqualTo(content.length);
+        assertThat(imageStorage.exists("ab/abc.png")).isTrue();
+        assertThat(imageStorage.uploadSizeOf(uploadId)).isEmpty();
+    }
+}